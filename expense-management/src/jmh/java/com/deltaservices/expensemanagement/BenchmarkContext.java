@@ -0,0 +1,63 @@
+package com.deltaservices.expensemanagement;
+
+import com.deltaservices.expensemanagement.service.CategoryRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server against a private in-memory H2
+ * database, with caching and SQL logging off so benchmarks measure the data path.
+ */
+public final class BenchmarkContext {
+
+    private static final String[] CATEGORIES = {"FOOD", "TRANSPORTATION", "ENTERTAINMENT", "UTILITIES", "OTHER"};
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(ExpenseManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cache.type=none",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * Inserts {@code rows} expenses with plain JDBC batches and moves the id sequence
+     * past them, which is far quicker than going through the service.
+     */
+    public static void seed(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        CategoryRegistry categoryRegistry = context.getBean(CategoryRegistry.class);
+        int[] categoryIds = new int[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            categoryIds[i] = categoryRegistry.findId(CATEGORIES[i]);
+        }
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{(long) i, "Expense " + i, 100L + i % 10_000,
+                    Date.valueOf(start.plusDays(i % 1_500)), categoryIds[i % categoryIds.length]});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate(
+                        "insert into expenses (id, description, amount_minor, date, category_id) values (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("alter sequence expenses_seq restart with " + (rows + 1));
+    }
+}
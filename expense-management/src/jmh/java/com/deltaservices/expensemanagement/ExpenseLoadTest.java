@@ -0,0 +1,125 @@
+package com.deltaservices.expensemanagement;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator: every client sends its next request as soon as the
+ * previous one completes. Run it against a started application once with and once
+ * without the virtual-threads profile to compare concurrent throughput.
+ *
+ * <p>Arguments: {@code baseUrl [clients=1000] [seconds=30] [writePercent=10]}
+ */
+public final class ExpenseLoadTest {
+
+    private final HttpClient httpClient;
+    private final URI listUri;
+    private final URI createUri;
+    private final int writePercent;
+    private final long deadline;
+    private final AtomicLong errors = new AtomicLong();
+
+    private ExpenseLoadTest(String baseUrl, int writePercent, long deadline) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.listUri = URI.create(baseUrl + "/api/expenses");
+        this.createUri = URI.create(baseUrl + "/api/expenses");
+        this.writePercent = writePercent;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8090";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        long start = System.nanoTime();
+        ExpenseLoadTest loadTest = new ExpenseLoadTest(baseUrl, writePercent, start + Duration.ofSeconds(seconds).toNanos());
+        List<Client> running = new ArrayList<>(clients);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            Client client = loadTest.new Client(done);
+            running.add(client);
+            client.next();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long[] latencies = running.stream().flatMapToLong(client -> Arrays.stream(client.latencies())).sorted().toArray();
+        System.out.printf("clients=%d duration=%.1fs requests=%d errors=%d throughput=%.0f req/s%n",
+                clients, elapsed, latencies.length, loadTest.errors.get(), latencies.length / elapsed);
+        if (latencies.length > 0) {
+            System.out.printf("latency ms: p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.95),
+                    percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))] / 1e6;
+    }
+
+    private HttpRequest nextRequest() {
+        if (ThreadLocalRandom.current().nextInt(100) < writePercent) {
+            String body = "{\"description\":\"Load test\",\"amount\":12.34,\"date\":\"" + LocalDate.now()
+                    + "\",\"category\":\"OTHER\"}";
+            return HttpRequest.newBuilder(createUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        return HttpRequest.newBuilder(listUri).GET().build();
+    }
+
+    private final class Client {
+
+        private final CountDownLatch done;
+        private long[] latencies = new long[256];
+        private int count;
+
+        private Client(CountDownLatch done) {
+            this.done = done;
+        }
+
+        private void next() {
+            if (System.nanoTime() >= deadline) {
+                done.countDown();
+                return;
+            }
+            long sent = System.nanoTime();
+            httpClient.sendAsync(nextRequest(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (failure != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        } else {
+                            record(System.nanoTime() - sent);
+                        }
+                        next();
+                    });
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        private long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes a list of expenses in each format the REST layer negotiates, with and
+ * without the gzip that Tomcat applies to larger responses. The encoded and gzipped
+ * sizes are printed once per trial, next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseSerializationBenchmark {
+
+    private static final TypeReference<List<ExpenseResponseDto>> EXPENSE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"50", "10000"})
+    private int size;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private List<ExpenseResponseDto> expenses;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same defaults as the ObjectMapper Spring Boot configures for the REST layer
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        objectMapper = builder.modulesToInstall(new MoneyModule()).build();
+
+        expenses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ExpenseResponseDto expense = new ExpenseResponseDto();
+            expense.setId((long) i);
+            expense.setDescription("Expense " + i);
+            expense.setAmount(Money.ofMinor(100 + i, Money.DEFAULT_CURRENCY));
+            expense.setCurrency(Money.DEFAULT_CURRENCY.getCurrencyCode());
+            expense.setDate(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            expense.setCategory("FOOD");
+            expense.setVersion(0L);
+            expenses.add(expense);
+        }
+
+        encoded = objectMapper.writeValueAsBytes(expenses);
+        System.out.printf("%n%s, %d expenses: %d bytes, %d gzipped%n", format, size, encoded.length, gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] serializeExpenseList() throws IOException {
+        return objectMapper.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzipExpenseList() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(expenses));
+    }
+
+    @Benchmark
+    public List<ExpenseResponseDto> deserializeExpenseList() throws IOException {
+        return objectMapper.readValue(encoded, EXPENSE_LIST);
+    }
+
+    // Tomcat's compression filter uses the JDK deflater at its default level
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
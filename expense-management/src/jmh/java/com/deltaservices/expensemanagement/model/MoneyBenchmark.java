@@ -0,0 +1,86 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous BigDecimal representation of amounts with {@link Money} on
+ * the paths that handle many amounts at once: summing, and reading and writing JSON.
+ * Run with {@code -prof gc} to see the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private BigDecimal[] decimals;
+    private Money[] amounts;
+    private long[] minorUnits;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new MoneyModule()).build();
+
+        decimals = new BigDecimal[size];
+        amounts = new Money[size];
+        minorUnits = new long[size];
+        for (int i = 0; i < size; i++) {
+            long cents = 100 + (i * 7919L) % 100_000;
+            decimals[i] = BigDecimal.valueOf(cents, 2);
+            amounts[i] = Money.ofMinor(cents, Money.DEFAULT_CURRENCY);
+            minorUnits[i] = cents;
+        }
+        json = objectMapper.writeValueAsBytes(decimals);
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimals) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumMinorUnits() {
+        long total = 0;
+        for (long amount : minorUnits) {
+            total = Math.addExact(total, amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal[] readBigDecimal() throws Exception {
+        return objectMapper.readValue(json, BigDecimal[].class);
+    }
+
+    @Benchmark
+    public Money[] readMoney() throws Exception {
+        return objectMapper.readValue(json, Money[].class);
+    }
+
+    @Benchmark
+    public byte[] writeBigDecimal() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(decimals);
+    }
+
+    @Benchmark
+    public byte[] writeMoney() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(amounts);
+    }
+}
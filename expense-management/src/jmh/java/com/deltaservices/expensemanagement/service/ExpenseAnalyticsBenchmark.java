@@ -0,0 +1,68 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.service.ExpenseColumns.CategoryPercentiles;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.DescriptionTotal;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.Result;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.WeekTotal;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExpenseAnalyticsBenchmark {
+
+    private static final List<String> CATEGORIES =
+            List.of("FOOD", "TRANSPORT", "UTILITIES", "ENTERTAINMENT", "HEALTH", "SHOPPING", "TRAVEL", "OTHER");
+    private static final List<BigDecimal> PERCENTILES =
+            List.of(BigDecimal.valueOf(50), BigDecimal.valueOf(90), BigDecimal.valueOf(99));
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    // Merchants repeat; references such as invoice numbers make every description unique
+    @Param({"merchants", "unique"})
+    private String descriptions;
+
+    private ExpenseColumns columns;
+    private int fromDay;
+    private int toDay;
+
+    @Setup
+    public void setUp() {
+        // Ten years of expenses over 10k merchants, a few of them far more frequent, or unique references
+        SplittableRandom random = new SplittableRandom(42);
+        fromDay = (int) LocalDate.of(2015, 1, 5).toEpochDay();
+        toDay = fromDay + 3652;
+        columns = new ExpenseColumns();
+        for (int id = 0; id < rows; id++) {
+            int merchant = random.nextBoolean() ? random.nextInt(50) : random.nextInt(10_000);
+            columns.add(id, fromDay + random.nextInt(3653), 100 + random.nextLong(50_000),
+                    CATEGORIES.get(random.nextInt(CATEGORIES.size())),
+                    descriptions.equals("unique") ? "Invoice " + id : "Merchant " + merchant);
+        }
+    }
+
+    @Benchmark
+    public Result<List<DescriptionTotal>> topDescriptions() {
+        return columns.topDescriptions(fromDay, toDay, ExpenseColumns.ANY_CATEGORY, 10, false);
+    }
+
+    @Benchmark
+    public Result<List<CategoryPercentiles>> percentiles() {
+        return columns.percentiles(fromDay, toDay, PERCENTILES);
+    }
+
+    @Benchmark
+    public Result<List<WeekTotal>> weeklyTotals() {
+        return columns.weeklyTotals(fromDay, 52 * 10, columns.categoryId("FOOD"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseMappingBenchmark {
+
+    private ExpenseService expenseService;
+    private ExpenseRequestDto request;
+    private Expense expense;
+
+    @Setup
+    public void setUp() {
+        // Mapping and validation never touch the repository or transactions
+        expenseService = new ExpenseService(null, null, null, new ExpenseMetrics(new SimpleMeterRegistry()), null, null,
+                null, null);
+
+        request = new ExpenseRequestDto();
+        request.setDescription("Card payment");
+        request.setAmount(Money.parse("12.34", Money.DEFAULT_CURRENCY));
+        request.setDate(LocalDate.of(2024, 1, 15));
+        request.setCategory("FOOD");
+
+        expense = expenseService.convertToEntity(request);
+        expense.setId(42L);
+    }
+
+    @Benchmark
+    public ExpenseResponseDto convertToResponseDto() {
+        return expenseService.convertToResponseDto(expense);
+    }
+
+    @Benchmark
+    public Expense convertToEntity() {
+        return expenseService.convertToEntity(request);
+    }
+
+    @Benchmark
+    public ExpenseRequestDto validateExpenseRequest() {
+        expenseService.validateExpenseRequest(request);
+        return request;
+    }
+}
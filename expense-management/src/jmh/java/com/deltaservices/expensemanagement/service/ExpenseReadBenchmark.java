@@ -0,0 +1,61 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.BenchmarkContext;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpensePageDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ExpenseReadBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private ExpenseRepository expenseRepository;
+    private TransactionTemplate transactionTemplate;
+    private ExpenseFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("read" + rows);
+        BenchmarkContext.seed(context, rows);
+        expenseService = context.getBean(ExpenseService.class);
+        expenseRepository = context.getBean(ExpenseRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        filter = new ExpenseFilter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // The unbounded read that the keyset pages replaced, kept as their baseline
+    @Benchmark
+    public List<ExpenseResponseDto> getAllExpenses() {
+        return transactionTemplate.execute(status -> expenseRepository.findAll().stream()
+                .map(expenseService::convertToResponseDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public ExpensePageDto getExpensesFirstPage() {
+        return expenseService.getExpenses(filter, null, ExpenseService.DEFAULT_PAGE_SIZE, 0);
+    }
+}
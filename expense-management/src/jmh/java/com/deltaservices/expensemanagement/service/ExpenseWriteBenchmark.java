@@ -0,0 +1,67 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.BenchmarkContext;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.Money;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares single creates with the batch endpoint path; both report throughput
+ * per stored expense.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ExpenseWriteBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private ExpenseRequestDto request;
+    private List<ExpenseRequestDto> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("write");
+        expenseService = context.getBean(ExpenseService.class);
+
+        request = new ExpenseRequestDto();
+        request.setDescription("Card payment");
+        request.setAmount(Money.parse("12.34", Money.DEFAULT_CURRENCY));
+        request.setDate(LocalDate.of(2024, 1, 15));
+        request.setCategory("FOOD");
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(request);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ExpenseResponseDto createExpense() {
+        return expenseService.createExpense(request);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ExpenseBatchResultDto createExpensesBatch() {
+        return expenseService.createExpenses(batch);
+    }
+}
@@ -0,0 +1,18 @@
+package com.deltaservices.expensemanagement.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are Caffeine backed and sized through {@code spring.cache.caffeine.spec}.
+ * Setting {@code spring.cache.type=none} turns caching off without code changes.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String EXPENSES = "expenses";
+    public static final String EXPENSE_PAGES = "expensePages";
+    public static final String EXPENSE_SUMMARIES = "expenseSummaries";
+    public static final String IDEMPOTENCY_KEYS = "idempotencyKeys";
+}
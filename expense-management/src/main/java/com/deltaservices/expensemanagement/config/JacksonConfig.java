@@ -0,0 +1,40 @@
+package com.deltaservices.expensemanagement.config;
+
+import com.deltaservices.expensemanagement.model.MoneyModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Jackson modules declared as beans are registered with the application's
+ * ObjectMapper by Spring Boot.
+ * <p>
+ * Clients that send {@code Accept: application/x-jackson-smile} or
+ * {@code application/cbor} get the same documents in a binary encoding. Spring MVC
+ * registers plain converters for both formats once they are on the classpath; the
+ * ones declared here replace them in place, after JSON, so they are built from
+ * Boot's builder and share its modules and settings with the JSON ObjectMapper.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public MoneyModule moneyModule() {
+        return new MoneyModule();
+    }
+
+    // The builder bean is a prototype, so each converter configures its own copy
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.deltaservices.expensemanagement.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring Boot silently falls back to platform threads when virtual threads are
+ * requested on a JVM older than 21; make that visible at startup.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @PostConstruct
+    void checkRuntime() {
+        int feature = Runtime.version().feature();
+        if (feature < 21) {
+            logger.warn("Virtual threads requested but running on Java {}, using platform threads", feature);
+        } else {
+            logger.info("Handling requests on virtual threads");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.BudgetAlertDto;
+import com.deltaservices.expensemanagement.model.BudgetDto;
+import com.deltaservices.expensemanagement.model.BudgetRequestDto;
+import com.deltaservices.expensemanagement.service.BudgetAlertNotifier;
+import com.deltaservices.expensemanagement.service.BudgetService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/api/budgets")
+public class BudgetController {
+
+    private final BudgetService budgetService;
+    private final BudgetAlertNotifier budgetAlertNotifier;
+
+    @Autowired
+    public BudgetController(BudgetService budgetService, BudgetAlertNotifier budgetAlertNotifier) {
+        this.budgetService = budgetService;
+        this.budgetAlertNotifier = budgetAlertNotifier;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BudgetDto>> getBudgets(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return ResponseEntity.ok(budgetService.getBudgets(month));
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<List<BudgetAlertDto>> getAlerts() {
+        return ResponseEntity.ok(budgetAlertNotifier.getRecentAlerts());
+    }
+
+    @GetMapping("/{category}")
+    public ResponseEntity<BudgetDto> getBudget(
+            @PathVariable String category,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return ResponseEntity.ok(budgetService.getBudget(category, month));
+    }
+
+    @PutMapping("/{category}")
+    public ResponseEntity<BudgetDto> setBudget(@PathVariable String category,
+                                               @Valid @RequestBody BudgetRequestDto budgetRequestDto) {
+        return ResponseEntity.ok(budgetService.setBudget(category, budgetRequestDto));
+    }
+
+    @DeleteMapping("/{category}")
+    public ResponseEntity<Void> deleteBudget(@PathVariable String category) {
+        budgetService.deleteBudget(category);
+        return ResponseEntity.noContent().build();
+    }
+}
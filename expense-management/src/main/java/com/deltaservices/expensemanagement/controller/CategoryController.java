@@ -0,0 +1,43 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.Category;
+import com.deltaservices.expensemanagement.model.CategoryDto;
+import com.deltaservices.expensemanagement.service.CategoryRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/api/categories")
+public class CategoryController {
+
+    private final CategoryRegistry categoryRegistry;
+
+    @Autowired
+    public CategoryController(CategoryRegistry categoryRegistry) {
+        this.categoryRegistry = categoryRegistry;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CategoryDto>> getCategories() {
+        List<CategoryDto> categories = categoryRegistry.getCategories().stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(categories);
+    }
+
+    private CategoryDto convertToDto(Category category) {
+        CategoryDto dto = new CategoryDto();
+        dto.setId(category.getId());
+        dto.setName(category.getName());
+        dto.setLabel(category.getLabel());
+        return dto;
+    }
+}
@@ -0,0 +1,56 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.CurrenciesDto;
+import com.deltaservices.expensemanagement.model.FxRateDto;
+import com.deltaservices.expensemanagement.model.FxRateImportResultDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.service.FxRateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Currency;
+import java.util.stream.Collectors;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/api/currencies")
+public class CurrencyController {
+
+    private final FxRateService fxRateService;
+
+    @Autowired
+    public CurrencyController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    @GetMapping
+    public ResponseEntity<CurrenciesDto> getCurrencies() {
+        CurrenciesDto currencies = new CurrenciesDto();
+        currencies.setDefaultCurrency(Money.DEFAULT_CURRENCY.getCurrencyCode());
+        currencies.setCurrencies(fxRateService.getCurrencies().stream()
+                .map(Currency::getCurrencyCode)
+                .collect(Collectors.toList()));
+        return ResponseEntity.ok(currencies);
+    }
+
+    @GetMapping("/rates")
+    public ResponseEntity<FxRateDto> getRate(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(fxRateService.getRate(from, to, date != null ? date : LocalDate.now(ZoneOffset.UTC)));
+    }
+
+    @PostMapping(value = "/rates", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<FxRateImportResultDto> importRates(Reader body) throws IOException {
+        FxRateImportResultDto result = new FxRateImportResultDto();
+        result.setImported(fxRateService.importCsv(body));
+        return ResponseEntity.ok(result);
+    }
+}
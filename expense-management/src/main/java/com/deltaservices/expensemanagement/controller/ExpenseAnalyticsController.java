@@ -0,0 +1,54 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.AnalyticsReportDto;
+import com.deltaservices.expensemanagement.model.CategoryPercentilesDto;
+import com.deltaservices.expensemanagement.model.DescriptionSpendDto;
+import com.deltaservices.expensemanagement.model.WeeklySpendDto;
+import com.deltaservices.expensemanagement.service.ExpenseAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/api/expenses/analytics")
+public class ExpenseAnalyticsController {
+
+    private final ExpenseAnalyticsService expenseAnalyticsService;
+
+    @Autowired
+    public ExpenseAnalyticsController(ExpenseAnalyticsService expenseAnalyticsService) {
+        this.expenseAnalyticsService = expenseAnalyticsService;
+    }
+
+    @GetMapping("/top-descriptions")
+    public ResponseEntity<AnalyticsReportDto<DescriptionSpendDto>> getTopDescriptions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "amount") String by,
+            @RequestParam(defaultValue = "" + ExpenseAnalyticsService.DEFAULT_LIMIT) int limit) {
+        return ResponseEntity.ok(expenseAnalyticsService.getTopDescriptions(from, to, category, by, limit));
+    }
+
+    @GetMapping("/percentiles")
+    public ResponseEntity<AnalyticsReportDto<CategoryPercentilesDto>> getPercentiles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "p", required = false) List<BigDecimal> percentiles) {
+        return ResponseEntity.ok(expenseAnalyticsService.getPercentiles(from, to, percentiles));
+    }
+
+    @GetMapping("/weekly")
+    public ResponseEntity<AnalyticsReportDto<WeeklySpendDto>> getWeeklyTrend(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category) {
+        return ResponseEntity.ok(expenseAnalyticsService.getWeeklyTrend(from, to, category));
+    }
+}
@@ -1,43 +1,295 @@
 package com.deltaservices.expensemanagement.controller;
 
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpenseIngestionStatusDto;
+import com.deltaservices.expensemanagement.model.ExpensePageDto;
 import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
 import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.ExpenseSearchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryDto;
+import com.deltaservices.expensemanagement.model.ExportFormat;
+import com.deltaservices.expensemanagement.model.SummaryGrouping;
+import com.deltaservices.expensemanagement.service.ExpenseChangeBroadcaster;
+import com.deltaservices.expensemanagement.service.ExpenseChangeService;
+import com.deltaservices.expensemanagement.service.ExpenseExportService;
+import com.deltaservices.expensemanagement.service.ExpenseIdempotencyService;
+import com.deltaservices.expensemanagement.service.ExpenseIdempotencyService.IdempotentResult;
+import com.deltaservices.expensemanagement.service.ExpenseIngestionService;
+import com.deltaservices.expensemanagement.service.ExpenseSearchService;
 import com.deltaservices.expensemanagement.service.ExpenseService;
+import com.deltaservices.expensemanagement.service.ExpenseSummaryService;
+import com.deltaservices.expensemanagement.service.FxRateService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
-@CrossOrigin("*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 @RequestMapping("/api/expenses")
 public class ExpenseController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    // Cached copies are revalidated on every use, which costs a 304 while nothing changed
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final Pattern STRONG_ETAG = Pattern.compile("\"(\\d{1,18})\"");
+    static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     private final ExpenseService expenseService;
+    private final ExpenseExportService expenseExportService;
+    private final ExpenseSummaryService expenseSummaryService;
+    private final ExpenseIdempotencyService expenseIdempotencyService;
+    private final ExpenseIngestionService expenseIngestionService;
+    private final ExpenseSearchService expenseSearchService;
+    private final ExpenseChangeService expenseChangeService;
+    private final FxRateService fxRateService;
+    private final ExpenseChangeBroadcaster expenseChangeBroadcaster;
 
     @Autowired
-    public ExpenseController(ExpenseService expenseService) {
+    public ExpenseController(ExpenseService expenseService, ExpenseExportService expenseExportService,
+                             ExpenseSummaryService expenseSummaryService,
+                             ExpenseIdempotencyService expenseIdempotencyService,
+                             ExpenseIngestionService expenseIngestionService,
+                             ExpenseSearchService expenseSearchService,
+                             ExpenseChangeService expenseChangeService, FxRateService fxRateService,
+                             ExpenseChangeBroadcaster expenseChangeBroadcaster) {
         this.expenseService = expenseService;
+        this.expenseExportService = expenseExportService;
+        this.expenseSummaryService = expenseSummaryService;
+        this.expenseIdempotencyService = expenseIdempotencyService;
+        this.expenseIngestionService = expenseIngestionService;
+        this.expenseSearchService = expenseSearchService;
+        this.expenseChangeService = expenseChangeService;
+        this.fxRateService = fxRateService;
+        this.expenseChangeBroadcaster = expenseChangeBroadcaster;
     }
 
     @GetMapping
-    public ResponseEntity<List<ExpenseResponseDto>> getAllExpenses() {
-        List<ExpenseResponseDto> expenses = expenseService.getAllExpenses();
-        return ResponseEntity.ok(expenses);
+    public ResponseEntity<ExpensePageDto> getExpenses(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ExpenseService.DEFAULT_PAGE_SIZE) int size,
+            WebRequest request) {
+        ExpenseChangeService.Version version = expenseChangeService.getVersion();
+        String etag = "W/\"" + version.number() + "\"";
+        if (request.checkNotModified(etag, version.changedAt().toEpochMilli())) {
+            // The 304 and its validators are already on the response
+            return null;
+        }
+
+        ExpenseFilter filter = new ExpenseFilter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        filter.setCategory(category);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        filter.setCurrency(currency);
+
+        ExpensePageDto page = expenseService.getExpenses(filter, cursor, size, version.number());
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag)
+                .lastModified(version.changedAt())
+                .body(page);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<ExpenseSummaryDto> getSummary(
+            @RequestParam(defaultValue = "category") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        // Converted totals also depend on the exchange rates
+        ExpenseChangeService.Version version = expenseChangeService.getVersion();
+        long fxGeneration = fxRateService.getGeneration();
+        String etag = "W/\"" + version.number() + "-" + fxGeneration + "\"";
+        if (request.checkNotModified(etag, version.changedAt().toEpochMilli())) {
+            return null;
+        }
+
+        ExpenseSummaryDto summary = expenseSummaryService.getSummary(SummaryGrouping.fromParameter(groupBy), from, to,
+                currency, version.number(), fxGeneration);
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag)
+                .lastModified(version.changedAt())
+                .body(summary);
+    }
+
+    /**
+     * Expenses written and deleted since a version, taken from the {@code ETag} of the
+     * list or an earlier call. Answers 410 when the client has to reload instead.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ExpenseChangesDto> getChanges(@RequestParam long since) {
+        return ResponseEntity.ok(expenseChangeService.getChanges(since));
+    }
+
+    /**
+     * Server-Sent Events stream of committed changes, in the shape of {@code /changes}.
+     * A {@code resync} event means changes were dropped and should be fetched from there.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return expenseChangeBroadcaster.subscribe();
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ExpenseSearchResultDto> searchExpenses(
+            @RequestParam String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "" + ExpenseSearchService.DEFAULT_LIMIT) int limit) {
+        ExpenseFilter filter = new ExpenseFilter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        filter.setCategory(category);
+
+        ExpenseSearchResultDto result = expenseSearchService.search(q, filter, limit);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        StreamingResponseBody body = outputStream -> expenseExportService.exportExpenses(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=expenses." + exportFormat.getExtension())
+                .body(body);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExpenseResponseDto> getExpense(@PathVariable Long id) {
+        ExpenseResponseDto expense = expenseService.getExpense(id);
+        return withETag(expense);
+    }
+
+    /**
+     * Replaces an expense. With {@code If-Match} the write only happens while the
+     * expense is still at that version, otherwise 412.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<ExpenseResponseDto> updateExpense(
+            @PathVariable Long id,
+            @Valid @RequestBody ExpenseRequestDto expenseRequestDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ExpenseResponseDto expense = expenseService.updateExpense(id, expenseRequestDto, parseIfMatch(ifMatch));
+        return withETag(expense);
+    }
+
+    /**
+     * Merge patch: fields left out or null keep their value. The merged expense is
+     * validated as a whole.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ExpenseResponseDto> patchExpense(
+            @PathVariable Long id,
+            @RequestBody ExpenseRequestDto patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ExpenseResponseDto expense = expenseService.patchExpense(id, patch, parseIfMatch(ifMatch));
+        return withETag(expense);
     }
 
     @PostMapping
-    public ResponseEntity<ExpenseResponseDto> createExpense(@Valid @RequestBody ExpenseRequestDto expenseRequestDto) {
+    public ResponseEntity<?> createExpense(
+            @Valid @RequestBody ExpenseRequestDto expenseRequestDto,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            // Replays need the stored expense, so keyed requests are always written synchronously
+            IdempotentResult result = expenseIdempotencyService.createExpense(expenseRequestDto, idempotencyKey);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.isReplayed()))
+                    .body(result.getExpense());
+        }
+
+        if (expenseIngestionService.isAccepting()) {
+            ExpenseIngestionStatusDto status = expenseIngestionService.submit(expenseRequestDto);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/expenses/ingestion/" + status.getTrackingId()))
+                    .body(status);
+        }
+
         ExpenseResponseDto createdExpense = expenseService.createExpense(expenseRequestDto);
         return new ResponseEntity<>(createdExpense, HttpStatus.CREATED);
     }
 
+    @GetMapping("/ingestion/{trackingId}")
+    public ResponseEntity<ExpenseIngestionStatusDto> getIngestionStatus(@PathVariable UUID trackingId) {
+        return ResponseEntity.ok(expenseIngestionService.getStatus(trackingId));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ExpenseBatchResultDto> createExpenses(@RequestBody List<ExpenseRequestDto> expenseRequestDtos) {
+        ExpenseBatchResultDto result = expenseService.createExpenses(expenseRequestDtos);
+        HttpStatus status = result.getRejected() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        return new ResponseEntity<>(result, status);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteExpense(@PathVariable Long id) {
         expenseService.deleteExpense(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    @DeleteMapping
+    public ResponseEntity<ExpenseBulkDeleteResultDto> deleteExpenses(@RequestBody ExpenseBulkDeleteRequestDto request) {
+        return ResponseEntity.ok(expenseService.deleteExpenses(request));
+    }
+
+    /**
+     * The version an {@code If-Match} header asks for, or null when any version will do.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = STRONG_ETAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new BadRequestException("If-Match must hold one strong ETag of the expense");
+        }
+        return Long.valueOf(matcher.group(1));
+    }
+
+    // A strong validator: the version changes with every write of the expense
+    private static ResponseEntity<ExpenseResponseDto> withETag(ExpenseResponseDto expense) {
+        // JSON, Smile and CBOR bodies of the same version must not be served for one another
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (expense != null && expense.getVersion() != null) {
+            response.eTag("\"" + expense.getVersion() + "\"");
+        }
+        return response.body(expense);
+    }
+}
@@ -0,0 +1,50 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.ExpenseImportRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseImportStatusDto;
+import com.deltaservices.expensemanagement.service.ExpenseImportService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/api/expenses/imports")
+public class ExpenseImportController {
+
+    private final ExpenseImportService expenseImportService;
+
+    @Autowired
+    public ExpenseImportController(ExpenseImportService expenseImportService) {
+        this.expenseImportService = expenseImportService;
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ExpenseImportStatusDto> importUpload(@RequestParam("file") MultipartFile file,
+                                                               @RequestParam(required = false) String format,
+                                                               @RequestParam(required = false) String category) {
+        return accepted(expenseImportService.importUpload(file, format, category));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExpenseImportStatusDto> importFile(@Valid @RequestBody ExpenseImportRequestDto request) {
+        return accepted(expenseImportService.importFile(request.getPath(), request.getFormat(), request.getCategory()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExpenseImportStatusDto> getImport(@PathVariable UUID id) {
+        return ResponseEntity.ok(expenseImportService.getStatus(id));
+    }
+
+    private static ResponseEntity<ExpenseImportStatusDto> accepted(ExpenseImportStatusDto status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/expenses/imports/" + status.getId()))
+                .body(status);
+    }
+}
@@ -0,0 +1,48 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.RecurringExpenseDto;
+import com.deltaservices.expensemanagement.model.RecurringExpenseRequestDto;
+import com.deltaservices.expensemanagement.service.RecurringExpenseService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/api/recurring-expenses")
+public class RecurringExpenseController {
+
+    private final RecurringExpenseService recurringExpenseService;
+
+    @Autowired
+    public RecurringExpenseController(RecurringExpenseService recurringExpenseService) {
+        this.recurringExpenseService = recurringExpenseService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RecurringExpenseDto>> getRecurringExpenses() {
+        return ResponseEntity.ok(recurringExpenseService.getRecurringExpenses());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RecurringExpenseDto> getRecurringExpense(@PathVariable Long id) {
+        return ResponseEntity.ok(recurringExpenseService.getRecurringExpense(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<RecurringExpenseDto> createRecurringExpense(
+            @Valid @RequestBody RecurringExpenseRequestDto recurringExpenseRequestDto) {
+        return new ResponseEntity<>(recurringExpenseService.createRecurringExpense(recurringExpenseRequestDto),
+                HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRecurringExpense(@PathVariable Long id) {
+        recurringExpenseService.deleteRecurringExpense(id);
+        return ResponseEntity.noContent().build();
+    }
+}
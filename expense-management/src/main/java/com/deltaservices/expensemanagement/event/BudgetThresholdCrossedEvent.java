@@ -0,0 +1,23 @@
+package com.deltaservices.expensemanagement.event;
+
+import com.deltaservices.expensemanagement.model.Money;
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+/**
+ * Published after the commit that took a category's spending for a month past a
+ * percentage of its budget. Spend that drops below the threshold and rises past it
+ * again raises another event.
+ */
+@Value
+public class BudgetThresholdCrossedEvent {
+
+    String category;
+    YearMonth month;
+    int threshold;
+    Money budget;
+    Money spent;
+    Instant crossedAt;
+}
@@ -0,0 +1,15 @@
+package com.deltaservices.expensemanagement.event;
+
+import com.deltaservices.expensemanagement.model.Expense;
+import lombok.Value;
+
+/**
+ * Published inside the transaction that changed an expense in place, carrying its
+ * state before and after the change. The id stays the same.
+ */
+@Value
+public class ExpenseUpdatedEvent {
+
+    Expense before;
+    Expense after;
+}
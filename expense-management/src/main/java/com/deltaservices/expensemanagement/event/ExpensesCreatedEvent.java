@@ -0,0 +1,16 @@
+package com.deltaservices.expensemanagement.event;
+
+import com.deltaservices.expensemanagement.model.Expense;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that stored the expenses. Synchronous listeners
+ * take part in that transaction; after-commit work belongs in a transactional listener.
+ */
+@Value
+public class ExpensesCreatedEvent {
+
+    List<Expense> expenses;
+}
@@ -0,0 +1,15 @@
+package com.deltaservices.expensemanagement.event;
+
+import com.deltaservices.expensemanagement.model.Expense;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that removed the expenses, carrying their last state.
+ */
+@Value
+public class ExpensesDeletedEvent {
+
+    List<Expense> expenses;
+}
@@ -0,0 +1,13 @@
+package com.deltaservices.expensemanagement.event;
+
+import lombok.Value;
+
+/**
+ * Published once the rates of a newer generation are loaded and visible to
+ * conversions, whether this instance imported them or another one did.
+ */
+@Value
+public class FxRatesImportedEvent {
+
+    long generation;
+}
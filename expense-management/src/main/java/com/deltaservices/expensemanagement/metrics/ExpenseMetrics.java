@@ -0,0 +1,31 @@
+package com.deltaservices.expensemanagement.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Application counters that are not covered by the request and method timers.
+ * Tag values are fixed strings so that series cardinality stays bounded.
+ */
+@Component
+public class ExpenseMetrics {
+
+    public static final String ROWS_RETURNED = "expense.rows.returned";
+    public static final String VALIDATION_FAILURES = "expense.validation.failures";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ExpenseMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void rowsReturned(String operation, long rows) {
+        meterRegistry.counter(ROWS_RETURNED, "operation", operation).increment(rows);
+    }
+
+    public void validationFailed(String reason) {
+        meterRegistry.counter(VALIDATION_FAILURES, "reason", reason).increment();
+    }
+}
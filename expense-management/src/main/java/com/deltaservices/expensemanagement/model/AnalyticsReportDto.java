@@ -0,0 +1,18 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class AnalyticsReportDto<T> {
+
+    // Every amount of the report is in this currency
+    private String currency;
+    private LocalDate from;
+    private LocalDate to;
+    // Expenses in range left out because no exchange rate to the currency was known
+    private long unconverted;
+    private List<T> items;
+}
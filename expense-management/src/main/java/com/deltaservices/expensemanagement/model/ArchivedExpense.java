@@ -0,0 +1,70 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDate;
+import java.util.Currency;
+
+/**
+ * An expense that is older than the archive horizon, moved out of the hot
+ * {@code expenses} table with its id unchanged. The columns mirror {@link Expense}.
+ */
+@Data
+@Entity
+@DynamicUpdate
+@Table(name = "expenses_archive", indexes = {
+        @Index(name = "idx_expenses_archive_date_id", columnList = "date DESC, id DESC"),
+        @Index(name = "idx_expenses_archive_category_id_date_id", columnList = "category_id, date DESC, id DESC"),
+        @Index(name = "idx_expenses_archive_currency_date", columnList = "currency, date")
+})
+public class ArchivedExpense {
+
+    @Id
+    private Long id;
+
+    @Column(name = "description", nullable = false)
+    private String description;
+
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency;
+
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @Convert(converter = CategoryConverter.class)
+    @Column(name = "category_id", nullable = false)
+    private String category;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public Expense toExpense() {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setDescription(description);
+        expense.setAmount(Money.ofMinor(amountMinor, currency));
+        expense.setDate(date);
+        expense.setCategory(category);
+        expense.setVersion(version);
+        return expense;
+    }
+
+    /**
+     * Takes over the editable fields of the expense with this id.
+     */
+    public void updateFrom(Expense expense) {
+        description = expense.getDescription();
+        amountMinor = expense.getAmountMinor();
+        currency = expense.getCurrency();
+        date = expense.getDate();
+        category = expense.getCategory();
+    }
+}
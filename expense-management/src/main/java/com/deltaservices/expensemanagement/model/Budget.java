@@ -0,0 +1,41 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Currency;
+
+/**
+ * Monthly spending limit of one category. The same amount applies to every month.
+ */
+@Data
+@Entity
+@Table(name = "budgets")
+public class Budget {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Convert(converter = CategoryConverter.class)
+    @Column(name = "category_id", nullable = false, unique = true)
+    private String category;
+
+    /**
+     * Amount in minor units of {@link #currency}; use {@link #getAmount()}.
+     */
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency = Money.DEFAULT_CURRENCY;
+
+    public Money getAmount() {
+        return Money.ofMinor(amountMinor, currency);
+    }
+
+    public void setAmount(Money amount) {
+        this.amountMinor = amount.getMinorUnits();
+        this.currency = amount.getCurrency();
+    }
+}
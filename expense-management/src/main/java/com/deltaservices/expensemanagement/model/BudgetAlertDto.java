@@ -0,0 +1,19 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+@Data
+public class BudgetAlertDto {
+
+    private String category;
+    private YearMonth month;
+    // Percentage of the budget that was reached
+    private int threshold;
+    private Money budget;
+    private Money spent;
+    private String currency;
+    private Instant crossedAt;
+}
@@ -0,0 +1,17 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.time.YearMonth;
+
+@Data
+public class BudgetDto {
+
+    private String category;
+    private Money amount;
+    private String currency;
+    private YearMonth month;
+    // Spent in the category that month, converted to the budget currency
+    private Money spent;
+    private int percentUsed;
+}
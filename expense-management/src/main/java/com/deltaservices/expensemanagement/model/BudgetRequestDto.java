@@ -0,0 +1,14 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class BudgetRequestDto {
+
+    @NotNull(message = "Amount is required")
+    private Money amount;
+
+    // ISO 4217 code; Money.DEFAULT_CURRENCY when absent
+    private String currency;
+}
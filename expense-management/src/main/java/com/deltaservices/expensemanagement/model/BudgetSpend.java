@@ -0,0 +1,30 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Currency;
+
+/**
+ * Spending of one budget's category in one month, converted into the currency the
+ * budget had when the row was counted. Raised by every write, so a budget check
+ * reads one row instead of summing the month.
+ */
+@Data
+@Entity
+@Table(name = "budget_spend")
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSpend {
+
+    @EmbeddedId
+    private BudgetSpendId id;
+
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency;
+
+    @Column(name = "spent_minor", nullable = false)
+    private long spentMinor;
+}
@@ -0,0 +1,26 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSpendId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "budget_id", nullable = false)
+    private Integer budgetId;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+}
@@ -0,0 +1,35 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.deltaservices.expensemanagement.service.CategoryRegistry;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stores category names as their dimension id. Created by Spring when Hibernate
+ * boots, before the registry exists, hence the provider.
+ */
+@Converter
+public class CategoryConverter implements AttributeConverter<String, Integer> {
+
+    private final ObjectProvider<CategoryRegistry> categoryRegistry;
+
+    public CategoryConverter(ObjectProvider<CategoryRegistry> categoryRegistry) {
+        this.categoryRegistry = categoryRegistry;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String name) {
+        if (name == null) {
+            return null;
+        }
+        // Unknown names only occur in query parameters; they match no row
+        Integer id = categoryRegistry.getObject().findId(name);
+        return id != null ? id : CategoryRegistry.UNKNOWN_ID;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : categoryRegistry.getObject().getName(id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+@Data
+public class CategoryDto {
+
+    private Integer id;
+    private String name;
+    private String label;
+}
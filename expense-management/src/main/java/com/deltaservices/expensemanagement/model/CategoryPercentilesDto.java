@@ -0,0 +1,15 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class CategoryPercentilesDto {
+
+    private String category;
+    private long count;
+    private Money total;
+    // Keyed by percentile, e.g. p50 or p99.9
+    private Map<String, Money> percentiles;
+}
@@ -0,0 +1,12 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CurrenciesDto {
+
+    private String defaultCurrency;
+    private List<String> currencies;
+}
@@ -0,0 +1,11 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+@Data
+public class DescriptionSpendDto {
+
+    private String description;
+    private long count;
+    private Money total;
+}
@@ -2,28 +2,63 @@ package com.deltaservices.expensemanagement.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Currency;
 
 @Data
 @Entity
-@Table(name = "expenses")
+// An update writes only the columns it changed
+@DynamicUpdate
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expenses_date_id", columnList = "date DESC, id DESC"),
+        @Index(name = "idx_expenses_category_id_date_id", columnList = "category_id, date DESC, id DESC"),
+        @Index(name = "idx_expenses_currency_date", columnList = "currency, date")
+})
 public class Expense {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expenses_seq")
+    @SequenceGenerator(name = "expenses_seq", sequenceName = "expenses_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "description", nullable = false)
     private String description;
 
-    @Column(name = "amount", nullable = false)
-    private BigDecimal amount;
+    /**
+     * Amount in minor units of {@link #currency}; use {@link #getAmount()}.
+     */
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    @ColumnDefault("'EUR'")
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency = Money.DEFAULT_CURRENCY;
 
     @Column(name = "date", nullable = false)
     private LocalDate date;
 
-    @Column(name = "category", nullable = false)
+    @Convert(converter = CategoryConverter.class)
+    @Column(name = "category_id", nullable = false)
     private String category;
-}
\ No newline at end of file
+
+    /**
+     * Raised by every update, which only succeeds while the row is still at the version
+     * it was read at; exposed to clients as the expense's ETag.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public Money getAmount() {
+        return Money.ofMinor(amountMinor, currency);
+    }
+
+    public void setAmount(Money amount) {
+        this.amountMinor = amount.getMinorUnits();
+        this.currency = amount.getCurrency();
+    }
+}
@@ -0,0 +1,27 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+public class ExpenseBatchItemResultDto {
+
+    private int index;
+    private Long id;
+    private String error;
+
+    public static ExpenseBatchItemResultDto created(int index, Long id) {
+        ExpenseBatchItemResultDto result = new ExpenseBatchItemResultDto();
+        result.setIndex(index);
+        result.setId(id);
+        return result;
+    }
+
+    public static ExpenseBatchItemResultDto rejected(int index, String error) {
+        ExpenseBatchItemResultDto result = new ExpenseBatchItemResultDto();
+        result.setIndex(index);
+        result.setError(error);
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExpenseBatchResultDto {
+
+    private int created;
+    private int rejected;
+    private List<ExpenseBatchItemResultDto> items;
+}
@@ -0,0 +1,18 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Selects expenses to delete either by id or by filter, never both.
+ */
+@Data
+public class ExpenseBulkDeleteRequestDto {
+
+    private List<Long> ids;
+    private LocalDate from;
+    private LocalDate to;
+    private String category;
+}
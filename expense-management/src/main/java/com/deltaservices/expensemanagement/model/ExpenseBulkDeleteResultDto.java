@@ -0,0 +1,13 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseBulkDeleteResultDto {
+
+    private int deleted;
+}
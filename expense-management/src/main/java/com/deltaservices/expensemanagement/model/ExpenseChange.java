@@ -0,0 +1,29 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An expense written or deleted at a table version. Deletes are kept as tombstones
+ * until the change log retention passes, so clients can sync incrementally.
+ */
+@Data
+@Entity
+@Table(name = "expense_changes")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseChange {
+
+    @EmbeddedId
+    private ExpenseChangeId id;
+
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
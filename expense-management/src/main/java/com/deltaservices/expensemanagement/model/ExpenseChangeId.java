@@ -0,0 +1,24 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseChangeId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "expense_id", nullable = false)
+    private long expenseId;
+}
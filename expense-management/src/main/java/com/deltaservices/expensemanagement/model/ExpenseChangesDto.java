@@ -0,0 +1,13 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExpenseChangesDto {
+
+    private long version;
+    private List<ExpenseResponseDto> upserted;
+    private List<Long> deleted;
+}
@@ -0,0 +1,41 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last expense returned in a page. Expenses are listed by
+ * date and id descending, so the pair is enough to resume the scan from the index.
+ * The token handed to clients is opaque and must be passed back unchanged.
+ */
+@Value
+public class ExpenseCursor {
+
+    LocalDate date;
+    Long id;
+
+    public static ExpenseCursor of(Expense expense) {
+        return new ExpenseCursor(expense.getDate(), expense.getId());
+    }
+
+    public String encode() {
+        String raw = date.toEpochDay() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static ExpenseCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            LocalDate date = LocalDate.ofEpochDay(Long.parseLong(raw.substring(0, separator)));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new ExpenseCursor(date, id);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class ExpenseFilter {
+
+    private LocalDate from;
+    private LocalDate to;
+    private String category;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    // ISO 4217 code; amount bounds are in this currency, Money.DEFAULT_CURRENCY when absent
+    private String currency;
+}
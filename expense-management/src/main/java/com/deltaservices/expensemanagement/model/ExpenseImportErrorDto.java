@@ -0,0 +1,15 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseImportErrorDto {
+
+    // Line of the statement the record starts on, counting from 1
+    private long line;
+    private String error;
+}
@@ -0,0 +1,18 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ExpenseImportRequestDto {
+
+    // Relative to expense.import.directory
+    @NotBlank(message = "Path is required")
+    private String path;
+
+    // csv or ofx; taken from the path's extension when absent
+    private String format;
+
+    // For records without a category of their own
+    private String category;
+}
@@ -0,0 +1,32 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+public class ExpenseImportStatusDto {
+
+    private UUID id;
+    private ImportState state;
+    private StatementFormat format;
+    private String filename;
+    private long totalBytes;
+    private long bytesRead;
+    private long records;
+    private long imported;
+    private long rejected;
+    // Records that are not expenses, such as the credits of a bank statement
+    private long skipped;
+    // The first rejected records; rejected counts all of them
+    private List<ExpenseImportErrorDto> errors;
+    // Why the import stopped early, when FAILED
+    private String error;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
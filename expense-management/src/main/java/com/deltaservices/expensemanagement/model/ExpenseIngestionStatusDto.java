@@ -0,0 +1,41 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+public class ExpenseIngestionStatusDto {
+
+    private UUID trackingId;
+    private IngestionState state;
+    private Long id;
+    private String error;
+
+    public static ExpenseIngestionStatusDto queued(UUID trackingId) {
+        return of(trackingId, IngestionState.QUEUED, null, null);
+    }
+
+    public static ExpenseIngestionStatusDto created(UUID trackingId, Long id) {
+        return of(trackingId, IngestionState.CREATED, id, null);
+    }
+
+    public static ExpenseIngestionStatusDto rejected(UUID trackingId, String error) {
+        return of(trackingId, IngestionState.REJECTED, null, error);
+    }
+
+    public static ExpenseIngestionStatusDto failed(UUID trackingId, String error) {
+        return of(trackingId, IngestionState.FAILED, null, error);
+    }
+
+    private static ExpenseIngestionStatusDto of(UUID trackingId, IngestionState state, Long id, String error) {
+        ExpenseIngestionStatusDto status = new ExpenseIngestionStatusDto();
+        status.setTrackingId(trackingId);
+        status.setState(state);
+        status.setId(id);
+        status.setError(error);
+        return status;
+    }
+}
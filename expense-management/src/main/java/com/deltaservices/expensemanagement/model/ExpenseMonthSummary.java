@@ -0,0 +1,27 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Running total of expenses per category, month and currency, kept up to date by
+ * every write next to the daily {@link ExpenseSummary} rows, so a summary in the
+ * currency of the expenses reads one row per group.
+ */
+@Data
+@Entity
+@Table(name = "expense_month_summaries", indexes = {
+        @Index(name = "idx_expense_month_summaries_currency_month", columnList = "currency, month_start")
+})
+public class ExpenseMonthSummary {
+
+    @EmbeddedId
+    private ExpenseMonthSummaryId id;
+
+    // Minor units of the id's currency
+    @Column(name = "total_minor", nullable = false)
+    private long totalMinor;
+
+    @Column(name = "expense_count", nullable = false)
+    private long count;
+}
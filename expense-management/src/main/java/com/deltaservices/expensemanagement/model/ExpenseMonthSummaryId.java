@@ -0,0 +1,29 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseMonthSummaryId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "category", nullable = false)
+    private String category;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "currency", length = 3, nullable = false)
+    private String currency;
+}
@@ -0,0 +1,12 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExpensePageDto {
+
+    private List<ExpenseResponseDto> items;
+    private String nextCursor;
+}
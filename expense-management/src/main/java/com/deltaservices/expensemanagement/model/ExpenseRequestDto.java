@@ -4,7 +4,6 @@ import lombok.Data;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
@@ -14,7 +13,10 @@ public class ExpenseRequestDto {
     private String description;
 
     @NotNull(message = "Amount is required")
-    private BigDecimal amount;
+    private Money amount;
+
+    // ISO 4217 code; Money.DEFAULT_CURRENCY when absent
+    private String currency;
 
     @NotNull(message = "Date is required")
     private LocalDate date;
@@ -2,7 +2,6 @@ package com.deltaservices.expensemanagement.model;
 
 import lombok.Data;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
@@ -10,7 +9,10 @@ public class ExpenseResponseDto {
 
     private Long id;
     private String description;
-    private BigDecimal amount;
+    private Money amount;
+    private String currency;
     private LocalDate date;
     private String category;
+    // Sent back in If-Match to update the expense only if nobody changed it meanwhile
+    private Long version;
 }
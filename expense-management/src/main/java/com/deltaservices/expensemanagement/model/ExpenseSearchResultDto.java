@@ -0,0 +1,12 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExpenseSearchResultDto {
+
+    private long total;
+    private List<ExpenseResponseDto> items;
+}
@@ -0,0 +1,27 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Running total of expenses per category, day and currency, kept up to date by
+ * every write. Days rather than months, so that other currencies can be converted
+ * at the rate of each day without reading the expenses.
+ */
+@Data
+@Entity
+@Table(name = "expense_summaries", indexes = {
+        @Index(name = "idx_expense_summaries_currency_date", columnList = "currency, date")
+})
+public class ExpenseSummary {
+
+    @EmbeddedId
+    private ExpenseSummaryId id;
+
+    // Minor units of the id's currency
+    @Column(name = "total_minor", nullable = false)
+    private long totalMinor;
+
+    @Column(name = "expense_count", nullable = false)
+    private long count;
+}
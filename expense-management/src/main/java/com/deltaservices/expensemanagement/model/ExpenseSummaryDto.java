@@ -0,0 +1,14 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExpenseSummaryDto {
+
+    private String currency;
+    private Money total;
+    private long count;
+    private List<ExpenseSummaryGroupDto> groups;
+}
@@ -0,0 +1,16 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.YearMonth;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+public class ExpenseSummaryGroupDto {
+
+    private String category;
+    private YearMonth month;
+    private Money total;
+    private long count;
+}
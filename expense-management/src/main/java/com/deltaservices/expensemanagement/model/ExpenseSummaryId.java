@@ -0,0 +1,30 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseSummaryId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "category", nullable = false)
+    private String category;
+
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @ColumnDefault("'EUR'")
+    @Column(name = "currency", length = 3, nullable = false)
+    private String currency;
+}
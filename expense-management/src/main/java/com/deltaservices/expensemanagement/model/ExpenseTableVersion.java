@@ -0,0 +1,41 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * The single row counting changes to the expenses. Each writing transaction locks
+ * it just before committing and holds it until the commit, so versions become
+ * visible in the order they were taken.
+ */
+@Data
+@Entity
+@Table(name = "expense_table_version")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseTableVersion {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    /**
+     * Latest version whose changes were purged; clients behind it must reload.
+     */
+    @Column(name = "purged_through", nullable = false)
+    private long purgedThrough;
+
+    // The row also holds fx_generation and archived_before, which FxRateService and
+    // ExpenseArchiveService read and raise on their own
+}
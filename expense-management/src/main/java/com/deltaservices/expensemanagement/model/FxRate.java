@@ -0,0 +1,26 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Exchange rate published for a day: one unit of the base currency buys
+ * {@code rate} units of the quote currency.
+ */
+@Data
+@Entity
+@Table(name = "fx_rates")
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRate {
+
+    @EmbeddedId
+    private FxRateId id;
+
+    @Column(name = "rate", precision = 19, scale = 10, nullable = false)
+    private BigDecimal rate;
+}
@@ -0,0 +1,16 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class FxRateDto {
+
+    private String from;
+    private String to;
+    // Day the rate was published, the latest on or before the requested date
+    private LocalDate date;
+    private BigDecimal rate;
+}
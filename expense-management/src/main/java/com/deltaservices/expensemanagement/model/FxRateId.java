@@ -0,0 +1,28 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRateId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "base_currency", length = 3, nullable = false)
+    private String baseCurrency;
+
+    @Column(name = "quote_currency", length = 3, nullable = false)
+    private String quoteCurrency;
+
+    @Column(name = "rate_date", nullable = false)
+    private LocalDate rateDate;
+}
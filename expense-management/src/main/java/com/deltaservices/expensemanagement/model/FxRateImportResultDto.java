@@ -0,0 +1,9 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+@Data
+public class FxRateImportResultDto {
+
+    private int imported;
+}
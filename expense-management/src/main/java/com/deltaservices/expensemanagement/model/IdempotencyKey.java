@@ -0,0 +1,62 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Client supplied key of a create request, pointing at the expense it produced.
+ * The key is the primary key, so a concurrent retry fails on insert instead of
+ * creating a second expense.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "expense_idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expense_id", columnList = "expense_id"),
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String key;
+
+    @Column(name = "expense_id", nullable = false)
+    private Long expenseId;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Transient
+    private boolean newKey = true;
+
+    public IdempotencyKey(String key, Long expenseId, String requestHash, Instant createdAt) {
+        this.key = key;
+        this.expenseId = expenseId;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newKey;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newKey = false;
+    }
+}
@@ -0,0 +1,8 @@
+package com.deltaservices.expensemanagement.model;
+
+public enum ImportState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.deltaservices.expensemanagement.model;
+
+public enum IngestionState {
+    QUEUED,
+    CREATED,
+    REJECTED,
+    FAILED
+}
@@ -0,0 +1,69 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Outcome of a queued create, stored once its batch was written so that every
+ * instance can report it. Expenses still queued are only known to the instance that
+ * queued them.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "expense_ingestion_statuses", indexes = {
+        @Index(name = "idx_ingestion_statuses_finished_at", columnList = "finished_at")
+})
+public class IngestionStatus implements Persistable<UUID> {
+
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @Column(name = "tracking_id", nullable = false)
+    private UUID trackingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 16)
+    private IngestionState state;
+
+    @Column(name = "expense_id")
+    private Long expenseId;
+
+    @Column(name = "error", length = MAX_ERROR_LENGTH)
+    private String error;
+
+    @Column(name = "finished_at", nullable = false)
+    private Instant finishedAt;
+
+    @Transient
+    private boolean newStatus = true;
+
+    public IngestionStatus(UUID trackingId, IngestionState state, Long expenseId, String error, Instant finishedAt) {
+        this.trackingId = trackingId;
+        this.state = state;
+        this.expenseId = expenseId;
+        this.error = error;
+        this.finishedAt = finishedAt;
+    }
+
+    @Override
+    public UUID getId() {
+        return trackingId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newStatus;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newStatus = false;
+    }
+}
@@ -0,0 +1,192 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * An amount of money held as a whole number of the currency's minor units (cents for
+ * EUR), so sums and comparisons are exact and need no allocation. Amounts with more
+ * fractional digits than the currency has are rejected instead of rounded.
+ */
+@Value(staticConstructor = "ofMinor")
+public class Money implements Comparable<Money> {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("EUR");
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+    // Sign, 19 digits of a long and the decimal point
+    static final int MAX_PLAIN_LENGTH = 21;
+
+    long minorUnits;
+    @NonNull
+    Currency currency;
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        try {
+            return ofMinor(amount.movePointRight(fractionDigits(currency)).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " is not a whole number of "
+                    + currency + " minor units or is out of range", e);
+        }
+    }
+
+    /**
+     * Converts an amount that may be more precise than the currency, rounding it to
+     * the nearest minor unit in the given direction.
+     */
+    public static Money of(BigDecimal amount, Currency currency, RoundingMode roundingMode) {
+        return of(amount.setScale(fractionDigits(currency), roundingMode), currency);
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -12.5} straight into minor units. Other
+     * notations, like exponents, take the slower {@link BigDecimal} route.
+     *
+     * @throws IllegalArgumentException if the text is not a number, is out of range
+     *                                  or has more fractional digits than the currency
+     */
+    public static Money parse(CharSequence text, Currency currency) {
+        char[] chars = text.toString().toCharArray();
+        return parse(chars, 0, chars.length, currency);
+    }
+
+    /**
+     * Same as {@link #parse(CharSequence, Currency)} on a region of a character array,
+     * as handed out by JSON parsers, without copying it.
+     */
+    public static Money parse(char[] chars, int offset, int length, Currency currency) {
+        int digits = fractionDigits(currency);
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (length > 0 && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long units = 0;
+        int scale = -1;
+        boolean hasDigits = false;
+        try {
+            for (; i < end; i++) {
+                char c = chars[i];
+                if (c == '.' && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    return of(new BigDecimal(chars, offset, length), currency);
+                }
+                hasDigits = true;
+                if (scale >= 0 && scale == digits) {
+                    if (c != '0') {
+                        throw new IllegalArgumentException("Amount " + new String(chars, offset, length)
+                                + " has more than " + digits + " fractional digits");
+                    }
+                    continue;
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+            }
+            if (!hasDigits) {
+                throw new IllegalArgumentException("Amount " + new String(chars, offset, length) + " is not a number");
+            }
+            units = Math.multiplyExact(units, POWERS_OF_TEN[digits - Math.max(scale, 0)]);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + new String(chars, offset, length) + " is out of range", e);
+        }
+        return ofMinor(negative ? -units : units, currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    /**
+     * The same amount relabelled in another currency, such as an amount parsed before
+     * its currency was known. No exchange rate is applied.
+     *
+     * @throws IllegalArgumentException if the amount is more precise than the currency allows
+     */
+    public Money withCurrency(Currency other) {
+        if (fractionDigits(other) == fractionDigits(currency)) {
+            return ofMinor(minorUnits, other);
+        }
+        return of(toBigDecimal(), other);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    /**
+     * Formats the amount as a plain decimal with exactly the currency's number of
+     * fractional digits, e.g. {@code 12.50}.
+     */
+    public String toPlainString() {
+        char[] buffer = new char[MAX_PLAIN_LENGTH];
+        int start = writePlain(buffer);
+        return new String(buffer, start, MAX_PLAIN_LENGTH - start);
+    }
+
+    /**
+     * Writes {@link #toPlainString()} right-aligned into the last characters of the
+     * buffer, which must hold at least {@link #MAX_PLAIN_LENGTH}, and returns the
+     * index of its first character.
+     */
+    int writePlain(char[] buffer) {
+        int digits = fractionDigits(currency);
+        int position = buffer.length;
+        // Digits are taken from the negated value, which also covers Long.MIN_VALUE
+        long remaining = minorUnits < 0 ? minorUnits : -minorUnits;
+        for (int written = 0; written < digits || remaining != 0 || written == digits; written++) {
+            if (written == digits && digits > 0) {
+                buffer[--position] = '.';
+            }
+            buffer[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    /**
+     * Number of minor unit digits of the currency, e.g. 2 for EUR and 0 for JPY.
+     */
+    public static int fractionDigits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Currency " + currency + " has no usable minor unit");
+        }
+        return digits;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Cannot combine " + currency + " with " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadCapability;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link Money} as a plain JSON number in the default currency. The
+ * number is parsed from the token's characters straight into minor units, never
+ * through a double or a BigDecimal, so {@code 0.10} stays exactly ten cents.
+ * Binary formats such as Smile and CBOR have no textual numbers and carry the amount
+ * as their native exact decimal instead.
+ */
+public class MoneyModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public MoneyModule() {
+        super("MoneyModule");
+        addSerializer(Money.class, new MoneySerializer());
+        addDeserializer(Money.class, new MoneyDeserializer());
+    }
+
+    static class MoneySerializer extends StdSerializer<Money> {
+
+        private static final long serialVersionUID = 1L;
+        // Generators copy the characters out, so one scratch buffer per thread is enough
+        private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[Money.MAX_PLAIN_LENGTH]);
+
+        MoneySerializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (generator.canWriteBinaryNatively()) {
+                // CBOR would write the characters as a string and Smile would spell them out
+                generator.writeNumber(value.toBigDecimal());
+                return;
+            }
+            char[] buffer = BUFFER.get();
+            int start = value.writePlain(buffer);
+            generator.writeNumber(buffer, start, Money.MAX_PLAIN_LENGTH - start);
+        }
+    }
+
+    static class MoneyDeserializer extends StdDeserializer<Money> {
+
+        private static final long serialVersionUID = 1L;
+
+        MoneyDeserializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Money) context.handleUnexpectedToken(Money.class, parser);
+            }
+
+            try {
+                if (token != JsonToken.VALUE_STRING
+                        && parser.getReadCapabilities().isEnabled(StreamReadCapability.EXACT_FLOATS)) {
+                    return Money.of(parser.getDecimalValue(), Money.DEFAULT_CURRENCY);
+                }
+                return Money.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(),
+                        Money.DEFAULT_CURRENCY);
+            } catch (IllegalArgumentException e) {
+                throw InvalidFormatException.from(parser, e.getMessage(), parser.getText(), Money.class);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Currency;
+
+/**
+ * Template of an expense that repeats on a schedule, such as rent. {@link #nextDate}
+ * is the first date not yet written as an expense; it advances in the transaction
+ * that writes the expenses, so no date is written twice.
+ */
+@Data
+@Entity
+@Table(name = "recurring_expenses", indexes = {
+        @Index(name = "idx_recurring_expenses_next_date", columnList = "next_date")
+})
+public class RecurringExpense {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "description", nullable = false)
+    private String description;
+
+    /**
+     * Amount in minor units of {@link #currency}; use {@link #getAmount()}.
+     */
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency = Money.DEFAULT_CURRENCY;
+
+    @Convert(converter = CategoryConverter.class)
+    @Column(name = "category_id", nullable = false)
+    private String category;
+
+    /**
+     * Spring cron expression; an expense is due on every day it matches.
+     */
+    @Column(name = "schedule", nullable = false)
+    private String schedule;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // Null once the schedule has no date left before the end date
+    @Column(name = "next_date")
+    private LocalDate nextDate;
+
+    public Money getAmount() {
+        return Money.ofMinor(amountMinor, currency);
+    }
+
+    public void setAmount(Money amount) {
+        this.amountMinor = amount.getMinorUnits();
+        this.currency = amount.getCurrency();
+    }
+}
@@ -0,0 +1,20 @@
+package com.deltaservices.expensemanagement.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class RecurringExpenseDto {
+
+    private Long id;
+    private String description;
+    private Money amount;
+    private String currency;
+    private String category;
+    private String schedule;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    // First date not written yet; null when the schedule is finished
+    private LocalDate nextDate;
+}
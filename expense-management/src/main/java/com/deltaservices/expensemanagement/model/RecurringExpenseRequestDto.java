@@ -0,0 +1,32 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class RecurringExpenseRequestDto {
+
+    @NotBlank(message = "Description is required")
+    private String description;
+
+    @NotNull(message = "Amount is required")
+    private Money amount;
+
+    // ISO 4217 code; Money.DEFAULT_CURRENCY when absent
+    private String currency;
+
+    @NotBlank(message = "Category is required")
+    private String category;
+
+    // Spring cron expression such as "0 0 0 1 * *" or "@monthly"
+    @NotBlank(message = "Schedule is required")
+    private String schedule;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+}
@@ -0,0 +1,54 @@
+package com.deltaservices.expensemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Lease on a scheduled job shared by all application instances. Whoever holds an
+ * unexpired lease runs the job; the others skip it.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "scheduler_locks")
+public class SchedulerLock implements Persistable<String> {
+
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    @Transient
+    private boolean newLock = true;
+
+    public SchedulerLock(String name, String lockedBy, Instant lockedUntil) {
+        this.name = name;
+        this.lockedBy = lockedBy;
+        this.lockedUntil = lockedUntil;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newLock;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newLock = false;
+    }
+}
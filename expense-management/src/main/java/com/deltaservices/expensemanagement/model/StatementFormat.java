@@ -0,0 +1,41 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+
+import java.util.Locale;
+
+public enum StatementFormat {
+
+    CSV("csv"),
+    OFX("ofx");
+
+    private final String extension;
+
+    StatementFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static StatementFormat fromParameter(String value) {
+        for (StatementFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported statement format: " + value);
+    }
+
+    /**
+     * The format named by the file's extension, used when no format is given.
+     */
+    public static StatementFormat fromFilename(String filename) {
+        int dot = filename != null ? filename.lastIndexOf('.') : -1;
+        if (dot < 0) {
+            throw new BadRequestException("Cannot tell the format of '" + filename + "', pass format=csv or format=ofx");
+        }
+        return fromParameter(filename.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,19 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+
+public enum SummaryGrouping {
+
+    CATEGORY,
+    MONTH,
+    CATEGORY_MONTH;
+
+    public static SummaryGrouping fromParameter(String value) {
+        for (SummaryGrouping grouping : values()) {
+            if (grouping.name().equalsIgnoreCase(value)) {
+                return grouping;
+            }
+        }
+        throw new BadRequestException("Unsupported summary grouping: " + value);
+    }
+}
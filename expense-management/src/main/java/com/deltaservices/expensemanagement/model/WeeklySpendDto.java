@@ -0,0 +1,21 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+public class WeeklySpendDto {
+
+    // Monday
+    private LocalDate weekStart;
+    private long count;
+    private Money total;
+    // Against the week before; absent for the first week
+    private Money change;
+    // Absent when the week before had no spending
+    private BigDecimal changePercent;
+}
@@ -0,0 +1,63 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.ArchivedExpense;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Expenses moved out of the hot table. The queries mirror those of
+ * {@link ExpenseRepository} that have to see the whole history.
+ */
+@Repository
+public interface ArchivedExpenseRepository extends JpaRepository<ArchivedExpense, Long>,
+        JpaSpecificationExecutor<ArchivedExpense>, ArchivedExpenseRepositoryCustom {
+
+    @Query("select e from ArchivedExpense e where e.id > :after order by e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    List<ArchivedExpense> findPageAfter(@Param("after") long after, Limit limit);
+
+    @Query("select e.id, e.description, e.date, e.category from ArchivedExpense e order by e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Object[]> streamSearchFields();
+
+    @Query("select e.id, e.date, e.amountMinor, e.currency, e.category, e.description from ArchivedExpense e order by e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Object[]> streamAnalyticsFields();
+
+    @Query("select e.category, e.date, e.currency, sum(e.amountMinor), count(e) from ArchivedExpense e "
+            + "group by e.category, e.date, e.currency")
+    List<Object[]> sumByCategoryAndDate();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from ArchivedExpense e where e.id in :ids")
+    List<ArchivedExpense> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from ArchivedExpense e where e.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,22 @@
+package com.deltaservices.expensemanagement.repository;
+
+import java.time.LocalDate;
+
+public interface ArchivedExpenseRepositoryCustom {
+
+    /**
+     * Moves up to {@code limit} expenses dated before the cutoff from the hot table
+     * into the archive, keeping their ids. The moved rows are locked first, so a
+     * concurrent delete sees them in exactly one of the tables. Must be called inside
+     * a transaction. Returns the number of expenses moved, 0 once none are left.
+     */
+    int archiveBefore(LocalDate cutoff, int limit);
+
+    /**
+     * Moves an archived expense back to the hot table, for an update that dates it
+     * after the archive boundary. Must be called inside a transaction.
+     *
+     * @return false if the expense is no longer archived at that version
+     */
+    boolean restore(long id, long version);
+}
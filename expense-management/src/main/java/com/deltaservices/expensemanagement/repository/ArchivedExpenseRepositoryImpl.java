@@ -0,0 +1,78 @@
+package com.deltaservices.expensemanagement.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ArchivedExpenseRepositoryImpl implements ArchivedExpenseRepositoryCustom {
+
+    private static final String COLUMNS = "id, description, amount_minor, currency, date, category_id, version";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int archiveBefore(LocalDate cutoff, int limit) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<Long> ids = new ArrayList<>(limit);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id FROM expenses WHERE date < ? LIMIT ? FOR UPDATE")) {
+                select.setDate(1, Date.valueOf(cutoff));
+                select.setInt(2, limit);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        ids.add(rows.getLong(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            String in = " WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO expenses_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM expenses" + in);
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM expenses" + in)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    insert.setLong(i + 1, ids.get(i));
+                    delete.setLong(i + 1, ids.get(i));
+                }
+                insert.executeUpdate();
+                return delete.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public boolean restore(long id, long version) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id FROM expenses_archive WHERE id = ? AND version = ? FOR UPDATE")) {
+                select.setLong(1, id);
+                select.setLong(2, version);
+                try (ResultSet rows = select.executeQuery()) {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                }
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO expenses (" + COLUMNS + ") SELECT " + COLUMNS + " FROM expenses_archive WHERE id = ?");
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM expenses_archive WHERE id = ?")) {
+                insert.setLong(1, id);
+                delete.setLong(1, id);
+                insert.executeUpdate();
+                return delete.executeUpdate() == 1;
+            }
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.Budget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetRepository extends JpaRepository<Budget, Integer> {
+
+    Optional<Budget> findByCategory(String category);
+
+    List<Budget> findByCategoryIn(Collection<String> categories);
+}
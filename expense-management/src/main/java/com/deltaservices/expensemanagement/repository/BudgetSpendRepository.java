@@ -0,0 +1,37 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.BudgetSpend;
+import com.deltaservices.expensemanagement.model.BudgetSpendId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+
+@Repository
+public interface BudgetSpendRepository extends JpaRepository<BudgetSpend, BudgetSpendId> {
+
+    /**
+     * Adds to the month's spending if it is counted in the given currency.
+     *
+     * @return 0 if there is no such row yet, or it is counted in another currency
+     */
+    @Modifying
+    @Query("update BudgetSpend s set s.spentMinor = s.spentMinor + :delta "
+            + "where s.id.budgetId = :budgetId and s.id.monthStart = :monthStart and s.currency = :currency")
+    int addToSpent(@Param("budgetId") Integer budgetId, @Param("monthStart") LocalDate monthStart,
+                   @Param("currency") Currency currency, @Param("delta") long delta);
+
+    /**
+     * The stored spending. Selects the column rather than the entity, so a copy already
+     * loaded in the persistence context is never returned in place of the updated row.
+     */
+    @Query("select s.spentMinor from BudgetSpend s where s.id.budgetId = :budgetId and s.id.monthStart = :monthStart")
+    Long findSpent(@Param("budgetId") Integer budgetId, @Param("monthStart") LocalDate monthStart);
+
+    List<BudgetSpend> findByIdMonthStart(LocalDate monthStart);
+}
@@ -0,0 +1,9 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Integer>, CategoryRepositoryCustom {
+}
@@ -0,0 +1,20 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.Category;
+
+import java.util.Optional;
+
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Returns the category with the given name, inserting it with the given label if
+     * it does not exist. Must be called inside a transaction.
+     */
+    Category findOrCreate(String name, String label);
+
+    /**
+     * Looks a category up with plain JDBC, safe to call while Hibernate is reading
+     * a result set.
+     */
+    Optional<Category> findDetachedById(int id);
+}
@@ -0,0 +1,76 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Optional;
+
+/**
+ * Runs over plain JDBC on the transaction's connection. A concurrent insert of the
+ * same name is rolled back to a savepoint and answered with the winner's row,
+ * without marking the surrounding transaction rollback only.
+ */
+public class CategoryRepositoryImpl implements CategoryRepositoryCustom {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String SELECT_BY_NAME_SQL = "SELECT id, name, label FROM categories WHERE name = ?";
+    private static final String SELECT_BY_ID_SQL = "SELECT id, name, label FROM categories WHERE id = ?";
+    private static final String INSERT_SQL = "INSERT INTO categories (name, label) VALUES (?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Category findOrCreate(String name, String label) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Optional<Category> existing = select(connection, SELECT_BY_NAME_SQL, name);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, name);
+                statement.setString(2, label);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    connection.releaseSavepoint(savepoint);
+                    return new Category(keys.getInt(1), name, label);
+                }
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                // Another transaction created it first
+                return select(connection, SELECT_BY_NAME_SQL, name).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Category> findDetachedById(int id) {
+        return entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> select(connection, SELECT_BY_ID_SQL, id));
+    }
+
+    private Optional<Category> select(Connection connection, String sql, Object key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? Optional.of(new Category(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3)))
+                        : Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.ExpenseChange;
+import com.deltaservices.expensemanagement.model.ExpenseChangeId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ExpenseChangeRepository extends JpaRepository<ExpenseChange, ExpenseChangeId>,
+        ExpenseChangeRepositoryCustom {
+
+    @Query("select count(c) from ExpenseChange c where c.id.version > :since and c.id.version <= :until")
+    long countBetween(@Param("since") long since, @Param("until") long until);
+
+    /**
+     * Changes after {@code since} up to and including {@code until}, oldest first.
+     */
+    @Query("select c from ExpenseChange c where c.id.version > :since and c.id.version <= :until order by c.id.version")
+    List<ExpenseChange> findBetween(@Param("since") long since, @Param("until") long until);
+
+    @Query("select c from ExpenseChange c where c.id.version > :since and c.id.version <= :until order by c.id.version")
+    List<ExpenseChange> findBetween(@Param("since") long since, @Param("until") long until, Limit limit);
+
+    @Query("select max(c.id.version) from ExpenseChange c where c.changedAt < :cutoff")
+    Long findMaxVersionChangedBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from ExpenseChange c where c.id.version <= :version")
+    int deleteThrough(@Param("version") long version);
+}
@@ -0,0 +1,13 @@
+package com.deltaservices.expensemanagement.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface ExpenseChangeRepositoryCustom {
+
+    /**
+     * Records the given expenses as written or deleted at a version. Must be called
+     * inside a transaction.
+     */
+    void insertAll(long version, Instant changedAt, Collection<Long> expenseIds, boolean deleted);
+}
@@ -0,0 +1,48 @@
+package com.deltaservices.expensemanagement.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Inserts change rows with batched statements over the transaction's connection;
+ * saving entities with assigned ids would first select each of them.
+ */
+public class ExpenseChangeRepositoryImpl implements ExpenseChangeRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL =
+            "INSERT INTO expense_changes (version, expense_id, deleted, changed_at) VALUES (?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(long version, Instant changedAt, Collection<Long> expenseIds, boolean deleted) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                Timestamp timestamp = Timestamp.from(changedAt);
+                int pending = 0;
+                for (Long expenseId : expenseIds) {
+                    statement.setLong(1, version);
+                    statement.setLong(2, expenseId);
+                    statement.setBoolean(3, deleted);
+                    statement.setTimestamp(4, timestamp);
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+}
@@ -1,8 +1,79 @@
 package com.deltaservices.expensemanagement.repository;
 
 import com.deltaservices.expensemanagement.model.Expense;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> { }
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
+
+    /**
+     * Up to {@code limit} expenses with an id above {@code after}, in id order, for
+     * reading the whole table a page at a time.
+     */
+    @Query("select e from Expense e where e.id > :after order by e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    List<Expense> findPageAfter(@Param("after") long after, Limit limit);
+
+    /**
+     * Streams (id, description, date, category) of every expense in id order without
+     * loading entities. Must be consumed inside a transaction and closed by the caller.
+     */
+    @Query("select e.id, e.description, e.date, e.category from Expense e order by e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Object[]> streamSearchFields();
+
+    /**
+     * Rows of (id, date, amount in minor units, currency, category, description) in id
+     * order, for the analytics columns. Must be consumed inside a transaction and closed
+     * by the caller.
+     */
+    @Query("select e.id, e.date, e.amountMinor, e.currency, e.category, e.description from Expense e order by e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Object[]> streamAnalyticsFields();
+
+    /**
+     * Totals per category, day and currency computed from the expenses themselves,
+     * as rows of (category, date, currency, total in minor units, count).
+     */
+    @Query("select e.category, e.date, e.currency, sum(e.amountMinor), count(e) from Expense e "
+            + "group by e.category, e.date, e.currency")
+    List<Object[]> sumByCategoryAndDate();
+
+    /**
+     * Loads and row locks the given expenses, so that a concurrent delete of the same
+     * rows waits instead of being counted twice.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Expense e where e.id in :ids")
+    List<Expense> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Expense e where e.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,72 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.ExpenseCursor;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.Money;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filters by attribute name, so they apply to hot and archived expenses alike.
+ */
+public final class ExpenseSpecifications {
+
+    private ExpenseSpecifications() {
+    }
+
+    public static <T> Specification<T> matching(ExpenseFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("date"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("date"), filter.getTo()));
+            }
+            if (filter.getCategory() != null) {
+                predicates.add(cb.equal(root.get("category"), filter.getCategory()));
+            }
+            // Minor units only compare within one currency, so amount bounds also select it
+            Currency currency = currencyOf(filter);
+            if (currency != null) {
+                predicates.add(cb.equal(root.get("currency"), currency));
+            }
+            // Bounds finer than the minor unit round inwards, so they never admit an amount outside them
+            if (filter.getMinAmount() != null) {
+                long min = Money.of(filter.getMinAmount(), currency, RoundingMode.CEILING).getMinorUnits();
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amountMinor"), min));
+            }
+            if (filter.getMaxAmount() != null) {
+                long max = Money.of(filter.getMaxAmount(), currency, RoundingMode.FLOOR).getMinorUnits();
+                predicates.add(cb.lessThanOrEqualTo(root.get("amountMinor"), max));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static Currency currencyOf(ExpenseFilter filter) {
+        if (filter.getCurrency() != null) {
+            return Currency.getInstance(filter.getCurrency().toUpperCase(Locale.ROOT));
+        }
+        return filter.getMinAmount() != null || filter.getMaxAmount() != null ? Money.DEFAULT_CURRENCY : null;
+    }
+
+    /**
+     * Restricts to expenses listed after the cursor in (date desc, id desc) order.
+     * Written as {@code date <= d and (date < d or id < i)} so the leading
+     * {@code date} bound can be used as an index range.
+     */
+    public static <T> Specification<T> after(ExpenseCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("date"), cursor.getDate()),
+                cb.or(
+                        cb.lessThan(root.get("date"), cursor.getDate()),
+                        cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
@@ -0,0 +1,37 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.ExpenseMonthSummary;
+import com.deltaservices.expensemanagement.model.ExpenseSummary;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExpenseSummaryRepository extends JpaRepository<ExpenseSummary, ExpenseSummaryId>,
+        ExpenseSummaryRepositoryCustom {
+
+    /**
+     * Monthly totals of one currency in a date range, as rows of
+     * (category, year, month, total in minor units, count). Read from the monthly
+     * rollup, so one row per category and month.
+     */
+    @Query("select s.id.category, year(s.id.monthStart), month(s.id.monthStart), s.totalMinor, s.count "
+            + "from ExpenseMonthSummary s where s.id.monthStart between :from and :to and s.id.currency = :currency "
+            + "and s.count > 0")
+    List<Object[]> sumByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                              @Param("currency") String currency);
+
+    @Query("select s from ExpenseSummary s where s.id.date between :from and :to and s.id.currency in :currencies "
+            + "and s.count > 0")
+    List<ExpenseSummary> findByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                         @Param("currencies") Collection<String> currencies);
+
+    @Query("select s from ExpenseMonthSummary s")
+    List<ExpenseMonthSummary> findAllMonths();
+}
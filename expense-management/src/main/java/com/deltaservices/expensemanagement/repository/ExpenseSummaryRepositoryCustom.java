@@ -0,0 +1,20 @@
+package com.deltaservices.expensemanagement.repository;
+
+import java.time.LocalDate;
+
+public interface ExpenseSummaryRepositoryCustom {
+
+    /**
+     * Adds the given delta, in minor units, to a (category, day, currency) row,
+     * creating it on first use. Must be called inside a transaction.
+     */
+    void addToSummary(String category, LocalDate date, String currency, long amountMinor, long count);
+
+    /**
+     * Adds the given delta, in minor units, to a (category, month, currency) row,
+     * creating it on first use. Must be called inside a transaction.
+     *
+     * @param monthStart the first day of the month
+     */
+    void addToMonthSummary(String category, LocalDate monthStart, String currency, long amountMinor, long count);
+}
@@ -0,0 +1,82 @@
+package com.deltaservices.expensemanagement.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+
+/**
+ * Runs the summary upserts over plain JDBC on the transaction's connection. Two
+ * transactions creating the same new row both take the insert branch of the MERGE,
+ * and the one committing second fails on the primary key. That failure is rolled
+ * back to a savepoint and the MERGE retried, which then takes the update branch.
+ * Going through Hibernate instead would mark the whole transaction rollback only.
+ */
+public class ExpenseSummaryRepositoryImpl implements ExpenseSummaryRepositoryCustom {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String MERGE_SQL = "MERGE INTO expense_summaries s "
+            + "USING (VALUES (CAST(? AS VARCHAR), CAST(? AS DATE), CAST(? AS VARCHAR), "
+            + "CAST(? AS BIGINT), CAST(? AS BIGINT))) AS d(category, date, currency, amount, cnt) "
+            + "ON s.category = d.category AND s.date = d.date AND s.currency = d.currency "
+            + "WHEN MATCHED THEN UPDATE SET total_minor = s.total_minor + d.amount, expense_count = s.expense_count + d.cnt "
+            + "WHEN NOT MATCHED THEN INSERT (category, date, currency, total_minor, expense_count) "
+            + "VALUES (d.category, d.date, d.currency, d.amount, d.cnt)";
+    private static final String MERGE_MONTH_SQL = "MERGE INTO expense_month_summaries s "
+            + "USING (VALUES (CAST(? AS VARCHAR), CAST(? AS DATE), CAST(? AS VARCHAR), "
+            + "CAST(? AS BIGINT), CAST(? AS BIGINT))) AS d(category, month_start, currency, amount, cnt) "
+            + "ON s.category = d.category AND s.month_start = d.month_start AND s.currency = d.currency "
+            + "WHEN MATCHED THEN UPDATE SET total_minor = s.total_minor + d.amount, expense_count = s.expense_count + d.cnt "
+            + "WHEN NOT MATCHED THEN INSERT (category, month_start, currency, total_minor, expense_count) "
+            + "VALUES (d.category, d.month_start, d.currency, d.amount, d.cnt)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void addToSummary(String category, LocalDate date, String currency, long amountMinor, long count) {
+        upsert(MERGE_SQL, category, date, currency, amountMinor, count);
+    }
+
+    @Override
+    public void addToMonthSummary(String category, LocalDate monthStart, String currency, long amountMinor, long count) {
+        upsert(MERGE_MONTH_SQL, category, monthStart, currency, amountMinor, count);
+    }
+
+    private void upsert(String sql, String category, LocalDate date, String currency, long amountMinor, long count) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            for (int attempt = 1; ; attempt++) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    merge(connection, sql, category, date, currency, amountMinor, count);
+                    connection.releaseSavepoint(savepoint);
+                    return;
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    if (!UNIQUE_VIOLATION.equals(e.getSQLState()) || attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        });
+    }
+
+    private void merge(Connection connection, String sql, String category, LocalDate date, String currency,
+                       long amountMinor, long count) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, category);
+            statement.setDate(2, Date.valueOf(date));
+            statement.setString(3, currency);
+            statement.setLong(4, amountMinor);
+            statement.setLong(5, count);
+            statement.executeUpdate();
+        }
+    }
+}
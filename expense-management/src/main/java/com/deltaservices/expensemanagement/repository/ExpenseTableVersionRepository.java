@@ -0,0 +1,53 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExpenseTableVersionRepository extends JpaRepository<ExpenseTableVersion, Integer> {
+
+    /**
+     * The counter as rows of (version, changed at, purged through). Selects columns
+     * rather than the entity, so a copy already loaded in the persistence context is
+     * never returned in place of the committed row.
+     */
+    @Query("select v.version, v.changedAt, v.purgedThrough from ExpenseTableVersion v where v.id = :id")
+    List<Object[]> findCurrent(@Param("id") Integer id);
+
+    /**
+     * The exchange rate generation. The column is not mapped, so the counter's own
+     * updates never write it back.
+     */
+    @Query(value = "select fx_generation from expense_table_version where id = :id", nativeQuery = true)
+    Long findFxGeneration(@Param("id") Integer id);
+
+    @Modifying
+    @Query(value = "update expense_table_version set fx_generation = fx_generation + 1 where id = :id", nativeQuery = true)
+    int incrementFxGeneration(@Param("id") Integer id);
+
+    /**
+     * Day before which all archived expenses are dated, or {@code null} while the archive
+     * is empty. Not mapped either, for the same reason.
+     */
+    @Query(value = "select archived_before from expense_table_version where id = :id", nativeQuery = true)
+    LocalDate findArchivedBefore(@Param("id") Integer id);
+
+    @Modifying
+    @Query(value = "update expense_table_version set archived_before = :day where id = :id"
+            + " and (archived_before is null or archived_before < :day)", nativeQuery = true)
+    int raiseArchivedBefore(@Param("id") Integer id, @Param("day") LocalDate day);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from ExpenseTableVersion v where v.id = :id")
+    Optional<ExpenseTableVersion> findByIdForUpdate(@Param("id") Integer id);
+}
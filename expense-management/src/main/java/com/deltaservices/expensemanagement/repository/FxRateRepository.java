@@ -0,0 +1,10 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.FxRate;
+import com.deltaservices.expensemanagement.model.FxRateId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, FxRateId>, FxRateRepositoryCustom {
+}
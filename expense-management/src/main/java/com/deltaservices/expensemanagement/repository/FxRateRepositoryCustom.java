@@ -0,0 +1,13 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.FxRate;
+
+import java.util.List;
+
+public interface FxRateRepositoryCustom {
+
+    /**
+     * Inserts the rates or overwrites the stored rate of the same pair and day.
+     */
+    void upsertAll(List<FxRate> rates);
+}
@@ -0,0 +1,52 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.FxRate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Writes rates with batched MERGE statements over the transaction's connection, so
+ * re-importing a file costs no read per row.
+ */
+public class FxRateRepositoryImpl implements FxRateRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String MERGE_SQL = "MERGE INTO fx_rates r "
+            + "USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS DATE), CAST(? AS NUMERIC(19, 10)))) "
+            + "AS d(base_currency, quote_currency, rate_date, rate) "
+            + "ON r.base_currency = d.base_currency AND r.quote_currency = d.quote_currency AND r.rate_date = d.rate_date "
+            + "WHEN MATCHED THEN UPDATE SET rate = d.rate "
+            + "WHEN NOT MATCHED THEN INSERT (base_currency, quote_currency, rate_date, rate) "
+            + "VALUES (d.base_currency, d.quote_currency, d.rate_date, d.rate)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void upsertAll(List<FxRate> rates) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MERGE_SQL)) {
+                int pending = 0;
+                for (FxRate rate : rates) {
+                    statement.setString(1, rate.getId().getBaseCurrency());
+                    statement.setString(2, rate.getId().getQuoteCurrency());
+                    statement.setDate(3, Date.valueOf(rate.getId().getRateDate()));
+                    statement.setBigDecimal(4, rate.getRate());
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+}
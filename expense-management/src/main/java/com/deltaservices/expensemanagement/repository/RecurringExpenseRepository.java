@@ -0,0 +1,27 @@
+package com.deltaservices.expensemanagement.repository;
+
+import com.deltaservices.expensemanagement.model.RecurringExpense;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+
+    /**
+     * Templates with a date due on or before {@code today}, locked until the caller
+     * commits so that no other writer can materialize the same dates.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from RecurringExpense r where r.nextDate <= :today order by r.id")
+    List<RecurringExpense> findDueForUpdate(@Param("today") LocalDate today, Limit limit);
+
+    List<RecurringExpense> findAllByOrderByIdAsc();
+}
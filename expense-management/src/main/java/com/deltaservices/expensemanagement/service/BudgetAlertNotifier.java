@@ -0,0 +1,111 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.BudgetThresholdCrossedEvent;
+import com.deltaservices.expensemanagement.model.BudgetAlertDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Delivers budget alerts. The latest ones are kept for {@code /api/budgets/alerts},
+ * and each is posted as JSON to {@code expense.budgets.webhook-url} when set. Posts
+ * are sent asynchronously and not retried; a failed one is only logged.
+ */
+@Service
+public class BudgetAlertNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetAlertNotifier.class);
+    static final int RECENT_ALERTS = 100;
+    private static final Duration WEBHOOK_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectMapper objectMapper;
+    private final URI webhookUrl;
+    private final HttpClient httpClient;
+    private final Deque<BudgetAlertDto> recentAlerts = new ArrayDeque<>();
+
+    @Autowired
+    public BudgetAlertNotifier(ObjectMapper objectMapper, @Value("${expense.budgets.webhook-url:}") String webhookUrl) {
+        this.objectMapper = objectMapper;
+        this.webhookUrl = StringUtils.hasText(webhookUrl) ? URI.create(webhookUrl) : null;
+        this.httpClient = this.webhookUrl != null
+                ? HttpClient.newBuilder().connectTimeout(WEBHOOK_TIMEOUT).build()
+                : null;
+    }
+
+    @EventListener
+    public void onThresholdCrossed(BudgetThresholdCrossedEvent event) {
+        BudgetAlertDto alert = toDto(event);
+        logger.info("Budget of {} for {} passed {}%: {} of {} {}", alert.getCategory(), alert.getMonth(),
+                alert.getThreshold(), alert.getSpent().toPlainString(), alert.getBudget().toPlainString(),
+                alert.getCurrency());
+        synchronized (recentAlerts) {
+            if (recentAlerts.size() == RECENT_ALERTS) {
+                recentAlerts.removeLast();
+            }
+            recentAlerts.addFirst(alert);
+        }
+        if (webhookUrl != null) {
+            post(alert);
+        }
+    }
+
+    /**
+     * The latest alerts, newest first.
+     */
+    public List<BudgetAlertDto> getRecentAlerts() {
+        synchronized (recentAlerts) {
+            return new ArrayList<>(recentAlerts);
+        }
+    }
+
+    private void post(BudgetAlertDto alert) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(alert);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize budget alert for {}", alert.getCategory(), e);
+            return;
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(webhookUrl)
+                .timeout(WEBHOOK_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null) {
+                logger.warn("Budget alert webhook failed: {}", error.toString());
+            } else if (response.statusCode() >= 300) {
+                logger.warn("Budget alert webhook answered {}", response.statusCode());
+            }
+        });
+    }
+
+    private static BudgetAlertDto toDto(BudgetThresholdCrossedEvent event) {
+        BudgetAlertDto alert = new BudgetAlertDto();
+        alert.setCategory(event.getCategory());
+        alert.setMonth(event.getMonth());
+        alert.setThreshold(event.getThreshold());
+        alert.setBudget(event.getBudget());
+        alert.setSpent(event.getSpent());
+        alert.setCurrency(event.getBudget().getCurrency().getCurrencyCode());
+        alert.setCrossedAt(event.getCrossedAt());
+        return alert;
+    }
+}
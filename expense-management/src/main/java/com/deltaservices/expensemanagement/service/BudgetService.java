@@ -0,0 +1,439 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.BudgetThresholdCrossedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.model.Budget;
+import com.deltaservices.expensemanagement.model.BudgetDto;
+import com.deltaservices.expensemanagement.model.BudgetRequestDto;
+import com.deltaservices.expensemanagement.model.BudgetSpend;
+import com.deltaservices.expensemanagement.model.BudgetSpendId;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryId;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.BudgetRepository;
+import com.deltaservices.expensemanagement.repository.BudgetSpendRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly budgets per category and the alerts raised when spending passes a share of
+ * them. Budgets are read from the database, so every instance applies the same ones.
+ * Each budget's spending per month is a counter row in {@code budget_spend}. Just
+ * before a write commits, once the change log holds the table version lock, the write
+ * adds its own delta to the counter and compares the total before and after against
+ * the thresholds. That lock serializes commits, so the counter includes every earlier
+ * commit on any instance. The counters are checked against the summary on a schedule.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class BudgetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetService.class);
+    static final String LOCK_NAME = "budget-spend";
+
+    private final BudgetRepository budgetRepository;
+    private final BudgetSpendRepository budgetSpendRepository;
+    private final CategoryRegistry categoryRegistry;
+    private final ExpenseSummaryService expenseSummaryService;
+    private final ExpenseChangeService expenseChangeService;
+    private final FxRateService fxRateService;
+    private final SchedulerLockService schedulerLockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Integer> thresholds;
+    private final Duration lease;
+    private final Clock clock;
+
+    @Autowired
+    public BudgetService(BudgetRepository budgetRepository, BudgetSpendRepository budgetSpendRepository,
+                         CategoryRegistry categoryRegistry, ExpenseSummaryService expenseSummaryService,
+                         ExpenseChangeService expenseChangeService, FxRateService fxRateService,
+                         SchedulerLockService schedulerLockService, ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${expense.budgets.thresholds:80,100}") List<Integer> thresholds,
+                         @Value("${expense.budgets.lock-lease:10m}") Duration lease) {
+        this(budgetRepository, budgetSpendRepository, categoryRegistry, expenseSummaryService, expenseChangeService,
+                fxRateService, schedulerLockService, eventPublisher, transactionManager, thresholds, lease,
+                Clock.systemUTC());
+    }
+
+    BudgetService(BudgetRepository budgetRepository, BudgetSpendRepository budgetSpendRepository,
+                  CategoryRegistry categoryRegistry, ExpenseSummaryService expenseSummaryService,
+                  ExpenseChangeService expenseChangeService, FxRateService fxRateService,
+                  SchedulerLockService schedulerLockService, ApplicationEventPublisher eventPublisher,
+                  PlatformTransactionManager transactionManager, List<Integer> thresholds, Duration lease,
+                  Clock clock) {
+        this.budgetRepository = budgetRepository;
+        this.budgetSpendRepository = budgetSpendRepository;
+        this.categoryRegistry = categoryRegistry;
+        this.expenseSummaryService = expenseSummaryService;
+        this.expenseChangeService = expenseChangeService;
+        this.fxRateService = fxRateService;
+        this.schedulerLockService = schedulerLockService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.thresholds = thresholds.stream().sorted().toList();
+        this.lease = lease;
+        this.clock = clock;
+    }
+
+    @EventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        track(List.of(), event.getExpenses());
+    }
+
+    @EventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        track(event.getExpenses(), List.of());
+    }
+
+    // One combined delta, so moving spending between months or categories raises no false alert
+    @EventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        track(List.of(event.getBefore()), List.of(event.getAfter()));
+    }
+
+    public List<BudgetDto> getBudgets(YearMonth month) {
+        YearMonth resolved = month != null ? month : YearMonth.now(clock);
+        Map<Integer, BudgetSpend> spending = budgetSpendRepository.findByIdMonthStart(resolved.atDay(1)).stream()
+                .collect(Collectors.toMap(spend -> spend.getId().getBudgetId(), spend -> spend));
+        return budgetRepository.findAll().stream()
+                .sorted(Comparator.comparing(Budget::getCategory))
+                .map(budget -> toDto(budget, spending.get(budget.getId()), resolved))
+                .collect(Collectors.toList());
+    }
+
+    public BudgetDto getBudget(String category, YearMonth month) {
+        Budget budget = budgetRepository.findByCategory(category)
+                .orElseThrow(() -> new ResourceNotFoundException("Budget", "category", category));
+        YearMonth resolved = month != null ? month : YearMonth.now(clock);
+        return toDto(budget, budgetSpendRepository.findById(new BudgetSpendId(budget.getId(), resolved.atDay(1)))
+                .orElse(null), resolved);
+    }
+
+    public BudgetDto setBudget(String category, BudgetRequestDto request) {
+        if (categoryRegistry.findId(category) == null) {
+            throw new ResourceNotFoundException("Category", "name", category);
+        }
+        if (!request.getAmount().isPositive()) {
+            logger.debug("Invalid budget amount: {}", request.getAmount());
+            throw new BadRequestException("Budget amount must be greater than zero");
+        }
+        Currency currency = fxRateService.resolveCurrency(request.getCurrency());
+        Money amount;
+        try {
+            amount = request.getAmount().withCurrency(currency);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Budget amount {} too precise for {}", request.getAmount(), currency);
+            throw new BadRequestException(e.getMessage());
+        }
+
+        Budget saved = transactionTemplate.execute(status -> {
+            Budget budget = budgetRepository.findByCategory(category).orElseGet(Budget::new);
+            budget.setCategory(category);
+            budget.setAmount(amount);
+            return budgetRepository.save(budget);
+        });
+        logger.info("Budget of {} set to {} {}", category, amount.toPlainString(), currency);
+        YearMonth month = YearMonth.now(clock);
+        return toDto(saved, budgetSpendRepository.findById(new BudgetSpendId(saved.getId(), month.atDay(1)))
+                .orElse(null), month);
+    }
+
+    public void deleteBudget(String category) {
+        transactionTemplate.executeWithoutResult(status -> budgetRepository.delete(
+                budgetRepository.findByCategory(category)
+                        .orElseThrow(() -> new ResourceNotFoundException("Budget", "category", category))));
+        logger.info("Budget of {} deleted", category);
+    }
+
+    // Counts the months spent before this release, or while no instance was running
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * Recounts the spending of every budget in the months it has counters for and in the
+     * current month from the summary, and corrects every counter that differs, unless
+     * another instance holds the lease. Runs under the version lock, which every counter
+     * write also holds, so no write changes a counter while it is compared.
+     *
+     * @return the number of counters corrected or created
+     */
+    @Scheduled(cron = "${expense.budgets.reconcile-cron:0 15 3 * * *}")
+    public int reconcile() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, lease)) {
+            logger.debug("Budget spending is reconciled by another instance");
+            return 0;
+        }
+        try {
+            Integer repaired = transactionTemplate.execute(status -> {
+                expenseChangeService.lockVersion();
+                return reconcileCounters();
+            });
+            logger.info("Budget spending reconciliation finished, {} counters repaired", repaired);
+            return repaired != null ? repaired : 0;
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private int reconcileCounters() {
+        Map<Integer, Budget> budgets = budgetRepository.findAll().stream()
+                .collect(Collectors.toMap(Budget::getId, budget -> budget));
+        Map<BudgetSpendId, BudgetSpend> counters = new HashMap<>();
+        budgetSpendRepository.findAll().forEach(spend -> counters.put(spend.getId(), spend));
+        LocalDate currentMonth = YearMonth.now(clock).atDay(1);
+        budgets.keySet().forEach(budgetId -> counters.computeIfAbsent(new BudgetSpendId(budgetId, currentMonth),
+                id -> new BudgetSpend(id, null, 0)));
+
+        int repaired = 0;
+        for (BudgetSpend counter : counters.values()) {
+            Budget budget = budgets.get(counter.getId().getBudgetId());
+            Currency currency = budget.getCurrency();
+            long expected;
+            try {
+                expected = expenseSummaryService.getCategoryTotal(budget.getCategory(),
+                        YearMonth.from(counter.getId().getMonthStart()), currency).getMinorUnits();
+            } catch (BadRequestException e) {
+                logger.warn("Skipping spending of {} in {}: {}", budget.getCategory(),
+                        counter.getId().getMonthStart(), e.getMessage());
+                continue;
+            }
+            if (!currency.equals(counter.getCurrency()) || counter.getSpentMinor() != expected) {
+                if (counter.getCurrency() != null) {
+                    logger.warn("Spending of {} in {} is {} {} but expenses add up to {} {}, repairing",
+                            budget.getCategory(), counter.getId().getMonthStart(), counter.getSpentMinor(),
+                            counter.getCurrency(), expected, currency);
+                }
+                counter.setCurrency(currency);
+                counter.setSpentMinor(expected);
+                budgetSpendRepository.save(counter);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private void track(List<Expense> removed, List<Expense> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChecks checks = new PendingChecks();
+            checks.add(removed, added);
+            // Counters are only written under the version lock
+            List<BudgetThresholdCrossedEvent> crossed = transactionTemplate.execute(status -> {
+                expenseChangeService.lockVersion();
+                return checks.check();
+            });
+            if (crossed != null) {
+                crossed.forEach(eventPublisher::publishEvent);
+            }
+            return;
+        }
+        PendingChecks checks = (PendingChecks) TransactionSynchronizationManager.getResource(this);
+        if (checks == null) {
+            checks = new PendingChecks();
+            TransactionSynchronizationManager.bindResource(this, checks);
+            TransactionSynchronizationManager.registerSynchronization(checks);
+        }
+        checks.add(removed, added);
+    }
+
+    private BudgetDto toDto(Budget budget, BudgetSpend spend, YearMonth month) {
+        Money amount = budget.getAmount();
+        Money spent;
+        if (spend != null && spend.getCurrency().equals(amount.getCurrency())) {
+            spent = Money.ofMinor(spend.getSpentMinor(), amount.getCurrency());
+        } else {
+            // Not counted yet, or counted before the budget changed currency
+            spent = expenseSummaryService.getCategoryTotal(budget.getCategory(), month, amount.getCurrency());
+        }
+
+        BudgetDto dto = new BudgetDto();
+        dto.setCategory(budget.getCategory());
+        dto.setAmount(amount);
+        dto.setCurrency(amount.getCurrency().getCurrencyCode());
+        dto.setMonth(month);
+        dto.setSpent(spent);
+        dto.setPercentUsed((int) (Math.multiplyExact(spent.getMinorUnits(), 100) / amount.getMinorUnits()));
+        return dto;
+    }
+
+    /**
+     * The budgeted spending one transaction changed, per category, day and currency,
+     * added to the counters and checked against the thresholds just before it commits.
+     */
+    private class PendingChecks implements TransactionSynchronization {
+
+        // Looked up once per category and transaction; empty when the category has no budget
+        private final Map<String, Optional<Budget>> budgets = new HashMap<>();
+        private final Map<ExpenseSummaryId, Long> deltas = new HashMap<>();
+        private List<BudgetThresholdCrossedEvent> crossed = List.of();
+
+        void add(List<Expense> removed, List<Expense> added) {
+            Set<String> unknown = new HashSet<>();
+            removed.forEach(expense -> unknown.add(expense.getCategory()));
+            added.forEach(expense -> unknown.add(expense.getCategory()));
+            unknown.removeAll(budgets.keySet());
+            if (!unknown.isEmpty()) {
+                unknown.forEach(category -> budgets.put(category, Optional.empty()));
+                budgetRepository.findByCategoryIn(unknown)
+                        .forEach(budget -> budgets.put(budget.getCategory(), Optional.of(budget)));
+            }
+            addDeltas(removed, -1);
+            addDeltas(added, 1);
+        }
+
+        private void addDeltas(List<Expense> expenses, int sign) {
+            for (Expense expense : expenses) {
+                if (budgets.get(expense.getCategory()).isPresent()) {
+                    ExpenseSummaryId day = new ExpenseSummaryId(expense.getCategory(), expense.getDate(),
+                            expense.getCurrency().getCurrencyCode());
+                    deltas.merge(day, sign * expense.getAmountMinor(), Math::addExact);
+                }
+            }
+        }
+
+        List<BudgetThresholdCrossedEvent> check() {
+            Map<BudgetMonth, Long> converted = new HashMap<>();
+            Set<BudgetMonth> unconvertible = new HashSet<>();
+            for (Map.Entry<ExpenseSummaryId, Long> entry : deltas.entrySet()) {
+                ExpenseSummaryId day = entry.getKey();
+                BudgetMonth key = new BudgetMonth(day.getCategory(), YearMonth.from(day.getDate()));
+                if (unconvertible.contains(key)) {
+                    continue;
+                }
+                try {
+                    converted.merge(key, convertDelta(day, entry.getValue(), budgets.get(key.category()).orElseThrow()),
+                            Math::addExact);
+                } catch (BadRequestException e) {
+                    // The write itself goes through; the counter is put right by the next reconciliation
+                    logger.warn("Skipping budget check of {}: {}", key, e.getMessage());
+                    unconvertible.add(key);
+                    converted.remove(key);
+                }
+            }
+
+            List<BudgetThresholdCrossedEvent> crossed = new ArrayList<>();
+            for (Map.Entry<BudgetMonth, Long> entry : converted.entrySet()) {
+                BudgetMonth key = entry.getKey();
+                long delta = entry.getValue();
+                if (delta == 0) {
+                    continue;
+                }
+                Budget budget = budgets.get(key.category()).orElseThrow();
+                Money amount = budget.getAmount();
+                long after;
+                try {
+                    after = addToCounter(budget, key.month(), delta);
+                } catch (BadRequestException e) {
+                    // The first count needs rates of other expenses; the write itself goes through
+                    logger.warn("Skipping budget check of {}: {}", key, e.getMessage());
+                    continue;
+                }
+                long before = after - delta;
+                for (int threshold : thresholds) {
+                    long limit = Math.multiplyExact(amount.getMinorUnits(), threshold);
+                    if (Math.multiplyExact(before, 100) < limit && Math.multiplyExact(after, 100) >= limit) {
+                        crossed.add(new BudgetThresholdCrossedEvent(key.category(), key.month(), threshold, amount,
+                                Money.ofMinor(after, amount.getCurrency()), clock.instant()));
+                    }
+                }
+            }
+            crossed.sort(Comparator.comparing(BudgetThresholdCrossedEvent::getCategory)
+                    .thenComparing(BudgetThresholdCrossedEvent::getMonth)
+                    .thenComparingInt(BudgetThresholdCrossedEvent::getThreshold));
+            return crossed;
+        }
+
+        /**
+         * The change of the day's total in the budget's currency. Other currencies are
+         * converted as whole days, as the summary converts them, so the counters add up
+         * to exactly what the reconciliation recounts.
+         */
+        private long convertDelta(ExpenseSummaryId day, long delta, Budget budget) {
+            Currency from = Currency.getInstance(day.getCurrency());
+            Currency to = budget.getCurrency();
+            if (from.equals(to)) {
+                return delta;
+            }
+            // The summary already includes this transaction's writes
+            long after = expenseSummaryService.getDayTotal(day.getCategory(), day.getDate(), from);
+            return Math.subtractExact(
+                    fxRateService.convert(Money.ofMinor(after, from), to, day.getDate()).getMinorUnits(),
+                    fxRateService.convert(Money.ofMinor(after - delta, from), to, day.getDate()).getMinorUnits());
+        }
+
+        /**
+         * Adds the delta to the month's counter.
+         *
+         * @return the spending after the delta
+         */
+        private long addToCounter(Budget budget, YearMonth month, long delta) {
+            LocalDate monthStart = month.atDay(1);
+            if (budgetSpendRepository.addToSpent(budget.getId(), monthStart, budget.getCurrency(), delta) == 1) {
+                return budgetSpendRepository.findSpent(budget.getId(), monthStart);
+            }
+            // Not counted yet, or counted in a former currency of the budget; the summary already includes this write
+            long after = expenseSummaryService.getCategoryTotal(budget.getCategory(), month, budget.getCurrency())
+                    .getMinorUnits();
+            budgetSpendRepository.save(new BudgetSpend(new BudgetSpendId(budget.getId(), monthStart),
+                    budget.getCurrency(), after));
+            return after;
+        }
+
+        // Ordered after the change log's synchronization, so the version lock is held by now
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            crossed = check();
+        }
+
+        @Override
+        public void afterCommit() {
+            crossed.forEach(eventPublisher::publishEvent);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BudgetService.this);
+        }
+    }
+
+    private record BudgetMonth(String category, YearMonth month) {
+    }
+}
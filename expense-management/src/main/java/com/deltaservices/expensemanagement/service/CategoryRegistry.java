@@ -0,0 +1,177 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.Category;
+import com.deltaservices.expensemanagement.repository.CategoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves category names to dimension ids and back from memory. All categories are
+ * loaded at startup; a category created by a transaction is only published to other
+ * threads once that transaction commits, so nobody can reference a rolled back id.
+ * A name that does not exist yet is created on first use, as long as it is a valid
+ * name and fewer than {@code expense.categories.max} categories exist, so clients
+ * cannot grow the table without bound.
+ */
+@Service
+public class CategoryRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryRegistry.class);
+    public static final int UNKNOWN_ID = -1;
+    private static final Map<String, String> DEFAULT_CATEGORIES = defaultCategories();
+    // No control characters, and no spaces at either end that would make look-alike names
+    private static final Pattern VALID_NAME = Pattern.compile("[^\\s\\p{Cntrl}](?:[^\\p{Cntrl}]*[^\\s\\p{Cntrl}])?");
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCategories;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, Category> categoriesById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CategoryRegistry(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager,
+                            @Value("${expense.categories.max:1000}") int maxCategories) {
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCategories = maxCategories;
+    }
+
+    /**
+     * Whether a category of this name could be created: no control characters and no
+     * leading or trailing whitespace.
+     */
+    public static boolean isValidName(String name) {
+        return name != null && VALID_NAME.matcher(name).matches();
+    }
+
+    @PostConstruct
+    void load() {
+        transactionTemplate.executeWithoutResult(status -> {
+            DEFAULT_CATEGORIES.forEach(categoryRepository::findOrCreate);
+            categoryRepository.findAll().forEach(this::register);
+        });
+        logger.info("Loaded {} categories", categoriesById.size());
+    }
+
+    /**
+     * Id of the named category, or {@code null} if it does not exist. Never queries
+     * the database.
+     */
+    public Integer findId(String name) {
+        Integer id = idsByName.get(name);
+        if (id == null) {
+            Map<String, Category> pending = pendingCategories();
+            if (pending != null && pending.containsKey(name)) {
+                id = pending.get(name).getId();
+            }
+        }
+        return id;
+    }
+
+    public String getName(int id) {
+        Category category = categoriesById.get(id);
+        if (category == null) {
+            // Committed by another transaction that has not published it yet
+            category = categoryRepository.findDetachedById(id)
+                    .orElseThrow(() -> new IllegalStateException("Unknown category id " + id));
+            register(category);
+        }
+        return category.getName();
+    }
+
+    /**
+     * Id of the named category, creating it if needed. Must be called inside the
+     * transaction that stores the expenses referencing it.
+     *
+     * @throws BadRequestException if the category would have to be created but the
+     *                             name is not valid or the limit is reached
+     */
+    public Integer resolveId(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        Integer id = findId(name);
+        if (id != null) {
+            return id;
+        }
+
+        if (!isValidName(name)) {
+            throw new BadRequestException("Expense category cannot contain control characters or surrounding spaces");
+        }
+        // Counted in the database, so categories created on other instances count too
+        if (categoryRepository.count() >= maxCategories) {
+            logger.warn("Not creating category {}, {} categories exist already", name, maxCategories);
+            throw new BadRequestException("Unknown category '" + name + "', and no more than " + maxCategories
+                    + " categories can be created");
+        }
+        Category category = categoryRepository.findOrCreate(name, name);
+        logger.info("Created category {}", name);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            register(category);
+            return category.getId();
+        }
+
+        Map<String, Category> pending = pendingCategories();
+        if (pending == null) {
+            pending = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            Map<String, Category> created = pending;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CategoryRegistry.this);
+                    if (status == STATUS_COMMITTED) {
+                        created.values().forEach(CategoryRegistry.this::register);
+                    }
+                }
+            });
+        }
+        pending.put(name, category);
+        return category.getId();
+    }
+
+    public List<Category> getCategories() {
+        return categoriesById.values().stream()
+                .sorted(Comparator.comparing(Category::getName))
+                .collect(Collectors.toList());
+    }
+
+    private void register(Category category) {
+        categoriesById.put(category.getId(), category);
+        idsByName.put(category.getName(), category.getId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Category> pendingCategories() {
+        return (Map<String, Category>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private static Map<String, String> defaultCategories() {
+        Map<String, String> categories = new LinkedHashMap<>();
+        categories.put("FOOD", "Food");
+        categories.put("TRANSPORTATION", "Transportation");
+        categories.put("ENTERTAINMENT", "Entertainment");
+        categories.put("UTILITIES", "Utilities");
+        categories.put("OTHER", "Other");
+        return categories;
+    }
+}
@@ -0,0 +1,200 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.Money;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads a CSV statement with a header row naming the columns, in any order:
+ * {@code date} (yyyy-MM-dd), {@code description} and {@code amount} are required,
+ * {@code currency} and {@code category} are optional and other columns, such as the
+ * {@code id} of a file from the export, are ignored. Quoting follows RFC 4180, so
+ * the export's output reads back unchanged.
+ */
+final class CsvStatementReader extends StatementReader {
+
+    // Longest record kept; longer ones are rejected without being buffered
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final String defaultCategory;
+    private char[] buffer = new char[1024];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldStart;
+    private int fieldCount;
+    private boolean tooLong;
+
+    private int columns = -1;
+    private int dateColumn = -1;
+    private int descriptionColumn = -1;
+    private int amountColumn = -1;
+    private int currencyColumn = -1;
+    private int categoryColumn = -1;
+
+    CsvStatementReader(ReadableByteChannel channel, String defaultCategory) {
+        super(channel);
+        this.defaultCategory = defaultCategory;
+    }
+
+    @Override
+    boolean next() throws IOException {
+        if (columns < 0) {
+            readHeader();
+        }
+        if (!readRecord()) {
+            return false;
+        }
+
+        if (tooLong) {
+            reject("Record is longer than " + MAX_RECORD_LENGTH + " characters");
+        } else if (fieldCount != columns) {
+            reject("Expected " + columns + " fields but found " + fieldCount);
+        } else {
+            toRequest();
+        }
+        return true;
+    }
+
+    private void readHeader() throws IOException {
+        if (!readRecord()) {
+            throw new IllegalArgumentException("CSV statement is empty");
+        }
+        columns = fieldCount;
+        for (int i = 0; i < columns; i++) {
+            String name = new String(buffer, starts[i], ends[i] - starts[i]).trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "date" -> dateColumn = i;
+                case "description" -> descriptionColumn = i;
+                case "amount" -> amountColumn = i;
+                case "currency" -> currencyColumn = i;
+                case "category" -> categoryColumn = i;
+                default -> {
+                    // Not an expense field
+                }
+            }
+        }
+        if (dateColumn < 0 || descriptionColumn < 0 || amountColumn < 0) {
+            throw new IllegalArgumentException("CSV header must name the date, description and amount columns");
+        }
+    }
+
+    private void toRequest() {
+        ExpenseRequestDto request = new ExpenseRequestDto();
+
+        int start = starts[dateColumn];
+        int fieldLength = ends[dateColumn] - start;
+        LocalDate date = fieldLength == 10 ? parseDate(buffer, start, fieldLength, true) : null;
+        if (date == null) {
+            reject("Invalid date '" + field(dateColumn) + "', expected yyyy-MM-dd");
+            return;
+        }
+        request.setDate(date);
+
+        // Validation relabels the amount with the row's currency, as for JSON requests
+        start = starts[amountColumn];
+        try {
+            request.setAmount(Money.parse(buffer, start, ends[amountColumn] - start, Money.DEFAULT_CURRENCY));
+        } catch (IllegalArgumentException e) {
+            reject("Invalid amount '" + field(amountColumn) + "'");
+            return;
+        }
+
+        request.setDescription(field(descriptionColumn));
+        if (currencyColumn >= 0 && ends[currencyColumn] > starts[currencyColumn]) {
+            request.setCurrency(intern(buffer, starts[currencyColumn], ends[currencyColumn] - starts[currencyColumn]));
+        }
+        if (categoryColumn >= 0 && ends[categoryColumn] > starts[categoryColumn]) {
+            request.setCategory(intern(buffer, starts[categoryColumn], ends[categoryColumn] - starts[categoryColumn]));
+        } else {
+            request.setCategory(defaultCategory);
+        }
+        accept(request);
+    }
+
+    private String field(int column) {
+        return new String(buffer, starts[column], ends[column] - starts[column]);
+    }
+
+    /**
+     * Reads the fields of the next non-blank record into the buffer. A quoted field
+     * may span lines.
+     */
+    private boolean readRecord() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c == -1) {
+            return false;
+        }
+        startRecord();
+        length = 0;
+        fieldCount = 0;
+        tooLong = false;
+        startField();
+
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == '"' && length == fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                endField();
+                startField();
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                append((char) c);
+            }
+            c = read();
+        }
+        endField();
+        return true;
+    }
+
+    private void startField() {
+        fieldStart = length;
+        if (fieldCount == starts.length && columns < 0) {
+            // Only the header sizes the arrays; extra fields of a record are just counted
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        if (fieldCount < starts.length) {
+            starts[fieldCount] = length;
+        }
+    }
+
+    private void endField() {
+        if (fieldCount < starts.length) {
+            ends[fieldCount] = length;
+        }
+        fieldCount++;
+    }
+
+    private void append(char c) {
+        if (length == buffer.length) {
+            if (length == MAX_RECORD_LENGTH) {
+                tooLong = true;
+                return;
+            }
+            buffer = Arrays.copyOf(buffer, Math.min(length * 2, MAX_RECORD_LENGTH));
+        }
+        buffer[length++] = c;
+    }
+}
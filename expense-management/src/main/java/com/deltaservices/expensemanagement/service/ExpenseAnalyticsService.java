@@ -0,0 +1,487 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.event.FxRatesImportedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.exception.ServiceUnavailableException;
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.AnalyticsReportDto;
+import com.deltaservices.expensemanagement.model.CategoryPercentilesDto;
+import com.deltaservices.expensemanagement.model.DescriptionSpendDto;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.WeeklySpendDto;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.CategoryPercentiles;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.DescriptionTotal;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.Result;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.WeekTotal;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ad-hoc spend reports over all expenses, hot and archived, evaluated in memory on
+ * {@link ExpenseColumns}. Amounts are converted to {@link #REPORTING_CURRENCY} at the
+ * rate of the expense's date when loaded. The columns are loaded in the background
+ * once the application is ready and again after exchange rates are imported; the
+ * current columns keep answering during a reload, and changes committed meanwhile are
+ * replayed onto the new ones. Between loads they tail the change log, so writes made on
+ * any instance show up within {@code expense.analytics.poll-interval}.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseAnalyticsService.class);
+    public static final Currency REPORTING_CURRENCY = Money.DEFAULT_CURRENCY;
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+    public static final List<BigDecimal> DEFAULT_PERCENTILES =
+            List.of(BigDecimal.valueOf(50), BigDecimal.valueOf(90), BigDecimal.valueOf(99));
+    public static final int MAX_PERCENTILES = 10;
+    public static final int DEFAULT_WEEKS = 12;
+    public static final int MAX_WEEKS = 520;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final ExpenseRepository expenseRepository;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final FxRateService fxRateService;
+    private final ExpenseChangeService expenseChangeService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExpenseMetrics expenseMetrics;
+    private final Executor loader;
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private ExpenseColumns columns = new ExpenseColumns();
+    // Changes applied while a load runs, to replay onto its result; guarded by lock
+    private List<Consumer<ExpenseColumns>> pending;
+    // Version of the change log the columns hold everything up to; guarded by lock
+    private long appliedVersion = -1;
+    private volatile boolean ready;
+
+    @Autowired
+    public ExpenseAnalyticsService(ExpenseRepository expenseRepository,
+                                   ArchivedExpenseRepository archivedExpenseRepository, FxRateService fxRateService,
+                                   ExpenseChangeService expenseChangeService,
+                                   PlatformTransactionManager transactionManager, ExpenseMetrics expenseMetrics,
+                                   MeterRegistry meterRegistry) {
+        // One load at a time; requests while one waits are covered by it
+        this(expenseRepository, archivedExpenseRepository, fxRateService, expenseChangeService, transactionManager,
+                expenseMetrics,
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+                    Thread thread = new Thread(runnable, "expense-analytics-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy()), Clock.systemUTC());
+        Gauge.builder("expense.analytics.rows", this, ExpenseAnalyticsService::size)
+                .description("Expenses held for analytics")
+                .register(meterRegistry);
+    }
+
+    ExpenseAnalyticsService(ExpenseRepository expenseRepository, ArchivedExpenseRepository archivedExpenseRepository,
+                            FxRateService fxRateService, ExpenseChangeService expenseChangeService,
+                            PlatformTransactionManager transactionManager, ExpenseMetrics expenseMetrics,
+                            Executor loader, Clock clock) {
+        this.expenseRepository = expenseRepository;
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.fxRateService = fxRateService;
+        this.expenseChangeService = expenseChangeService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expenseMetrics = expenseMetrics;
+        this.loader = loader;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loader.execute(this::rebuild);
+    }
+
+    // Amounts were converted with the old rates
+    @EventListener
+    public void onFxRatesImported(FxRatesImportedEvent event) {
+        loader.execute(this::rebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // A running load stops at its next read; the columns are dropped with the context anyway
+        if (loader instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the columns from both expense tables, merged in id order. The version is
+     * read before the rows, so polling on from it covers everything committed while they
+     * were read.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        logger.info("Loading expenses for analytics");
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ExpenseColumns loaded = new ExpenseColumns();
+        long version;
+        try {
+            version = expenseChangeService.getVersion().number();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> archived = archivedExpenseRepository.streamAnalyticsFields();
+                     Stream<Object[]> hot = expenseRepository.streamAnalyticsFields()) {
+                    Iterator<Object[]> archivedRows = archived.iterator();
+                    Iterator<Object[]> hotRows = hot.iterator();
+                    Object[] nextArchived = archivedRows.hasNext() ? archivedRows.next() : null;
+                    Object[] nextHot = hotRows.hasNext() ? hotRows.next() : null;
+                    while (nextArchived != null || nextHot != null) {
+                        if (nextHot == null || (nextArchived != null && (Long) nextArchived[0] < (Long) nextHot[0])) {
+                            addRow(loaded, nextArchived);
+                            nextArchived = archivedRows.hasNext() ? archivedRows.next() : null;
+                        } else {
+                            addRow(loaded, nextHot);
+                            nextHot = hotRows.hasNext() ? hotRows.next() : null;
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Loading expenses for analytics failed", e);
+            return;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            // Adds of rows the load already saw and deletes of rows it never saw are no-ops,
+            // updates overwrite what it read
+            pending.forEach(change -> change.accept(loaded));
+            replayed = pending.size();
+            pending = null;
+            columns = loaded;
+            appliedVersion = version;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Loaded {} expenses for analytics in {} ms, replayed {} changes", loaded.size(),
+                (System.nanoTime() - start) / 1_000_000, replayed);
+    }
+
+    /**
+     * Applies the changes committed on any instance since the last poll, a page at a
+     * time up to the current version. While a load runs nothing is applied, the load
+     * picks up from the version it read. Only when the changes were purged are the
+     * columns reloaded.
+     */
+    @Scheduled(fixedDelayString = "${expense.analytics.poll-interval:1s}")
+    public void pollChanges() {
+        long since;
+        lock.readLock().lock();
+        try {
+            if (!ready || pending != null) {
+                return;
+            }
+            since = appliedVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            long current = expenseChangeService.getVersion().number();
+            while (since < current) {
+                ExpenseChangesDto changes = expenseChangeService.getChangePage(since);
+                if (!applyPage(since, changes)) {
+                    return;
+                }
+                since = changes.getVersion();
+            }
+        } catch (GoneException e) {
+            logger.info("Changes since version {} were purged, reloading analytics", since);
+            loader.execute(this::rebuild);
+        } catch (RuntimeException e) {
+            // Retried from the same version on the next poll
+            logger.warn("Failed to read expense changes since version {}: {}", since, e.getMessage());
+        }
+    }
+
+    // False when a load started meanwhile, which covers the page
+    private boolean applyPage(long since, ExpenseChangesDto changes) {
+        // Converted before taking the lock, the rates may have to be read
+        List<ExpenseResponseDto> upserted = changes.getUpserted();
+        long[] amounts = upserted.stream().mapToLong(expense -> toReportingAmount(
+                expense.getAmount().getMinorUnits(), expense.getAmount().getCurrency(), expense.getDate())).toArray();
+        lock.writeLock().lock();
+        try {
+            if (pending != null || appliedVersion != since) {
+                return false;
+            }
+            for (int i = 0; i < amounts.length; i++) {
+                ExpenseResponseDto expense = upserted.get(i);
+                columns.update(expense.getId(), (int) expense.getDate().toEpochDay(), amounts[i],
+                        expense.getCategory(), expense.getDescription());
+            }
+            changes.getDeleted().forEach(columns::remove);
+            appliedVersion = changes.getVersion();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A local commit shows up at once; the next poll applies it again, which changes nothing
+    @TransactionalEventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        List<Expense> expenses = event.getExpenses();
+        apply(target -> expenses.forEach(expense -> add(target, expense)));
+    }
+
+    @TransactionalEventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        List<Expense> expenses = event.getExpenses();
+        apply(target -> expenses.forEach(expense -> target.remove(expense.getId())));
+    }
+
+    @TransactionalEventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        Expense after = event.getAfter();
+        apply(target -> target.update(after.getId(), (int) after.getDate().toEpochDay(),
+                toReportingAmount(after.getAmountMinor(), after.getCurrency(), after.getDate()),
+                after.getCategory(), after.getDescription()));
+    }
+
+    /**
+     * Descriptions with the highest spending, or the most expenses when {@code by} is
+     * {@code count}. Open date bounds cover all expenses.
+     */
+    public AnalyticsReportDto<DescriptionSpendDto> getTopDescriptions(LocalDate from, LocalDate to, String category,
+                                                                      String by, int limit) {
+        validateRange(from, to);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            expenseMetrics.validationFailed("analytics_limit");
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (!"amount".equalsIgnoreCase(by) && !"count".equalsIgnoreCase(by)) {
+            expenseMetrics.validationFailed("analytics_order");
+            throw new BadRequestException("Unsupported ranking: " + by + ", expected amount or count");
+        }
+
+        Result<List<DescriptionTotal>> result = read(target -> target.topDescriptions(fromDay(from), toDay(to),
+                target.categoryId(category), limit, "count".equalsIgnoreCase(by)));
+        return report(from, to, result, result.items().stream().map(total -> {
+            DescriptionSpendDto dto = new DescriptionSpendDto();
+            dto.setDescription(total.description());
+            dto.setCount(total.count());
+            dto.setTotal(Money.ofMinor(total.total(), REPORTING_CURRENCY));
+            return dto;
+        }).collect(Collectors.toList()));
+    }
+
+    /**
+     * Percentiles of the amounts per category, each the smallest amount with at least
+     * that share of the category's amounts at or below it.
+     *
+     * @param percentiles between 0 and 100; {@link #DEFAULT_PERCENTILES} when empty
+     */
+    public AnalyticsReportDto<CategoryPercentilesDto> getPercentiles(LocalDate from, LocalDate to,
+                                                                     List<BigDecimal> percentiles) {
+        validateRange(from, to);
+        List<BigDecimal> requested = percentiles == null || percentiles.isEmpty() ? DEFAULT_PERCENTILES : percentiles;
+        if (requested.size() > MAX_PERCENTILES
+                || requested.stream().anyMatch(p -> p.signum() < 0 || p.compareTo(HUNDRED) > 0)) {
+            expenseMetrics.validationFailed("analytics_percentiles");
+            throw new BadRequestException("Up to " + MAX_PERCENTILES + " percentiles between 0 and 100 are allowed");
+        }
+
+        Result<List<CategoryPercentiles>> result = read(target -> target.percentiles(fromDay(from), toDay(to), requested));
+        return report(from, to, result, result.items().stream().map(category -> {
+            Map<String, Money> values = new LinkedHashMap<>();
+            for (int i = 0; i < requested.size(); i++) {
+                values.put("p" + requested.get(i).stripTrailingZeros().toPlainString(),
+                        Money.ofMinor(category.percentiles()[i], REPORTING_CURRENCY));
+            }
+            CategoryPercentilesDto dto = new CategoryPercentilesDto();
+            dto.setCategory(category.category());
+            dto.setCount(category.count());
+            dto.setTotal(Money.ofMinor(category.total(), REPORTING_CURRENCY));
+            dto.setPercentiles(values);
+            return dto;
+        }).collect(Collectors.toList()));
+    }
+
+    /**
+     * Spending per week, Monday to Sunday, with the change against the week before. The
+     * range is widened to whole weeks and defaults to the last {@link #DEFAULT_WEEKS}
+     * weeks up to today.
+     */
+    public AnalyticsReportDto<WeeklySpendDto> getWeeklyTrend(LocalDate from, LocalDate to, String category) {
+        LocalDate end = (to != null ? to : LocalDate.now(clock)).with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        LocalDate start = (from != null ? from : end.minusWeeks(DEFAULT_WEEKS).plusDays(1))
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        validateRange(start, end);
+        long weeks = (ChronoUnit.DAYS.between(start, end) + 1) / 7;
+        if (weeks > MAX_WEEKS) {
+            expenseMetrics.validationFailed("analytics_weeks");
+            throw new BadRequestException("Weekly trends cover at most " + MAX_WEEKS + " weeks");
+        }
+
+        Result<List<WeekTotal>> result = read(target -> target.weeklyTotals((int) start.toEpochDay(), (int) weeks,
+                target.categoryId(category)));
+        List<WeeklySpendDto> items = new ArrayList<>(result.items().size());
+        WeekTotal previous = null;
+        for (WeekTotal week : result.items()) {
+            WeeklySpendDto dto = new WeeklySpendDto();
+            dto.setWeekStart(LocalDate.ofEpochDay(week.startDay()));
+            dto.setCount(week.count());
+            dto.setTotal(Money.ofMinor(week.total(), REPORTING_CURRENCY));
+            if (previous != null) {
+                long change = week.total() - previous.total();
+                dto.setChange(Money.ofMinor(change, REPORTING_CURRENCY));
+                if (previous.total() != 0) {
+                    dto.setChangePercent(BigDecimal.valueOf(change).multiply(HUNDRED)
+                            .divide(BigDecimal.valueOf(previous.total()), 1, RoundingMode.HALF_EVEN));
+                }
+            }
+            items.add(dto);
+            previous = week;
+        }
+        return report(start, end, result, items);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T read(Function<ExpenseColumns, T> query) {
+        if (!ready) {
+            throw new ServiceUnavailableException("Analytics are still being loaded");
+        }
+        lock.readLock().lock();
+        try {
+            return query.apply(columns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<ExpenseColumns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(ExpenseColumns target, Expense expense) {
+        target.add(expense.getId(), (int) expense.getDate().toEpochDay(),
+                toReportingAmount(expense.getAmountMinor(), expense.getCurrency(), expense.getDate()),
+                expense.getCategory(), expense.getDescription());
+    }
+
+    private void addRow(ExpenseColumns target, Object[] row) {
+        LocalDate date = (LocalDate) row[1];
+        target.add((Long) row[0], (int) date.toEpochDay(), toReportingAmount((Long) row[2], (Currency) row[3], date),
+                (String) row[4], (String) row[5]);
+    }
+
+    private long toReportingAmount(long amountMinor, Currency currency, LocalDate date) {
+        if (currency.equals(REPORTING_CURRENCY)) {
+            return amountMinor;
+        }
+        try {
+            return fxRateService.convert(Money.ofMinor(amountMinor, currency), REPORTING_CURRENCY, date).getMinorUnits();
+        } catch (BadRequestException e) {
+            // Left out of reports, and counted, until the rate is imported
+            return ExpenseColumns.UNCONVERTED;
+        }
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            logger.debug("Invalid date range: {} - {}", from, to);
+            expenseMetrics.validationFailed("date_range");
+            throw new BadRequestException("Start date must not be after end date");
+        }
+    }
+
+    private static int fromDay(LocalDate from) {
+        return from != null ? (int) from.toEpochDay() : ExpenseColumns.DELETED + 1;
+    }
+
+    private static int toDay(LocalDate to) {
+        return to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE;
+    }
+
+    private static <T> AnalyticsReportDto<T> report(LocalDate from, LocalDate to, Result<?> result, List<T> items) {
+        AnalyticsReportDto<T> report = new AnalyticsReportDto<>();
+        report.setCurrency(REPORTING_CURRENCY.getCurrencyCode());
+        report.setFrom(from);
+        report.setTo(to);
+        report.setUnconverted(result.unconverted());
+        report.setItems(items);
+        return report;
+    }
+}
@@ -0,0 +1,129 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseTableVersionRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Keeps the hot {@code expenses} table bounded by moving expenses older than the
+ * configured horizon into {@code expenses_archive}. Every archived expense is dated
+ * before {@link #getArchivedBefore()}, so reads whose date range starts on or after
+ * that day never have to touch the archive. The boundary is kept in the database and
+ * read on every call, so all instances route reads the same way; one instance at a
+ * time moves expenses, under the scheduler lease. Moving changes neither the ids nor
+ * the contents of expenses, so summaries and cached responses stay valid.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseArchiveService.class);
+    static final String LOCK_NAME = "expense-archive";
+    // Rows moved and locked per transaction
+    private static final int ARCHIVE_CHUNK_SIZE = 1000;
+
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final ExpenseTableVersionRepository expenseTableVersionRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final Period horizon;
+    private final Duration lease;
+    private final Clock clock;
+
+    @Autowired
+    public ExpenseArchiveService(ArchivedExpenseRepository archivedExpenseRepository,
+                                 ExpenseTableVersionRepository expenseTableVersionRepository,
+                                 SchedulerLockService schedulerLockService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${expense.archive.horizon:P2Y}") Period horizon,
+                                 @Value("${expense.archive.lock-lease:1h}") Duration lease) {
+        this(archivedExpenseRepository, expenseTableVersionRepository, schedulerLockService, transactionManager,
+                horizon, lease, Clock.systemUTC());
+    }
+
+    ExpenseArchiveService(ArchivedExpenseRepository archivedExpenseRepository,
+                          ExpenseTableVersionRepository expenseTableVersionRepository,
+                          SchedulerLockService schedulerLockService, PlatformTransactionManager transactionManager,
+                          Period horizon, Duration lease, Clock clock) {
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.expenseTableVersionRepository = expenseTableVersionRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizon = horizon;
+        this.lease = lease;
+        this.clock = clock;
+    }
+
+    /**
+     * Moves every expense dated before today minus the horizon into the archive, one
+     * chunk per transaction, unless another instance holds the lease.
+     *
+     * @return the number of expenses moved
+     */
+    @Scheduled(cron = "${expense.archive.cron:0 0 4 * * *}")
+    public int archive() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, lease)) {
+            logger.debug("Expenses are archived by another instance");
+            return 0;
+        }
+
+        try {
+            LocalDate cutoff = LocalDate.now(clock).minus(horizon);
+            logger.info("Archiving expenses before {}", cutoff);
+            int archived = 0;
+            int chunkArchived;
+            do {
+                chunkArchived = transactionTemplate.execute(status -> archiveChunk(cutoff));
+                archived += chunkArchived;
+            } while (chunkArchived > 0);
+
+            logger.info("Archived {} expenses before {}", archived, cutoff);
+            return archived;
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private int archiveChunk(LocalDate cutoff) {
+        int moved = archivedExpenseRepository.archiveBefore(cutoff, ARCHIVE_CHUNK_SIZE);
+        if (moved > 0) {
+            // Committed with the rows, so a reader that finds a row gone from the hot table
+            // also finds the boundary that sends it to the archive. Raised after the move,
+            // so the version row is the last lock taken, as in every writer.
+            expenseTableVersionRepository.raiseArchivedBefore(ExpenseTableVersion.ID, cutoff);
+        }
+        return moved;
+    }
+
+    /**
+     * Day before which all archived expenses are dated, or {@code null} while the
+     * archive is empty. Read from the database, so it reflects archiving done on any
+     * instance.
+     */
+    public LocalDate getArchivedBefore() {
+        return expenseTableVersionRepository.findArchivedBefore(ExpenseTableVersion.ID);
+    }
+
+    /**
+     * Whether archived expenses can fall into a date range starting at {@code from},
+     * where {@code null} means an open start.
+     */
+    public boolean mayContain(LocalDate from) {
+        LocalDate before = getArchivedBefore();
+        return before != null && (from == null || from.isBefore(before));
+    }
+}
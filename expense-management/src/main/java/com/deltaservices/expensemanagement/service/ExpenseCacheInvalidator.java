@@ -0,0 +1,121 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.config.CacheConfig;
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.event.FxRatesImportedEvent;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.service.ExpenseChangeService.ChangedIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Drops cached reads once a write has committed or new exchange rates are loaded.
+ * Pages and summaries are keyed by the table version (and summaries by the rate
+ * generation) they were read at, so they are never served once either has moved on,
+ * whichever instance moved it; clearing them only frees entries that can no longer be
+ * hit. Single expenses are keyed by id alone, so that writes of other expenses leave
+ * them cached. They are evicted by id when a write of them commits here, and every
+ * {@code expense.cache.poll-interval} for the writes the change log shows since the
+ * last poll. A write on another instance is therefore served stale for up to that
+ * interval, and so is a read that raced a write and cached what it read before.
+ */
+@Component
+public class ExpenseCacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseCacheInvalidator.class);
+
+    private final CacheManager cacheManager;
+    private final ExpenseChangeService expenseChangeService;
+    // Only read and written while holding this component's monitor; negative until the first poll
+    private long appliedVersion = -1;
+
+    @Autowired
+    public ExpenseCacheInvalidator(CacheManager cacheManager, ExpenseChangeService expenseChangeService) {
+        this.cacheManager = cacheManager;
+        this.expenseChangeService = expenseChangeService;
+    }
+
+    @TransactionalEventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        clearListings();
+    }
+
+    @TransactionalEventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        evict(event.getExpenses().stream().map(Expense::getId).toList());
+        clearListings();
+    }
+
+    @TransactionalEventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        evict(List.of(event.getAfter().getId()));
+        clearListings();
+    }
+
+    @EventListener
+    public void onFxRatesImported(FxRatesImportedEvent event) {
+        logger.debug("Clearing cached expense summaries after new exchange rates were loaded");
+        clear(CacheConfig.EXPENSE_SUMMARIES);
+    }
+
+    /**
+     * Evicts the expenses written or deleted on any instance since the last poll, a
+     * page at a time up to the current version. The expenses cache starts out empty, so
+     * the first poll only takes the version to follow on from.
+     */
+    @Scheduled(fixedDelayString = "${expense.cache.poll-interval:1s}")
+    public synchronized void pollChanges() {
+        try {
+            long current = expenseChangeService.getVersion().number();
+            if (appliedVersion < 0) {
+                appliedVersion = current;
+                return;
+            }
+            while (appliedVersion < current) {
+                ChangedIds changed = expenseChangeService.getChangedIds(appliedVersion);
+                evict(changed.expenseIds());
+                appliedVersion = changed.version();
+            }
+        } catch (GoneException e) {
+            logger.info("Changes since version {} were purged, clearing cached expenses", appliedVersion);
+            clear(CacheConfig.EXPENSES);
+            appliedVersion = -1;
+        } catch (RuntimeException e) {
+            // Retried from the same version on the next poll
+            logger.warn("Failed to read expense changes since version {}: {}", appliedVersion, e.getMessage());
+        }
+    }
+
+    private void evict(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.EXPENSES);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    private void clearListings() {
+        logger.debug("Clearing cached pages and summaries");
+        clear(CacheConfig.EXPENSE_PAGES);
+        clear(CacheConfig.EXPENSE_SUMMARIES);
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.exception.ServiceUnavailableException;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed expense changes to Server-Sent Events subscribers. The dispatcher
+ * thread tails the shared change log: it reads the table version every
+ * {@code expense.stream.poll-interval}, and at once after a local commit, and sends
+ * everything changed since the version it last sent. Writes made on other instances
+ * therefore reach this instance's subscribers too, and each event's id is the version
+ * the event brings its client to. An idle subscriber is an open async request and a
+ * small buffer, no thread. The dispatcher serializes each change once and offers it
+ * to every buffer; a fixed pool of {@code expense.stream.senders} threads writes the
+ * buffers out, each stream queueing for a thread in turn and giving it up after at most
+ * a buffer's worth of events. A stream whose writes make no progress for
+ * {@code expense.stream.send-timeout} is closed, so a client that stopped reading holds
+ * a sender for that long at most; time spent queueing for a sender does not count.
+ * A subscriber whose buffer fills up loses its pending changes and is sent a
+ * {@code resync} event instead, after which the client fetches what it missed from
+ * {@code /api/expenses/changes}.
+ */
+@Service
+public class ExpenseChangeBroadcaster implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseChangeBroadcaster.class);
+    public static final String CHANGES_EVENT = "changes";
+    public static final String RESYNC_EVENT = "resync";
+    // Browsers drop events without data, so the resync event carries a token
+    private static final Set<DataWithMediaType> RESYNC = SseEmitter.event().name(RESYNC_EVENT).data(RESYNC_EVENT).build();
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final ExpenseChangeService expenseChangeService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration sendTimeout;
+    private final Clock clock;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter resyncs;
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+
+    private volatile boolean running;
+    // Only read and written on the dispatcher thread; negative until the first poll
+    private long lastSent = -1;
+
+    @Autowired
+    public ExpenseChangeBroadcaster(ExpenseChangeService expenseChangeService,
+                                    ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                    @Value("${expense.stream.buffer-size:64}") int bufferSize,
+                                    @Value("${expense.stream.max-subscribers:10000}") int maxSubscribers,
+                                    @Value("${expense.stream.timeout:30m}") Duration timeout,
+                                    @Value("${expense.stream.send-timeout:10s}") Duration sendTimeout,
+                                    @Value("${expense.stream.senders:16}") int senderThreads) {
+        // Each stream has at most one send queued or running, so the queue holds max-subscribers tasks at most
+        this(expenseChangeService, objectMapper, meterRegistry, bufferSize, maxSubscribers, timeout, sendTimeout,
+                Executors.newSingleThreadExecutor(threadFactory("expense-stream-dispatcher")),
+                Executors.newFixedThreadPool(senderThreads, threadFactory("expense-stream-sender")),
+                Clock.systemUTC());
+    }
+
+    ExpenseChangeBroadcaster(ExpenseChangeService expenseChangeService, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry, int bufferSize, int maxSubscribers, Duration timeout,
+                             Duration sendTimeout, ExecutorService dispatcher, ExecutorService senders, Clock clock) {
+        this.expenseChangeService = expenseChangeService;
+        this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+        this.senders = senders;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        this.clock = clock;
+        this.resyncs = Counter.builder("expense.stream.resyncs")
+                .description("Subscribers that fell behind and were told to resync")
+                .register(meterRegistry);
+        Gauge.builder("expense.stream.subscribers", subscribers, Set::size)
+                .description("Open expense change streams")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        if (!running) {
+            throw new ServiceUnavailableException("Change stream is not available");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            logger.warn("Rejecting change stream subscriber, {} already open", subscribers.size());
+            throw new ServiceUnavailableException("Too many open change streams, retry later");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        // The client reconnects and catches up through the change log
+        emitter.onTimeout(emitter::complete);
+        logger.debug("Change stream opened, {} subscribers", subscribers.size());
+        return emitter;
+    }
+
+    // A local commit is sent without waiting for the next poll
+    @TransactionalEventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        requestPoll();
+    }
+
+    @TransactionalEventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        requestPoll();
+    }
+
+    @TransactionalEventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        requestPoll();
+    }
+
+    /**
+     * Picks up changes committed on any instance.
+     */
+    @Scheduled(fixedDelayString = "${expense.stream.poll-interval:1s}")
+    public void pollChanges() {
+        requestPoll();
+    }
+
+    /**
+     * Keeps idle connections open through proxies and finds clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${expense.stream.heartbeat:25s}")
+    public void sendHeartbeats() {
+        if (!running) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.isIdle()) {
+                    subscriber.offer(HEARTBEAT);
+                }
+            }
+        });
+    }
+
+    /**
+     * Closes the streams whose pending events have not been written for longer than the
+     * send timeout. Their clients reconnect and catch up through the change log.
+     */
+    @Scheduled(fixedDelayString = "${expense.stream.poll-interval:1s}")
+    public void closeStalledStreams() {
+        long now = clock.millis();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.closeIfStalled(now);
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Open streams would otherwise hold up the graceful shutdown of the web server
+        logger.info("Closing {} change streams", subscribers.size());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        dispatcher.shutdown();
+        // Interrupts the writes still blocked on clients; their streams were just closed
+        senders.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Requests that arrive while one is queued are served by it
+    private void requestPoll() {
+        if (running && pollRequested.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                pollRequested.set(false);
+                poll();
+            });
+        }
+    }
+
+    private void poll() {
+        if (!running) {
+            return;
+        }
+        try {
+            long version = expenseChangeService.getVersion().number();
+            if (lastSent < 0 || subscribers.isEmpty()) {
+                lastSent = version;
+                return;
+            }
+            if (version == lastSent) {
+                return;
+            }
+            ExpenseChangesDto changes = expenseChangeService.getChanges(lastSent);
+            lastSent = changes.getVersion();
+            dispatch(changes);
+        } catch (GoneException e) {
+            // Too much changed to send; every client refetches what it missed
+            logger.debug("Changes since version {} are not available, sending resync", lastSent);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(RESYNC);
+                resyncs.increment();
+            }
+            lastSent = -1;
+        } catch (RuntimeException e) {
+            // Retried from the same version on the next poll
+            logger.warn("Failed to read expense changes since version {}: {}", lastSent, e.getMessage());
+        }
+    }
+
+    private void dispatch(ExpenseChangesDto changes) {
+        Set<DataWithMediaType> event;
+        try {
+            event = SseEmitter.event()
+                    .name(CHANGES_EVENT)
+                    .id(String.valueOf(changes.getVersion()))
+                    .data(objectMapper.writeValueAsString(changes), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize expense changes at version {}", changes.getVersion(), e);
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One open stream. Only the dispatcher offers to its buffer and at most one sender
+     * drains it at a time, so events are written in the order they were committed.
+     * While a sender is draining it, {@code progressAt} is when the last event was
+     * written or, before that, when the sender picked it up; otherwise it is zero.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile long progressAt;
+        private volatile Future<?> task;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean isIdle() {
+            return buffer.isEmpty() && !sending.get();
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // What is buffered is stale once anything is dropped; the client refetches it all
+                buffer.clear();
+                buffer.offer(RESYNC);
+                resyncs.increment();
+                logger.debug("Change stream subscriber fell behind, sending resync");
+            }
+            if (sending.compareAndSet(false, true)) {
+                startSending();
+            }
+        }
+
+        void closeIfStalled(long now) {
+            long since = progressAt;
+            if (!sending.get() || since == 0 || now - since <= sendTimeout.toMillis()) {
+                return;
+            }
+            logger.debug("Change stream write made no progress for {}, closing it", sendTimeout);
+            close();
+            Future<?> stalled = task;
+            if (stalled != null) {
+                stalled.cancel(true);
+            }
+            // The client reconnects and catches up through the change log
+            emitter.complete();
+        }
+
+        private void startSending() {
+            try {
+                task = senders.submit(this::send);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the stream is being closed
+                sending.set(false);
+            }
+        }
+
+        private void send() {
+            progressAt = clock.millis();
+            try {
+                // Other streams waiting for a sender get their turn after a buffer's worth
+                Set<DataWithMediaType> event;
+                for (int sent = 0; sent < bufferSize && !closed && (event = buffer.poll()) != null; sent++) {
+                    emitter.send(event);
+                    progressAt = clock.millis();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The container completes the request and the completion callback runs
+                logger.debug("Change stream write failed: {}", e.getMessage());
+                close();
+            } finally {
+                progressAt = 0;
+                sending.set(false);
+            }
+            // Events left over, or offered while the last one was being written, queue another turn
+            if (!closed && !buffer.isEmpty() && sending.compareAndSet(false, true)) {
+                startSending();
+            }
+        }
+
+        void close() {
+            closed = true;
+            buffer.clear();
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChange;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import com.deltaservices.expensemanagement.repository.ExpenseChangeRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseTableVersionRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Counts changes to the expenses in a table version and logs which expenses each
+ * version wrote or deleted, so clients that know a version can fetch just the changes
+ * made since. Each writing transaction takes one version when it commits. The version
+ * is read from its row on every request, so all instances answer from the same one.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseChangeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseChangeService.class);
+    // Beyond this a client is better off reloading the list
+    public static final int MAX_CHANGES = 10_000;
+    // Changes read per page by the followers inside the application
+    public static final int PAGE_SIZE = 5_000;
+
+    private final ExpenseChangeRepository expenseChangeRepository;
+    private final ExpenseTableVersionRepository expenseTableVersionRepository;
+    private final ExpenseService expenseService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Clock clock;
+
+    @Autowired
+    public ExpenseChangeService(ExpenseChangeRepository expenseChangeRepository,
+                                ExpenseTableVersionRepository expenseTableVersionRepository,
+                                ExpenseService expenseService, PlatformTransactionManager transactionManager,
+                                @Value("${expense.changes.retention:P30D}") Duration retention) {
+        this(expenseChangeRepository, expenseTableVersionRepository, expenseService, transactionManager, retention,
+                Clock.systemUTC());
+    }
+
+    ExpenseChangeService(ExpenseChangeRepository expenseChangeRepository,
+                         ExpenseTableVersionRepository expenseTableVersionRepository,
+                         ExpenseService expenseService, PlatformTransactionManager transactionManager,
+                         Duration retention, Clock clock) {
+        this.expenseChangeRepository = expenseChangeRepository;
+        this.expenseTableVersionRepository = expenseTableVersionRepository;
+        this.expenseService = expenseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @EventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        record(event.getExpenses(), false);
+    }
+
+    @EventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        record(event.getExpenses(), true);
+    }
+
+    @EventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        record(List.of(event.getAfter()), false);
+    }
+
+    /**
+     * The latest committed version. Read it before the data it describes, so that a
+     * version can only be older than what was read, never newer.
+     */
+    public Version getVersion() {
+        List<Object[]> rows = expenseTableVersionRepository.findCurrent(ExpenseTableVersion.ID);
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Expense table version is missing");
+        }
+        Object[] row = rows.get(0);
+        return new Version(((Number) row[0]).longValue(), (Instant) row[1], ((Number) row[2]).longValue());
+    }
+
+    /**
+     * Expenses written and deleted after the given version, up to the current one.
+     * An expense written and then deleted in that range is only reported as deleted.
+     *
+     * @throws GoneException if the changes were purged or are too many, in which case
+     *                       the client has to reload the expenses
+     */
+    @Transactional(readOnly = true)
+    public ExpenseChangesDto getChanges(long since) {
+        if (since < 0) {
+            logger.debug("Invalid change version: {}", since);
+            throw new BadRequestException("Version must not be negative");
+        }
+        Version until = getVersion();
+        requireAvailable(since, until);
+
+        ExpenseChangesDto changes = new ExpenseChangesDto();
+        changes.setVersion(until.number());
+        if (since == until.number()) {
+            changes.setUpserted(List.of());
+            changes.setDeleted(List.of());
+            return changes;
+        }
+
+        long count = expenseChangeRepository.countBetween(since, until.number());
+        if (count > MAX_CHANGES) {
+            logger.debug("{} changes since version {}, asking for a reload", count, since);
+            throw new GoneException("Too many changes since version " + since + ", reload the expenses");
+        }
+        return collect(since, changes, expenseChangeRepository.findBetween(since, until.number()));
+    }
+
+    /**
+     * Expenses written and deleted after the given version, for the followers inside the
+     * application. A page holds about {@link #PAGE_SIZE} changes and ends on a whole
+     * version; its version is where it ends, so followers read on from there until they
+     * reach the current one. Unlike {@link #getChanges(long)}, there is no limit on how
+     * far behind a follower may be.
+     *
+     * @throws GoneException only if the changes were purged
+     */
+    @Transactional(readOnly = true)
+    public ExpenseChangesDto getChangePage(long since) {
+        Version until = getVersion();
+        requireAvailable(since, until);
+        Page page = readPage(since, until.number());
+
+        ExpenseChangesDto changes = new ExpenseChangesDto();
+        changes.setVersion(page.version());
+        if (since == page.version()) {
+            changes.setUpserted(List.of());
+            changes.setDeleted(List.of());
+            return changes;
+        }
+        return collect(since, changes, page.changes());
+    }
+
+    /**
+     * The ids of the expenses written or deleted after the given version, paged like
+     * {@link #getChangePage(long)}, for followers that only need to know which expenses
+     * changed and not how.
+     *
+     * @throws GoneException only if the changes were purged
+     */
+    @Transactional(readOnly = true)
+    public ChangedIds getChangedIds(long since) {
+        Version until = getVersion();
+        requireAvailable(since, until);
+        Page page = readPage(since, until.number());
+
+        Set<Long> ids = page.changes().stream()
+                .map(change -> change.getId().getExpenseId())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        // A purge committed while reading may have removed some of the changes
+        requireAvailable(since, getVersion());
+        return new ChangedIds(page.version(), ids);
+    }
+
+    private Page readPage(long since, long until) {
+        if (since == until) {
+            return new Page(until, List.of());
+        }
+        List<ExpenseChange> page = expenseChangeRepository.findBetween(since, until, Limit.of(PAGE_SIZE + 1));
+        if (page.size() <= PAGE_SIZE) {
+            return new Page(until, page);
+        }
+        // The last version read may be cut short; it starts the next page, unless it is
+        // the only one, which is then read whole
+        long cut = page.get(PAGE_SIZE).getId().getVersion();
+        if (cut - 1 > since) {
+            return new Page(cut - 1, page.stream().filter(change -> change.getId().getVersion() < cut).toList());
+        }
+        return new Page(cut, expenseChangeRepository.findBetween(since, cut));
+    }
+
+    private ExpenseChangesDto collect(long since, ExpenseChangesDto changes, List<ExpenseChange> logged) {
+        Set<Long> written = new LinkedHashSet<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        for (ExpenseChange change : logged) {
+            (change.isDeleted() ? deleted : written).add(change.getId().getExpenseId());
+        }
+        written.removeAll(deleted);
+        // A purge committed while reading may have removed some of the changes
+        requireAvailable(since, getVersion());
+
+        changes.setUpserted(expenseService.findAllById(written).stream()
+                .sorted(Comparator.comparing(Expense::getDate).thenComparing(Expense::getId).reversed())
+                .map(expenseService::convertToResponseDto)
+                .collect(Collectors.toList()));
+        changes.setDeleted(new ArrayList<>(deleted));
+        logger.debug("{} expenses written and {} deleted since version {}",
+                changes.getUpserted().size(), deleted.size(), since);
+        return changes;
+    }
+
+    /**
+     * Drops the changes older than the retention. Clients that synced before them
+     * get a {@link GoneException} and reload.
+     *
+     * @return the number of changes purged
+     */
+    @Scheduled(cron = "${expense.changes.purge-cron:0 45 3 * * *}")
+    public int purgeChanges() {
+        Instant cutoff = clock.instant().minus(retention);
+        Integer purged = transactionTemplate.execute(status -> {
+            Long through = expenseChangeRepository.findMaxVersionChangedBefore(cutoff);
+            if (through == null) {
+                return 0;
+            }
+            // Raised in the same commit as the rows go, so no reader takes a partial log for a full one
+            ExpenseTableVersion counter = lockCounter();
+            counter.setPurgedThrough(Math.max(counter.getPurgedThrough(), through));
+            return expenseChangeRepository.deleteThrough(through);
+        });
+        logger.info("Purged {} expense changes older than {}", purged, cutoff);
+        return purged != null ? purged : 0;
+    }
+
+    /**
+     * Locks the version row until the surrounding transaction ends. Writers need it to
+     * commit, so everything the transaction reads afterwards is one committed state.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockVersion() {
+        lockCounter();
+    }
+
+    /**
+     * Takes a version for the surrounding transaction without logging any expense, for
+     * writes that change what reads return but not the expenses themselves.
+     */
+    public void bumpVersion() {
+        record(Map.of());
+    }
+
+    private void record(List<Expense> expenses, boolean deleted) {
+        if (expenses.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Boolean> changes = new LinkedHashMap<>();
+        expenses.forEach(expense -> changes.put(expense.getId(), deleted));
+        record(changes);
+    }
+
+    private void record(Map<Long, Boolean> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The counter is locked and raised through the persistence context, which needs a transaction
+            transactionTemplate.executeWithoutResult(status -> takeVersion(changes));
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        // The last change of an expense in the transaction is the one that counts
+        pending.changes.putAll(changes);
+    }
+
+    private void takeVersion(Map<Long, Boolean> changes) {
+        Instant now = clock.instant();
+        ExpenseTableVersion counter = lockCounter();
+        counter.setVersion(counter.getVersion() + 1);
+        counter.setChangedAt(now);
+        Map<Boolean, List<Long>> byKind = changes.entrySet().stream()
+                .collect(Collectors.partitioningBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        byKind.forEach((deleted, ids) -> {
+            if (!ids.isEmpty()) {
+                expenseChangeRepository.insertAll(counter.getVersion(), now, ids, deleted);
+            }
+        });
+    }
+
+    private ExpenseTableVersion lockCounter() {
+        return expenseTableVersionRepository.findByIdForUpdate(ExpenseTableVersion.ID)
+                .orElseThrow(() -> new IllegalStateException("Expense table version is missing"));
+    }
+
+    private void requireAvailable(long since, Version version) {
+        if (since < version.purgedThrough() || since > version.number()) {
+            logger.debug("Changes since version {} are not available, current version is {}", since, version.number());
+            throw new GoneException("Changes since version " + since + " are no longer available, reload the expenses");
+        }
+    }
+
+    /**
+     * The expenses a transaction changed, counted as one version just before it
+     * commits. Everything else the transaction writes is flushed first, so the counter
+     * is the last lock it takes and is held only for the commit itself.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<Long, Boolean> changes = new LinkedHashMap<>();
+
+        // First among the synchronizations, so those after it run under the version lock
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            expenseTableVersionRepository.flush();
+            takeVersion(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ExpenseChangeService.this);
+        }
+    }
+
+    /**
+     * A committed table version and when it was taken. Changes up to and including
+     * {@code purgedThrough} are no longer logged.
+     */
+    public record Version(long number, Instant changedAt, long purgedThrough) {
+    }
+
+    /**
+     * The expenses written or deleted after a version, up to and including {@code version}.
+     */
+    public record ChangedIds(long version, Set<Long> expenseIds) {
+    }
+
+    private record Page(long version, List<ExpenseChange> changes) {
+    }
+}
@@ -0,0 +1,628 @@
+package com.deltaservices.expensemanagement.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Expenses held column by column in primitive arrays for analytics: ids, dates as
+ * epoch days, amounts in minor units of one reporting currency, and categories and
+ * descriptions as ids into dictionaries. Rows are kept in id order, so a delete finds
+ * its row by binary search; a deleted row keeps its slot, with a date no filter
+ * matches, until enough have piled up to compact.
+ * <p>
+ * Reports split the rows into ranges that the common fork-join pool scans in
+ * parallel, each into its own accumulator. Compaction also drops dictionary entries
+ * no row refers to any more. Not thread safe;
+ * {@link ExpenseAnalyticsService} guards it with a read/write lock.
+ */
+class ExpenseColumns {
+
+    // Date of a deleted row, below any date a filter accepts
+    static final int DELETED = Integer.MIN_VALUE;
+    // Amount of an expense that could not be converted to the reporting currency
+    static final long UNCONVERTED = Long.MIN_VALUE;
+    static final int ANY_CATEGORY = -1;
+    // Rows scanned by one task
+    static final int RANGE_SIZE = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_DELETED_TO_COMPACT = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] days = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int[] descriptions = new int[INITIAL_CAPACITY];
+    private int size;
+    private int deleted;
+
+    private final Dictionary categoryNames = new Dictionary();
+    private final Dictionary descriptionTexts = new Dictionary();
+
+    /**
+     * Adds an expense. Adding an id that is already held is a no-op.
+     *
+     * @param amount minor units of the reporting currency, or {@link #UNCONVERTED}
+     */
+    void add(long id, int epochDay, long amount, String category, String description) {
+        int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0 && position < size) {
+            return;
+        }
+        if (position < 0) {
+            // Ids from another instance's sequence block can arrive late; they land near the end
+            position = -position - 1;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        if (position < size) {
+            int moved = size - position;
+            System.arraycopy(ids, position, ids, position + 1, moved);
+            System.arraycopy(days, position, days, position + 1, moved);
+            System.arraycopy(amounts, position, amounts, position + 1, moved);
+            System.arraycopy(categories, position, categories, position + 1, moved);
+            System.arraycopy(descriptions, position, descriptions, position + 1, moved);
+        }
+        ids[position] = id;
+        days[position] = epochDay;
+        amounts[position] = amount;
+        categories[position] = categoryNames.idOf(category);
+        descriptions[position] = descriptionTexts.idOf(description);
+        size++;
+    }
+
+    /**
+     * Replaces the fields of an expense, or adds it if it is not held. A deleted
+     * expense stays deleted.
+     */
+    void update(long id, int epochDay, long amount, String category, String description) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            add(id, epochDay, amount, category, description);
+            return;
+        }
+        if (days[position] == DELETED) {
+            return;
+        }
+        days[position] = epochDay;
+        amounts[position] = amount;
+        categories[position] = categoryNames.idOf(category);
+        descriptions[position] = descriptionTexts.idOf(description);
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0 || days[position] == DELETED) {
+            return;
+        }
+        days[position] = DELETED;
+        deleted++;
+        if (deleted >= MIN_DELETED_TO_COMPACT && deleted > size / 4) {
+            compact();
+        }
+    }
+
+    /**
+     * Number of expenses held.
+     */
+    int size() {
+        return size - deleted;
+    }
+
+    /**
+     * Category id of the name, or {@link #ANY_CATEGORY} for {@code null}; a name no
+     * expense has gets an id that matches nothing.
+     */
+    int categoryId(String name) {
+        if (name == null) {
+            return ANY_CATEGORY;
+        }
+        Integer id = categoryNames.ids.get(name);
+        return id != null ? id : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Descriptions with the highest total, or the most expenses when {@code byCount},
+     * ties broken by description.
+     */
+    Result<List<DescriptionTotal>> topDescriptions(int fromDay, int toDay, int category, int limit, boolean byCount) {
+        // Descriptions are often unique, so the dictionary can be as large as the rows: each
+        // range sums into a table of just its own descriptions, which is then added to the
+        // one accumulator of the query
+        DescriptionTotals totals = new DescriptionTotals(descriptionTexts.size());
+        long unconverted = IntStream.range(0, rangeCount()).parallel().mapToLong(range -> {
+            RangeTotals accumulator = new RangeTotals(totals.dictionarySize);
+            for (int i = rangeStart(range), end = rangeEnd(range); i < end; i++) {
+                if (matches(i, fromDay, toDay, category)) {
+                    long amount = amounts[i];
+                    if (amount == UNCONVERTED) {
+                        accumulator.unconverted++;
+                    } else {
+                        accumulator.add(descriptions[i], amount);
+                    }
+                }
+            }
+            synchronized (totals) {
+                totals.add(accumulator);
+            }
+            return accumulator.unconverted;
+        }).sum();
+
+        Comparator<DescriptionTotal> ranking = byCount
+                ? Comparator.comparingLong(DescriptionTotal::count).thenComparingLong(DescriptionTotal::total)
+                : Comparator.comparingLong(DescriptionTotal::total).thenComparingLong(DescriptionTotal::count);
+        ranking = ranking.thenComparing(DescriptionTotal::description, Comparator.reverseOrder());
+        // Worst of the kept entries on top, so it is the one replaced
+        PriorityQueue<DescriptionTotal> top = new PriorityQueue<>(limit + 1, ranking);
+        totals.forEach((description, count, total) -> {
+            // Most descriptions rank below the kept ones; they are passed over without allocating
+            if (top.size() == limit) {
+                DescriptionTotal worst = top.peek();
+                if ((byCount ? count : total) < (byCount ? worst.count() : worst.total())) {
+                    return;
+                }
+            }
+            top.add(new DescriptionTotal(descriptionTexts.names.get(description), count, total));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<DescriptionTotal> items = new ArrayList<>(top);
+        items.sort(ranking.reversed());
+        return new Result<>(items, unconverted);
+    }
+
+    /**
+     * Nearest-rank percentiles of the amounts per category: the smallest amount with at
+     * least {@code p} percent of the category's amounts at or below it, as SQL's
+     * {@code percentile_disc} picks it.
+     *
+     * @param percentiles between 0 and 100
+     */
+    Result<List<CategoryPercentiles>> percentiles(int fromDay, int toDay, List<BigDecimal> percentiles) {
+        int categoryCount = categoryNames.size();
+        int ranges = rangeCount();
+        // First pass counts per range and category, so the second can write each range's amounts in place
+        int[][] counts = new int[ranges][];
+        long[] unconverted = new long[ranges];
+        IntStream.range(0, ranges).parallel().forEach(range -> {
+            int[] rangeCounts = new int[categoryCount];
+            for (int i = rangeStart(range), end = rangeEnd(range); i < end; i++) {
+                if (matches(i, fromDay, toDay, ANY_CATEGORY)) {
+                    if (amounts[i] == UNCONVERTED) {
+                        unconverted[range]++;
+                    } else {
+                        rangeCounts[categories[i]]++;
+                    }
+                }
+            }
+            counts[range] = rangeCounts;
+        });
+
+        long[][] values = new long[categoryCount][];
+        int[][] offsets = new int[ranges][categoryCount];
+        for (int c = 0; c < categoryCount; c++) {
+            int total = 0;
+            for (int range = 0; range < ranges; range++) {
+                offsets[range][c] = total;
+                total += counts[range][c];
+            }
+            values[c] = new long[total];
+        }
+        IntStream.range(0, ranges).parallel().forEach(range -> {
+            int[] next = offsets[range];
+            for (int i = rangeStart(range), end = rangeEnd(range); i < end; i++) {
+                if (matches(i, fromDay, toDay, ANY_CATEGORY) && amounts[i] != UNCONVERTED) {
+                    int c = categories[i];
+                    values[c][next[c]++] = amounts[i];
+                }
+            }
+        });
+
+        List<CategoryPercentiles> items = IntStream.range(0, categoryCount).parallel()
+                .filter(c -> values[c].length > 0)
+                .mapToObj(c -> categoryPercentiles(categoryNames.names.get(c), values[c], percentiles))
+                .sorted(Comparator.comparing(CategoryPercentiles::category))
+                .toList();
+        return new Result<>(items, Arrays.stream(unconverted).sum());
+    }
+
+    /**
+     * Totals of the weeks starting on {@code fromDay}, which should be a Monday.
+     */
+    Result<List<WeekTotal>> weeklyTotals(int fromDay, int weeks, int category) {
+        int toDay = fromDay + weeks * 7 - 1;
+        WeekTotals totals = IntStream.range(0, rangeCount()).parallel().collect(
+                () -> new WeekTotals(weeks),
+                (accumulator, range) -> {
+                    for (int i = rangeStart(range), end = rangeEnd(range); i < end; i++) {
+                        if (matches(i, fromDay, toDay, category)) {
+                            long amount = amounts[i];
+                            if (amount == UNCONVERTED) {
+                                accumulator.unconverted++;
+                            } else {
+                                int week = (days[i] - fromDay) / 7;
+                                accumulator.totals[week] += amount;
+                                accumulator.counts[week]++;
+                            }
+                        }
+                    }
+                },
+                WeekTotals::merge);
+
+        List<WeekTotal> items = new ArrayList<>(weeks);
+        for (int week = 0; week < weeks; week++) {
+            items.add(new WeekTotal(fromDay + week * 7, totals.counts[week], totals.totals[week]));
+        }
+        return new Result<>(items, totals.unconverted);
+    }
+
+    private boolean matches(int row, int fromDay, int toDay, int category) {
+        int day = days[row];
+        return day >= fromDay && day <= toDay && (category == ANY_CATEGORY || categories[row] == category);
+    }
+
+    private int rangeCount() {
+        return (size + RANGE_SIZE - 1) / RANGE_SIZE;
+    }
+
+    private static int rangeStart(int range) {
+        return range * RANGE_SIZE;
+    }
+
+    private int rangeEnd(int range) {
+        return Math.min(size, (range + 1) * RANGE_SIZE);
+    }
+
+    private static CategoryPercentiles categoryPercentiles(String category, long[] values, List<BigDecimal> percentiles) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        // Selecting the ranks in ascending order lets each search start where the last ended
+        int[] ranks = percentiles.stream().mapToInt(p -> rank(p, values.length)).toArray();
+        int[] order = IntStream.range(0, ranks.length).boxed()
+                .sorted(Comparator.comparingInt(i -> ranks[i])).mapToInt(Integer::intValue).toArray();
+        long[] selected = new long[ranks.length];
+        int from = 0;
+        for (int i : order) {
+            selected[i] = select(values, from, values.length - 1, ranks[i] - 1);
+            from = ranks[i] - 1;
+        }
+        return new CategoryPercentiles(category, values.length, total, selected);
+    }
+
+    // 1-based rank of the nearest-rank percentile, computed exactly
+    static int rank(BigDecimal percentile, int count) {
+        int rank = percentile.multiply(BigDecimal.valueOf(count))
+                .divide(BigDecimal.valueOf(100), 0, RoundingMode.CEILING)
+                .intValueExact();
+        return Math.max(rank, 1);
+    }
+
+    /**
+     * The value that would be at index {@code k} if {@code values[from..to]} were
+     * sorted, found by quickselect; the range is partially reordered.
+     */
+    static long select(long[] values, int from, int to, int k) {
+        int left = from;
+        int right = to;
+        while (left < right) {
+            int middle = (left + right) >>> 1;
+            // Median of three as pivot keeps sorted input linear
+            if (values[middle] < values[left]) {
+                swap(values, middle, left);
+            }
+            if (values[right] < values[left]) {
+                swap(values, right, left);
+            }
+            if (values[right] < values[middle]) {
+                swap(values, right, middle);
+            }
+            long pivot = values[middle];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+
+    private static void swap(long[] values, int i, int j) {
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        days = Arrays.copyOf(days, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (days[i] != DELETED) {
+                ids[kept] = ids[i];
+                days[kept] = days[i];
+                amounts[kept] = amounts[i];
+                categories[kept] = categories[i];
+                descriptions[kept] = descriptions[i];
+                kept++;
+            }
+        }
+        size = kept;
+        deleted = 0;
+        categoryNames.retain(categories, size);
+        descriptionTexts.retain(descriptions, size);
+    }
+
+    // Distinct descriptions held, including those only deleted rows had until the next compaction
+    int descriptionCount() {
+        return descriptionTexts.size();
+    }
+
+    record Result<T>(T items, long unconverted) {
+    }
+
+    record DescriptionTotal(String description, long count, long total) {
+    }
+
+    record CategoryPercentiles(String category, long count, long total, long[] percentiles) {
+    }
+
+    record WeekTotal(int startDay, long count, long total) {
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        int idOf(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        /**
+         * Keeps only the entries referred to by the first {@code size} ids, renumbered in
+         * order of first use, and rewrites the ids to match.
+         */
+        void retain(int[] references, int size) {
+            int[] renumbered = new int[names.size()];
+            Arrays.fill(renumbered, -1);
+            List<String> kept = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                int id = references[i];
+                if (renumbered[id] < 0) {
+                    renumbered[id] = kept.size();
+                    kept.add(names.get(id));
+                }
+                references[i] = renumbered[id];
+            }
+            names.clear();
+            names.addAll(kept);
+            ids.clear();
+            for (int id = 0; id < kept.size(); id++) {
+                ids.put(kept.get(id), id);
+            }
+        }
+    }
+
+    /**
+     * Totals and counts per description id of a whole query. A small dictionary gets
+     * arrays indexed by description id from the start. A large one is held in a table
+     * like a range's while few descriptions match, and in arrays once a sixteenth of the
+     * dictionary does, before growing the table costs more than filling the arrays.
+     */
+    private static final class DescriptionTotals {
+
+        private final int dictionarySize;
+        // Null once the arrays are used
+        private RangeTotals matched;
+        private long[] totals;
+        private long[] counts;
+
+        DescriptionTotals(int dictionarySize) {
+            this.dictionarySize = dictionarySize;
+            if (dictionarySize <= RangeTotals.MAX_DIRECT) {
+                useArrays();
+            } else {
+                matched = new RangeTotals(0);
+            }
+        }
+
+        void add(RangeTotals range) {
+            if (matched == null) {
+                range.addTo(totals, counts);
+                return;
+            }
+            range.addTo(matched);
+            if (matched.entries > dictionarySize >> 4) {
+                RangeTotals table = matched;
+                useArrays();
+                table.addTo(totals, counts);
+            }
+        }
+
+        void forEach(TotalConsumer consumer) {
+            if (matched != null) {
+                matched.forEach(consumer);
+                return;
+            }
+            for (int d = 0; d < dictionarySize; d++) {
+                if (counts[d] > 0) {
+                    consumer.accept(d, counts[d], totals[d]);
+                }
+            }
+        }
+
+        private void useArrays() {
+            totals = new long[dictionarySize];
+            counts = new long[dictionarySize];
+            matched = null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface TotalConsumer {
+
+        void accept(int description, long count, long total);
+    }
+
+    /**
+     * Totals and counts per description id of one range. A small dictionary is indexed
+     * directly; a large one goes through an open-addressing table, so it holds the
+     * descriptions the range has rather than a slot for every dictionary entry.
+     */
+    private static final class RangeTotals {
+
+        // Up to this, arrays indexed by description id are no larger than a range's own rows
+        static final int MAX_DIRECT = RANGE_SIZE / 4;
+        private static final int EMPTY = -1;
+        private static final int INITIAL_SLOTS = 64;
+
+        // Null when indexed directly
+        private int[] keys;
+        private long[] totals;
+        private long[] counts;
+        private int entries;
+        private long unconverted;
+
+        RangeTotals(int dictionarySize) {
+            if (dictionarySize > 0 && dictionarySize <= MAX_DIRECT) {
+                totals = new long[dictionarySize];
+                counts = new long[dictionarySize];
+            } else {
+                allocate(INITIAL_SLOTS);
+            }
+        }
+
+        void add(int description, long amount) {
+            if (keys == null) {
+                totals[description] += amount;
+                counts[description]++;
+            } else {
+                add(description, 1, amount);
+            }
+        }
+
+        void addTo(RangeTotals other) {
+            forEach(other::add);
+        }
+
+        void forEach(TotalConsumer consumer) {
+            for (int slot = 0; slot < counts.length; slot++) {
+                if (keys == null ? counts[slot] > 0 : keys[slot] != EMPTY) {
+                    consumer.accept(keys == null ? slot : keys[slot], counts[slot], totals[slot]);
+                }
+            }
+        }
+
+        void addTo(long[] allTotals, long[] allCounts) {
+            forEach((description, count, total) -> {
+                allTotals[description] += total;
+                allCounts[description] += count;
+            });
+        }
+
+        private void add(int description, long count, long total) {
+            int mask = keys.length - 1;
+            // Fibonacci hashing: the top bits of the product spread sequential ids over the table
+            int slot = (description * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+            while (keys[slot] != EMPTY && keys[slot] != description) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                if (entries + 1 > keys.length >> 1) {
+                    grow();
+                    add(description, count, total);
+                    return;
+                }
+                keys[slot] = description;
+                entries++;
+            }
+            totals[slot] += total;
+            counts[slot] += count;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldTotals = totals;
+            long[] oldCounts = counts;
+            allocate(oldKeys.length << 1);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    add(oldKeys[slot], oldCounts[slot], oldTotals[slot]);
+                }
+            }
+        }
+
+        private void allocate(int slots) {
+            keys = new int[slots];
+            Arrays.fill(keys, EMPTY);
+            totals = new long[slots];
+            counts = new long[slots];
+            entries = 0;
+        }
+    }
+
+    private static final class WeekTotals {
+
+        private final long[] totals;
+        private final long[] counts;
+        private long unconverted;
+
+        WeekTotals(int weeks) {
+            totals = new long[weeks];
+            counts = new long[weeks];
+        }
+
+        void merge(WeekTotals other) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += other.totals[i];
+                counts[i] += other.counts[i];
+            }
+            unconverted += other.unconverted;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.ArchivedExpense;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExportFormat;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Writes expenses to an output stream a page at a time. Each page of
+ * {@link #PAGE_SIZE} expenses is read in its own short read-only transaction and
+ * written after it ended, so a slow client never holds a connection, and the heap
+ * holds one page regardless of the table size.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseExportService.class);
+    // currency comes last so that readers of the earlier columns keep working
+    private static final String CSV_HEADER = "id,description,amount,date,category,currency";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int PAGE_SIZE = 1000;
+
+    private final ExpenseRepository expenseRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory;
+    private final ExpenseMetrics expenseMetrics;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Autowired
+    public ExpenseExportService(ExpenseRepository expenseRepository, PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper, ExpenseMetrics expenseMetrics,
+                                ArchivedExpenseRepository archivedExpenseRepository) {
+        this.expenseRepository = expenseRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+        this.expenseMetrics = expenseMetrics;
+        this.archivedExpenseRepository = archivedExpenseRepository;
+    }
+
+    public long exportExpenses(ExportFormat format, OutputStream outputStream) throws IOException {
+        logger.info("Exporting expenses as {}", format);
+
+        Iterator<Expense> expenses = new ExpensePages();
+        long count = format == ExportFormat.CSV
+                ? writeCsv(expenses, outputStream)
+                : writeNdjson(expenses, outputStream);
+
+        expenseMetrics.rowsReturned("export", count);
+        logger.info("Exported {} expenses as {}", count, format);
+        return count;
+    }
+
+    /**
+     * The expenses of both tables with an id above {@code after}, in id order, up to the
+     * last id both tables were read to. The hot table is read first: an expense archived
+     * in between is then found in both and written once, rather than in neither.
+     */
+    private List<Expense> readPage(long after) {
+        return readOnlyTransaction.execute(status -> {
+            List<Expense> hot = expenseRepository.findPageAfter(after, Limit.of(PAGE_SIZE));
+            List<ArchivedExpense> archived = archivedExpenseRepository.findPageAfter(after, Limit.of(PAGE_SIZE));
+
+            // A full page may stop short of ids the other table has; those wait for the next page
+            long until = Long.MAX_VALUE;
+            if (hot.size() == PAGE_SIZE) {
+                until = hot.get(PAGE_SIZE - 1).getId();
+            }
+            if (archived.size() == PAGE_SIZE) {
+                until = Math.min(until, archived.get(PAGE_SIZE - 1).getId());
+            }
+            SortedMap<Long, Expense> page = new TreeMap<>();
+            for (ArchivedExpense expense : archived) {
+                if (expense.getId() <= until) {
+                    page.put(expense.getId(), expense.toExpense());
+                }
+            }
+            for (Expense expense : hot) {
+                if (expense.getId() <= until) {
+                    page.put(expense.getId(), expense);
+                }
+            }
+            return new ArrayList<>(page.values());
+        });
+    }
+
+    private long writeNdjson(Iterator<Expense> expenses, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            while (expenses.hasNext()) {
+                Expense expense = expenses.next();
+                generator.writeStartObject();
+                generator.writeNumberField("id", expense.getId());
+                generator.writeStringField("description", expense.getDescription());
+                generator.writeFieldName("amount");
+                generator.writeNumber(expense.getAmount().toPlainString());
+                generator.writeStringField("currency", expense.getCurrency().getCurrencyCode());
+                generator.writeStringField("date", expense.getDate().toString());
+                generator.writeStringField("category", expense.getCategory());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<Expense> expenses, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            while (expenses.hasNext()) {
+                Expense expense = expenses.next();
+                writer.write(String.valueOf(expense.getId()));
+                writer.write(',');
+                writeCsvField(writer, expense.getDescription());
+                writer.write(',');
+                writer.write(expense.getAmount().toPlainString());
+                writer.write(',');
+                writer.write(expense.getDate().toString());
+                writer.write(',');
+                writeCsvField(writer, expense.getCategory());
+                writer.write(',');
+                writer.write(expense.getCurrency().getCurrencyCode());
+                writer.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    // Reads the next page once the current one is written
+    private final class ExpensePages implements Iterator<Expense> {
+
+        private Iterator<Expense> page = Collections.emptyIterator();
+        private long after = Long.MIN_VALUE;
+        private boolean last;
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !last) {
+                List<Expense> expenses = readPage(after);
+                if (expenses.isEmpty()) {
+                    last = true;
+                } else {
+                    after = expenses.get(expenses.size() - 1).getId();
+                    page = expenses.iterator();
+                }
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public Expense next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.config.CacheConfig;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ConflictException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.IdempotencyKey;
+import com.deltaservices.expensemanagement.repository.IdempotencyKeyRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Makes expense creation safe to retry. The first request with a given
+ * {@code Idempotency-Key} creates the expense and records the key in the same
+ * transaction; later requests with the key get that expense back as it is now, so a
+ * retry after an update sees the update. Keys are resolved by primary key, with a
+ * bounded in-memory cache in front that holds only what never changes for a key: the
+ * request hash and the expense id. The expense itself is read through
+ * {@link ExpenseService#getExpense(Long)}.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseIdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ExpenseService expenseService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache cache;
+    private final Duration retention;
+    private final Clock clock;
+
+    @Autowired
+    public ExpenseIdempotencyService(ExpenseService expenseService, IdempotencyKeyRepository idempotencyKeyRepository,
+                                     PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                                     @Value("${expense.idempotency.retention:P7D}") Duration retention) {
+        this(expenseService, idempotencyKeyRepository, transactionManager, cacheManager, retention, Clock.systemUTC());
+    }
+
+    ExpenseIdempotencyService(ExpenseService expenseService, IdempotencyKeyRepository idempotencyKeyRepository,
+                              PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                              Duration retention, Clock clock) {
+        this.expenseService = expenseService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = cacheManager.getCache(CacheConfig.IDEMPOTENCY_KEYS);
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    public IdempotentResult createExpense(ExpenseRequestDto expenseRequestDto, String idempotencyKey) {
+        validateKey(idempotencyKey);
+        String requestHash = hash(expenseRequestDto);
+
+        Optional<ExpenseResponseDto> original = findOriginal(idempotencyKey, requestHash);
+        if (original.isPresent()) {
+            logger.debug("Replaying expense {} for idempotency key", original.get().getId());
+            return new IdempotentResult(original.get(), true);
+        }
+
+        try {
+            ExpenseResponseDto created = transactionTemplate.execute(status -> {
+                ExpenseResponseDto expense = expenseService.createExpense(expenseRequestDto);
+                idempotencyKeyRepository.saveAndFlush(
+                        new IdempotencyKey(idempotencyKey, expense.getId(), requestHash, clock.instant()));
+                return expense;
+            });
+            putInCache(idempotencyKey, new CachedKey(requestHash, created.getId()));
+            return new IdempotentResult(created, false);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent retry with the same key committed first
+            logger.info("Idempotency key was claimed concurrently, replaying the winning request");
+            return findOriginal(idempotencyKey, requestHash)
+                    .map(expense -> new IdempotentResult(expense, true))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    @EventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        List<Long> ids = event.getExpenses().stream().map(Expense::getId).collect(Collectors.toList());
+        // A key still cached anywhere is dropped once its expense is found missing
+        idempotencyKeyRepository.deleteByExpenseIds(ids);
+    }
+
+    @Scheduled(cron = "${expense.idempotency.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public int purgeExpiredKeys() {
+        int purged = idempotencyKeyRepository.deleteCreatedBefore(clock.instant().minus(retention));
+        logger.info("Purged {} expired idempotency keys", purged);
+        return purged;
+    }
+
+    private Optional<ExpenseResponseDto> findOriginal(String idempotencyKey, String requestHash) {
+        CachedKey cached = cache != null ? cache.get(idempotencyKey, CachedKey.class) : null;
+        if (cached == null) {
+            cached = idempotencyKeyRepository.findById(idempotencyKey)
+                    .map(key -> new CachedKey(key.getRequestHash(), key.getExpenseId()))
+                    .orElse(null);
+            if (cached == null) {
+                return Optional.empty();
+            }
+            putInCache(idempotencyKey, cached);
+        }
+
+        if (!cached.getRequestHash().equals(requestHash)) {
+            logger.warn("Idempotency key reused with a different request");
+            throw new ConflictException("Idempotency key was already used for a different request");
+        }
+        try {
+            return Optional.of(expenseService.getExpense(cached.getExpenseId()));
+        } catch (ResourceNotFoundException e) {
+            // Deleted, possibly on another instance; its key went with it, so the request creates it anew
+            logger.debug("Expense {} of idempotency key was deleted", cached.getExpenseId());
+            if (cache != null) {
+                cache.evict(idempotencyKey);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private void putInCache(String idempotencyKey, CachedKey key) {
+        if (cache != null) {
+            cache.put(idempotencyKey, key);
+        }
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            logger.warn("Idempotency key is empty");
+            throw new BadRequestException("Idempotency key cannot be empty");
+        }
+
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            logger.warn("Idempotency key too long: {} characters", idempotencyKey.length());
+            throw new BadRequestException("Idempotency key cannot be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private String hash(ExpenseRequestDto request) {
+        String canonical = request.getDescription() + '\n'
+                + (request.getAmount() == null ? "" : request.getAmount().toBigDecimal().stripTrailingZeros().toPlainString()) + '\n'
+                + request.getDate() + '\n'
+                + request.getCategory()
+                // Appended only when given, so keys stored before currencies existed still match
+                + (request.getCurrency() == null ? "" : "\n" + request.getCurrency().toUpperCase(Locale.ROOT));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @lombok.Value
+    public static class IdempotentResult {
+
+        ExpenseResponseDto expense;
+        boolean replayed;
+    }
+
+    @lombok.Value
+    static class CachedKey {
+
+        String requestHash;
+        Long expenseId;
+    }
+}
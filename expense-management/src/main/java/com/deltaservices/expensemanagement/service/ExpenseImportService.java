@@ -0,0 +1,328 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.exception.TooManyRequestsException;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseImportErrorDto;
+import com.deltaservices.expensemanagement.model.ExpenseImportStatusDto;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.ImportState;
+import com.deltaservices.expensemanagement.model.StatementFormat;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports bank statements in the background, one file at a time. The file is read
+ * as a stream by a {@link StatementReader} and written through
+ * {@link ExpenseService#createExpenses} in chunks, so every record passes the same
+ * validation as a single create, each chunk is one transaction and memory does not
+ * grow with the file. A record that fails is reported with its line and the import
+ * goes on; a chunk already committed stays when a later one fails.
+ * <p>
+ * Progress is polled by id. Statuses live in memory and are dropped some time after
+ * the import finished.
+ */
+@Service
+public class ExpenseImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseImportService.class);
+    static final String DEFAULT_CATEGORY = "OTHER";
+    static final int CHUNK_SIZE = ExpenseService.BATCH_CHUNK_SIZE;
+    // Rejected records reported with their line; the rest are only counted
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ExpenseService expenseService;
+    private final Path directory;
+    private final Duration statusRetention;
+    private final Executor executor;
+    private final Clock clock;
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExpenseImportService(ExpenseService expenseService,
+                                @Value("${expense.import.directory:}") String directory,
+                                @Value("${expense.import.queue-capacity:4}") int queueCapacity,
+                                @Value("${expense.import.status-retention:24h}") Duration statusRetention) {
+        this(expenseService, directory.isBlank() ? null : Path.of(directory).toAbsolutePath().normalize(),
+                statusRetention, new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, "expense-import")),
+                Clock.systemUTC());
+    }
+
+    ExpenseImportService(ExpenseService expenseService, Path directory, Duration statusRetention,
+                         Executor executor, Clock clock) {
+        this.expenseService = expenseService;
+        this.directory = directory;
+        this.statusRetention = statusRetention;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * Queues the import of an uploaded statement, which is first moved to a temporary
+     * file that is deleted once imported.
+     */
+    public ExpenseImportStatusDto importUpload(MultipartFile file, String format, String category) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Statement file is empty");
+        }
+        StatementFormat statementFormat = format != null
+                ? StatementFormat.fromParameter(format)
+                : StatementFormat.fromFilename(file.getOriginalFilename());
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile("expense-import-", "." + statementFormat.getExtension());
+            file.transferTo(temporary);
+        } catch (IOException e) {
+            deleteQuietly(temporary);
+            throw new IllegalStateException("Could not store uploaded statement", e);
+        }
+        return submit(temporary, true, statementFormat, category, file.getOriginalFilename());
+    }
+
+    /**
+     * Queues the import of a statement already on the server, below
+     * {@code expense.import.directory}.
+     */
+    public ExpenseImportStatusDto importFile(String path, String format, String category) {
+        if (directory == null) {
+            throw new BadRequestException("Server-side imports are disabled, set expense.import.directory");
+        }
+        Path file = directory.resolve(path).normalize();
+        if (!file.startsWith(directory)) {
+            throw new BadRequestException("Path must be inside the import directory");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Statement", "path", path);
+        }
+        try {
+            // A symbolic link inside the directory may still lead out of it
+            file = file.toRealPath();
+            if (!file.startsWith(directory.toRealPath())) {
+                throw new BadRequestException("Path must be inside the import directory");
+            }
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("Statement", "path", path);
+        }
+        StatementFormat statementFormat = format != null
+                ? StatementFormat.fromParameter(format)
+                : StatementFormat.fromFilename(file.getFileName().toString());
+        return submit(file, false, statementFormat, category, path);
+    }
+
+    public ExpenseImportStatusDto getStatus(UUID id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import", "id", id);
+        }
+        return job.toDto();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // A running import stops between records; committed chunks stay
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    private ExpenseImportStatusDto submit(Path file, boolean temporary, StatementFormat format, String category,
+                                          String filename) {
+        purgeFinished();
+        String defaultCategory = category == null || category.isBlank() ? DEFAULT_CATEGORY : category.trim();
+        ImportJob job;
+        try {
+            job = new ImportJob(UUID.randomUUID(), format, filename, Files.size(file), clock.instant());
+        } catch (IOException e) {
+            deleteQuietly(temporary ? file : null);
+            throw new IllegalStateException("Could not read statement " + filename, e);
+        }
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, file, temporary, defaultCategory));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteQuietly(temporary ? file : null);
+            logger.warn("Import queue is full, rejecting statement {}", filename);
+            throw new TooManyRequestsException("Too many imports queued, retry later");
+        }
+        logger.info("Queued import {} of {} ({} bytes)", job.id, filename, job.totalBytes);
+        return job.toDto();
+    }
+
+    private void run(ImportJob job, Path file, boolean temporary, String defaultCategory) {
+        job.startedAt = clock.instant();
+        job.state = ImportState.RUNNING;
+        try (StatementReader reader = open(job.format, FileChannel.open(file, StandardOpenOption.READ),
+                defaultCategory)) {
+            List<ExpenseRequestDto> chunk = new ArrayList<>(CHUNK_SIZE);
+            long[] lines = new long[CHUNK_SIZE];
+            while (reader.next()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Import interrupted by shutdown");
+                }
+                job.records++;
+                if (reader.getError() != null) {
+                    job.reject(reader.getLine(), reader.getError());
+                } else if (reader.getRequest() == null) {
+                    job.skipped++;
+                } else {
+                    lines[chunk.size()] = reader.getLine();
+                    chunk.add(reader.getRequest());
+                    if (chunk.size() == CHUNK_SIZE) {
+                        write(job, chunk, lines);
+                    }
+                }
+                job.bytesRead = reader.getBytesRead();
+            }
+            write(job, chunk, lines);
+            job.bytesRead = job.totalBytes;
+            job.finish(ImportState.COMPLETED, null, clock.instant());
+            logger.info("Import {} done: {} imported, {} rejected, {} skipped", job.id, job.imported,
+                    job.rejected, job.skipped);
+        } catch (IllegalArgumentException e) {
+            job.finish(ImportState.FAILED, e.getMessage(), clock.instant());
+            logger.info("Import {} failed: {}", job.id, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            job.finish(ImportState.FAILED, "Import stopped after " + job.imported + " expenses: " + e.getMessage(),
+                    clock.instant());
+            logger.error("Import {} failed", job.id, e);
+        } finally {
+            deleteQuietly(temporary ? file : null);
+        }
+    }
+
+    private void write(ImportJob job, List<ExpenseRequestDto> chunk, long[] lines) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        ExpenseBatchResultDto result = expenseService.createExpenses(chunk);
+        for (ExpenseBatchItemResultDto item : result.getItems()) {
+            if (item.getError() == null) {
+                job.imported++;
+            } else {
+                job.reject(lines[item.getIndex()], item.getError());
+            }
+        }
+        chunk.clear();
+    }
+
+    private static StatementReader open(StatementFormat format, FileChannel channel, String defaultCategory) {
+        return switch (format) {
+            case CSV -> new CsvStatementReader(channel, defaultCategory);
+            case OFX -> new OfxStatementReader(channel, defaultCategory);
+        };
+    }
+
+    private void purgeFinished() {
+        Instant cutoff = clock.instant().minus(statusRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", file, e);
+        }
+    }
+
+    /**
+     * Progress of one import, written by the import thread and read by status requests.
+     */
+    static final class ImportJob {
+
+        private final UUID id;
+        private final StatementFormat format;
+        private final String filename;
+        private final long totalBytes;
+        private final Instant submittedAt;
+        private final List<ExpenseImportErrorDto> errors = new ArrayList<>();
+        private volatile ImportState state = ImportState.QUEUED;
+        private volatile long bytesRead;
+        private volatile long records;
+        private volatile long imported;
+        private volatile long rejected;
+        private volatile long skipped;
+        private volatile String error;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        ImportJob(UUID id, StatementFormat format, String filename, long totalBytes, Instant submittedAt) {
+            this.id = id;
+            this.format = format;
+            this.filename = filename;
+            this.totalBytes = totalBytes;
+            this.submittedAt = submittedAt;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (rejected <= MAX_REPORTED_ERRORS) {
+                synchronized (errors) {
+                    errors.add(new ExpenseImportErrorDto(line, message));
+                }
+            }
+        }
+
+        void finish(ImportState state, String error, Instant finishedAt) {
+            this.error = error;
+            this.finishedAt = finishedAt;
+            this.state = state;
+        }
+
+        ExpenseImportStatusDto toDto() {
+            ExpenseImportStatusDto dto = new ExpenseImportStatusDto();
+            dto.setId(id);
+            dto.setState(state);
+            dto.setFormat(format);
+            dto.setFilename(filename);
+            dto.setTotalBytes(totalBytes);
+            dto.setBytesRead(bytesRead);
+            dto.setRecords(records);
+            dto.setImported(imported);
+            dto.setRejected(rejected);
+            dto.setSkipped(skipped);
+            synchronized (errors) {
+                dto.setErrors(List.copyOf(errors));
+            }
+            dto.setError(error);
+            dto.setSubmittedAt(submittedAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.exception.TooManyRequestsException;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseIngestionStatusDto;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.IngestionStatus;
+import com.deltaservices.expensemanagement.repository.IngestionStatusRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind mode for single expense creates, enabled with
+ * {@code expense.ingestion.mode=async}. Requests are validated, put on a bounded
+ * in-memory queue and written by one background thread through
+ * {@link ExpenseService#createExpenses}, so a burst commits in a few batched
+ * transactions instead of one per expense. A full queue is reported as 429 rather
+ * than growing the heap.
+ * <p>
+ * Queued expenses survive a graceful shutdown, which drains the queue after the
+ * web server has stopped, but not a crash.
+ * <p>
+ * Outcomes are stored with each written batch, so any instance answers for a tracking
+ * id once its expense was written. Until then only the instance that queued it knows
+ * the id; the others answer 404 for that short while.
+ */
+@Service
+public class ExpenseIngestionService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseIngestionService.class);
+    // Lower than the web server phases, so the queue stops after requests have stopped coming in
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+    private static final int MAX_TRACKED_STATUSES = 100_000;
+
+    private final ExpenseService expenseService;
+    private final IngestionStatusRepository ingestionStatusRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration drainTimeout;
+    private final BlockingQueue<PendingExpense> queue;
+    private final Duration statusRetention;
+    // Queued expenses and the outcomes written here, in front of the stored outcomes
+    private final Cache<UUID, ExpenseIngestionStatusDto> statuses;
+    private final Clock clock;
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public ExpenseIngestionService(ExpenseService expenseService, IngestionStatusRepository ingestionStatusRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${expense.ingestion.mode:sync}") String mode,
+                                   @Value("${expense.ingestion.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${expense.ingestion.batch-size:500}") int batchSize,
+                                   @Value("${expense.ingestion.drain-timeout:30s}") Duration drainTimeout,
+                                   @Value("${expense.ingestion.status-retention:1h}") Duration statusRetention) {
+        this(expenseService, ingestionStatusRepository, meterRegistry, mode, queueCapacity, batchSize, drainTimeout,
+                statusRetention, Clock.systemUTC());
+    }
+
+    ExpenseIngestionService(ExpenseService expenseService, IngestionStatusRepository ingestionStatusRepository,
+                            MeterRegistry meterRegistry, String mode, int queueCapacity, int batchSize,
+                            Duration drainTimeout, Duration statusRetention, Clock clock) {
+        this.expenseService = expenseService;
+        this.ingestionStatusRepository = ingestionStatusRepository;
+        this.enabled = "async".equalsIgnoreCase(mode);
+        this.batchSize = Math.min(batchSize, ExpenseService.MAX_BATCH_SIZE);
+        this.drainTimeout = drainTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_STATUSES)
+                .expireAfterWrite(statusRetention)
+                .build();
+        this.statusRetention = statusRetention;
+        this.clock = clock;
+        Gauge.builder("expense.ingestion.queue.size", queue, BlockingQueue::size)
+                .description("Expenses waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether creates should be queued; false in sync mode and while shutting down.
+     */
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    public ExpenseIngestionStatusDto submit(ExpenseRequestDto request) {
+        expenseService.validateExpenseRequest(request);
+
+        UUID trackingId = UUID.randomUUID();
+        ExpenseIngestionStatusDto status = ExpenseIngestionStatusDto.queued(trackingId);
+        statuses.put(trackingId, status);
+        if (!queue.offer(new PendingExpense(trackingId, request))) {
+            statuses.invalidate(trackingId);
+            logger.warn("Ingestion queue is full, rejecting expense");
+            throw new TooManyRequestsException("Ingestion queue is full, retry later");
+        }
+        return status;
+    }
+
+    public ExpenseIngestionStatusDto getStatus(UUID trackingId) {
+        ExpenseIngestionStatusDto status = statuses.getIfPresent(trackingId);
+        if (status != null) {
+            return status;
+        }
+        // Written on another instance, or here before a restart
+        Instant cutoff = clock.instant().minus(statusRetention);
+        return ingestionStatusRepository.findById(trackingId)
+                .filter(stored -> !stored.getFinishedAt().isBefore(cutoff))
+                .map(ExpenseIngestionService::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Ingestion", "trackingId", trackingId));
+    }
+
+    @Scheduled(cron = "${expense.ingestion.purge-cron:0 20 * * * *}")
+    @Transactional
+    public int purgeStatuses() {
+        int purged = ingestionStatusRepository.deleteFinishedBefore(clock.instant().minus(statusRetention));
+        logger.debug("Purged {} expired ingestion statuses", purged);
+        return purged;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        accepting = true;
+        writer = new Thread(this::drain, "expense-ingestion-writer");
+        writer.start();
+        logger.info("Async expense ingestion started, queue capacity {}", queue.remainingCapacity());
+    }
+
+    @Override
+    public void stop() {
+        accepting = false;
+        running = false;
+        if (writer == null) {
+            return;
+        }
+
+        logger.info("Draining {} queued expenses", queue.size());
+        try {
+            writer.join(drainTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("Ingestion queue not drained within {}, {} expenses dropped", drainTimeout, queue.size());
+            writer.interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drain() {
+        List<PendingExpense> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingExpense first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingExpense> batch) {
+        List<ExpenseRequestDto> requests = batch.stream().map(PendingExpense::request).collect(Collectors.toList());
+        List<ExpenseIngestionStatusDto> outcomes = new ArrayList<>(batch.size());
+        try {
+            ExpenseBatchResultDto result = expenseService.createExpenses(requests);
+            for (ExpenseBatchItemResultDto item : result.getItems()) {
+                UUID trackingId = batch.get(item.getIndex()).trackingId();
+                outcomes.add(item.getError() == null
+                        ? ExpenseIngestionStatusDto.created(trackingId, item.getId())
+                        : ExpenseIngestionStatusDto.rejected(trackingId, item.getError()));
+            }
+            logger.debug("Wrote {} queued expenses", batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to write batch of {} queued expenses", batch.size(), e);
+            for (PendingExpense pending : batch) {
+                outcomes.add(ExpenseIngestionStatusDto.failed(pending.trackingId(), "Could not store expense"));
+            }
+        }
+        outcomes.forEach(outcome -> statuses.put(outcome.getTrackingId(), outcome));
+        store(outcomes);
+    }
+
+    private void store(List<ExpenseIngestionStatusDto> outcomes) {
+        Instant now = clock.instant();
+        try {
+            ingestionStatusRepository.saveAll(outcomes.stream()
+                    .map(outcome -> new IngestionStatus(outcome.getTrackingId(), outcome.getState(), outcome.getId(),
+                            truncate(outcome.getError()), now))
+                    .toList());
+        } catch (RuntimeException e) {
+            // This instance still answers for them until they expire
+            logger.warn("Failed to store {} ingestion statuses: {}", outcomes.size(), e.getMessage());
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > IngestionStatus.MAX_ERROR_LENGTH
+                ? error.substring(0, IngestionStatus.MAX_ERROR_LENGTH)
+                : error;
+    }
+
+    private static ExpenseIngestionStatusDto toDto(IngestionStatus stored) {
+        ExpenseIngestionStatusDto status = new ExpenseIngestionStatusDto();
+        status.setTrackingId(stored.getTrackingId());
+        status.setState(stored.getState());
+        status.setId(stored.getExpenseId());
+        status.setError(stored.getError());
+        return status;
+    }
+
+    private record PendingExpense(UUID trackingId, ExpenseRequestDto request) {
+    }
+}
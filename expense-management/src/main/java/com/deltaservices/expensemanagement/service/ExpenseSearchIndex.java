@@ -0,0 +1,321 @@
+package com.deltaservices.expensemanagement.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index from description terms to expense ids. Every term keeps
+ * its ids in a sorted array, so a query only walks the postings of its rarest term
+ * and checks the other terms against the candidate's own term list. Matches are
+ * ranked with BM25, which favours rare terms and short descriptions.
+ * <p>
+ * Not thread safe; {@link ExpenseSearchService} guards it with a read/write lock.
+ */
+class ExpenseSearchIndex {
+
+    static final int MAX_PREFIX_EXPANSIONS = 1024;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char PREFIX_WILDCARD = '*';
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::id);
+
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * Indexes an expense. Adding an id that is already indexed is a no-op.
+     */
+    void add(long id, String description, LocalDate date, String category) {
+        if (documents.containsKey(id)) {
+            return;
+        }
+
+        List<String> tokens = tokenize(description);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+        String[] terms = new String[frequencies.size()];
+        short[] termFrequencies = new short[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            String term = internTerm(entry.getKey());
+            postings.get(term).add(id);
+            terms[i] = term;
+            termFrequencies[i] = (short) Math.min(entry.getValue(), Short.MAX_VALUE);
+            i++;
+        }
+        documents.put(id, new Document(terms, termFrequencies, tokens.size(), date, category));
+        totalLength += tokens.size();
+    }
+
+    void remove(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+
+        for (String term : document.terms()) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length();
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * Finds the expenses whose descriptions contain every query term, best match
+     * first. A term ending in {@code *} matches any term starting with it.
+     *
+     * @param from     earliest date to include, or {@code null}
+     * @param to       latest date to include, or {@code null}
+     * @param category category to restrict to, or {@code null}
+     * @param limit    maximum number of hits to return
+     */
+    SearchResult search(String query, LocalDate from, LocalDate to, String category, int limit) {
+        List<QueryTerm> queryTerms = parse(query);
+        if (queryTerms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        List<List<Map.Entry<String, Postings>>> expansions = new ArrayList<>(queryTerms.size());
+        Map<String, Double> idfs = new HashMap<>();
+        int driver = 0;
+        long driverSize = Long.MAX_VALUE;
+        for (QueryTerm queryTerm : queryTerms) {
+            List<Map.Entry<String, Postings>> matches = expand(queryTerm);
+            if (matches.isEmpty()) {
+                return new SearchResult(0, List.of());
+            }
+            // A truncated prefix expansion would miss matches, so it only drives when nothing else can
+            long matchSize = matches.size() == MAX_PREFIX_EXPANSIONS ? Long.MAX_VALUE - 1
+                    : matches.stream().mapToLong(entry -> entry.getValue().size()).sum();
+            if (matchSize < driverSize) {
+                driver = expansions.size();
+                driverSize = matchSize;
+            }
+            matches.forEach(entry -> idfs.put(entry.getKey(), idf(entry.getValue().size())));
+            expansions.add(matches);
+        }
+
+        double averageLength = documents.isEmpty() ? 1 : (double) totalLength / documents.size();
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING);
+        int total = 0;
+        List<Map.Entry<String, Postings>> driverTerms = expansions.get(driver);
+        Set<Long> seen = driverTerms.size() > 1 ? new HashSet<>() : null;
+        for (Map.Entry<String, Postings> driverTerm : driverTerms) {
+            Postings driverPostings = driverTerm.getValue();
+            for (int i = 0; i < driverPostings.size(); i++) {
+                long id = driverPostings.get(i);
+                if (seen != null && !seen.add(id)) {
+                    continue;
+                }
+                Document document = documents.get(id);
+                if (!document.matches(from, to, category)) {
+                    continue;
+                }
+                double score = score(document, queryTerms, idfs, averageLength);
+                if (Double.isNaN(score)) {
+                    continue;
+                }
+
+                total++;
+                Hit hit = new Hit(id, score);
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (limit > 0 && RANKING.compare(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(RANKING.reversed());
+        return new SearchResult(total, hits);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Splits a query into terms the same way descriptions are tokenized. A trailing
+     * {@code *} turns the last term of its word into a prefix term.
+     */
+    static List<QueryTerm> parse(String query) {
+        Set<QueryTerm> terms = new LinkedHashSet<>();
+        if (query == null) {
+            return new ArrayList<>(terms);
+        }
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = !word.isEmpty() && word.charAt(word.length() - 1) == PREFIX_WILDCARD;
+            List<String> tokens = tokenize(word);
+            for (int i = 0; i < tokens.size(); i++) {
+                terms.add(new QueryTerm(tokens.get(i), prefix && i == tokens.size() - 1));
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private List<Map.Entry<String, Postings>> expand(QueryTerm queryTerm) {
+        if (!queryTerm.prefix()) {
+            Postings exact = postings.get(queryTerm.text());
+            return exact == null ? List.of() : List.of(Map.entry(queryTerm.text(), exact));
+        }
+
+        List<Map.Entry<String, Postings>> matches = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : postings.tailMap(queryTerm.text(), true).entrySet()) {
+            if (!entry.getKey().startsWith(queryTerm.text()) || matches.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    /**
+     * Sums the best BM25 contribution of each query term, or returns NaN when the
+     * document lacks one of them.
+     */
+    private double score(Document document, List<QueryTerm> queryTerms, Map<String, Double> idfs, double averageLength) {
+        double lengthNorm = K1 * (1 - B + B * document.length() / averageLength);
+        double score = 0;
+        for (QueryTerm queryTerm : queryTerms) {
+            double best = Double.NaN;
+            String[] terms = document.terms();
+            for (int i = 0; i < terms.length; i++) {
+                if (queryTerm.matches(terms[i])) {
+                    int tf = document.termFrequencies()[i];
+                    Double idf = idfs.get(terms[i]);
+                    if (idf == null) {
+                        // Beyond a truncated prefix expansion
+                        idf = idf(postings.get(terms[i]).size());
+                    }
+                    double termScore = idf * tf * (K1 + 1) / (tf + lengthNorm);
+                    if (Double.isNaN(best) || termScore > best) {
+                        best = termScore;
+                    }
+                }
+            }
+            if (Double.isNaN(best)) {
+                return Double.NaN;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    /**
+     * Returns the indexed instance of the term, adding empty postings for a new one,
+     * so that all documents share a single copy of each term string.
+     */
+    private String internTerm(String term) {
+        String existing = postings.ceilingKey(term);
+        if (term.equals(existing)) {
+            return existing;
+        }
+        postings.put(term, new Postings());
+        return term;
+    }
+
+    record QueryTerm(String text, boolean prefix) {
+
+        boolean matches(String term) {
+            return prefix ? term.startsWith(text) : term.equals(text);
+        }
+    }
+
+    record Hit(long id, double score) {
+    }
+
+    record SearchResult(int total, List<Hit> hits) {
+    }
+
+    private record Document(String[] terms, short[] termFrequencies, int length, LocalDate date, String category) {
+
+        boolean matches(LocalDate from, LocalDate to, String category) {
+            return (from == null || !date.isBefore(from))
+                    && (to == null || !date.isAfter(to))
+                    && (category == null || category.equals(this.category));
+        }
+    }
+
+    /**
+     * Ids of the documents containing a term, kept sorted. Ids mostly arrive in
+     * ascending order, which makes adding one an append.
+     */
+    static final class Postings {
+
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int index = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -(index + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
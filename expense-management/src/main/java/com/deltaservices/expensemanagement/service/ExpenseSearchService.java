@@ -0,0 +1,254 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.exception.ServiceUnavailableException;
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.ExpenseSearchResultDto;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.service.ExpenseSearchIndex.Hit;
+import com.deltaservices.expensemanagement.service.ExpenseSearchIndex.SearchResult;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over expense descriptions. The index lives in memory: it is built
+ * from the expenses table once the application is ready and then tails the shared
+ * change log, reading every {@code expense.search.poll-interval} what was written or
+ * deleted since the version it last applied, so writes made on other instances are
+ * found too. This instance's own commits are also applied as they happen. Hits are
+ * loaded back from the database, so an id the index still holds for a just-deleted
+ * expense is dropped rather than served.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseSearchService.class);
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final ExpenseRepository expenseRepository;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final ExpenseService expenseService;
+    private final ExpenseChangeService expenseChangeService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExpenseMetrics expenseMetrics;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Replaced by a rebuild; guarded by lock
+    private ExpenseSearchIndex index = new ExpenseSearchIndex();
+    private volatile boolean ready;
+    // Only read and written while holding this service's monitor
+    private long appliedVersion = -1;
+
+    @Autowired
+    public ExpenseSearchService(ExpenseRepository expenseRepository, ArchivedExpenseRepository archivedExpenseRepository,
+                                ExpenseService expenseService, ExpenseChangeService expenseChangeService,
+                                PlatformTransactionManager transactionManager, ExpenseMetrics expenseMetrics,
+                                MeterRegistry meterRegistry) {
+        this.expenseRepository = expenseRepository;
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.expenseService = expenseService;
+        this.expenseChangeService = expenseChangeService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expenseMetrics = expenseMetrics;
+
+        Gauge.builder("expense.search.index.documents", this, service -> service.read(ExpenseSearchIndex::size))
+                .description("Expenses held in the search index")
+                .register(meterRegistry);
+        Gauge.builder("expense.search.index.terms", this, service -> service.read(ExpenseSearchIndex::termCount))
+                .description("Distinct terms held in the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds a new index from both expense tables and swaps it in. The current index
+     * keeps answering meanwhile. The version is read before the rows, so the changes
+     * the next poll applies on top cover everything committed while they were read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        logger.info("Building expense search index");
+        long version = expenseChangeService.getVersion().number();
+        ExpenseSearchIndex built = new ExpenseSearchIndex();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> archived = archivedExpenseRepository.streamSearchFields();
+                 Stream<Object[]> hot = expenseRepository.streamSearchFields()) {
+                Stream.concat(archived, hot).forEach(row ->
+                        built.add((Long) row[0], (String) row[1], (LocalDate) row[2], (String) row[3]));
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            index = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        appliedVersion = version;
+        ready = true;
+        logger.info("Expense search index built with {} expenses and {} terms in {} ms",
+                built.size(), built.termCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Applies the changes committed on any instance since the last poll, a page at a
+     * time up to the current version, so a bulk write is followed however large it is.
+     * Only when the changes were purged is the index rebuilt.
+     */
+    @Scheduled(fixedDelayString = "${expense.search.poll-interval:1s}")
+    public synchronized void pollChanges() {
+        if (!ready) {
+            return;
+        }
+        try {
+            long current = expenseChangeService.getVersion().number();
+            while (appliedVersion < current) {
+                ExpenseChangesDto changes = expenseChangeService.getChangePage(appliedVersion);
+                lock.writeLock().lock();
+                try {
+                    for (ExpenseResponseDto expense : changes.getUpserted()) {
+                        index.remove(expense.getId());
+                        index.add(expense.getId(), expense.getDescription(), expense.getDate(), expense.getCategory());
+                    }
+                    changes.getDeleted().forEach(index::remove);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                appliedVersion = changes.getVersion();
+            }
+        } catch (GoneException e) {
+            logger.info("Changes since version {} were purged, rebuilding the search index", appliedVersion);
+            rebuild();
+        } catch (RuntimeException e) {
+            // Retried from the same version on the next poll
+            logger.warn("Failed to read expense changes since version {}: {}", appliedVersion, e.getMessage());
+        }
+    }
+
+    // A local commit is searchable at once; the next poll applies it again, which changes nothing
+    @TransactionalEventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        addAll(event.getExpenses());
+    }
+
+    @TransactionalEventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.getExpenses().forEach(expense -> index.remove(expense.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        Expense after = event.getAfter();
+        lock.writeLock().lock();
+        try {
+            index.remove(after.getId());
+            index.add(after.getId(), after.getDescription(), after.getDate(), after.getCategory());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the expenses whose descriptions contain every word of the query, best
+     * match first. A word ending in {@code *} matches by prefix. Only the date range
+     * and category of the filter are applied.
+     */
+    public ExpenseSearchResultDto search(String query, ExpenseFilter filter, int limit) {
+        validateSearch(query, filter, limit);
+        if (!ready) {
+            throw new ServiceUnavailableException("Search index is still being built");
+        }
+
+        SearchResult result = read(target ->
+                target.search(query, filter.getFrom(), filter.getTo(), filter.getCategory(), limit));
+        logger.debug("Search for '{}' matched {} expenses", query, result.total());
+
+        List<Long> ids = result.hits().stream().map(Hit::id).toList();
+        Map<Long, Expense> expenses = expenseService.findAllById(ids).stream()
+                .collect(Collectors.toMap(Expense::getId, Function.identity()));
+
+        ExpenseSearchResultDto dto = new ExpenseSearchResultDto();
+        dto.setTotal(result.total());
+        dto.setItems(ids.stream()
+                .map(expenses::get)
+                .filter(expense -> expense != null)
+                .map(expenseService::convertToResponseDto)
+                .collect(Collectors.toList()));
+        expenseMetrics.rowsReturned("search", dto.getItems().size());
+        return dto;
+    }
+
+    private void addAll(List<Expense> expenses) {
+        lock.writeLock().lock();
+        try {
+            for (Expense expense : expenses) {
+                index.add(expense.getId(), expense.getDescription(), expense.getDate(), expense.getCategory());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Function<ExpenseSearchIndex, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void validateSearch(String query, ExpenseFilter filter, int limit) {
+        if (!StringUtils.hasText(query) || ExpenseSearchIndex.parse(query).isEmpty()) {
+            logger.debug("Invalid search query: '{}'", query);
+            expenseMetrics.validationFailed("search_query");
+            throw new BadRequestException("Search query must contain at least one word");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            logger.debug("Invalid search limit: {}", limit);
+            expenseMetrics.validationFailed("search_limit");
+            throw new BadRequestException("Search limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            logger.debug("Invalid date range: {} - {}", filter.getFrom(), filter.getTo());
+            expenseMetrics.validationFailed("date_range");
+            throw new BadRequestException("Start date must not be after end date");
+        }
+    }
+}
@@ -1,40 +1,176 @@
 package com.deltaservices.expensemanagement.service;
 
+import com.deltaservices.expensemanagement.config.CacheConfig;
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.ConflictException;
+import com.deltaservices.expensemanagement.exception.PreconditionFailedException;
 import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.ArchivedExpense;
 import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseCursor;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpensePageDto;
 import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
 import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
 import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseSpecifications;
 import com.deltaservices.expensemanagement.exception.BadRequestException;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Reads and writes expenses. Expenses older than the archive horizon live in a
+ * separate table (see {@link ExpenseArchiveService}); reads look there only when
+ * their date range reaches past the archive boundary, so queries for recent expenses
+ * cost the same however long the history grows.
+ */
 @Service
+@Timed(value = "expense.service", histogram = true)
 public class ExpenseService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExpenseService.class);
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final Sort PAGE_ORDER = Sort.by(Sort.Direction.DESC, "date").and(Sort.by(Sort.Direction.DESC, "id"));
+    private static final Comparator<Expense> PAGE_COMPARATOR =
+            Comparator.comparing(Expense::getDate).thenComparing(Expense::getId).reversed();
+    public static final int MAX_BATCH_SIZE = 10_000;
+    // Each chunk is committed on its own; a multiple of hibernate.jdbc.batch_size
+    static final int BATCH_CHUNK_SIZE = 500;
+    public static final int MAX_DELETE_IDS = 100_000;
+    // Bounds the IN list of each bulk delete and the rows locked per transaction
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final Sort ID_ORDER = Sort.by(Sort.Direction.ASC, "id");
+    // Width of the description and category name columns
+    static final int MAX_TEXT_LENGTH = 255;
+
     private final ExpenseRepository expenseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpenseMetrics expenseMetrics;
+    private final CategoryRegistry categoryRegistry;
+    private final FxRateService fxRateService;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final ExpenseArchiveService expenseArchiveService;
 
     @Autowired
-    public ExpenseService(ExpenseRepository expenseRepository) {
+    public ExpenseService(ExpenseRepository expenseRepository, PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher, ExpenseMetrics expenseMetrics,
+                          CategoryRegistry categoryRegistry, FxRateService fxRateService,
+                          ArchivedExpenseRepository archivedExpenseRepository,
+                          ExpenseArchiveService expenseArchiveService) {
         this.expenseRepository = expenseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.expenseMetrics = expenseMetrics;
+        this.categoryRegistry = categoryRegistry;
+        this.fxRateService = fxRateService;
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.expenseArchiveService = expenseArchiveService;
     }
 
+    /**
+     * The expense, cached by id. {@link ExpenseCacheInvalidator} evicts the entry once a
+     * write of it commits here and, through the change log, within
+     * {@code expense.cache.poll-interval} of a write on another instance.
+     */
+    @Cacheable(cacheNames = CacheConfig.EXPENSES, key = "#id")
     @Transactional(readOnly = true)
-    public List<ExpenseResponseDto> getAllExpenses() {
-        logger.info("Fetching all expenses");
-        return expenseRepository.findAll().stream()
+    public ExpenseResponseDto getExpense(Long id) {
+        validateId(id);
+
+        logger.debug("Fetching expense with id: {}", id);
+        return expenseRepository.findById(id)
+                .or(() -> findArchived(id))
                 .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+                .orElseThrow(() -> {
+                    logger.warn("Expense with id: {} not found", id);
+                    return new ResourceNotFoundException("Expense", "id", id);
+                });
+    }
+
+    /**
+     * One page of the expenses matching the filter, newest first.
+     *
+     * @param version the table version read before this call; only part of the cache
+     *                key, so a page cached before a later commit is never served for it
+     */
+    @Cacheable(cacheNames = CacheConfig.EXPENSE_PAGES, key = "{#version, #filter, #cursor, #size}")
+    @Transactional(readOnly = true)
+    public ExpensePageDto getExpenses(ExpenseFilter filter, String cursor, int size, long version) {
+        validateFilter(filter);
+        validatePageSize(size);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching expenses page with filter: {}, cursor: {}, size: {}", filter, cursor, size);
+        }
+        ExpenseCursor after = StringUtils.hasText(cursor) ? ExpenseCursor.decode(cursor) : null;
+
+        // One extra row tells whether another page exists without issuing a count query
+        List<Expense> expenses = expenseRepository.findBy(pageSpecification(filter, after),
+                query -> query.sortBy(PAGE_ORDER).limit(size + 1).all());
+
+        // Read after the hot rows, see ExpenseArchiveService#archive. Archived expenses
+        // all sort after a full page of hot rows dated on or after the boundary.
+        LocalDate archivedBefore = expenseArchiveService.getArchivedBefore();
+        if (archivedBefore != null && (filter.getFrom() == null || filter.getFrom().isBefore(archivedBefore))
+                && (expenses.size() <= size || expenses.get(size).getDate().isBefore(archivedBefore))) {
+            logger.debug("Expenses page reaches the archive before {}", archivedBefore);
+            List<Expense> merged = new ArrayList<>(expenses);
+            archivedExpenseRepository.findBy(this.<ArchivedExpense>pageSpecification(filter, after),
+                            query -> query.sortBy(PAGE_ORDER).limit(size + 1).all())
+                    .forEach(archived -> merged.add(archived.toExpense()));
+            merged.sort(PAGE_COMPARATOR);
+            expenses = merged.subList(0, Math.min(merged.size(), size + 1));
+        }
+
+        ExpensePageDto page = new ExpensePageDto();
+        if (expenses.size() > size) {
+            expenses = expenses.subList(0, size);
+            page.setNextCursor(ExpenseCursor.of(expenses.get(size - 1)).encode());
+        }
+        page.setItems(expenses.stream()
+                .map(this::convertToResponseDto)
+                .collect(Collectors.toList()));
+        expenseMetrics.rowsReturned("page", expenses.size());
+        return page;
     }
 
     @Transactional
@@ -42,10 +178,14 @@ public class ExpenseService {
         validateExpenseRequest(expenseRequestDto);
 
         try {
-            logger.info("Creating new expense: {}", expenseRequestDto);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Creating new expense: {}", expenseRequestDto);
+            }
             Expense expense = convertToEntity(expenseRequestDto);
+            categoryRegistry.resolveId(expense.getCategory());
             Expense savedExpense = expenseRepository.save(expense);
-            logger.info("Successfully created expense with id: {}", savedExpense.getId());
+            eventPublisher.publishEvent(new ExpensesCreatedEvent(List.of(savedExpense)));
+            logger.debug("Successfully created expense with id: {}", savedExpense.getId());
 
             return convertToResponseDto(savedExpense);
         } catch (DataIntegrityViolationException e) {
@@ -57,90 +197,534 @@ public class ExpenseService {
         }
     }
 
+    /**
+     * Validates every request and stores the valid ones in chunked transactions.
+     * A rejected item never blocks the others; the result reports the outcome of
+     * each request by its index in the input.
+     */
+    public ExpenseBatchResultDto createExpenses(List<ExpenseRequestDto> requests) {
+        validateBatch(requests);
+
+        logger.debug("Creating batch of {} expenses", requests.size());
+        List<ExpenseBatchItemResultDto> results = new ArrayList<>(requests.size());
+        List<Integer> indexes = new ArrayList<>(BATCH_CHUNK_SIZE);
+        List<Expense> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validateExpenseRequest(requests.get(i));
+            } catch (BadRequestException e) {
+                results.add(ExpenseBatchItemResultDto.rejected(i, e.getMessage()));
+                continue;
+            }
+
+            indexes.add(i);
+            chunk.add(convertToEntity(requests.get(i)));
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                saveChunk(indexes, chunk, results);
+                indexes.clear();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(indexes, chunk, results);
+        }
+
+        results.sort(Comparator.comparingInt(ExpenseBatchItemResultDto::getIndex));
+        ExpenseBatchResultDto batchResult = new ExpenseBatchResultDto();
+        batchResult.setItems(results);
+        batchResult.setCreated((int) results.stream().filter(result -> result.getError() == null).count());
+        batchResult.setRejected(results.size() - batchResult.getCreated());
+        logger.info("Batch finished: {} created, {} rejected", batchResult.getCreated(), batchResult.getRejected());
+        return batchResult;
+    }
+
+    private void saveChunk(List<Integer> indexes, List<Expense> chunk, List<ExpenseBatchItemResultDto> results) {
+        try {
+            List<Expense> savedExpenses = transactionTemplate.execute(status -> {
+                chunk.stream().map(Expense::getCategory).distinct().forEach(categoryRegistry::resolveId);
+                List<Expense> saved = expenseRepository.saveAll(chunk);
+                eventPublisher.publishEvent(new ExpensesCreatedEvent(List.copyOf(saved)));
+                return saved;
+            });
+            for (int i = 0; i < indexes.size(); i++) {
+                results.add(ExpenseBatchItemResultDto.created(indexes.get(i), savedExpenses.get(i).getId()));
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Failed to create batch chunk of {} expenses due to data integrity violation", chunk.size(), e);
+            for (Integer index : indexes) {
+                results.add(ExpenseBatchItemResultDto.rejected(index, "Could not create expense due to data constraint violation"));
+            }
+        } catch (BadRequestException e) {
+            // A new category of the chunk could not be created
+            logger.debug("Rejected batch chunk of {} expenses: {}", chunk.size(), e.getMessage());
+            for (Integer index : indexes) {
+                results.add(ExpenseBatchItemResultDto.rejected(index, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Replaces every field of an expense.
+     *
+     * @param expectedVersion if not null, the version the client last read; the update
+     *                        is refused when the expense has changed since
+     */
+    @Transactional
+    public ExpenseResponseDto updateExpense(Long id, ExpenseRequestDto expenseRequestDto, Long expectedVersion) {
+        validateId(id);
+        validateExpenseRequest(expenseRequestDto);
+        return update(id, expectedVersion, current -> expenseRequestDto);
+    }
+
+    /**
+     * Changes the fields present in {@code patch} and keeps the others. The result must
+     * pass the same validation as a full update.
+     */
+    @Transactional
+    public ExpenseResponseDto patchExpense(Long id, ExpenseRequestDto patch, Long expectedVersion) {
+        validateId(id);
+        if (patch == null) {
+            logger.debug("Expense patch is null");
+            expenseMetrics.validationFailed("request_null");
+            throw new BadRequestException("Expense data cannot be null");
+        }
+        return update(id, expectedVersion, current -> {
+            ExpenseRequestDto merged = new ExpenseRequestDto();
+            merged.setDescription(patch.getDescription() != null ? patch.getDescription() : current.getDescription());
+            merged.setAmount(patch.getAmount() != null ? patch.getAmount() : current.getAmount());
+            merged.setCurrency(patch.getCurrency() != null
+                    ? patch.getCurrency()
+                    : current.getCurrency().getCurrencyCode());
+            merged.setDate(patch.getDate() != null ? patch.getDate() : current.getDate());
+            merged.setCategory(patch.getCategory() != null ? patch.getCategory() : current.getCategory());
+            validateExpenseRequest(merged);
+            return merged;
+        });
+    }
+
+    /**
+     * Reads the expense without locking it and writes the changed columns with a
+     * version check, so a concurrent update between the two fails instead of being
+     * overwritten.
+     */
+    private ExpenseResponseDto update(Long id, Long expectedVersion, Function<Expense, ExpenseRequestDto> requestFor) {
+        Optional<Expense> hot = expenseRepository.findById(id);
+        Optional<ArchivedExpense> archived = hot.isPresent() || !expenseArchiveService.mayContain(null)
+                ? Optional.empty()
+                : archivedExpenseRepository.findById(id);
+        if (hot.isEmpty() && archived.isEmpty()) {
+            logger.warn("Failed to update expense with id: {}. Expense not found", id);
+            throw new ResourceNotFoundException("Expense", "id", id);
+        }
+
+        Expense before = hot.map(ExpenseService::copyOf).orElseGet(() -> archived.get().toExpense());
+        if (expectedVersion != null && expectedVersion != before.getVersion()) {
+            logger.debug("Expense {} is at version {}, not {}", id, before.getVersion(), expectedVersion);
+            throw new PreconditionFailedException("Expense was changed since version " + expectedVersion
+                    + ", it is now at version " + before.getVersion());
+        }
+        Expense changed = convertToEntity(requestFor.apply(before));
+        if (sameFields(before, changed)) {
+            logger.debug("Update leaves expense {} unchanged", id);
+            return convertToResponseDto(before);
+        }
+
+        try {
+            logger.debug("Updating expense with id: {}", id);
+            categoryRegistry.resolveId(changed.getCategory());
+            Expense after;
+            if (hot.isPresent()) {
+                after = save(hot.get(), changed);
+            } else if (expenseArchiveService.mayContain(changed.getDate())) {
+                ArchivedExpense expense = archived.get();
+                expense.updateFrom(changed);
+                after = archivedExpenseRepository.saveAndFlush(expense).toExpense();
+            } else {
+                // Archived expenses are all dated before the boundary
+                if (!archivedExpenseRepository.restore(id, before.getVersion())) {
+                    throw new OptimisticLockingFailureException("Archived expense " + id + " changed");
+                }
+                after = save(expenseRepository.findById(id).orElseThrow(), changed);
+            }
+            eventPublisher.publishEvent(new ExpenseUpdatedEvent(before, after));
+            logger.debug("Successfully updated expense with id: {} to version {}", id, after.getVersion());
+            return convertToResponseDto(after);
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Expense {} was changed concurrently, rejecting update", id);
+            throw new ConflictException("Expense was changed by another request, reload it and retry");
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Failed to update expense due to data integrity violation", e);
+            throw new BadRequestException("Could not update expense due to data constraint violation");
+        }
+    }
+
+    private Expense save(Expense expense, Expense changed) {
+        expense.setDescription(changed.getDescription());
+        expense.setAmount(changed.getAmount());
+        expense.setDate(changed.getDate());
+        expense.setCategory(changed.getCategory());
+        return expenseRepository.saveAndFlush(expense);
+    }
+
     @Transactional
     public void deleteExpense(Long id) {
         validateId(id);
 
-        logger.info("Deleting expense with id: {}", id);
+        logger.debug("Deleting expense with id: {}", id);
 
-        if (!expenseRepository.existsById(id)) {
+        Optional<Expense> hot = expenseRepository.findById(id);
+        Optional<ArchivedExpense> archived = hot.isPresent() || !expenseArchiveService.mayContain(null)
+                ? Optional.empty()
+                : archivedExpenseRepository.findById(id);
+        if (hot.isEmpty() && archived.isEmpty()) {
             logger.warn("Failed to delete expense with id: {}. Expense not found", id);
             throw new ResourceNotFoundException("Expense", "id", id);
         }
 
         try {
-            expenseRepository.deleteById(id);
-            logger.info("Successfully deleted expense with id: {}", id);
+            Expense expense;
+            if (hot.isPresent()) {
+                expense = hot.get();
+                expenseRepository.delete(expense);
+            } else {
+                expense = archived.get().toExpense();
+                archivedExpenseRepository.delete(archived.get());
+            }
+            eventPublisher.publishEvent(new ExpensesDeletedEvent(List.of(expense)));
+            logger.debug("Successfully deleted expense with id: {}", id);
         } catch (Exception e) {
             logger.error("Failed to delete expense with id: {}", id, e);
             throw e;
         }
     }
 
+    /**
+     * Deletes the expenses selected by id or by filter with set based deletes, one
+     * transaction per chunk. Each chunk publishes the rows it removed, so summaries
+     * and caches stay consistent even if a later chunk fails.
+     */
+    public ExpenseBulkDeleteResultDto deleteExpenses(ExpenseBulkDeleteRequestDto request) {
+        validateBulkDelete(request);
+
+        int deleted = 0;
+        if (request.getIds() != null) {
+            List<Long> ids = request.getIds().stream().distinct().collect(Collectors.toList());
+            logger.debug("Deleting {} expenses by id", ids.size());
+            for (int start = 0; start < ids.size(); start += DELETE_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(start, Math.min(start + DELETE_CHUNK_SIZE, ids.size()));
+                deleted += transactionTemplate.execute(status -> deleteChunk(chunk));
+            }
+        } else {
+            ExpenseFilter filter = new ExpenseFilter();
+            filter.setFrom(request.getFrom());
+            filter.setTo(request.getTo());
+            filter.setCategory(request.getCategory());
+            validateFilter(filter);
+
+            logger.debug("Deleting expenses matching filter: {}", filter);
+            Specification<Expense> specification = ExpenseSpecifications.matching(filter);
+            deleted += deleteUntilNoneLeft(() -> expenseRepository.findBy(specification,
+                            query -> query.sortBy(ID_ORDER).limit(DELETE_CHUNK_SIZE).all())
+                    .stream()
+                    .map(Expense::getId)
+                    .collect(Collectors.toList()));
+            if (expenseArchiveService.mayContain(filter.getFrom())) {
+                Specification<ArchivedExpense> archivedSpecification = ExpenseSpecifications.matching(filter);
+                deleted += deleteUntilNoneLeft(() -> archivedExpenseRepository.findBy(archivedSpecification,
+                                query -> query.sortBy(ID_ORDER).limit(DELETE_CHUNK_SIZE).all())
+                        .stream()
+                        .map(ArchivedExpense::getId)
+                        .collect(Collectors.toList()));
+            }
+        }
+
+        logger.info("Bulk delete finished: {} expenses deleted", deleted);
+        return new ExpenseBulkDeleteResultDto(deleted);
+    }
+
+    private int deleteUntilNoneLeft(Supplier<List<Long>> nextChunk) {
+        int deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = transactionTemplate.execute(status -> deleteChunk(nextChunk.get()));
+            deleted += chunkDeleted;
+        } while (chunkDeleted > 0);
+        return deleted;
+    }
+
+    private int deleteChunk(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // The locked rows are exactly the rows the delete removes
+        List<Expense> expenses = new ArrayList<>(expenseRepository.findAllByIdForUpdate(ids));
+        int deleted = expenses.isEmpty()
+                ? 0
+                : expenseRepository.deleteAllByIds(expenses.stream().map(Expense::getId).collect(Collectors.toList()));
+
+        if (expenses.size() < ids.size() && expenseArchiveService.mayContain(null)) {
+            Set<Long> found = expenses.stream().map(Expense::getId).collect(Collectors.toSet());
+            List<Long> rest = ids.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+            List<ArchivedExpense> archived = archivedExpenseRepository.findAllByIdForUpdate(rest);
+            if (!archived.isEmpty()) {
+                deleted += archivedExpenseRepository.deleteAllByIds(
+                        archived.stream().map(ArchivedExpense::getId).collect(Collectors.toList()));
+                archived.forEach(expense -> expenses.add(expense.toExpense()));
+            }
+        }
+        if (expenses.isEmpty()) {
+            return 0;
+        }
+
+        eventPublisher.publishEvent(new ExpensesDeletedEvent(expenses));
+        return deleted;
+    }
+
+    /**
+     * Loads the given expenses from the hot table and, for those not found there,
+     * from the archive. The order of the result is unspecified.
+     */
+    List<Expense> findAllById(Collection<Long> ids) {
+        List<Expense> expenses = new ArrayList<>(expenseRepository.findAllById(ids));
+        if (expenses.size() < ids.size() && expenseArchiveService.mayContain(null)) {
+            Set<Long> found = new HashSet<>();
+            expenses.forEach(expense -> found.add(expense.getId()));
+            List<Long> rest = ids.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+            archivedExpenseRepository.findAllById(rest).forEach(archived -> expenses.add(archived.toExpense()));
+        }
+        return expenses;
+    }
+
+    private Optional<Expense> findArchived(Long id) {
+        if (!expenseArchiveService.mayContain(null)) {
+            return Optional.empty();
+        }
+        return archivedExpenseRepository.findById(id).map(ArchivedExpense::toExpense);
+    }
+
+    private <T> Specification<T> pageSpecification(ExpenseFilter filter, ExpenseCursor after) {
+        Specification<T> specification = ExpenseSpecifications.matching(filter);
+        return after != null ? specification.and(ExpenseSpecifications.after(after)) : specification;
+    }
+
     private void validateId(Long id) {
         if (id == null) {
-            logger.warn("Expense ID is null");
+            logger.debug("Expense ID is null");
+            expenseMetrics.validationFailed("id_null");
             throw new BadRequestException("Expense ID cannot be null");
         }
 
         if (id <= 0) {
-            logger.warn("Invalid expense ID: {}", id);
+            logger.debug("Invalid expense ID: {}", id);
+            expenseMetrics.validationFailed("id_not_positive");
             throw new BadRequestException("Expense ID must be a positive number");
         }
     }
 
-    private void validateExpenseRequest(ExpenseRequestDto request) {
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            logger.debug("Invalid page size: {}", size);
+            expenseMetrics.validationFailed("page_size");
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private void validateFilter(ExpenseFilter filter) {
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            logger.debug("Invalid date range: {} - {}", filter.getFrom(), filter.getTo());
+            expenseMetrics.validationFailed("date_range");
+            throw new BadRequestException("Start date must not be after end date");
+        }
+
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null
+                && filter.getMinAmount().compareTo(filter.getMaxAmount()) > 0) {
+            logger.debug("Invalid amount range: {} - {}", filter.getMinAmount(), filter.getMaxAmount());
+            expenseMetrics.validationFailed("amount_range");
+            throw new BadRequestException("Minimum amount must not be greater than maximum amount");
+        }
+
+        if (filter.getCurrency() != null && !fxRateService.isSupported(filter.getCurrency())) {
+            logger.debug("Unsupported filter currency: {}", filter.getCurrency());
+            expenseMetrics.validationFailed("currency_unsupported");
+            throw new BadRequestException("Currency must be one of " + fxRateService.getCurrencies());
+        }
+    }
+
+    private void validateBatch(List<ExpenseRequestDto> requests) {
+        if (requests == null || requests.isEmpty()) {
+            logger.debug("Expense batch is empty");
+            expenseMetrics.validationFailed("batch_empty");
+            throw new BadRequestException("Expense batch cannot be empty");
+        }
+
+        if (requests.size() > MAX_BATCH_SIZE) {
+            logger.debug("Expense batch too large: {}", requests.size());
+            expenseMetrics.validationFailed("batch_too_large");
+            throw new BadRequestException("Expense batch cannot contain more than " + MAX_BATCH_SIZE + " expenses");
+        }
+    }
+
+    private void validateBulkDelete(ExpenseBulkDeleteRequestDto request) {
+        boolean hasFilter = request != null
+                && (request.getFrom() != null || request.getTo() != null || request.getCategory() != null);
+        if (request == null || (request.getIds() == null && !hasFilter)) {
+            logger.debug("Bulk delete without ids or filter");
+            expenseMetrics.validationFailed("delete_criteria_missing");
+            throw new BadRequestException("Either ids or a filter must be given");
+        }
+
+        if (request.getIds() != null && hasFilter) {
+            logger.debug("Bulk delete with both ids and filter");
+            expenseMetrics.validationFailed("delete_criteria_ambiguous");
+            throw new BadRequestException("Ids and a filter cannot be combined");
+        }
+
+        if (request.getIds() != null) {
+            if (request.getIds().isEmpty()) {
+                logger.debug("Bulk delete id list is empty");
+                expenseMetrics.validationFailed("delete_ids_empty");
+                throw new BadRequestException("Expense ids cannot be empty");
+            }
+
+            if (request.getIds().size() > MAX_DELETE_IDS) {
+                logger.debug("Bulk delete id list too large: {}", request.getIds().size());
+                expenseMetrics.validationFailed("delete_ids_too_many");
+                throw new BadRequestException("Cannot delete more than " + MAX_DELETE_IDS + " expenses by id");
+            }
+
+            request.getIds().forEach(this::validateId);
+        }
+
+        if (request.getCategory() != null && request.getCategory().trim().isEmpty()) {
+            logger.debug("Bulk delete category is empty string");
+            expenseMetrics.validationFailed("category_blank");
+            throw new BadRequestException("Expense category cannot be empty string");
+        }
+    }
+
+    public void validateExpenseRequest(ExpenseRequestDto request) {
         if (request == null) {
-            logger.warn("Expense data is null");
+            logger.debug("Expense data is null");
+            expenseMetrics.validationFailed("request_null");
             throw new BadRequestException("Expense data cannot be null");
         }
 
         if (request.getDescription() == null || !StringUtils.hasText(request.getDescription())) {
-            logger.warn("Expense description is empty or null");
+            logger.debug("Expense description is empty or null");
+            expenseMetrics.validationFailed("description_empty");
             throw new BadRequestException("Expense description cannot be empty");
         }
 
         if (request.getAmount() == null) {
-            logger.warn("Expense amount is null");
+            logger.debug("Expense amount is null");
+            expenseMetrics.validationFailed("amount_null");
             throw new BadRequestException("Expense amount cannot be null");
         }
 
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            logger.warn("Invalid expense amount: {}", request.getAmount());
+        if (!request.getAmount().isPositive()) {
+            logger.debug("Invalid expense amount: {}", request.getAmount());
+            expenseMetrics.validationFailed("amount_not_positive");
             throw new BadRequestException("Expense amount must be greater than zero");
         }
 
+        if (request.getCurrency() != null) {
+            if (!fxRateService.isSupported(request.getCurrency())) {
+                logger.debug("Unsupported expense currency: {}", request.getCurrency());
+                expenseMetrics.validationFailed("currency_unsupported");
+                throw new BadRequestException("Expense currency must be one of " + fxRateService.getCurrencies());
+            }
+            try {
+                request.getAmount().withCurrency(currencyOf(request));
+            } catch (IllegalArgumentException e) {
+                logger.debug("Expense amount {} too precise for {}", request.getAmount(), request.getCurrency());
+                expenseMetrics.validationFailed("amount_precision");
+                throw new BadRequestException("Expense amount has more decimals than " + request.getCurrency() + " allows");
+            }
+        }
+
         if (request.getDate() == null) {
-            logger.warn("Expense date is null");
+            logger.debug("Expense date is null");
+            expenseMetrics.validationFailed("date_null");
             throw new BadRequestException("Expense date cannot be null");
         }
 
-        if (request.getCategory() != null && request.getCategory().trim().isEmpty()) {
-            logger.warn("Expense category is empty string");
+        // Checked here too, because batch items and queued requests skip bean validation
+        if (request.getCategory() == null) {
+            logger.debug("Expense category is null");
+            expenseMetrics.validationFailed("category_null");
+            throw new BadRequestException("Expense category cannot be null");
+        }
+
+        if (request.getCategory().trim().isEmpty()) {
+            logger.debug("Expense category is empty string");
+            expenseMetrics.validationFailed("category_blank");
             throw new BadRequestException("Expense category cannot be empty string");
         }
+
+        if (request.getDescription().length() > MAX_TEXT_LENGTH || request.getCategory().length() > MAX_TEXT_LENGTH) {
+            logger.debug("Expense description or category longer than {} characters", MAX_TEXT_LENGTH);
+            expenseMetrics.validationFailed("text_too_long");
+            throw new BadRequestException("Expense description and category cannot be longer than "
+                    + MAX_TEXT_LENGTH + " characters");
+        }
+
+        // Checked again when the category is created, together with the limit on how many there are
+        if (categoryRegistry.findId(request.getCategory()) == null && !CategoryRegistry.isValidName(request.getCategory())) {
+            logger.debug("Invalid new expense category: '{}'", request.getCategory());
+            expenseMetrics.validationFailed("category_invalid");
+            throw new BadRequestException("Expense category cannot contain control characters or surrounding spaces");
+        }
     }
 
-    private ExpenseResponseDto convertToResponseDto(Expense expense) {
+    ExpenseResponseDto convertToResponseDto(Expense expense) {
         ExpenseResponseDto responseDto = new ExpenseResponseDto();
         responseDto.setId(expense.getId());
         responseDto.setDescription(expense.getDescription());
         responseDto.setAmount(expense.getAmount());
+        responseDto.setCurrency(expense.getCurrency().getCurrencyCode());
         responseDto.setDate(expense.getDate());
         responseDto.setCategory(expense.getCategory());
+        responseDto.setVersion(expense.getVersion());
         return responseDto;
     }
 
-    private Expense convertToEntity(ExpenseRequestDto requestDto) {
+    Expense convertToEntity(ExpenseRequestDto requestDto) {
         Expense expense = new Expense();
         updateExpenseFields(expense, requestDto);
         return expense;
     }
 
+    private static Currency currencyOf(ExpenseRequestDto requestDto) {
+        return requestDto.getCurrency() == null
+                ? Money.DEFAULT_CURRENCY
+                : Currency.getInstance(requestDto.getCurrency().toUpperCase(Locale.ROOT));
+    }
+
+    private static Expense copyOf(Expense expense) {
+        Expense copy = new Expense();
+        copy.setId(expense.getId());
+        copy.setDescription(expense.getDescription());
+        copy.setAmount(expense.getAmount());
+        copy.setDate(expense.getDate());
+        copy.setCategory(expense.getCategory());
+        copy.setVersion(expense.getVersion());
+        return copy;
+    }
+
+    private static boolean sameFields(Expense expense, Expense other) {
+        return Objects.equals(expense.getDescription(), other.getDescription())
+                && expense.getAmountMinor() == other.getAmountMinor()
+                && Objects.equals(expense.getCurrency(), other.getCurrency())
+                && Objects.equals(expense.getDate(), other.getDate())
+                && Objects.equals(expense.getCategory(), other.getCategory());
+    }
+
     private void updateExpenseFields(Expense expense, ExpenseRequestDto requestDto) {
         expense.setDescription(requestDto.getDescription());
-        expense.setAmount(requestDto.getAmount());
+        expense.setAmount(requestDto.getAmount().withCurrency(currencyOf(requestDto)));
         expense.setDate(requestDto.getDate());
         expense.setCategory(requestDto.getCategory());
     }
-}
\ No newline at end of file
+}
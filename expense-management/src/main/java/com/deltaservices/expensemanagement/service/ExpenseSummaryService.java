@@ -0,0 +1,334 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.config.CacheConfig;
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseMonthSummary;
+import com.deltaservices.expensemanagement.model.ExpenseMonthSummaryId;
+import com.deltaservices.expensemanagement.model.ExpenseSummary;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryDto;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryGroupDto;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryId;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.SummaryGrouping;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseSummaryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the per (category, month, currency) and per (category, day, currency)
+ * rollups in the same transaction as the expense writes, so summary reads never cost
+ * one row per expense. The currency asked for is read from the monthly rollup, one row
+ * per category and month; the daily rows of other currencies are converted at the rate
+ * of their day.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class ExpenseSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseSummaryService.class);
+    static final String LOCK_NAME = "expense-summaries";
+    private static final YearMonth MIN_MONTH = YearMonth.of(1, 1);
+    private static final YearMonth MAX_MONTH = YearMonth.of(9999, 12);
+
+    private final ExpenseSummaryRepository expenseSummaryRepository;
+    private final ExpenseRepository expenseRepository;
+    private final FxRateService fxRateService;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final ExpenseChangeService expenseChangeService;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration lease;
+
+    @Autowired
+    public ExpenseSummaryService(ExpenseSummaryRepository expenseSummaryRepository, ExpenseRepository expenseRepository,
+                                 FxRateService fxRateService, ArchivedExpenseRepository archivedExpenseRepository,
+                                 ExpenseChangeService expenseChangeService, SchedulerLockService schedulerLockService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${expense.summary.lock-lease:1h}") Duration lease) {
+        this.expenseSummaryRepository = expenseSummaryRepository;
+        this.expenseRepository = expenseRepository;
+        this.fxRateService = fxRateService;
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.expenseChangeService = expenseChangeService;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lease = lease;
+    }
+
+    @EventListener
+    public void onExpensesCreated(ExpensesCreatedEvent event) {
+        applyDeltas(event.getExpenses(), 1);
+    }
+
+    @EventListener
+    public void onExpensesDeleted(ExpensesDeletedEvent event) {
+        applyDeltas(event.getExpenses(), -1);
+    }
+
+    @EventListener
+    public void onExpenseUpdated(ExpenseUpdatedEvent event) {
+        Expense before = event.getBefore();
+        Expense after = event.getAfter();
+        if (before.getAmountMinor() == after.getAmountMinor() && before.getCurrency().equals(after.getCurrency())
+                && before.getCategory().equals(after.getCategory())
+                && before.getDate().equals(after.getDate())) {
+            return;
+        }
+        applyDeltas(List.of(before), -1);
+        applyDeltas(List.of(after), 1);
+    }
+
+    /**
+     * Totals per group in the given currency.
+     *
+     * @param version      the table version read before this call
+     * @param fxGeneration the exchange rate generation read before this call; both are
+     *                     only part of the cache key, so a summary cached before a later
+     *                     commit or rate import is never served for it
+     */
+    @Cacheable(cacheNames = CacheConfig.EXPENSE_SUMMARIES,
+            key = "{#version, #fxGeneration, #grouping, #from, #to, #currencyCode}")
+    @Transactional(readOnly = true)
+    public ExpenseSummaryDto getSummary(SummaryGrouping grouping, YearMonth from, YearMonth to, String currencyCode,
+                                        long version, long fxGeneration) {
+        return summarize(grouping, from, to, fxRateService.resolveCurrency(currencyCode));
+    }
+
+    /**
+     * Total of one category in one month, in the given currency. Not cached, so inside a
+     * transaction it includes that transaction's own writes.
+     */
+    @Transactional(readOnly = true)
+    public Money getCategoryTotal(String category, YearMonth month, Currency currency) {
+        return summarize(SummaryGrouping.CATEGORY, month, month, currency).getGroups().stream()
+                .filter(group -> group.getCategory().equals(category))
+                .map(ExpenseSummaryGroupDto::getTotal)
+                .findFirst()
+                .orElse(Money.ofMinor(0, currency));
+    }
+
+    /**
+     * Stored total of one category on one day in one currency, in its minor units. Not
+     * cached, so inside a transaction it includes that transaction's own writes.
+     */
+    @Transactional(readOnly = true)
+    public long getDayTotal(String category, LocalDate date, Currency currency) {
+        return expenseSummaryRepository.findById(new ExpenseSummaryId(category, date, currency.getCurrencyCode()))
+                .map(ExpenseSummary::getTotalMinor)
+                .orElse(0L);
+    }
+
+    private ExpenseSummaryDto summarize(SummaryGrouping grouping, YearMonth from, YearMonth to, Currency currency) {
+        YearMonth fromMonth = from != null ? from : MIN_MONTH;
+        YearMonth toMonth = to != null ? to : MAX_MONTH;
+        if (fromMonth.isAfter(toMonth)) {
+            logger.warn("Invalid month range: {} - {}", from, to);
+            throw new BadRequestException("Start month must not be after end month");
+        }
+
+        logger.debug("Fetching expense summary in {} grouped by {}", currency, grouping);
+        LocalDate fromDate = fromMonth.atDay(1);
+        LocalDate toDate = toMonth.atEndOfMonth();
+
+        // Totals are summed as minor units; each group costs one accumulator, not one per row
+        Map<ExpenseSummaryGroupKey, long[]> groups = new TreeMap<>();
+        for (Object[] row : expenseSummaryRepository.sumByMonth(fromDate, toDate, currency.getCurrencyCode())) {
+            YearMonth month = YearMonth.of(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+            ExpenseSummaryGroupKey key = ExpenseSummaryGroupKey.of(grouping, (String) row[0], month);
+            add(groups, key, ((Number) row[3]).longValue(), ((Number) row[4]).longValue());
+        }
+
+        List<String> otherCurrencies = fxRateService.getCurrencies().stream()
+                .filter(other -> !other.equals(currency))
+                .map(Currency::getCurrencyCode)
+                .toList();
+        if (!otherCurrencies.isEmpty()) {
+            for (ExpenseSummary row : expenseSummaryRepository.findByDateRange(fromDate, toDate, otherCurrencies)) {
+                LocalDate date = row.getId().getDate();
+                Money converted = fxRateService.convert(
+                        Money.ofMinor(row.getTotalMinor(), Currency.getInstance(row.getId().getCurrency())), currency, date);
+                ExpenseSummaryGroupKey key = ExpenseSummaryGroupKey.of(grouping, row.getId().getCategory(), YearMonth.from(date));
+                add(groups, key, converted.getMinorUnits(), row.getCount());
+            }
+        }
+
+        long total = 0;
+        long count = 0;
+        List<ExpenseSummaryGroupDto> groupDtos = new ArrayList<>(groups.size());
+        for (Map.Entry<ExpenseSummaryGroupKey, long[]> group : groups.entrySet()) {
+            groupDtos.add(group.getKey().toDto(Money.ofMinor(group.getValue()[0], currency), group.getValue()[1]));
+            total = Math.addExact(total, group.getValue()[0]);
+            count += group.getValue()[1];
+        }
+        ExpenseSummaryDto summary = new ExpenseSummaryDto();
+        summary.setCurrency(currency.getCurrencyCode());
+        summary.setTotal(Money.ofMinor(total, currency));
+        summary.setCount(count);
+        summary.setGroups(groupDtos);
+        return summary;
+    }
+
+    /**
+     * Recomputes the rollup from the hot and archived expenses, compares it with the stored one
+     * and adds the difference to every group that drifted, unless another instance holds the
+     * lease. The comparison is read under the version lock, so no write commits halfway
+     * through it. The repair is added in a later transaction that takes a new version: a
+     * difference stays right however many writes commit in between, and taking group rows
+     * while holding the version lock would deadlock with writers, which take them first.
+     *
+     * @return the number of groups that had to be repaired
+     */
+    @Scheduled(cron = "${expense.summary.reconcile-cron:0 0 3 * * *}")
+    public int reconcile() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, lease)) {
+            logger.debug("Expense summaries are reconciled by another instance");
+            return 0;
+        }
+        try {
+            logger.info("Reconciling expense summaries");
+            Drift drift = transactionTemplate.execute(status -> {
+                expenseChangeService.lockVersion();
+                return findDrift();
+            });
+            if (drift != null && drift.size() > 0) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    drift.days().forEach((id, delta) -> expenseSummaryRepository.addToSummary(
+                            id.getCategory(), id.getDate(), id.getCurrency(), delta[0], delta[1]));
+                    drift.months().forEach((id, delta) -> expenseSummaryRepository.addToMonthSummary(
+                            id.getCategory(), id.getMonthStart(), id.getCurrency(), delta[0], delta[1]));
+                    expenseChangeService.bumpVersion();
+                });
+            }
+            int repaired = drift != null ? drift.size() : 0;
+            logger.info("Expense summary reconciliation finished, {} groups repaired", repaired);
+            return repaired;
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private Drift findDrift() {
+        List<Object[]> dailyTotals = new ArrayList<>(expenseRepository.sumByCategoryAndDate());
+        dailyTotals.addAll(archivedExpenseRepository.sumByCategoryAndDate());
+        // (total in minor units, count) the expenses add up to, less what is stored
+        Map<ExpenseSummaryId, long[]> days = new HashMap<>();
+        Map<ExpenseMonthSummaryId, long[]> months = new HashMap<>();
+        for (Object[] row : dailyTotals) {
+            String category = (String) row[0];
+            LocalDate date = (LocalDate) row[1];
+            String currency = ((Currency) row[2]).getCurrencyCode();
+            long totalMinor = ((Number) row[3]).longValue();
+            long count = ((Number) row[4]).longValue();
+            // A day that is being archived has rows in both tables
+            add(days, new ExpenseSummaryId(category, date, currency), totalMinor, count);
+            add(months, new ExpenseMonthSummaryId(category, date.withDayOfMonth(1), currency), totalMinor, count);
+        }
+        for (ExpenseSummary actual : expenseSummaryRepository.findAll()) {
+            add(days, actual.getId(), Math.negateExact(actual.getTotalMinor()), -actual.getCount());
+        }
+        for (ExpenseMonthSummary actual : expenseSummaryRepository.findAllMonths()) {
+            add(months, actual.getId(), Math.negateExact(actual.getTotalMinor()), -actual.getCount());
+        }
+
+        days.values().removeIf(delta -> delta[0] == 0 && delta[1] == 0);
+        months.values().removeIf(delta -> delta[0] == 0 && delta[1] == 0);
+        days.forEach((id, delta) -> logger.warn("Summary {} is off by {} / {}, repairing", id, delta[0], delta[1]));
+        months.forEach((id, delta) -> logger.warn("Summary {} is off by {} / {}, repairing", id, delta[0], delta[1]));
+        return new Drift(days, months);
+    }
+
+    private void applyDeltas(List<Expense> expenses, int sign) {
+        // (total in minor units, count) per group
+        Map<ExpenseSummaryId, long[]> days = new HashMap<>();
+        Map<ExpenseMonthSummaryId, long[]> months = new HashMap<>();
+        for (Expense expense : expenses) {
+            String currency = expense.getCurrency().getCurrencyCode();
+            add(days, new ExpenseSummaryId(expense.getCategory(), expense.getDate(), currency),
+                    expense.getAmountMinor(), 1);
+            add(months, new ExpenseMonthSummaryId(expense.getCategory(), expense.getDate().withDayOfMonth(1), currency),
+                    expense.getAmountMinor(), 1);
+        }
+
+        for (Map.Entry<ExpenseSummaryId, long[]> entry : days.entrySet()) {
+            ExpenseSummaryId id = entry.getKey();
+            long[] delta = entry.getValue();
+            expenseSummaryRepository.addToSummary(id.getCategory(), id.getDate(), id.getCurrency(),
+                    sign * delta[0], sign * delta[1]);
+        }
+        for (Map.Entry<ExpenseMonthSummaryId, long[]> entry : months.entrySet()) {
+            ExpenseMonthSummaryId id = entry.getKey();
+            long[] delta = entry.getValue();
+            expenseSummaryRepository.addToMonthSummary(id.getCategory(), id.getMonthStart(), id.getCurrency(),
+                    sign * delta[0], sign * delta[1]);
+        }
+    }
+
+    private static <K> void add(Map<K, long[]> groups, K key, long totalMinor, long count) {
+        long[] group = groups.computeIfAbsent(key, ignored -> new long[2]);
+        group[0] = Math.addExact(group[0], totalMinor);
+        group[1] += count;
+    }
+
+    // What the expenses add up to less what is stored, per daily and per monthly row
+    private record Drift(Map<ExpenseSummaryId, long[]> days, Map<ExpenseMonthSummaryId, long[]> months) {
+
+        int size() {
+            return days.size() + months.size();
+        }
+    }
+
+    private record ExpenseSummaryGroupKey(String category, YearMonth month) implements Comparable<ExpenseSummaryGroupKey> {
+
+        static ExpenseSummaryGroupKey of(SummaryGrouping grouping, String category, YearMonth month) {
+            return switch (grouping) {
+                case CATEGORY -> new ExpenseSummaryGroupKey(category, null);
+                case MONTH -> new ExpenseSummaryGroupKey(null, month);
+                case CATEGORY_MONTH -> new ExpenseSummaryGroupKey(category, month);
+            };
+        }
+
+        ExpenseSummaryGroupDto toDto(Money total, long count) {
+            ExpenseSummaryGroupDto group = new ExpenseSummaryGroupDto();
+            group.setCategory(category);
+            group.setMonth(month);
+            group.setTotal(total);
+            group.setCount(count);
+            return group;
+        }
+
+        @Override
+        public int compareTo(ExpenseSummaryGroupKey other) {
+            int byCategory = category == null ? 0 : category.compareTo(other.category);
+            if (byCategory != 0) {
+                return byCategory;
+            }
+            return month == null ? 0 : month.compareTo(other.month);
+        }
+    }
+}
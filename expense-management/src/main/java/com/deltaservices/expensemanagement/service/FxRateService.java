@@ -0,0 +1,324 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.FxRatesImportedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import com.deltaservices.expensemanagement.model.FxRate;
+import com.deltaservices.expensemanagement.model.FxRateDto;
+import com.deltaservices.expensemanagement.model.FxRateId;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ExpenseTableVersionRepository;
+import com.deltaservices.expensemanagement.repository.FxRateRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Converts amounts between the supported currencies with imported exchange rates.
+ * Every rate is also held in memory, in a date-sorted map per currency pair, so a
+ * conversion is a floor lookup and never a database round trip. A day without a
+ * published rate, such as a weekend, uses the latest earlier one. Pairs without a
+ * rate of their own are inverted or crossed through {@link Money#DEFAULT_CURRENCY}.
+ * <p>
+ * Each import raises a generation stored next to the expense table version. An
+ * instance that finds a newer generation there reloads its rates, so imports made on
+ * any instance reach all of them.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class FxRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+    private static final String CSV_HEADER_PREFIX = "date";
+
+    private final FxRateRepository fxRateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<Currency> currencies;
+    private final String ratesFile;
+    private final ExpenseTableVersionRepository expenseTableVersionRepository;
+    // Replaced as a whole on reload and never changed in place
+    private volatile Map<CurrencyPair, NavigableMap<LocalDate, BigDecimal>> rates = Map.of();
+    // Generation of the rates in memory; negative until they are first loaded
+    private volatile long generation = -1;
+
+    @Autowired
+    public FxRateService(FxRateRepository fxRateRepository,
+                         ExpenseTableVersionRepository expenseTableVersionRepository,
+                         PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                         @Value("${expense.currencies:EUR,USD,GBP}") List<String> currencies,
+                         @Value("${expense.fx.rates-file:}") String ratesFile) {
+        this.fxRateRepository = fxRateRepository;
+        this.expenseTableVersionRepository = expenseTableVersionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.currencies = currencies.stream()
+                .map(code -> Currency.getInstance(code.trim().toUpperCase(Locale.ROOT)))
+                .toList();
+        this.ratesFile = ratesFile;
+        if (!this.currencies.contains(Money.DEFAULT_CURRENCY)) {
+            throw new IllegalStateException("expense.currencies must include " + Money.DEFAULT_CURRENCY);
+        }
+        this.currencies.forEach(Money::fractionDigits);
+    }
+
+    @PostConstruct
+    void load() {
+        refresh();
+
+        if (StringUtils.hasText(ratesFile)) {
+            try (Reader reader = Files.newBufferedReader(Path.of(ratesFile))) {
+                int imported = store(parse(reader));
+                logger.info("Imported {} exchange rates from {}", imported, ratesFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read exchange rates from " + ratesFile, e);
+            }
+            refresh();
+        }
+    }
+
+    /**
+     * Reloads the rates when any instance imported since they were loaded, and then
+     * publishes a {@link FxRatesImportedEvent}.
+     */
+    @Scheduled(fixedDelayString = "${expense.fx.poll-interval:10s}")
+    public void refresh() {
+        Long stored = expenseTableVersionRepository.findFxGeneration(ExpenseTableVersion.ID);
+        if (stored == null) {
+            throw new IllegalStateException("Expense table version is missing");
+        }
+        if (stored > generation) {
+            reload(stored);
+        }
+    }
+
+    /**
+     * Imports rates from CSV lines of {@code date,base,quote,rate}, where one unit of
+     * base buys {@code rate} units of quote. A header line is skipped, as are rates of
+     * currencies that are not supported. Rates already stored for the same pair and
+     * day are replaced. The file is imported completely or not at all.
+     *
+     * @return the number of rates imported
+     */
+    public int importCsv(Reader reader) throws IOException {
+        int imported = store(parse(reader));
+        logger.info("Imported {} exchange rates", imported);
+        refresh();
+        return imported;
+    }
+
+    /**
+     * Converts an amount at the rate of the given day, rounding half even to the
+     * target currency's minor units.
+     *
+     * @throws BadRequestException if no rate is known on or before that day
+     */
+    public Money convert(Money amount, Currency target, LocalDate date) {
+        if (amount.getCurrency().equals(target)) {
+            return amount;
+        }
+        Quote quote = quote(amount.getCurrency(), target, date);
+        if (quote == null) {
+            throw missingRate(amount.getCurrency(), target, date);
+        }
+        return Money.of(amount.toBigDecimal().multiply(quote.rate()), target, RoundingMode.HALF_EVEN);
+    }
+
+    public FxRateDto getRate(String from, String to, LocalDate date) {
+        Currency fromCurrency = resolveCurrency(from);
+        Currency toCurrency = resolveCurrency(to);
+        Quote quote = quote(fromCurrency, toCurrency, date);
+        if (quote == null) {
+            throw missingRate(fromCurrency, toCurrency, date);
+        }
+
+        FxRateDto dto = new FxRateDto();
+        dto.setFrom(fromCurrency.getCurrencyCode());
+        dto.setTo(toCurrency.getCurrencyCode());
+        dto.setDate(quote.date());
+        dto.setRate(quote.rate());
+        return dto;
+    }
+
+    /**
+     * Changes whenever rates are imported, so results computed from the rates can be
+     * told apart from those computed before. Reads the stored generation and loads its
+     * rates first, so conversions made after this call use rates at least that new and
+     * every instance reports the same generation for the same rates.
+     */
+    public long getGeneration() {
+        refresh();
+        return generation;
+    }
+
+    public List<Currency> getCurrencies() {
+        return currencies;
+    }
+
+    public boolean isSupported(String code) {
+        return code != null && currencies.stream().anyMatch(currency -> currency.getCurrencyCode().equalsIgnoreCase(code));
+    }
+
+    /**
+     * Supported currency with the given ISO 4217 code, or {@link Money#DEFAULT_CURRENCY}
+     * when none is given.
+     */
+    public Currency resolveCurrency(String code) {
+        if (code == null) {
+            return Money.DEFAULT_CURRENCY;
+        }
+        if (!isSupported(code)) {
+            logger.debug("Unsupported currency: {}", code);
+            throw new BadRequestException("Unsupported currency: " + code);
+        }
+        return Currency.getInstance(code.toUpperCase(Locale.ROOT));
+    }
+
+    // Only committed rates become visible to conversions, on the next refresh
+    private int store(List<FxRate> parsed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            fxRateRepository.upsertAll(parsed);
+            // Last, so the version row is locked only for the commit
+            expenseTableVersionRepository.incrementFxGeneration(ExpenseTableVersion.ID);
+        });
+        return parsed.size();
+    }
+
+    // The generation is read before the rates, so the rates are at least as new as it
+    private synchronized void reload(long stored) {
+        if (stored <= generation) {
+            return;
+        }
+        boolean replacing = generation >= 0;
+        Map<CurrencyPair, NavigableMap<LocalDate, BigDecimal>> loaded = new HashMap<>();
+        List<FxRate> all = fxRateRepository.findAll();
+        all.forEach(rate -> register(loaded, rate));
+        rates = loaded;
+        generation = stored;
+        logger.info("Loaded {} exchange rates of generation {}", all.size(), stored);
+        if (replacing) {
+            eventPublisher.publishEvent(new FxRatesImportedEvent(stored));
+        }
+    }
+
+    private List<FxRate> parse(Reader reader) throws IOException {
+        List<FxRate> parsed = new ArrayList<>();
+        int skipped = 0;
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        for (int number = 1; (line = lines.readLine()) != null; number++) {
+            if (line.isBlank() || (number == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith(CSV_HEADER_PREFIX))) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 4) {
+                throw invalidLine(number, "expected date,base,quote,rate");
+            }
+            String base = fields[1].trim().toUpperCase(Locale.ROOT);
+            String quote = fields[2].trim().toUpperCase(Locale.ROOT);
+            if (!isSupported(base) || !isSupported(quote)) {
+                skipped++;
+                continue;
+            }
+            if (base.equals(quote)) {
+                throw invalidLine(number, "base and quote currency are the same");
+            }
+
+            try {
+                LocalDate date = LocalDate.parse(fields[0].trim());
+                BigDecimal rate = new BigDecimal(fields[3].trim());
+                if (rate.signum() <= 0) {
+                    throw invalidLine(number, "rate must be positive");
+                }
+                parsed.add(new FxRate(new FxRateId(base, quote, date), rate));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw invalidLine(number, e.getMessage());
+            }
+        }
+        if (skipped > 0) {
+            logger.info("Skipped {} exchange rates of unsupported currencies", skipped);
+        }
+        return parsed;
+    }
+
+    private static void register(Map<CurrencyPair, NavigableMap<LocalDate, BigDecimal>> rates, FxRate rate) {
+        CurrencyPair pair = new CurrencyPair(Currency.getInstance(rate.getId().getBaseCurrency()),
+                Currency.getInstance(rate.getId().getQuoteCurrency()));
+        rates.computeIfAbsent(pair, key -> new TreeMap<>()).put(rate.getId().getRateDate(), rate.getRate());
+    }
+
+    private Quote quote(Currency from, Currency to, LocalDate date) {
+        if (from.equals(to)) {
+            return new Quote(date, BigDecimal.ONE);
+        }
+
+        Map.Entry<LocalDate, BigDecimal> direct = floor(from, to, date);
+        if (direct != null) {
+            return new Quote(direct.getKey(), direct.getValue());
+        }
+        Map.Entry<LocalDate, BigDecimal> inverse = floor(to, from, date);
+        if (inverse != null) {
+            return new Quote(inverse.getKey(), BigDecimal.ONE.divide(inverse.getValue(), MathContext.DECIMAL64));
+        }
+        if (!from.equals(Money.DEFAULT_CURRENCY) && !to.equals(Money.DEFAULT_CURRENCY)) {
+            Quote first = quote(from, Money.DEFAULT_CURRENCY, date);
+            Quote second = first == null ? null : quote(Money.DEFAULT_CURRENCY, to, date);
+            if (second != null) {
+                LocalDate oldest = Collections.min(List.of(first.date(), second.date()));
+                return new Quote(oldest, first.rate().multiply(second.rate(), MathContext.DECIMAL64));
+            }
+        }
+        return null;
+    }
+
+    private Map.Entry<LocalDate, BigDecimal> floor(Currency from, Currency to, LocalDate date) {
+        NavigableMap<LocalDate, BigDecimal> pairRates = rates.get(new CurrencyPair(from, to));
+        return pairRates == null ? null : pairRates.floorEntry(date);
+    }
+
+    private BadRequestException missingRate(Currency from, Currency to, LocalDate date) {
+        logger.debug("No {} to {} exchange rate on or before {}", from, to, date);
+        return new BadRequestException("No " + from + " to " + to + " exchange rate on or before " + date);
+    }
+
+    private BadRequestException invalidLine(int number, String reason) {
+        logger.debug("Invalid exchange rate on line {}: {}", number, reason);
+        return new BadRequestException("Invalid exchange rate on line " + number + ": " + reason);
+    }
+
+    private record CurrencyPair(Currency from, Currency to) {
+    }
+
+    private record Quote(LocalDate date, BigDecimal rate) {
+    }
+}
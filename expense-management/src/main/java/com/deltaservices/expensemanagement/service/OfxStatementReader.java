@@ -0,0 +1,174 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.Money;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.time.LocalDate;
+
+/**
+ * Reads the transactions ({@code STMTTRN}) of an OFX bank statement, in the SGML
+ * form of OFX 1.x, whose elements have no end tags, as well as the XML form of 2.x.
+ * Debits, which have a negative {@code TRNAMT}, become expenses in the statement's
+ * {@code CURDEF} currency, described by {@code NAME} or else {@code MEMO}; credits
+ * are skipped. OFX has no categories, so every expense gets the default one.
+ */
+final class OfxStatementReader extends StatementReader {
+
+    // Longest tag or value kept; the rest is cut off
+    static final int MAX_VALUE_LENGTH = 4 * 1024;
+
+    private final String defaultCategory;
+    private final char[] tag = new char[64];
+    private final char[] value = new char[MAX_VALUE_LENGTH];
+    private int tagLength;
+    private int valueLength;
+
+    private String currency;
+    private boolean inTransaction;
+    private LocalDate date;
+    private String dateText;
+    private Money amount;
+    private String amountText;
+    private boolean credit;
+    private String name;
+    private String memo;
+
+    OfxStatementReader(ReadableByteChannel channel, String defaultCategory) {
+        super(channel);
+        this.defaultCategory = defaultCategory;
+    }
+
+    @Override
+    boolean next() throws IOException {
+        while (readTag()) {
+            if (isTag("STMTTRN")) {
+                startRecord();
+                inTransaction = true;
+                date = null;
+                dateText = null;
+                amount = null;
+                amountText = null;
+                credit = false;
+                name = null;
+                memo = null;
+            } else if (isTag("/STMTTRN")) {
+                if (inTransaction) {
+                    inTransaction = false;
+                    toRequest();
+                    return true;
+                }
+            } else if (tagLength > 0 && tag[0] != '/') {
+                readValue();
+                if (isTag("CURDEF")) {
+                    currency = valueLength > 0 ? intern(value, 0, valueLength) : null;
+                } else if (inTransaction) {
+                    readField();
+                }
+            }
+        }
+        return false;
+    }
+
+    private void readField() {
+        if (isTag("DTPOSTED")) {
+            date = parseDate(value, 0, valueLength, false);
+            dateText = date == null ? new String(value, 0, valueLength) : null;
+        } else if (isTag("TRNAMT")) {
+            // Debits are negative; the expense is their absolute value
+            credit = valueLength == 0 || value[0] != '-';
+            if (!credit) {
+                try {
+                    amount = Money.parse(value, 1, valueLength - 1, Money.DEFAULT_CURRENCY);
+                } catch (IllegalArgumentException e) {
+                    amountText = new String(value, 0, valueLength);
+                }
+            }
+        } else if (isTag("NAME")) {
+            name = decodeValue();
+        } else if (isTag("MEMO")) {
+            memo = decodeValue();
+        }
+    }
+
+    private void toRequest() {
+        if (credit) {
+            return;
+        }
+        if (date == null) {
+            reject("Invalid DTPOSTED '" + (dateText != null ? dateText : "") + "'");
+            return;
+        }
+        if (amount == null) {
+            reject("Invalid TRNAMT '" + (amountText != null ? amountText : "") + "'");
+            return;
+        }
+        ExpenseRequestDto request = new ExpenseRequestDto();
+        request.setDate(date);
+        request.setAmount(amount);
+        request.setCurrency(currency);
+        request.setDescription(name != null && !name.isBlank() ? name : memo);
+        request.setCategory(defaultCategory);
+        accept(request);
+    }
+
+    /**
+     * Skips to the next tag and reads its name.
+     *
+     * @return false at the end of the input
+     */
+    private boolean readTag() throws IOException {
+        int c = read();
+        while (c != '<') {
+            if (c == -1) {
+                return false;
+            }
+            c = read();
+        }
+        tagLength = 0;
+        for (c = read(); c != '>' && c != -1; c = read()) {
+            if (tagLength < tag.length) {
+                tag[tagLength++] = Character.toUpperCase((char) c);
+            }
+        }
+        return c != -1;
+    }
+
+    /**
+     * Reads the text up to the next tag, without surrounding whitespace.
+     */
+    private void readValue() throws IOException {
+        valueLength = 0;
+        for (int c = peek(); c != '<' && c != -1; c = peek()) {
+            read();
+            if (valueLength < value.length && (valueLength > 0 || !Character.isWhitespace(c))) {
+                value[valueLength++] = (char) c;
+            }
+        }
+        while (valueLength > 0 && Character.isWhitespace(value[valueLength - 1])) {
+            valueLength--;
+        }
+    }
+
+    private String decodeValue() {
+        String text = new String(value, 0, valueLength);
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&nbsp;", " ").replace("&amp;", "&");
+    }
+
+    private boolean isTag(String expected) {
+        if (tagLength != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < tagLength; i++) {
+            if (tag[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,263 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.RecurringExpense;
+import com.deltaservices.expensemanagement.model.RecurringExpenseDto;
+import com.deltaservices.expensemanagement.model.RecurringExpenseRequestDto;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.repository.RecurringExpenseRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the expenses of recurring templates as their dates come due. A run picks
+ * up every date between a template's cursor and today, so after downtime the whole
+ * backlog is written in one pass. Due templates are locked and handled a page at a
+ * time; each page is one transaction with one batched insert, which also advances
+ * the cursors, so a date is either written and passed or neither. Only the instance
+ * holding the scheduler lease runs.
+ */
+@Service
+@Timed(value = "expense.service", histogram = true)
+public class RecurringExpenseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringExpenseService.class);
+    static final String LOCK_NAME = "recurring-expenses";
+    // Templates locked per transaction
+    static final int TEMPLATES_PER_TRANSACTION = 100;
+    // Expenses written per transaction; a longer backlog continues in the next one
+    static final int EXPENSES_PER_TRANSACTION = 500;
+
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseService expenseService;
+    private final CategoryRegistry categoryRegistry;
+    private final SchedulerLockService schedulerLockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration lease;
+    private final Clock clock;
+
+    @Autowired
+    public RecurringExpenseService(RecurringExpenseRepository recurringExpenseRepository,
+                                   ExpenseRepository expenseRepository, ExpenseService expenseService,
+                                   CategoryRegistry categoryRegistry, SchedulerLockService schedulerLockService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${expense.recurring.lock-lease:10m}") Duration lease) {
+        this(recurringExpenseRepository, expenseRepository, expenseService, categoryRegistry, schedulerLockService,
+                eventPublisher, transactionManager, lease, Clock.systemUTC());
+    }
+
+    RecurringExpenseService(RecurringExpenseRepository recurringExpenseRepository,
+                            ExpenseRepository expenseRepository, ExpenseService expenseService,
+                            CategoryRegistry categoryRegistry, SchedulerLockService schedulerLockService,
+                            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                            Duration lease, Clock clock) {
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.expenseRepository = expenseRepository;
+        this.expenseService = expenseService;
+        this.categoryRegistry = categoryRegistry;
+        this.schedulerLockService = schedulerLockService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lease = lease;
+        this.clock = clock;
+    }
+
+    public List<RecurringExpenseDto> getRecurringExpenses() {
+        return recurringExpenseRepository.findAllByOrderByIdAsc().stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    public RecurringExpenseDto getRecurringExpense(Long id) {
+        return convertToDto(recurringExpenseRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Recurring expense", "id", id)));
+    }
+
+    /**
+     * Stores a template. Dates already due are written by the next run.
+     */
+    public RecurringExpenseDto createRecurringExpense(RecurringExpenseRequestDto request) {
+        ExpenseRequestDto expense = new ExpenseRequestDto();
+        expense.setDescription(request.getDescription());
+        expense.setAmount(request.getAmount());
+        expense.setCurrency(request.getCurrency());
+        expense.setDate(request.getStartDate());
+        expense.setCategory(request.getCategory());
+        expenseService.validateExpenseRequest(expense);
+
+        CronExpression schedule = parseSchedule(request.getSchedule());
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new BadRequestException("End date must not be before start date");
+        }
+        LocalDate first = nextDate(schedule, request.getStartDate().minusDays(1), request.getEndDate());
+        if (first == null) {
+            throw new BadRequestException("Schedule matches no date between start and end date");
+        }
+
+        RecurringExpense template = new RecurringExpense();
+        template.setDescription(request.getDescription());
+        template.setAmount(expenseService.convertToEntity(expense).getAmount());
+        template.setCategory(request.getCategory());
+        template.setSchedule(request.getSchedule().trim());
+        template.setStartDate(request.getStartDate());
+        template.setEndDate(request.getEndDate());
+        template.setNextDate(first);
+        RecurringExpense saved = transactionTemplate.execute(status -> {
+            categoryRegistry.resolveId(template.getCategory());
+            return recurringExpenseRepository.save(template);
+        });
+        logger.info("Created recurring expense {} on {} from {}", saved.getId(), saved.getSchedule(), first);
+        return convertToDto(saved);
+    }
+
+    /**
+     * Stops a template. Expenses it already wrote are kept.
+     */
+    public void deleteRecurringExpense(Long id) {
+        transactionTemplate.executeWithoutResult(status -> recurringExpenseRepository.delete(
+                recurringExpenseRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Recurring expense", "id", id))));
+        logger.info("Deleted recurring expense {}", id);
+    }
+
+    // Catches up on what came due while no instance was running
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        materializeDue();
+    }
+
+    /**
+     * Writes every expense due up to today, unless another instance holds the lease.
+     *
+     * @return the number of expenses written
+     */
+    @Scheduled(cron = "${expense.recurring.cron:0 5 * * * *}")
+    public int materializeDue() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, lease)) {
+            logger.debug("Recurring expenses are handled by another instance");
+            return 0;
+        }
+
+        try {
+            LocalDate today = LocalDate.now(clock);
+            int written = 0;
+            Batch batch;
+            do {
+                batch = transactionTemplate.execute(status -> materializeBatch(today));
+                written += batch.expenses();
+            } while (batch.expenses() > 0);
+
+            if (written > 0) {
+                logger.info("Wrote {} recurring expenses due up to {}", written, today);
+            }
+            return written;
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private Batch materializeBatch(LocalDate today) {
+        List<RecurringExpense> due = recurringExpenseRepository.findDueForUpdate(today,
+                Limit.of(TEMPLATES_PER_TRANSACTION));
+        List<Expense> expenses = new ArrayList<>();
+        int templates = 0;
+        for (RecurringExpense template : due) {
+            if (expenses.size() == EXPENSES_PER_TRANSACTION) {
+                break;
+            }
+            CronExpression schedule = CronExpression.parse(template.getSchedule());
+            LocalDate date = template.getNextDate();
+            while (date != null && !date.isAfter(today) && expenses.size() < EXPENSES_PER_TRANSACTION) {
+                expenses.add(toExpense(template, date));
+                date = nextDate(schedule, date, template.getEndDate());
+            }
+            template.setNextDate(date);
+            templates++;
+        }
+        if (expenses.isEmpty()) {
+            // Every due template has a date to write, so nothing is due any more
+            return new Batch(templates, 0);
+        }
+
+        expenses.stream().map(Expense::getCategory).distinct().forEach(categoryRegistry::resolveId);
+        List<Expense> saved = expenseRepository.saveAll(expenses);
+        eventPublisher.publishEvent(new ExpensesCreatedEvent(List.copyOf(saved)));
+        logger.debug("Wrote {} expenses of {} recurring templates", saved.size(), templates);
+        return new Batch(templates, saved.size());
+    }
+
+    /**
+     * First date after {@code after} the schedule matches, or {@code null} if there is
+     * none up to {@code endDate}. Several matches on one day count once.
+     */
+    static LocalDate nextDate(CronExpression schedule, LocalDate after, LocalDate endDate) {
+        LocalDateTime next = schedule.next(after.atTime(LocalTime.MAX));
+        if (next == null || (endDate != null && next.toLocalDate().isAfter(endDate))) {
+            return null;
+        }
+        return next.toLocalDate();
+    }
+
+    private static CronExpression parseSchedule(String schedule) {
+        try {
+            return CronExpression.parse(schedule.trim());
+        } catch (IllegalArgumentException e) {
+            logger.debug("Invalid schedule: {}", schedule);
+            throw new BadRequestException("Invalid schedule '" + schedule + "': " + e.getMessage());
+        }
+    }
+
+    private static Expense toExpense(RecurringExpense template, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setDescription(template.getDescription());
+        expense.setAmount(template.getAmount());
+        expense.setDate(date);
+        expense.setCategory(template.getCategory());
+        return expense;
+    }
+
+    private RecurringExpenseDto convertToDto(RecurringExpense template) {
+        RecurringExpenseDto dto = new RecurringExpenseDto();
+        dto.setId(template.getId());
+        dto.setDescription(template.getDescription());
+        dto.setAmount(template.getAmount());
+        dto.setCurrency(template.getCurrency().getCurrencyCode());
+        dto.setCategory(template.getCategory());
+        dto.setSchedule(template.getSchedule());
+        dto.setStartDate(template.getStartDate());
+        dto.setEndDate(template.getEndDate());
+        dto.setNextDate(template.getNextDate());
+        return dto;
+    }
+
+    private record Batch(int templates, int expenses) {
+    }
+}
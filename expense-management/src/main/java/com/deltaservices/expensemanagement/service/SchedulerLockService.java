@@ -0,0 +1,88 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.SchedulerLock;
+import com.deltaservices.expensemanagement.repository.SchedulerLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Elects one application instance to run a scheduled job through a row per job in
+ * {@code scheduler_locks}. The lease is time bound, so a crashed holder is replaced
+ * once it expires; it must therefore be longer than a run of the job.
+ */
+@Service
+public class SchedulerLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+    private final Clock clock;
+
+    @Autowired
+    public SchedulerLockService(SchedulerLockRepository schedulerLockRepository,
+                                PlatformTransactionManager transactionManager) {
+        // The JVM name is pid@host; the suffix tells restarts apart
+        this(schedulerLockRepository, transactionManager,
+                ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8),
+                Clock.systemUTC());
+    }
+
+    SchedulerLockService(SchedulerLockRepository schedulerLockRepository, PlatformTransactionManager transactionManager,
+                         String owner, Clock clock) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.owner = owner;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes or renews the named lease.
+     *
+     * @return whether this instance holds the lease until {@code lease} from now
+     */
+    public boolean tryLock(String name, Duration lease) {
+        Instant now = clock.instant();
+        try {
+            Boolean locked = transactionTemplate.execute(status -> {
+                if (schedulerLockRepository.acquire(name, owner, now, now.plus(lease)) == 1) {
+                    return true;
+                }
+                if (schedulerLockRepository.existsById(name)) {
+                    return false;
+                }
+                schedulerLockRepository.saveAndFlush(new SchedulerLock(name, owner, now.plus(lease)));
+                return true;
+            });
+            if (Boolean.TRUE.equals(locked)) {
+                logger.debug("Took lock {} as {}", name, owner);
+                return true;
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first
+            logger.debug("Lost the race to create lock {}", name);
+        }
+        return false;
+    }
+
+    public void unlock(String name) {
+        transactionTemplate.executeWithoutResult(status ->
+                schedulerLockRepository.release(name, owner, clock.instant()));
+    }
+
+    String getOwner() {
+        return owner;
+    }
+}
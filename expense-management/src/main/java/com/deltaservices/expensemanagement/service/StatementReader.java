@@ -0,0 +1,219 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads expenses from a bank statement one record at a time. The file is decoded
+ * through one fixed direct byte buffer and one char buffer, so memory stays the same
+ * whatever the file size, and fields are parsed straight from the characters
+ * without a string per line.
+ * <p>
+ * After {@link #next()} returned true, exactly one of three outcomes holds: a
+ * {@link #getRequest() request} to store, an {@link #getError() error} for the
+ * record, or neither when the record is not an expense and is skipped.
+ */
+abstract class StatementReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Categories and currencies repeat on every line; they are shared instead of copied
+    private static final int MAX_INTERNED = 256;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final List<String> interned = new ArrayList<>();
+    private long bytesRead;
+    private boolean endOfInput;
+    private boolean decoded;
+    private boolean started;
+    private long line = 1;
+
+    private long recordLine;
+    private ExpenseRequestDto request;
+    private String error;
+
+    StatementReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        chars.flip();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return false at the end of the statement
+     * @throws IllegalArgumentException if the statement as a whole cannot be read,
+     *                                  such as a CSV file without the needed columns
+     */
+    abstract boolean next() throws IOException;
+
+    ExpenseRequestDto getRequest() {
+        return request;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    /**
+     * Line on which the last record starts, counting from 1.
+     */
+    long getLine() {
+        return recordLine;
+    }
+
+    /**
+     * Bytes taken from the file so far, at most one buffer ahead of the records read.
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    final void startRecord() {
+        recordLine = line;
+        request = null;
+        error = null;
+    }
+
+    final void accept(ExpenseRequestDto request) {
+        this.request = request;
+    }
+
+    final void reject(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Next character, or -1 at the end of the input.
+     */
+    final int read() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        char c = chars.get();
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * Next character without consuming it, or -1 at the end of the input.
+     */
+    final int peek() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get(chars.position());
+    }
+
+    final String intern(char[] buffer, int start, int length) {
+        for (String candidate : interned) {
+            if (candidate.length() == length && matches(candidate, buffer, start)) {
+                return candidate;
+            }
+        }
+        String value = new String(buffer, start, length);
+        if (interned.size() < MAX_INTERNED) {
+            interned.add(value);
+        }
+        return value;
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd}, or {@code yyyyMMdd} without separators.
+     *
+     * @return the date, or {@code null} if the text is not a valid date
+     */
+    static LocalDate parseDate(char[] buffer, int start, int length, boolean separators) {
+        int expected = separators ? 10 : 8;
+        if (length < expected || (separators && (buffer[start + 4] != '-' || buffer[start + 7] != '-'))) {
+            return null;
+        }
+        int monthStart = start + (separators ? 5 : 4);
+        int dayStart = start + (separators ? 8 : 6);
+        int year = digits(buffer, start, 4);
+        int month = digits(buffer, monthStart, 2);
+        int day = digits(buffer, dayStart, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(char[] buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = buffer[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean matches(String candidate, char[] buffer, int start) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        chars.clear();
+        // UTF-8 never needs more chars than bytes, so one decode empties the byte buffer
+        while (chars.position() == 0 && !decoded) {
+            if (!endOfInput) {
+                int read = channel.read(bytes);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    bytesRead += read;
+                }
+            }
+            bytes.flip();
+            decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (endOfInput) {
+                decoder.flush(chars);
+                decoded = true;
+            }
+        }
+        chars.flip();
+        if (!started && chars.hasRemaining()) {
+            started = true;
+            if (chars.get(chars.position()) == BYTE_ORDER_MARK) {
+                chars.get();
+            }
+        }
+        return chars.hasRemaining();
+    }
+}
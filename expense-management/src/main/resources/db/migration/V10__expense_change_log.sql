@@ -0,0 +1,17 @@
+CREATE TABLE expense_changes (
+    expense_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted BOOLEAN NOT NULL,
+    PRIMARY KEY (expense_id, version)
+);
+
+-- The single counter row; existing expenses predate the log and are at version 0
+CREATE TABLE expense_table_version (
+    id INTEGER NOT NULL,
+    version BIGINT NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    purged_through BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+INSERT INTO expense_table_version (id, version, changed_at, purged_through) VALUES (1, 0, CURRENT_TIMESTAMP, 0);
@@ -0,0 +1,8 @@
+CREATE TABLE budgets (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    category_id INTEGER NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_budgets_category_id UNIQUE (category_id)
+);
@@ -0,0 +1,13 @@
+CREATE TABLE recurring_expenses (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    description VARCHAR(255) NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    category_id INTEGER NOT NULL,
+    schedule VARCHAR(255) NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE,
+    next_date DATE,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_recurring_expenses_next_date ON recurring_expenses (next_date);
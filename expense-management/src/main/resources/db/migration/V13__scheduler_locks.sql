@@ -0,0 +1,6 @@
+CREATE TABLE scheduler_locks (
+    name VARCHAR(64) NOT NULL,
+    locked_by VARCHAR(255) NOT NULL,
+    locked_until TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (name)
+);
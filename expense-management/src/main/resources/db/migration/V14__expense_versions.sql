@@ -0,0 +1,3 @@
+-- Optimistic locking of expense updates. Existing rows start at version 0.
+ALTER TABLE expenses ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE expenses_archive ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
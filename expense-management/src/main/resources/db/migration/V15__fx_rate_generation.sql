@@ -0,0 +1,3 @@
+-- Counts exchange rate imports next to the expense version, so every instance can tell
+-- that its rates are stale and all of them derive the same summary ETags
+ALTER TABLE expense_table_version ADD COLUMN fx_generation BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,9 @@
+-- Spending per budget and month in the budget's currency, raised by every write
+CREATE TABLE budget_spend (
+    budget_id INTEGER NOT NULL,
+    month_start DATE NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    spent_minor BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, month_start),
+    CONSTRAINT fk_budget_spend_budget FOREIGN KEY (budget_id) REFERENCES budgets (id) ON DELETE CASCADE
+);
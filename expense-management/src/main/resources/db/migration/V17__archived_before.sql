@@ -0,0 +1,4 @@
+-- Day before which all archived expenses are dated, raised in the transactions that move
+-- them, so every instance knows when a read has to look in the archive
+ALTER TABLE expense_table_version ADD COLUMN archived_before DATE;
+UPDATE expense_table_version SET archived_before = (SELECT DATEADD(DAY, 1, MAX(date)) FROM expenses_archive);
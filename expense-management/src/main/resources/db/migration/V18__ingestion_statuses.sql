@@ -0,0 +1,10 @@
+-- Outcomes of queued creates, so any instance can answer for a tracking id
+CREATE TABLE expense_ingestion_statuses (
+    tracking_id UUID NOT NULL,
+    state VARCHAR(16) NOT NULL,
+    expense_id BIGINT,
+    error VARCHAR(1000),
+    finished_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (tracking_id)
+);
+CREATE INDEX idx_ingestion_statuses_finished_at ON expense_ingestion_statuses (finished_at);
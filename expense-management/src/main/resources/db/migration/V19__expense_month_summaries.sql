@@ -0,0 +1,14 @@
+-- Rollup per category, month and currency next to the daily one, filled from it
+CREATE TABLE expense_month_summaries (
+    category VARCHAR(255) NOT NULL,
+    month_start DATE NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    total_minor BIGINT NOT NULL,
+    expense_count BIGINT NOT NULL,
+    PRIMARY KEY (category, month_start, currency)
+);
+CREATE INDEX idx_expense_month_summaries_currency_month ON expense_month_summaries (currency, month_start);
+INSERT INTO expense_month_summaries (category, month_start, currency, total_minor, expense_count)
+    SELECT category, CAST(DATE_TRUNC('MONTH', date) AS DATE), currency, SUM(total_minor), SUM(expense_count)
+    FROM expense_summaries
+    GROUP BY category, CAST(DATE_TRUNC('MONTH', date) AS DATE), currency;
@@ -0,0 +1,11 @@
+-- The schema as the first release created it with ddl-auto=update. Databases created
+-- by that release are baselined at this version instead of running it.
+
+CREATE TABLE expenses (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    amount NUMERIC(38, 2) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    date DATE NOT NULL,
+    description VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
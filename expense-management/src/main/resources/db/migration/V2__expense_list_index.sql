@@ -0,0 +1,2 @@
+-- Keyset pages are read newest first
+CREATE INDEX idx_expenses_date_id ON expenses (date DESC, id DESC);
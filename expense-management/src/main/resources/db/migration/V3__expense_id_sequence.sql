@@ -0,0 +1,6 @@
+-- Batched inserts take ids from a sequence, 50 at a time, instead of an identity column.
+-- Hibernate reads each value as the top of a block of 50, so the first block after the
+-- existing rows starts right above the highest id.
+CREATE SEQUENCE expenses_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE expenses_seq RESTART WITH (SELECT COALESCE(MAX(id) + 50, 1) FROM expenses);
+ALTER TABLE expenses ALTER COLUMN id DROP IDENTITY;
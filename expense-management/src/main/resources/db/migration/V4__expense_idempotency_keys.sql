@@ -0,0 +1,9 @@
+CREATE TABLE expense_idempotency_keys (
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    expense_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (idempotency_key)
+);
+CREATE INDEX idx_idempotency_keys_expense_id ON expense_idempotency_keys (expense_id);
+CREATE INDEX idx_idempotency_keys_created_at ON expense_idempotency_keys (created_at);
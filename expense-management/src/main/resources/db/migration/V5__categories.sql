@@ -0,0 +1,25 @@
+-- Moves the free-text category of each expense to a category dimension. The defaults
+-- come first so they keep their labels; any other name becomes its own label.
+CREATE TABLE categories (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL,
+    label VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+INSERT INTO categories (name, label) VALUES
+    ('FOOD', 'Food'),
+    ('TRANSPORTATION', 'Transportation'),
+    ('ENTERTAINMENT', 'Entertainment'),
+    ('UTILITIES', 'Utilities'),
+    ('OTHER', 'Other');
+INSERT INTO categories (name, label)
+    SELECT DISTINCT e.category, e.category FROM expenses e
+    WHERE NOT EXISTS (SELECT 1 FROM categories c WHERE c.name = e.category);
+
+ALTER TABLE expenses ADD COLUMN category_id INTEGER;
+UPDATE expenses e SET category_id = (SELECT c.id FROM categories c WHERE c.name = e.category);
+ALTER TABLE expenses ALTER COLUMN category_id SET NOT NULL;
+ALTER TABLE expenses DROP COLUMN category;
+ALTER TABLE expenses ADD CONSTRAINT fk_expenses_category FOREIGN KEY (category_id) REFERENCES categories (id);
+CREATE INDEX idx_expenses_category_id_date_id ON expenses (category_id, date DESC, id DESC);
@@ -0,0 +1,7 @@
+-- Decimal amounts become whole cents of the currency, which every existing expense is in
+ALTER TABLE expenses ADD COLUMN amount_minor BIGINT;
+UPDATE expenses SET amount_minor = CAST(amount * 100 AS BIGINT);
+ALTER TABLE expenses ALTER COLUMN amount_minor SET NOT NULL;
+ALTER TABLE expenses DROP COLUMN amount;
+ALTER TABLE expenses ADD COLUMN currency VARCHAR(3) DEFAULT 'EUR' NOT NULL;
+CREATE INDEX idx_expenses_currency_date ON expenses (currency, date);
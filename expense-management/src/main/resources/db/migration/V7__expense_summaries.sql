@@ -0,0 +1,14 @@
+-- Rollup per category, day and currency, filled from the existing expenses
+CREATE TABLE expense_summaries (
+    category VARCHAR(255) NOT NULL,
+    date DATE NOT NULL,
+    currency VARCHAR(3) DEFAULT 'EUR' NOT NULL,
+    total_minor BIGINT NOT NULL,
+    expense_count BIGINT NOT NULL,
+    PRIMARY KEY (category, date, currency)
+);
+CREATE INDEX idx_expense_summaries_currency_date ON expense_summaries (currency, date);
+INSERT INTO expense_summaries (category, date, currency, total_minor, expense_count)
+    SELECT c.name, e.date, e.currency, SUM(e.amount_minor), COUNT(*)
+    FROM expenses e JOIN categories c ON c.id = e.category_id
+    GROUP BY c.name, e.date, e.currency;
@@ -0,0 +1,7 @@
+CREATE TABLE fx_rates (
+    base_currency VARCHAR(3) NOT NULL,
+    quote_currency VARCHAR(3) NOT NULL,
+    rate_date DATE NOT NULL,
+    rate NUMERIC(19, 10) NOT NULL,
+    PRIMARY KEY (base_currency, quote_currency, rate_date)
+);
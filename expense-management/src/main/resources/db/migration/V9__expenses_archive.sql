@@ -0,0 +1,13 @@
+-- Rows keep their ids when they move here, so there is no sequence
+CREATE TABLE expenses_archive (
+    id BIGINT NOT NULL,
+    description VARCHAR(255) NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    date DATE NOT NULL,
+    category_id INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_expenses_archive_date_id ON expenses_archive (date DESC, id DESC);
+CREATE INDEX idx_expenses_archive_category_id_date_id ON expenses_archive (category_id, date DESC, id DESC);
+CREATE INDEX idx_expenses_archive_currency_date ON expenses_archive (currency, date);
@@ -1,4 +1,6 @@
 const API_BASE_URL = 'http://localhost:8090/api/expenses';
+const CATEGORIES_URL = 'http://localhost:8090/api/categories';
+const CURRENCIES_URL = 'http://localhost:8090/api/currencies';
 
 const expenseForm = document.getElementById('expenseForm');
 const expensesList = document.getElementById('expensesList');
@@ -8,27 +10,191 @@ const resetBtn = document.getElementById('resetBtn');
 const messageContainer = document.getElementById('messageContainer');
 const descriptionField = document.getElementById('description');
 const amountField = document.getElementById('amount');
+const currencyField = document.getElementById('currency');
 const dateField = document.getElementById('date');
 const categoryField = document.getElementById('category');
+const loadMoreBtn = document.getElementById('loadMoreBtn');
+
+let loadedExpenses = [];
+let nextCursor = null;
+// Table version the loaded list reflects, taken from the list's ETag
+let version = null;
+// Ids deleted while on the page; a pushed insert may arrive after its own delete
+const deletedIds = new Set();
+let summary = null;
+let categoryLabels = {};
+let defaultCurrency = 'EUR';
 
 document.addEventListener('DOMContentLoaded', () => {
     resetForm();
-    loadExpenses();
+    Promise.all([loadCategories(), loadCurrencies()]).then(loadExpenses).then(subscribeToChanges);
     
     expenseForm.addEventListener('submit', handleFormSubmit);
     resetBtn.addEventListener('click', resetForm);
+    loadMoreBtn.addEventListener('click', loadMoreExpenses);
 });
 
+async function fetchJson(url) {
+    const response = await fetch(url);
+
+    if (!response.ok) {
+        throw new Error(`HTTP Error: ${response.status}`);
+    }
+
+    return response.json();
+}
+
+async function loadCategories() {
+    try {
+        const categories = await fetchJson(CATEGORIES_URL);
+
+        categoryLabels = {};
+        categoryField.innerHTML = '';
+        categories.forEach(category => {
+            categoryLabels[category.name] = category.label;
+            const option = document.createElement('option');
+            option.value = category.name;
+            option.textContent = category.label;
+            categoryField.appendChild(option);
+        });
+    } catch (error) {
+        showMessage(`Error loading categories: ${error.message}`, true);
+    }
+}
+
+async function loadCurrencies() {
+    try {
+        const currencies = await fetchJson(CURRENCIES_URL);
+
+        defaultCurrency = currencies.defaultCurrency;
+        currencyField.innerHTML = '';
+        currencies.currencies.forEach(code => {
+            const option = document.createElement('option');
+            option.value = code;
+            option.textContent = code;
+            currencyField.appendChild(option);
+        });
+        currencyField.value = defaultCurrency;
+    } catch (error) {
+        showMessage(`Error loading currencies: ${error.message}`, true);
+    }
+}
+
+function loadSummary() {
+    // Fails while a foreign currency expense has no exchange rate; the list still shows
+    return fetchJson(`${API_BASE_URL}/summary?currency=${defaultCurrency}`).catch(() => null);
+}
+
 async function loadExpenses() {
     try {
-        const response = await fetch(API_BASE_URL);
-        
+        const [response, loadedSummary] = await Promise.all([fetch(API_BASE_URL), loadSummary()]);
+
         if (!response.ok) {
             throw new Error(`HTTP Error: ${response.status}`);
         }
 
-        const expenses = await response.json();
-        renderExpensesList(expenses);
+        const page = await response.json();
+        loadedExpenses = page.items;
+        nextCursor = page.nextCursor;
+        version = parseVersion(response.headers.get('ETag'));
+        summary = loadedSummary;
+        renderExpensesList(loadedExpenses);
+    } catch (error) {
+        showMessage(`Error loading expenses: ${error.message}`, true);
+    }
+}
+
+// Applies what changed since the loaded version instead of reloading the list
+async function syncChanges() {
+    if (version === null) {
+        return loadExpenses();
+    }
+
+    try {
+        const response = await fetch(`${API_BASE_URL}/changes?since=${version}`);
+
+        if (response.status === 410) {
+            // The server no longer has the changes, start over
+            return loadExpenses();
+        }
+        if (!response.ok) {
+            throw new Error(`HTTP Error: ${response.status}`);
+        }
+
+        const changes = await response.json();
+        applyChanges(changes);
+        version = changes.version;
+        // Revalidated against its ETag, so an unchanged summary costs a 304
+        summary = await loadSummary();
+        renderExpensesList(loadedExpenses);
+    } catch (error) {
+        showMessage(`Error loading expenses: ${error.message}`, true);
+    }
+}
+
+function subscribeToChanges() {
+    const source = new EventSource(`${API_BASE_URL}/stream`);
+
+    source.addEventListener('changes', async event => {
+        if (version === null) {
+            return;
+        }
+        const changes = JSON.parse(event.data);
+        applyChanges(changes);
+        // Only the next version in line proves that nothing was missed before it
+        if (changes.version === version + 1) {
+            version = changes.version;
+        }
+        renderExpensesList(loadedExpenses);
+        summary = await loadSummary();
+        renderExpensesList(loadedExpenses);
+    });
+    // Sent when this page fell behind and pushed changes were dropped
+    source.addEventListener('resync', syncChanges);
+    // Covers the gap before the first connect and any reconnect
+    source.addEventListener('open', () => {
+        if (version !== null) {
+            syncChanges();
+        }
+    });
+}
+
+function applyChanges(changes) {
+    changes.deleted.forEach(id => deletedIds.add(id));
+    const changed = new Set([...changes.deleted, ...changes.upserted.map(expense => expense.id)]);
+    loadedExpenses = loadedExpenses.filter(expense => !changed.has(expense.id));
+
+    const last = loadedExpenses[loadedExpenses.length - 1];
+    changes.upserted.filter(expense => !deletedIds.has(expense.id)).forEach(expense => {
+        // Rows past the loaded part of the list arrive with the next page
+        if (nextCursor && last && compareExpenses(expense, last) > 0) {
+            return;
+        }
+        const index = loadedExpenses.findIndex(loaded => compareExpenses(expense, loaded) < 0);
+        loadedExpenses.splice(index === -1 ? loadedExpenses.length : index, 0, expense);
+    });
+}
+
+// Same order as the API: newest date first, then highest id
+function compareExpenses(a, b) {
+    return b.date.localeCompare(a.date) || b.id - a.id;
+}
+
+function parseVersion(etag) {
+    const match = etag && etag.match(/^(?:W\/)?"(\d+)"$/);
+    return match ? Number(match[1]) : null;
+}
+
+async function loadMoreExpenses() {
+    if (!nextCursor) {
+        return;
+    }
+
+    try {
+        const page = await fetchJson(`${API_BASE_URL}?cursor=${encodeURIComponent(nextCursor)}`);
+        loadedExpenses.push(...page.items);
+        nextCursor = page.nextCursor;
+        renderExpensesList(loadedExpenses);
     } catch (error) {
         showMessage(`Error loading expenses: ${error.message}`, true);
     }
@@ -36,6 +202,7 @@ async function loadExpenses() {
 
 function renderExpensesList(expenses) {
     expensesList.innerHTML = '';
+    loadMoreBtn.className = nextCursor ? '' : 'hidden';
     
     if (expenses.length === 0) {
         const row = document.createElement('tr');
@@ -44,25 +211,16 @@ function renderExpensesList(expenses) {
         return;
     }
     
-    let totalAmount = 0;
-    
     expenses.forEach(expense => {
         const row = document.createElement('tr');  
-        totalAmount += expense.amount;
         const date = new Date(expense.date);
         const formattedDate = date.toLocaleDateString('it-IT');
-        const categoryMap = {
-            'FOOD': 'Food',
-            'TRANSPORTATION': 'Transportation',
-            'ENTERTAINMENT': 'Entertainment',
-            'UTILITIES': 'Utilities',
-            'OTHER': 'Other'};
         
         row.innerHTML = `
             <td>${expense.description}</td>
-            <td>€${expense.amount.toFixed(2)}</td>
+            <td>${formatAmount(expense.amount, expense.currency)}</td>
             <td>${formattedDate}</td>
-            <td>${categoryMap[expense.category] || expense.category}</td>
+            <td>${categoryLabels[expense.category] || expense.category}</td>
             <td class="actions">
                 <button class="delete-btn" data-id="${expense.id}">Delete</button>
             </td>`;
@@ -75,7 +233,7 @@ function renderExpensesList(expenses) {
     totalRow.className = 'total-row';
     totalRow.innerHTML = `
         <td><strong>Total</strong></td>
-        <td><strong>€${totalAmount.toFixed(2)}</strong></td>
+        <td><strong>${summary ? formatAmount(summary.total, summary.currency) : 'n/a'}</strong></td>
         <td></td>
         <td></td>
         <td></td>`;
@@ -87,7 +245,9 @@ async function handleFormSubmit(event) {
     
     const expenseData = {
         description: descriptionField.value,
-        amount: parseFloat(amountField.value),
+        // Sent as typed; the API reads it exactly instead of through a float
+        amount: amountField.value,
+        currency: currencyField.value,
         date: dateField.value,
         category: categoryField.value
     };  
@@ -108,7 +268,7 @@ async function handleFormSubmit(event) {
         
         showMessage('Expense saved successfully!');
         resetForm();
-        loadExpenses();       
+        syncChanges();
     } catch (error) {
         showMessage(`Error: ${error.message}`, true);
     }
@@ -129,14 +289,19 @@ async function deleteExpense(id) {
         }
         
         showMessage('Expense deleted successfully!');
-        loadExpenses();    
+        syncChanges();
     } catch (error) {
         showMessage(`Error deleting expense: ${error.message}`, true);
     }
 }
 
+function formatAmount(amount, currency) {
+    return new Intl.NumberFormat('en-US', { style: 'currency', currency: currency || defaultCurrency }).format(amount);
+}
+
 function resetForm() {
     expenseForm.reset();
+    currencyField.value = defaultCurrency;
     formTitle.textContent = 'Add New Expense';
     submitBtn.textContent = 'Save Expense';
     
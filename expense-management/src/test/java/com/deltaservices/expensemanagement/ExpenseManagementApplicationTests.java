@@ -8,7 +8,7 @@ import org.springframework.test.context.ActiveProfiles;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
-//@ActiveProfiles("test")
+@ActiveProfiles("test")
 class ExpenseManagementApplicationTests {
 
 	@Autowired
@@ -0,0 +1,60 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.BudgetAlertDto;
+import com.deltaservices.expensemanagement.model.BudgetDto;
+import com.deltaservices.expensemanagement.model.BudgetRequestDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.service.BudgetAlertNotifier;
+import com.deltaservices.expensemanagement.service.BudgetService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BudgetControllerTest {
+
+    @Mock
+    private BudgetService budgetService;
+
+    @Mock
+    private BudgetAlertNotifier budgetAlertNotifier;
+
+    @InjectMocks
+    private BudgetController budgetController;
+
+    @Test
+    void setBudget_ShouldReturnBudgetWithCurrentSpending() {
+        BudgetRequestDto request = new BudgetRequestDto();
+        request.setAmount(Money.parse("200.00", Money.DEFAULT_CURRENCY));
+        BudgetDto budget = new BudgetDto();
+        budget.setCategory("FOOD");
+        budget.setPercentUsed(40);
+        when(budgetService.setBudget("FOOD", request)).thenReturn(budget);
+
+        ResponseEntity<BudgetDto> response = budgetController.setBudget("FOOD", request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(budget, response.getBody());
+    }
+
+    @Test
+    void getBudgetsAndAlerts_ShouldPassMonthAndReturnRecentAlerts() {
+        when(budgetService.getBudgets(YearMonth.of(2024, 6))).thenReturn(List.of(new BudgetDto()));
+        when(budgetAlertNotifier.getRecentAlerts()).thenReturn(List.of(new BudgetAlertDto()));
+
+        assertEquals(1, budgetController.getBudgets(YearMonth.of(2024, 6)).getBody().size());
+        assertEquals(1, budgetController.getAlerts().getBody().size());
+        assertEquals(HttpStatus.NO_CONTENT, budgetController.deleteBudget("FOOD").getStatusCode());
+        verify(budgetService).deleteBudget("FOOD");
+    }
+}
@@ -0,0 +1,41 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.Category;
+import com.deltaservices.expensemanagement.model.CategoryDto;
+import com.deltaservices.expensemanagement.service.CategoryRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CategoryControllerTest {
+
+    @Mock
+    private CategoryRegistry categoryRegistry;
+
+    @InjectMocks
+    private CategoryController categoryController;
+
+    @Test
+    void getCategories_ShouldReturnRegisteredCategories() {
+        when(categoryRegistry.getCategories()).thenReturn(List.of(new Category(1, "FOOD", "Food")));
+
+        ResponseEntity<List<CategoryDto>> response = categoryController.getCategories();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().size());
+        assertEquals(1, response.getBody().get(0).getId());
+        assertEquals("FOOD", response.getBody().get(0).getName());
+        assertEquals("Food", response.getBody().get(0).getLabel());
+    }
+}
@@ -0,0 +1,56 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.CurrenciesDto;
+import com.deltaservices.expensemanagement.model.FxRateImportResultDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.service.FxRateService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CurrencyControllerTest {
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @InjectMocks
+    private CurrencyController currencyController;
+
+    @Test
+    void getCurrencies_ShouldReturnSupportedCurrencies() {
+        when(fxRateService.getCurrencies()).thenReturn(List.of(Money.DEFAULT_CURRENCY, Currency.getInstance("USD")));
+
+        ResponseEntity<CurrenciesDto> response = currencyController.getCurrencies();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("EUR", response.getBody().getDefaultCurrency());
+        assertEquals(List.of("EUR", "USD"), response.getBody().getCurrencies());
+    }
+
+    @Test
+    void importRates_ShouldReturnImportedCount() throws IOException {
+        Reader body = new StringReader("2024-01-01,EUR,USD,1.10\n");
+        when(fxRateService.importCsv(body)).thenReturn(1);
+
+        ResponseEntity<FxRateImportResultDto> response = currencyController.importRates(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getImported());
+    }
+}
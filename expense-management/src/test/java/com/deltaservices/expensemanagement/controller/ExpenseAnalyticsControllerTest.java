@@ -0,0 +1,52 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.AnalyticsReportDto;
+import com.deltaservices.expensemanagement.model.CategoryPercentilesDto;
+import com.deltaservices.expensemanagement.model.DescriptionSpendDto;
+import com.deltaservices.expensemanagement.service.ExpenseAnalyticsService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseAnalyticsControllerTest {
+
+    @Mock
+    private ExpenseAnalyticsService expenseAnalyticsService;
+
+    @InjectMocks
+    private ExpenseAnalyticsController expenseAnalyticsController;
+
+    @Test
+    void getTopDescriptions_ShouldReturnReport() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        AnalyticsReportDto<DescriptionSpendDto> report = new AnalyticsReportDto<>();
+        when(expenseAnalyticsService.getTopDescriptions(from, null, "FOOD", "count", 5)).thenReturn(report);
+
+        ResponseEntity<AnalyticsReportDto<DescriptionSpendDto>> response =
+                expenseAnalyticsController.getTopDescriptions(from, null, "FOOD", "count", 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(report, response.getBody());
+    }
+
+    @Test
+    void getPercentiles_ShouldPassRequestedPercentiles() {
+        List<BigDecimal> percentiles = List.of(BigDecimal.valueOf(95));
+        AnalyticsReportDto<CategoryPercentilesDto> report = new AnalyticsReportDto<>();
+        when(expenseAnalyticsService.getPercentiles(null, null, percentiles)).thenReturn(report);
+
+        assertSame(report, expenseAnalyticsController.getPercentiles(null, null, percentiles).getBody());
+    }
+}
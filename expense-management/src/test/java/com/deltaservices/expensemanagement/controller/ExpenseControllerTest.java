@@ -1,33 +1,106 @@
 package com.deltaservices.expensemanagement.controller;
 
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GlobalExceptionHandler;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpenseIngestionStatusDto;
+import com.deltaservices.expensemanagement.model.ExpensePageDto;
 import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
 import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.ExpenseSearchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryDto;
+import com.deltaservices.expensemanagement.model.ExportFormat;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.SummaryGrouping;
+import com.deltaservices.expensemanagement.service.ExpenseChangeBroadcaster;
+import com.deltaservices.expensemanagement.service.ExpenseChangeService;
+import com.deltaservices.expensemanagement.service.ExpenseExportService;
+import com.deltaservices.expensemanagement.service.ExpenseIdempotencyService;
+import com.deltaservices.expensemanagement.service.ExpenseIdempotencyService.IdempotentResult;
+import com.deltaservices.expensemanagement.service.ExpenseIngestionService;
+import com.deltaservices.expensemanagement.service.ExpenseSearchService;
 import com.deltaservices.expensemanagement.service.ExpenseService;
+import com.deltaservices.expensemanagement.service.ExpenseSummaryService;
+import com.deltaservices.expensemanagement.service.FxRateService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 public class ExpenseControllerTest {
 
+    private static final ExpenseChangeService.Version VERSION =
+            new ExpenseChangeService.Version(7, Instant.parse("2024-01-15T10:00:00Z"), 0);
+
     @Mock
     private ExpenseService expenseService;
 
+    @Mock
+    private ExpenseExportService expenseExportService;
+
+    @Mock
+    private ExpenseSummaryService expenseSummaryService;
+
+    @Mock
+    private ExpenseIdempotencyService expenseIdempotencyService;
+
+    @Mock
+    private ExpenseIngestionService expenseIngestionService;
+
+    @Mock
+    private ExpenseSearchService expenseSearchService;
+
+    @Mock
+    private ExpenseChangeService expenseChangeService;
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private ExpenseChangeBroadcaster expenseChangeBroadcaster;
+
     @InjectMocks
     private ExpenseController expenseController;
 
@@ -40,49 +113,234 @@ public class ExpenseControllerTest {
         response1 = new ExpenseResponseDto();
         response1.setId(1L);
         response1.setDescription("Test Expense 1");
-        response1.setAmount(new BigDecimal("100.50"));
+        response1.setAmount(Money.parse("100.50", Money.DEFAULT_CURRENCY));
         response1.setDate(LocalDate.now());
         response1.setCategory("Food");
 
         response2 = new ExpenseResponseDto();
         response2.setId(2L);
         response2.setDescription("Test Expense 2");
-        response2.setAmount(new BigDecimal("50.75"));
+        response2.setAmount(Money.parse("50.75", Money.DEFAULT_CURRENCY));
         response2.setDate(LocalDate.now().minusDays(1));
         response2.setCategory("Transport");
 
         validRequestDto = new ExpenseRequestDto();
         validRequestDto.setDescription("New Expense");
-        validRequestDto.setAmount(new BigDecimal("75.25"));
+        validRequestDto.setAmount(Money.parse("75.25", Money.DEFAULT_CURRENCY));
         validRequestDto.setDate(LocalDate.now());
         validRequestDto.setCategory("Utilities");
     }
 
     @Test
-    void getAllExpenses_ShouldReturnAllExpenses() {
-        List<ExpenseResponseDto> expenses = Arrays.asList(response1, response2);
-        when(expenseService.getAllExpenses()).thenReturn(expenses);
+    void getExpenses_ShouldReturnPage() {
+        ExpensePageDto page = new ExpensePageDto();
+        page.setItems(Arrays.asList(response1, response2));
+        page.setNextCursor("next");
+        when(expenseService.getExpenses(any(ExpenseFilter.class), isNull(), eq(50), eq(7L))).thenReturn(page);
+        when(expenseChangeService.getVersion()).thenReturn(VERSION);
+
+        ResponseEntity<ExpensePageDto> response = expenseController.getExpenses(null, null, null, null, null, null, null, 50,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/expenses")));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("W/\"7\"", response.getHeaders().getETag());
+        assertEquals(VERSION.changedAt().toEpochMilli(), response.getHeaders().getLastModified());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().getItems().size());
+        assertEquals("Test Expense 1", response.getBody().getItems().get(0).getDescription());
+        assertEquals("Test Expense 2", response.getBody().getItems().get(1).getDescription());
+        assertEquals("next", response.getBody().getNextCursor());
+        verify(expenseService, times(1)).getExpenses(any(ExpenseFilter.class), isNull(), eq(50), eq(7L));
+    }
+
+    @Test
+    void getExpenses_ShouldPassFilterToService() {
+        ExpensePageDto page = new ExpensePageDto();
+        page.setItems(new ArrayList<>());
+        when(expenseService.getExpenses(any(ExpenseFilter.class), eq("cursor"), eq(10), eq(7L))).thenReturn(page);
+        LocalDate from = LocalDate.now().minusDays(7);
+        LocalDate to = LocalDate.now();
+        when(expenseChangeService.getVersion()).thenReturn(VERSION);
+
+        ResponseEntity<ExpensePageDto> response = expenseController.getExpenses(
+                from, to, "Food", new BigDecimal("1.00"), new BigDecimal("99.99"), "USD", "cursor", 10,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/expenses")));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().getItems().isEmpty());
+        assertNull(response.getBody().getNextCursor());
+        ArgumentCaptor<ExpenseFilter> filterCaptor = ArgumentCaptor.forClass(ExpenseFilter.class);
+        verify(expenseService).getExpenses(filterCaptor.capture(), eq("cursor"), eq(10), eq(7L));
+        assertEquals(from, filterCaptor.getValue().getFrom());
+        assertEquals(to, filterCaptor.getValue().getTo());
+        assertEquals("Food", filterCaptor.getValue().getCategory());
+        assertEquals(new BigDecimal("1.00"), filterCaptor.getValue().getMinAmount());
+        assertEquals(new BigDecimal("99.99"), filterCaptor.getValue().getMaxAmount());
+        assertEquals("USD", filterCaptor.getValue().getCurrency());
+    }
+
+    @Test
+    void getExpenses_WithCurrentEtag_ShouldAnswerNotModifiedWithoutReading() {
+        when(expenseChangeService.getVersion()).thenReturn(VERSION);
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest("GET", "/api/expenses");
+        httpRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"7\"");
+        MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+
+        ResponseEntity<ExpensePageDto> response = expenseController.getExpenses(null, null, null, null, null, null, null, 50,
+                new ServletWebRequest(httpRequest, httpResponse));
+
+        assertNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), httpResponse.getStatus());
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    void getSummary_ShouldReturnSummaryForGrouping() {
+        ExpenseSummaryDto summary = new ExpenseSummaryDto();
+        summary.setTotal(Money.parse("151.25", Money.DEFAULT_CURRENCY));
+        summary.setCount(2);
+        YearMonth from = YearMonth.of(2024, 1);
+        when(expenseSummaryService.getSummary(SummaryGrouping.MONTH, from, null, "USD", 7L, 3L)).thenReturn(summary);
+        when(expenseChangeService.getVersion()).thenReturn(VERSION);
+        when(fxRateService.getGeneration()).thenReturn(3L);
 
-        ResponseEntity<List<ExpenseResponseDto>> response = expenseController.getAllExpenses();
+        ResponseEntity<ExpenseSummaryDto> response = expenseController.getSummary("month", from, null, "USD",
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/expenses/summary")));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("W/\"7-3\"", response.getHeaders().getETag());
+        assertEquals(VERSION.changedAt().toEpochMilli(), response.getHeaders().getLastModified());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertEquals("Test Expense 1", response.getBody().get(0).getDescription());
-        assertEquals("Test Expense 2", response.getBody().get(1).getDescription());
-        verify(expenseService, times(1)).getAllExpenses();
+        assertEquals(Money.parse("151.25", Money.DEFAULT_CURRENCY), response.getBody().getTotal());
+        verify(expenseSummaryService, times(1)).getSummary(SummaryGrouping.MONTH, from, null, "USD", 7L, 3L);
+    }
+
+    @Test
+    void getChanges_ShouldReturnChangesSinceVersion() {
+        ExpenseChangesDto changes = new ExpenseChangesDto();
+        changes.setVersion(7);
+        changes.setUpserted(List.of(response1));
+        changes.setDeleted(List.of(3L));
+        when(expenseChangeService.getChanges(5)).thenReturn(changes);
+
+        ResponseEntity<ExpenseChangesDto> response = expenseController.getChanges(5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(changes, response.getBody());
+    }
+
+    @Test
+    void getChanges_WithoutSince_ShouldReturnBadRequest() throws Exception {
+        mockMvc().perform(get("/api/expenses/changes"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Missing parameter 'since'"));
+
+        verifyNoInteractions(expenseChangeService);
+    }
+
+    @Test
+    void streamChanges_ShouldReturnSubscribedEmitter() {
+        SseEmitter emitter = new SseEmitter();
+        when(expenseChangeBroadcaster.subscribe()).thenReturn(emitter);
+
+        assertSame(emitter, expenseController.streamChanges());
     }
 
     @Test
-    void getAllExpenses_WhenNoExpenses_ShouldReturnEmptyList() {
-        when(expenseService.getAllExpenses()).thenReturn(new ArrayList<>());
+    void searchExpenses_ShouldPassQueryAndFilterToSearchService() {
+        ExpenseSearchResultDto result = new ExpenseSearchResultDto();
+        result.setTotal(1);
+        result.setItems(List.of(response1));
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        ArgumentCaptor<ExpenseFilter> filterCaptor = ArgumentCaptor.forClass(ExpenseFilter.class);
+        when(expenseSearchService.search(eq("acme inv*"), filterCaptor.capture(), eq(10))).thenReturn(result);
 
-        ResponseEntity<List<ExpenseResponseDto>> response = expenseController.getAllExpenses();
+        ResponseEntity<ExpenseSearchResultDto> response = expenseController.searchExpenses("acme inv*", from, null, "FOOD", 10);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(result, response.getBody());
+        assertEquals(from, filterCaptor.getValue().getFrom());
+        assertNull(filterCaptor.getValue().getTo());
+        assertEquals("FOOD", filterCaptor.getValue().getCategory());
+    }
+
+    @Test
+    void searchExpenses_WithoutQuery_ShouldReturnBadRequest() throws Exception {
+        mockMvc().perform(get("/api/expenses/search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Missing parameter 'q'"));
+
+        verifyNoInteractions(expenseSearchService);
+    }
+
+    @Test
+    void exportExpenses_ShouldStreamFromExportService() throws IOException {
+        when(expenseExportService.exportExpenses(eq(ExportFormat.CSV), any(OutputStream.class))).thenReturn(2L);
+
+        ResponseEntity<StreamingResponseBody> response = expenseController.exportExpenses("csv");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ExportFormat.CSV.getMediaType(), response.getHeaders().getContentType());
         assertNotNull(response.getBody());
-        assertTrue(response.getBody().isEmpty());
-        verify(expenseService, times(1)).getAllExpenses();
+        verifyNoInteractions(expenseExportService);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        verify(expenseExportService, times(1)).exportExpenses(ExportFormat.CSV, outputStream);
+    }
+
+    @Test
+    void exportExpenses_WithUnknownFormat_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseController.exportExpenses("xml")
+        );
+        assertEquals("Unsupported export format: xml", exception.getMessage());
+        verifyNoInteractions(expenseExportService);
+    }
+
+    @Test
+    void getExpense_ShouldReturnExpense() {
+        when(expenseService.getExpense(1L)).thenReturn(response1);
+
+        ResponseEntity<ExpenseResponseDto> response = expenseController.getExpense(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Test Expense 1", response.getBody().getDescription());
+        verify(expenseService, times(1)).getExpense(1L);
+    }
+
+    @Test
+    void updateExpense_ShouldPassIfMatchVersionAndReturnStrongETag() {
+        response1.setVersion(5L);
+        when(expenseService.updateExpense(1L, validRequestDto, 4L)).thenReturn(response1);
+
+        ResponseEntity<ExpenseResponseDto> response = expenseController.updateExpense(1L, validRequestDto, "\"4\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"5\"", response.getHeaders().getETag());
+        assertSame(response1, response.getBody());
+    }
+
+    @Test
+    void patchExpense_WithoutIfMatch_ShouldUpdateAnyVersion() {
+        ExpenseRequestDto patch = new ExpenseRequestDto();
+        patch.setDescription("Renamed");
+        when(expenseService.patchExpense(1L, patch, null)).thenReturn(response1);
+
+        assertSame(response1, expenseController.patchExpense(1L, patch, "*").getBody());
+    }
+
+    @Test
+    void parseIfMatch_ShouldAcceptOnlyOneStrongETag() {
+        assertNull(ExpenseController.parseIfMatch(null));
+        assertNull(ExpenseController.parseIfMatch("*"));
+        assertEquals(12L, ExpenseController.parseIfMatch(" \"12\" "));
+        assertThrows(BadRequestException.class, () -> ExpenseController.parseIfMatch("W/\"12\""));
+        assertThrows(BadRequestException.class, () -> ExpenseController.parseIfMatch("\"1\", \"2\""));
+        assertThrows(BadRequestException.class, () -> ExpenseController.parseIfMatch("12"));
     }
 
     @Test
@@ -90,21 +348,108 @@ public class ExpenseControllerTest {
         ExpenseResponseDto createdExpense = new ExpenseResponseDto();
         createdExpense.setId(3L);
         createdExpense.setDescription("New Expense");
-        createdExpense.setAmount(new BigDecimal("75.25"));
+        createdExpense.setAmount(Money.parse("75.25", Money.DEFAULT_CURRENCY));
         createdExpense.setDate(LocalDate.now());
         createdExpense.setCategory("Utilities");
 
         when(expenseService.createExpense(any(ExpenseRequestDto.class))).thenReturn(createdExpense);
 
-        ResponseEntity<ExpenseResponseDto> response = expenseController.createExpense(validRequestDto);
+        ResponseEntity<?> response = expenseController.createExpense(validRequestDto, null);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        assertNotNull(response.getBody());
-        assertEquals(3L, response.getBody().getId());
-        assertEquals("New Expense", response.getBody().getDescription());
-        assertEquals(new BigDecimal("75.25"), response.getBody().getAmount());
-        assertEquals("Utilities", response.getBody().getCategory());
+        ExpenseResponseDto body = (ExpenseResponseDto) response.getBody();
+        assertNotNull(body);
+        assertEquals(3L, body.getId());
+        assertEquals("New Expense", body.getDescription());
+        assertEquals(Money.parse("75.25", Money.DEFAULT_CURRENCY), body.getAmount());
+        assertEquals("Utilities", body.getCategory());
         verify(expenseService, times(1)).createExpense(any(ExpenseRequestDto.class));
+        verifyNoInteractions(expenseIdempotencyService);
+    }
+
+    @Test
+    void createExpense_WithIdempotencyKey_ShouldDelegateToIdempotencyService() {
+        when(expenseIdempotencyService.createExpense(validRequestDto, "key-1"))
+                .thenReturn(new IdempotentResult(response1, false));
+
+        ResponseEntity<?> response = expenseController.createExpense(validRequestDto, "key-1");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(response1, response.getBody());
+        assertEquals("false", response.getHeaders().getFirst("Idempotent-Replayed"));
+        verify(expenseService, never()).createExpense(any(ExpenseRequestDto.class));
+    }
+
+    @Test
+    void createExpense_WithReplayedIdempotencyKey_ShouldFlagReplay() {
+        when(expenseIdempotencyService.createExpense(validRequestDto, "key-1"))
+                .thenReturn(new IdempotentResult(response1, true));
+
+        ResponseEntity<?> response = expenseController.createExpense(validRequestDto, "key-1");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(response1, response.getBody());
+        assertEquals("true", response.getHeaders().getFirst("Idempotent-Replayed"));
+    }
+
+    @Test
+    void createExpense_WhenIngestionIsAsync_ShouldQueueAndReturnAccepted() {
+        ExpenseIngestionStatusDto status = ExpenseIngestionStatusDto.queued(UUID.randomUUID());
+        when(expenseIngestionService.isAccepting()).thenReturn(true);
+        when(expenseIngestionService.submit(validRequestDto)).thenReturn(status);
+
+        ResponseEntity<?> response = expenseController.createExpense(validRequestDto, null);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(status, response.getBody());
+        assertEquals(URI.create("/api/expenses/ingestion/" + status.getTrackingId()), response.getHeaders().getLocation());
+        verify(expenseService, never()).createExpense(any(ExpenseRequestDto.class));
+    }
+
+    @Test
+    void getIngestionStatus_ShouldReturnStatus() {
+        UUID trackingId = UUID.randomUUID();
+        ExpenseIngestionStatusDto status = ExpenseIngestionStatusDto.created(trackingId, 3L);
+        when(expenseIngestionService.getStatus(trackingId)).thenReturn(status);
+
+        ResponseEntity<ExpenseIngestionStatusDto> response = expenseController.getIngestionStatus(trackingId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(status, response.getBody());
+    }
+
+    @Test
+    void createExpenses_WhenAllCreated_ShouldReturnCreated() {
+        ExpenseBatchResultDto batchResult = new ExpenseBatchResultDto();
+        batchResult.setCreated(1);
+        batchResult.setItems(List.of(ExpenseBatchItemResultDto.created(0, 3L)));
+        when(expenseService.createExpenses(anyList())).thenReturn(batchResult);
+
+        ResponseEntity<ExpenseBatchResultDto> response = expenseController.createExpenses(List.of(validRequestDto));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getCreated());
+        assertEquals(3L, response.getBody().getItems().get(0).getId());
+    }
+
+    @Test
+    void createExpenses_WhenSomeRejected_ShouldReturnOk() {
+        ExpenseBatchResultDto batchResult = new ExpenseBatchResultDto();
+        batchResult.setCreated(1);
+        batchResult.setRejected(1);
+        batchResult.setItems(List.of(
+                ExpenseBatchItemResultDto.created(0, 3L),
+                ExpenseBatchItemResultDto.rejected(1, "Expense amount cannot be null")));
+        when(expenseService.createExpenses(anyList())).thenReturn(batchResult);
+
+        ResponseEntity<ExpenseBatchResultDto> response = expenseController.createExpenses(
+                List.of(validRequestDto, new ExpenseRequestDto()));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getRejected());
+        assertEquals("Expense amount cannot be null", response.getBody().getItems().get(1).getError());
     }
 
     @Test
@@ -118,4 +463,23 @@ public class ExpenseControllerTest {
         assertNull(response.getBody());
         verify(expenseService, times(1)).deleteExpense(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteExpenses_ShouldReturnDeletedCount() {
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setIds(List.of(1L, 2L));
+        when(expenseService.deleteExpenses(request)).thenReturn(new ExpenseBulkDeleteResultDto(2));
+
+        ResponseEntity<ExpenseBulkDeleteResultDto> response = expenseController.deleteExpenses(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().getDeleted());
+    }
+
+    private MockMvc mockMvc() {
+        return MockMvcBuilders.standaloneSetup(expenseController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.ExpenseImportRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseImportStatusDto;
+import com.deltaservices.expensemanagement.model.ImportState;
+import com.deltaservices.expensemanagement.service.ExpenseImportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.net.URI;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseImportControllerTest {
+
+    @Mock
+    private ExpenseImportService expenseImportService;
+
+    @InjectMocks
+    private ExpenseImportController expenseImportController;
+
+    @Test
+    void importUpload_ShouldReturnAcceptedWithStatusLocation() {
+        MockMultipartFile file = new MockMultipartFile("file", "march.csv", "text/csv", new byte[]{'x'});
+        ExpenseImportStatusDto status = status();
+        when(expenseImportService.importUpload(file, null, "FOOD")).thenReturn(status);
+
+        ResponseEntity<ExpenseImportStatusDto> response = expenseImportController.importUpload(file, null, "FOOD");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(URI.create("/api/expenses/imports/" + status.getId()), response.getHeaders().getLocation());
+        assertEquals(status, response.getBody());
+    }
+
+    @Test
+    void importFile_ShouldPassPathFormatAndCategory() {
+        ExpenseImportRequestDto request = new ExpenseImportRequestDto();
+        request.setPath("2024/march.ofx");
+        request.setFormat("ofx");
+        ExpenseImportStatusDto status = status();
+        when(expenseImportService.importFile("2024/march.ofx", "ofx", null)).thenReturn(status);
+
+        ResponseEntity<ExpenseImportStatusDto> response = expenseImportController.importFile(request);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(status, response.getBody());
+    }
+
+    private static ExpenseImportStatusDto status() {
+        ExpenseImportStatusDto status = new ExpenseImportStatusDto();
+        status.setId(UUID.randomUUID());
+        status.setState(ImportState.QUEUED);
+        return status;
+    }
+}
@@ -0,0 +1,50 @@
+package com.deltaservices.expensemanagement.controller;
+
+import com.deltaservices.expensemanagement.model.RecurringExpenseDto;
+import com.deltaservices.expensemanagement.model.RecurringExpenseRequestDto;
+import com.deltaservices.expensemanagement.service.RecurringExpenseService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecurringExpenseControllerTest {
+
+    @Mock
+    private RecurringExpenseService recurringExpenseService;
+
+    @InjectMocks
+    private RecurringExpenseController recurringExpenseController;
+
+    @Test
+    void createRecurringExpense_ShouldReturnCreatedTemplate() {
+        RecurringExpenseRequestDto request = new RecurringExpenseRequestDto();
+        request.setSchedule("@monthly");
+        RecurringExpenseDto created = new RecurringExpenseDto();
+        created.setId(1L);
+        created.setNextDate(LocalDate.of(2024, 2, 1));
+        when(recurringExpenseService.createRecurringExpense(request)).thenReturn(created);
+
+        ResponseEntity<RecurringExpenseDto> response = recurringExpenseController.createRecurringExpense(request);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(created, response.getBody());
+    }
+
+    @Test
+    void deleteRecurringExpense_ShouldReturnNoContent() {
+        ResponseEntity<Void> response = recurringExpenseController.deleteRecurringExpense(1L);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(recurringExpenseService).deleteRecurringExpense(1L);
+    }
+}
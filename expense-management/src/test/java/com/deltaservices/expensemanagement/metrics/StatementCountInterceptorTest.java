@@ -0,0 +1,65 @@
+package com.deltaservices.expensemanagement.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCountInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StatementCountInterceptor interceptor;
+    private StatementCountInspector inspector;
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new StatementCountInterceptor(meterRegistry);
+        inspector = new StatementCountInspector();
+
+        request = new MockHttpServletRequest("GET", "/api/expenses/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/expenses/{id}");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void afterCompletion_ShouldRecordStatementsIssuedDuringRequest() {
+        interceptor.preHandle(request, response, null);
+        inspector.inspect("select 1");
+        inspector.inspect("select 2");
+        interceptor.afterCompletion(request, response, null, null);
+
+        DistributionSummary summary = meterRegistry.get(StatementCountInterceptor.STATEMENTS_PER_REQUEST)
+                .tag("method", "GET")
+                .tag("uri", "/api/expenses/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    void inspect_WithoutOpenCount_ShouldNotRecordAnything() {
+        assertEquals("select 1", inspector.inspect("select 1"));
+
+        assertEquals(-1, StatementCountInspector.stop());
+        interceptor.afterCompletion(request, response, null, null);
+        assertTrue(meterRegistry.find(StatementCountInterceptor.STATEMENTS_PER_REQUEST).meters().isEmpty());
+    }
+
+    @Test
+    void afterConcurrentHandlingStarted_ShouldCloseCountWithoutRecording() {
+        interceptor.preHandle(request, response, null);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertTrue(meterRegistry.find(StatementCountInterceptor.STATEMENTS_PER_REQUEST).meters().isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package com.deltaservices.expensemanagement.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    private static final Currency EUR = Money.DEFAULT_CURRENCY;
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new MoneyModule());
+
+    @Test
+    void parse_ShouldReadPlainDecimalsAsMinorUnits() {
+        assertEquals(1250, Money.parse("12.5", EUR).getMinorUnits());
+        assertEquals(1250, Money.parse("12.500", EUR).getMinorUnits());
+        assertEquals(1200, Money.parse("12", EUR).getMinorUnits());
+        assertEquals(10, Money.parse("0.10", EUR).getMinorUnits());
+        assertEquals(-5, Money.parse("-0.05", EUR).getMinorUnits());
+        assertEquals(120000, Money.parse("1.2E3", EUR).getMinorUnits());
+        assertEquals(1234, Money.parse("1234", JPY).getMinorUnits());
+    }
+
+    @Test
+    void parse_WithInvalidAmount_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("12.345", EUR));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.5", JPY));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("abc", EUR));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("-", EUR));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("99999999999999999999", EUR));
+    }
+
+    @Test
+    void of_ShouldConvertExactlyOrRoundWhenAsked() {
+        assertEquals(Money.ofMinor(7525, EUR), Money.of(new BigDecimal("75.25"), EUR));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("75.255"), EUR));
+        assertEquals(7526, Money.of(new BigDecimal("75.251"), EUR, RoundingMode.CEILING).getMinorUnits());
+        assertEquals(7525, Money.of(new BigDecimal("75.259"), EUR, RoundingMode.FLOOR).getMinorUnits());
+    }
+
+    @Test
+    void toPlainString_ShouldPadFractionalDigits() {
+        assertEquals("12.50", Money.ofMinor(1250, EUR).toPlainString());
+        assertEquals("0.05", Money.ofMinor(5, EUR).toPlainString());
+        assertEquals("-0.05", Money.ofMinor(-5, EUR).toPlainString());
+        assertEquals("-12.00", Money.ofMinor(-1200, EUR).toPlainString());
+        assertEquals("1234", Money.ofMinor(1234, JPY).toPlainString());
+        assertEquals("-92233720368547758.08", Money.ofMinor(Long.MIN_VALUE, EUR).toPlainString());
+        assertEquals("0.00", Money.ofMinor(0, EUR).toPlainString());
+        assertEquals(new BigDecimal("12.50"), Money.ofMinor(1250, EUR).toBigDecimal());
+    }
+
+    @Test
+    void arithmetic_ShouldRejectMixedCurrencies() {
+        assertEquals(Money.ofMinor(300, EUR), Money.ofMinor(100, EUR).plus(Money.ofMinor(200, EUR)));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(100, EUR).plus(Money.ofMinor(100, JPY)));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(100, EUR).compareTo(Money.ofMinor(100, JPY)));
+        assertTrue(Money.ofMinor(1, EUR).isPositive());
+        assertFalse(Money.ofMinor(0, EUR).isPositive());
+    }
+
+    @Test
+    void json_ShouldRoundTripAsPlainNumber() throws Exception {
+        ExpenseResponseDto dto = new ExpenseResponseDto();
+        dto.setAmount(Money.ofMinor(1250, EUR));
+
+        String json = objectMapper.writeValueAsString(dto);
+
+        assertTrue(json.contains("\"amount\":12.50"), json);
+        assertEquals(Money.ofMinor(1250, EUR), objectMapper.readValue(json, ExpenseResponseDto.class).getAmount());
+        assertEquals(10, objectMapper.readValue("{\"amount\":\"0.10\"}", ExpenseRequestDto.class).getAmount().getMinorUnits());
+    }
+
+    @Test
+    void binaryFormats_ShouldRoundTripAsExactDecimal() throws Exception {
+        ExpenseResponseDto dto = new ExpenseResponseDto();
+        dto.setAmount(Money.ofMinor(-1250, EUR));
+
+        for (ObjectMapper binary : new ObjectMapper[]{new ObjectMapper(new SmileFactory()), new ObjectMapper(new CBORFactory())}) {
+            binary.registerModule(new MoneyModule());
+            byte[] encoded = binary.writeValueAsBytes(dto);
+
+            assertEquals(Money.ofMinor(-1250, EUR), binary.readValue(encoded, ExpenseResponseDto.class).getAmount());
+            assertTrue(binary.readTree(encoded).get("amount").isBigDecimal());
+            byte[] tooPrecise = binary.writeValueAsBytes(Map.of("amount", new BigDecimal("1.005")));
+            assertThrows(InvalidFormatException.class, () -> binary.readValue(tooPrecise, ExpenseRequestDto.class));
+        }
+    }
+
+    @Test
+    void json_WithInvalidAmount_ShouldFailToDeserialize() {
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"amount\":12.345}", ExpenseRequestDto.class));
+        assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"amount\":true}", ExpenseRequestDto.class));
+    }
+}
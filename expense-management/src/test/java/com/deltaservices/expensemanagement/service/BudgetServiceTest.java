@@ -0,0 +1,343 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.BudgetThresholdCrossedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.model.Budget;
+import com.deltaservices.expensemanagement.model.BudgetDto;
+import com.deltaservices.expensemanagement.model.BudgetRequestDto;
+import com.deltaservices.expensemanagement.model.BudgetSpend;
+import com.deltaservices.expensemanagement.model.BudgetSpendId;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.BudgetRepository;
+import com.deltaservices.expensemanagement.repository.BudgetSpendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BudgetServiceTest {
+
+    private static final Currency EUR = Money.DEFAULT_CURRENCY;
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final YearMonth JUNE = YearMonth.of(2024, 6);
+    private static final Instant NOW = Instant.parse("2024-06-15T10:00:00Z");
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private BudgetSpendRepository budgetSpendRepository;
+
+    @Mock
+    private CategoryRegistry categoryRegistry;
+
+    @Mock
+    private ExpenseSummaryService expenseSummaryService;
+
+    @Mock
+    private ExpenseChangeService expenseChangeService;
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BudgetService budgetService;
+    private final Map<BudgetSpendId, BudgetSpend> counters = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        budgetService = new BudgetService(budgetRepository, budgetSpendRepository, categoryRegistry,
+                expenseSummaryService, expenseChangeService, fxRateService, schedulerLockService, eventPublisher,
+                transactionManager, List.of(100, 80), LEASE, Clock.fixed(NOW, ZoneOffset.UTC));
+        lenient().when(budgetRepository.findByCategoryIn(any())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).contains("Food")
+                        ? List.of(budget(1, "Food", "100.00", EUR)) : List.of());
+        // The counter rows, raised only while they are counted in the budget's currency
+        lenient().when(budgetSpendRepository.addToSpent(anyInt(), any(LocalDate.class), any(Currency.class), anyLong()))
+                .thenAnswer(invocation -> {
+                    BudgetSpend counter = counters.get(new BudgetSpendId(invocation.getArgument(0), invocation.getArgument(1)));
+                    if (counter == null || !counter.getCurrency().equals(invocation.getArgument(2))) {
+                        return 0;
+                    }
+                    counter.setSpentMinor(counter.getSpentMinor() + invocation.<Long>getArgument(3));
+                    return 1;
+                });
+        lenient().when(budgetSpendRepository.findSpent(anyInt(), any(LocalDate.class))).thenAnswer(invocation ->
+                counters.get(new BudgetSpendId(invocation.getArgument(0), invocation.getArgument(1))).getSpentMinor());
+        lenient().when(budgetSpendRepository.save(any(BudgetSpend.class))).thenAnswer(invocation -> {
+            BudgetSpend counter = invocation.getArgument(0);
+            counters.put(counter.getId(), counter);
+            return counter;
+        });
+    }
+
+    @Test
+    void onExpensesCreated_ShouldRaiseTheCounterAndAlertOnEachThresholdPassed() {
+        givenCounter(1, JUNE, "60.00", EUR);
+
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("10.00", EUR, "Food"))));
+        verifyNoInteractions(eventPublisher);
+
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("15.00", EUR, "Food"))));
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(
+                expense("10.00", EUR, "Food"), expense("10.00", EUR, "Food"), expense("5.00", EUR, "Transport"))));
+
+        ArgumentCaptor<BudgetThresholdCrossedEvent> crossed = ArgumentCaptor.forClass(BudgetThresholdCrossedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(crossed.capture());
+        assertEquals(80, crossed.getAllValues().get(0).getThreshold());
+        assertEquals(money("85.00", EUR), crossed.getAllValues().get(0).getSpent());
+        assertEquals(100, crossed.getAllValues().get(1).getThreshold());
+        assertEquals(money("105.00", EUR), crossed.getAllValues().get(1).getSpent());
+        assertEquals(NOW, crossed.getAllValues().get(1).getCrossedAt());
+        verify(budgetSpendRepository).addToSpent(1, JUNE.atDay(1), EUR, 2000L);
+        // Outside a transaction each check takes the version lock itself
+        verify(expenseChangeService, times(3)).lockVersion();
+        verifyNoInteractions(expenseSummaryService);
+    }
+
+    @Test
+    void onExpensesCreated_WhenAnotherInstanceAlreadyPassedThreshold_ShouldNotAlertAgain() {
+        givenCounter(1, JUNE, "85.00", EUR);
+
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("5.00", EUR, "Food"))));
+
+        verifyNoInteractions(eventPublisher);
+        assertEquals(9000L, counters.get(new BudgetSpendId(1, JUNE.atDay(1))).getSpentMinor());
+    }
+
+    @Test
+    void onExpensesCreated_WithoutCounter_ShouldCountTheMonthOnceFromTheSummary() {
+        // The summary already includes the expense being written
+        when(expenseSummaryService.getCategoryTotal("Food", JUNE, EUR)).thenReturn(money("85.00", EUR));
+
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("10.00", EUR, "Food"))));
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("20.00", EUR, "Food"))));
+
+        ArgumentCaptor<BudgetThresholdCrossedEvent> crossed = ArgumentCaptor.forClass(BudgetThresholdCrossedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(crossed.capture());
+        assertEquals(80, crossed.getAllValues().get(0).getThreshold());
+        assertEquals(money("105.00", EUR), crossed.getAllValues().get(1).getSpent());
+        verify(expenseSummaryService, times(1)).getCategoryTotal("Food", JUNE, EUR);
+    }
+
+    @Test
+    void onExpensesDeleted_InOtherCurrency_ShouldConvertWholeDaysAndRaiseAlertAgain() {
+        givenCounter(1, JUNE, "88.00", EUR);
+        Expense dollars = expense("20.00", USD, "Food");
+        when(expenseSummaryService.getDayTotal("Food", dollars.getDate(), USD)).thenReturn(0L, 2000L);
+        when(fxRateService.convert(Money.ofMinor(2000, USD), EUR, dollars.getDate())).thenReturn(money("18.00", EUR));
+        when(fxRateService.convert(Money.ofMinor(0, USD), EUR, dollars.getDate())).thenReturn(money("0", EUR));
+
+        budgetService.onExpensesDeleted(new ExpensesDeletedEvent(List.of(dollars)));
+        assertEquals(7000L, counters.get(new BudgetSpendId(1, JUNE.atDay(1))).getSpentMinor());
+        budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(dollars)));
+
+        ArgumentCaptor<BudgetThresholdCrossedEvent> crossed = ArgumentCaptor.forClass(BudgetThresholdCrossedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(crossed.capture());
+        assertEquals(80, crossed.getValue().getThreshold());
+        assertEquals(money("88.00", EUR), crossed.getValue().getSpent());
+    }
+
+    @Test
+    void onExpenseUpdated_ShouldApplyOneDeltaAndMoveSpendingOutOfCategory() {
+        givenCounter(1, JUNE, "70.00", EUR);
+        Expense lunch = expense("10.00", EUR, "Food");
+        Expense dearer = expense("25.00", EUR, "Food");
+
+        budgetService.onExpenseUpdated(new ExpenseUpdatedEvent(lunch, dearer));
+        budgetService.onExpenseUpdated(new ExpenseUpdatedEvent(dearer, expense("25.00", EUR, "Transport")));
+
+        ArgumentCaptor<BudgetThresholdCrossedEvent> crossed = ArgumentCaptor.forClass(BudgetThresholdCrossedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(crossed.capture());
+        assertEquals(80, crossed.getValue().getThreshold());
+        assertEquals(money("85.00", EUR), crossed.getValue().getSpent());
+        assertEquals(6000L, counters.get(new BudgetSpendId(1, JUNE.atDay(1))).getSpentMinor());
+    }
+
+    @Test
+    void onExpensesCreated_InTransaction_ShouldCountBeforeCommitAndPublishOnlyAfterCommit() {
+        givenCounter(1, JUNE, "75.00", EUR);
+
+        List<TransactionSynchronization> synchronizations = inTransaction(() -> {
+            budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("25.00", EUR, "Food"))));
+            budgetService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense("1.00", EUR, "Food"))));
+        });
+        assertEquals(1, synchronizations.size());
+        verify(budgetRepository, times(1)).findByCategoryIn(any());
+        verifyNoInteractions(budgetSpendRepository);
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        verify(budgetSpendRepository).addToSpent(1, JUNE.atDay(1), EUR, 2600L);
+        verifyNoInteractions(eventPublisher);
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        verify(eventPublisher, times(2)).publishEvent(any(BudgetThresholdCrossedEvent.class));
+        // The change log's synchronization holds the version lock
+        verifyNoInteractions(expenseChangeService);
+
+        synchronizations = inTransaction(() -> budgetService.onExpensesCreated(
+                new ExpensesCreatedEvent(List.of(expense("1.00", EUR, "Food")))));
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void getBudgets_ShouldReadTheMonthsCountersInOneQuery() {
+        Budget food = budget(1, "Food", "100.00", EUR);
+        Budget travel = budget(2, "Travel", "200.00", USD);
+        when(budgetRepository.findAll()).thenReturn(List.of(travel, food));
+        givenCounter(1, JUNE, "25.00", EUR);
+        // Counted before the budget moved to dollars
+        givenCounter(2, JUNE, "10.00", EUR);
+        when(budgetSpendRepository.findByIdMonthStart(JUNE.atDay(1))).thenReturn(List.copyOf(counters.values()));
+        when(expenseSummaryService.getCategoryTotal("Travel", JUNE, USD)).thenReturn(money("50.00", USD));
+
+        List<BudgetDto> budgets = budgetService.getBudgets(JUNE);
+
+        assertEquals(List.of("Food", "Travel"), budgets.stream().map(BudgetDto::getCategory).toList());
+        assertEquals(25, budgets.get(0).getPercentUsed());
+        assertEquals(money("50.00", USD), budgets.get(1).getSpent());
+        verify(expenseSummaryService, never()).getCategoryTotal(eq("Food"), any(), any());
+    }
+
+    @Test
+    void setBudget_ShouldValidateAndReportSpendingInTheNewCurrency() {
+        when(categoryRegistry.findId("Food")).thenReturn(1);
+        when(fxRateService.resolveCurrency("USD")).thenReturn(USD);
+        when(budgetRepository.findByCategory("Food")).thenReturn(Optional.of(budget(1, "Food", "100.00", EUR)));
+        when(budgetRepository.save(any(Budget.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        givenCounter(1, JUNE, "10.00", EUR);
+        when(budgetSpendRepository.findById(new BudgetSpendId(1, JUNE.atDay(1))))
+                .thenAnswer(invocation -> Optional.ofNullable(counters.get(invocation.<BudgetSpendId>getArgument(0))));
+        when(expenseSummaryService.getCategoryTotal("Food", JUNE, USD)).thenReturn(money("11.00", USD));
+
+        BudgetDto updated = budgetService.setBudget("Food", request("200.00", "USD"));
+
+        assertEquals(money("200.00", USD), updated.getAmount());
+        assertEquals(5, updated.getPercentUsed());
+        verify(budgetRepository).save(any(Budget.class));
+
+        assertThrows(BadRequestException.class, () -> budgetService.setBudget("Food", request("0", null)));
+        when(categoryRegistry.findId("Unknown")).thenReturn(null);
+        assertThrows(ResourceNotFoundException.class, () -> budgetService.setBudget("Unknown", request("1.00", null)));
+        when(budgetRepository.findByCategory("Transport")).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> budgetService.getBudget("Transport", JUNE));
+    }
+
+    @Test
+    void reconcile_ShouldCorrectDriftedCountersAndCountTheCurrentMonth() {
+        when(schedulerLockService.tryLock(BudgetService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(budgetRepository.findAll()).thenReturn(List.of(budget(1, "Food", "100.00", EUR)));
+        givenCounter(1, YearMonth.of(2024, 5), "40.00", EUR);
+        givenCounter(1, YearMonth.of(2024, 4), "30.00", EUR);
+        when(budgetSpendRepository.findAll()).thenReturn(List.copyOf(counters.values()));
+        when(expenseSummaryService.getCategoryTotal("Food", YearMonth.of(2024, 5), EUR)).thenReturn(money("42.00", EUR));
+        when(expenseSummaryService.getCategoryTotal("Food", YearMonth.of(2024, 4), EUR)).thenReturn(money("30.00", EUR));
+        when(expenseSummaryService.getCategoryTotal("Food", JUNE, EUR)).thenReturn(money("0", EUR));
+
+        assertEquals(2, budgetService.reconcile());
+
+        InOrder inOrder = inOrder(expenseChangeService, budgetSpendRepository);
+        inOrder.verify(expenseChangeService).lockVersion();
+        inOrder.verify(budgetSpendRepository).findAll();
+        assertEquals(4200L, counters.get(new BudgetSpendId(1, LocalDate.of(2024, 5, 1))).getSpentMinor());
+        assertEquals(EUR, counters.get(new BudgetSpendId(1, JUNE.atDay(1))).getCurrency());
+        verify(budgetSpendRepository, times(2)).save(any(BudgetSpend.class));
+        verify(schedulerLockService).unlock(BudgetService.LOCK_NAME);
+    }
+
+    @Test
+    void reconcile_WhenAnotherInstanceHoldsLease_ShouldSkip() {
+        when(schedulerLockService.tryLock(BudgetService.LOCK_NAME, LEASE)).thenReturn(false);
+
+        assertEquals(0, budgetService.reconcile());
+
+        verifyNoInteractions(budgetSpendRepository, expenseSummaryService, expenseChangeService);
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    private List<TransactionSynchronization> inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void givenCounter(int budgetId, YearMonth month, String spent, Currency currency) {
+        BudgetSpendId id = new BudgetSpendId(budgetId, month.atDay(1));
+        counters.put(id, new BudgetSpend(id, currency, money(spent, currency).getMinorUnits()));
+    }
+
+    private Budget budget(int id, String category, String amount, Currency currency) {
+        Budget budget = new Budget();
+        budget.setId(id);
+        budget.setCategory(category);
+        budget.setAmount(money(amount, currency));
+        return budget;
+    }
+
+    private BudgetRequestDto request(String amount, String currency) {
+        BudgetRequestDto request = new BudgetRequestDto();
+        request.setAmount(money(amount, EUR));
+        request.setCurrency(currency);
+        return request;
+    }
+
+    private Expense expense(String amount, Currency currency, String category) {
+        Expense expense = new Expense();
+        expense.setDescription("Expense");
+        expense.setAmount(money(amount, currency));
+        expense.setDate(LocalDate.of(2024, 6, 10));
+        expense.setCategory(category);
+        return expense;
+    }
+
+    private static Money money(String amount, Currency currency) {
+        return Money.parse(amount, currency);
+    }
+}
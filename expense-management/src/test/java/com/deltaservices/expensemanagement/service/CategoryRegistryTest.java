@@ -0,0 +1,141 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.Category;
+import com.deltaservices.expensemanagement.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CategoryRegistryTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CategoryRegistry categoryRegistry;
+
+    @BeforeEach
+    void setUp() {
+        when(categoryRepository.findAll()).thenReturn(List.of(
+                new Category(2, "OTHER", "Other"),
+                new Category(1, "FOOD", "Food")));
+        categoryRegistry = new CategoryRegistry(categoryRepository, transactionManager, 10);
+        categoryRegistry.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(categoryRegistry);
+    }
+
+    @Test
+    void load_ShouldCreateDefaultCategories() {
+        verify(categoryRepository).findOrCreate("FOOD", "Food");
+        verify(categoryRepository).findOrCreate("OTHER", "Other");
+    }
+
+    @Test
+    void findId_And_getName_ShouldResolveFromMemory() {
+        assertEquals(1, categoryRegistry.findId("FOOD"));
+        assertEquals("OTHER", categoryRegistry.getName(2));
+        assertNull(categoryRegistry.findId("Travel"));
+        verify(categoryRepository, never()).findDetachedById(anyInt());
+    }
+
+    @Test
+    void getCategories_ShouldBeSortedByName() {
+        List<Category> categories = categoryRegistry.getCategories();
+
+        assertEquals(List.of("FOOD", "OTHER"), categories.stream().map(Category::getName).toList());
+    }
+
+    @Test
+    void getName_WithIdMissingFromMemory_ShouldLoadAndKeepIt() {
+        when(categoryRepository.findDetachedById(9)).thenReturn(Optional.of(new Category(9, "Travel", "Travel")));
+
+        assertEquals("Travel", categoryRegistry.getName(9));
+        assertEquals(9, categoryRegistry.findId("Travel"));
+        verify(categoryRepository, times(1)).findDetachedById(9);
+    }
+
+    @Test
+    void resolveId_WithNewCategory_ShouldPublishItOnlyAfterCommit() {
+        when(categoryRepository.findOrCreate("Travel", "Travel")).thenReturn(new Category(9, "Travel", "Travel"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(9, categoryRegistry.resolveId("Travel"));
+        assertEquals(9, categoryRegistry.findId("Travel"));
+        assertEquals(9, categoryRegistry.resolveId("Travel"));
+        verify(categoryRepository, times(1)).findOrCreate("Travel", "Travel");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(9, categoryRegistry.findId("Travel"));
+        assertEquals("Travel", categoryRegistry.getName(9));
+    }
+
+    @Test
+    void resolveId_WhenTransactionRollsBack_ShouldForgetNewCategory() {
+        when(categoryRepository.findOrCreate("Travel", "Travel")).thenReturn(new Category(9, "Travel", "Travel"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        categoryRegistry.resolveId("Travel");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNull(categoryRegistry.findId("Travel"));
+    }
+
+    @Test
+    void resolveId_WithKnownCategory_ShouldNotQueryDatabase() {
+        clearInvocations(categoryRepository);
+
+        assertEquals(1, categoryRegistry.resolveId("FOOD"));
+        assertNull(categoryRegistry.resolveId(null));
+        verify(categoryRepository, never()).findOrCreate(anyString(), anyString());
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @Test
+    void resolveId_WhenLimitIsReached_ShouldRejectNewNamesButKeepResolvingKnownOnes() {
+        when(categoryRepository.count()).thenReturn(10L);
+
+        assertThrows(BadRequestException.class, () -> categoryRegistry.resolveId("Travel"));
+        assertEquals(1, categoryRegistry.resolveId("FOOD"));
+        verify(categoryRepository, never()).findOrCreate("Travel", "Travel");
+    }
+
+    @Test
+    void resolveId_WithInvalidNewName_ShouldThrowBadRequestException() {
+        assertThrows(BadRequestException.class, () -> categoryRegistry.resolveId(" Travel"));
+        assertThrows(BadRequestException.class, () -> categoryRegistry.resolveId("Tra\nvel"));
+        assertTrue(CategoryRegistry.isValidName("Café & Bars"));
+        assertTrue(CategoryRegistry.isValidName("X"));
+        verify(categoryRepository, never()).findOrCreate(" Travel", " Travel");
+    }
+}
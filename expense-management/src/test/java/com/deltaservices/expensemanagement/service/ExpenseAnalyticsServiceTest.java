@@ -0,0 +1,264 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.FxRatesImportedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.exception.ServiceUnavailableException;
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.AnalyticsReportDto;
+import com.deltaservices.expensemanagement.model.CategoryPercentilesDto;
+import com.deltaservices.expensemanagement.model.DescriptionSpendDto;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.WeeklySpendDto;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseAnalyticsServiceTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private ExpenseChangeService expenseChangeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Runnable> loads = new ArrayList<>();
+    private ExpenseAnalyticsService analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        // Loads are queued and run by the test
+        analyticsService = new ExpenseAnalyticsService(expenseRepository, archivedExpenseRepository, fxRateService,
+                expenseChangeService, transactionManager, new ExpenseMetrics(new SimpleMeterRegistry()), loads::add,
+                Clock.fixed(Instant.parse("2024-03-20T10:00:00Z"), ZoneOffset.UTC));
+        lenient().when(expenseChangeService.getVersion()).thenReturn(version(3));
+    }
+
+    @Test
+    void reports_BeforeFirstLoad_ShouldThrowServiceUnavailableException() {
+        analyticsService.onApplicationReady();
+
+        assertEquals(1, loads.size());
+        assertThrows(ServiceUnavailableException.class,
+                () -> analyticsService.getTopDescriptions(null, null, null, "amount", 10));
+    }
+
+    @Test
+    void rebuild_ShouldMergeArchiveAndConvertToReportingCurrency() {
+        when(archivedExpenseRepository.streamAnalyticsFields()).thenReturn(Stream.of(
+                row(expense(1L, "Hotel", "120.00", Money.DEFAULT_CURRENCY, "2024-03-04")),
+                row(expense(4L, "Hotel", "50.00", USD, "2024-03-05"))));
+        when(expenseRepository.streamAnalyticsFields()).thenReturn(Stream.of(
+                row(expense(2L, "Taxi", "30.00", USD, "2024-03-06")),
+                row(expense(3L, "Taxi", "15.00", Money.DEFAULT_CURRENCY, "2024-03-06"))));
+        when(fxRateService.convert(Money.parse("30.00", USD), Money.DEFAULT_CURRENCY, LocalDate.of(2024, 3, 6)))
+                .thenReturn(Money.parse("27.00", Money.DEFAULT_CURRENCY));
+        when(fxRateService.convert(Money.parse("50.00", USD), Money.DEFAULT_CURRENCY, LocalDate.of(2024, 3, 5)))
+                .thenThrow(new BadRequestException("No exchange rate from USD to EUR"));
+
+        analyticsService.rebuild();
+        AnalyticsReportDto<DescriptionSpendDto> report =
+                analyticsService.getTopDescriptions(null, null, null, "amount", 10);
+
+        assertEquals(4, analyticsService.size());
+        assertEquals("EUR", report.getCurrency());
+        assertEquals(1, report.getUnconverted());
+        assertEquals(List.of("Hotel", "Taxi"), report.getItems().stream().map(DescriptionSpendDto::getDescription).toList());
+        assertEquals(Money.parse("42.00", Money.DEFAULT_CURRENCY), report.getItems().get(1).getTotal());
+    }
+
+    @Test
+    void onExpenseEvents_DuringLoad_ShouldApplyToLoadedColumns() {
+        Expense lunch = expense(7L, "Lunch", "10.00", Money.DEFAULT_CURRENCY, "2024-03-11");
+        Expense dinner = expense(8L, "Dinner", "25.00", Money.DEFAULT_CURRENCY, "2024-03-12");
+        when(expenseRepository.streamAnalyticsFields()).thenAnswer(invocation -> {
+            // Committed while the rows are read: lunch was read, dinner was not
+            analyticsService.onExpensesCreated(new ExpensesCreatedEvent(List.of(lunch, dinner)));
+            analyticsService.onExpensesDeleted(new ExpensesDeletedEvent(List.of(lunch)));
+            return Stream.<Object[]>of(row(lunch));
+        });
+
+        analyticsService.rebuild();
+        AnalyticsReportDto<DescriptionSpendDto> report =
+                analyticsService.getTopDescriptions(null, null, null, "count", 10);
+
+        assertEquals(List.of("Dinner"), report.getItems().stream().map(DescriptionSpendDto::getDescription).toList());
+    }
+
+    @Test
+    void pollChanges_ShouldApplyChangesCommittedOnAnyInstance() {
+        Expense lunch = expense(7L, "Lunch", "10.00", Money.DEFAULT_CURRENCY, "2024-03-11");
+        Expense taxi = expense(8L, "Taxi", "30.00", USD, "2024-03-12");
+        when(expenseRepository.streamAnalyticsFields()).thenReturn(Stream.<Object[]>of(row(lunch)));
+        analyticsService.rebuild();
+        when(expenseChangeService.getVersion()).thenReturn(version(5));
+        // Read in two pages
+        when(expenseChangeService.getChangePage(3)).thenReturn(changes(4, List.of(taxi), List.of()));
+        when(expenseChangeService.getChangePage(4)).thenReturn(changes(5, List.of(), List.of(7L)));
+        when(fxRateService.convert(Money.parse("30.00", USD), Money.DEFAULT_CURRENCY, LocalDate.of(2024, 3, 12)))
+                .thenReturn(Money.parse("27.00", Money.DEFAULT_CURRENCY));
+
+        analyticsService.pollChanges();
+        analyticsService.pollChanges();
+        AnalyticsReportDto<DescriptionSpendDto> report =
+                analyticsService.getTopDescriptions(null, null, null, "amount", 10);
+
+        assertEquals(List.of("Taxi"), report.getItems().stream().map(DescriptionSpendDto::getDescription).toList());
+        assertEquals(Money.parse("27.00", Money.DEFAULT_CURRENCY), report.getItems().get(0).getTotal());
+        verify(expenseChangeService, times(2)).getChangePage(anyLong());
+    }
+
+    @Test
+    void pollChanges_WhenChangesWerePurged_ShouldQueueLoad() {
+        when(expenseRepository.streamAnalyticsFields()).thenReturn(Stream.empty());
+        analyticsService.rebuild();
+        when(expenseChangeService.getVersion()).thenReturn(version(9));
+        when(expenseChangeService.getChangePage(3)).thenThrow(new GoneException("Purged"));
+
+        analyticsService.pollChanges();
+
+        assertEquals(1, loads.size());
+    }
+
+    @Test
+    void getPercentiles_ShouldKeyByPercentile() {
+        when(expenseRepository.streamAnalyticsFields()).thenReturn(Stream.of(
+                row(expense(1L, "Bus", "2.00", Money.DEFAULT_CURRENCY, "2024-03-04")),
+                row(expense(2L, "Bus", "3.00", Money.DEFAULT_CURRENCY, "2024-03-05")),
+                row(expense(3L, "Taxi", "40.00", Money.DEFAULT_CURRENCY, "2024-03-06"))));
+        analyticsService.rebuild();
+
+        CategoryPercentilesDto transport = analyticsService.getPercentiles(null, null,
+                List.of(BigDecimal.valueOf(50), new BigDecimal("99.90"))).getItems().get(0);
+
+        assertEquals("TRANSPORT", transport.getCategory());
+        assertEquals(3, transport.getCount());
+        assertEquals(Map.of("p50", Money.parse("3.00", Money.DEFAULT_CURRENCY),
+                "p99.9", Money.parse("40.00", Money.DEFAULT_CURRENCY)), transport.getPercentiles());
+    }
+
+    @Test
+    void getWeeklyTrend_ShouldAlignToWeeksAndCompareWithWeekBefore() {
+        when(expenseRepository.streamAnalyticsFields()).thenReturn(Stream.of(
+                row(expense(1L, "Bus", "20.00", Money.DEFAULT_CURRENCY, "2024-03-05")),
+                row(expense(2L, "Bus", "30.00", Money.DEFAULT_CURRENCY, "2024-03-13"))));
+        analyticsService.rebuild();
+
+        AnalyticsReportDto<WeeklySpendDto> report =
+                analyticsService.getWeeklyTrend(LocalDate.of(2024, 2, 28), null, "TRANSPORT");
+
+        assertEquals(LocalDate.of(2024, 2, 26), report.getFrom());
+        assertEquals(LocalDate.of(2024, 3, 24), report.getTo());
+        List<WeeklySpendDto> weeks = report.getItems();
+        assertEquals(4, weeks.size());
+        assertNull(weeks.get(0).getChange());
+        assertNull(weeks.get(1).getChangePercent());
+        assertEquals(Money.parse("10.00", Money.DEFAULT_CURRENCY), weeks.get(2).getChange());
+        assertEquals(new BigDecimal("50.0"), weeks.get(2).getChangePercent());
+        assertEquals(new BigDecimal("-100.0"), weeks.get(3).getChangePercent());
+        assertEquals(12, analyticsService.getWeeklyTrend(null, null, null).getItems().size());
+    }
+
+    @Test
+    void reports_WithInvalidArguments_ShouldThrowBadRequestException() {
+        LocalDate from = LocalDate.of(2024, 2, 1);
+        LocalDate to = LocalDate.of(2024, 1, 1);
+
+        assertThrows(BadRequestException.class, () -> analyticsService.getTopDescriptions(from, to, null, "amount", 10));
+        assertThrows(BadRequestException.class, () -> analyticsService.getTopDescriptions(null, null, null, "amount", 0));
+        assertThrows(BadRequestException.class, () -> analyticsService.getTopDescriptions(null, null, null, "mean", 10));
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getPercentiles(null, null, List.of(BigDecimal.valueOf(101))));
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getWeeklyTrend(LocalDate.of(2000, 1, 1), LocalDate.of(2024, 1, 1), null));
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void onFxRatesImported_ShouldQueueLoad() {
+        analyticsService.onFxRatesImported(new FxRatesImportedEvent(2));
+        when(fxRateService.convert(any(), eq(Money.DEFAULT_CURRENCY), any()))
+                .thenReturn(Money.parse("9.00", Money.DEFAULT_CURRENCY));
+        when(expenseRepository.streamAnalyticsFields()).thenReturn(Stream.<Object[]>of(
+                row(expense(1L, "Bus", "10.00", USD, "2024-03-05"))));
+
+        loads.forEach(Runnable::run);
+
+        assertEquals(0, analyticsService.getTopDescriptions(null, null, null, "amount", 10).getUnconverted());
+    }
+
+    private static ExpenseChangeService.Version version(long number) {
+        return new ExpenseChangeService.Version(number, Instant.parse("2024-03-20T10:00:00Z"), 0);
+    }
+
+    private static ExpenseChangesDto changes(long version, List<Expense> upserted, List<Long> deleted) {
+        ExpenseChangesDto changes = new ExpenseChangesDto();
+        changes.setVersion(version);
+        changes.setUpserted(upserted.stream().map(expense -> {
+            ExpenseResponseDto dto = new ExpenseResponseDto();
+            dto.setId(expense.getId());
+            dto.setDescription(expense.getDescription());
+            dto.setAmount(expense.getAmount());
+            dto.setCurrency(expense.getCurrency().getCurrencyCode());
+            dto.setDate(expense.getDate());
+            dto.setCategory(expense.getCategory());
+            return dto;
+        }).toList());
+        changes.setDeleted(deleted);
+        return changes;
+    }
+
+    private static Object[] row(Expense expense) {
+        return new Object[]{expense.getId(), expense.getDate(), expense.getAmountMinor(), expense.getCurrency(),
+                expense.getCategory(), expense.getDescription()};
+    }
+
+    private static Expense expense(Long id, String description, String amount, Currency currency, String date) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setDescription(description);
+        expense.setAmount(Money.parse(amount, currency));
+        expense.setDate(LocalDate.parse(date));
+        expense.setCategory(description.equals("Bus") || description.equals("Taxi") ? "TRANSPORT" : "TRAVEL");
+        return expense;
+    }
+}
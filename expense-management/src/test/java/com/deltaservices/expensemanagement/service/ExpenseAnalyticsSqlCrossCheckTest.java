@@ -0,0 +1,171 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.CategoryPercentilesDto;
+import com.deltaservices.expensemanagement.model.DescriptionSpendDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.WeeklySpendDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the analytics reports against the database and compares them with the same
+ * reports written in SQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ExpenseAnalyticsSqlCrossCheckTest {
+
+    private static final LocalDate FROM = LocalDate.of(2031, 1, 6);
+    private static final LocalDate TO = LocalDate.of(2031, 6, 29);
+    private static final List<String> CATEGORIES = List.of("FOOD", "TRANSPORT", "UTILITIES", "OTHER");
+    private static final List<BigDecimal> PERCENTILES = List.of(BigDecimal.ZERO, BigDecimal.valueOf(50),
+            BigDecimal.valueOf(90), new BigDecimal("99.9"), BigDecimal.valueOf(100));
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseAnalyticsService analyticsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        int days = (int) (TO.toEpochDay() - FROM.toEpochDay()) + 1;
+        List<ExpenseRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < 5003; i++) {
+            ExpenseRequestDto request = new ExpenseRequestDto();
+            request.setDescription("Merchant " + random.nextInt(60));
+            // Few distinct amounts, so totals tie and percentiles hit duplicates
+            request.setAmount(Money.ofMinor(100L * (1 + random.nextInt(random.nextBoolean() ? 20 : 500)),
+                    Money.DEFAULT_CURRENCY));
+            request.setDate(FROM.plusDays(random.nextInt(days)));
+            request.setCategory(CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+            requests.add(request);
+            if (requests.size() == ExpenseService.BATCH_CHUNK_SIZE) {
+                create(requests);
+            }
+        }
+        create(requests);
+        analyticsService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setFrom(FROM);
+        request.setTo(TO);
+        expenseService.deleteExpenses(request);
+    }
+
+    @Test
+    void topDescriptions_ShouldMatchSql() {
+        for (String by : List.of("amount", "count")) {
+            String order = by.equals("amount") ? "total desc, n desc" : "n desc, total desc";
+            List<String> expected = jdbcTemplate.query("select e.description, count(*) n, sum(e.amount_minor) total "
+                            + "from expenses e join categories c on c.id = e.category_id "
+                            + "where e.date between ? and ? and c.name = ? "
+                            + "group by e.description order by " + order + ", e.description limit 20",
+                    (rs, row) -> rs.getString(1) + "|" + rs.getLong(2) + "|" + rs.getLong(3),
+                    FROM.plusWeeks(2), TO.minusWeeks(2), "FOOD");
+
+            List<String> actual = analyticsService.getTopDescriptions(FROM.plusWeeks(2), TO.minusWeeks(2), "FOOD", by, 20)
+                    .getItems().stream()
+                    .map(item -> item.getDescription() + "|" + item.getCount() + "|" + item.getTotal().getMinorUnits())
+                    .toList();
+
+            assertEquals(expected, actual, "ranked by " + by);
+        }
+    }
+
+    @Test
+    void percentiles_ShouldMatchNearestRankInSql() {
+        Map<String, StringBuilder> expected = new LinkedHashMap<>();
+        jdbcTemplate.query("select c.name, count(*), sum(e.amount_minor) from expenses e "
+                        + "join categories c on c.id = e.category_id where e.date between ? and ? "
+                        + "group by c.name order by c.name",
+                (rs, row) -> expected.put(rs.getString(1),
+                        new StringBuilder().append(rs.getLong(2)).append('|').append(rs.getLong(3))),
+                FROM, TO);
+        // The standard percentile_disc: the first amount whose cume_dist reaches p. H2's
+        // own percentile_disc rounds the row position instead, so the rank is spelled out
+        for (BigDecimal p : PERCENTILES) {
+            jdbcTemplate.query("select name, amount from (select c.name, e.amount_minor amount, "
+                            + "row_number() over (partition by c.name order by e.amount_minor) rn, "
+                            + "count(*) over (partition by c.name) n "
+                            + "from expenses e join categories c on c.id = e.category_id "
+                            + "where e.date between ? and ?) ranked "
+                            + "where rn = greatest(1, ceiling(cast(? as decimal(10, 4)) * n / 100)) order by name",
+                    (rs, row) -> expected.get(rs.getString(1)).append('|').append(rs.getLong(2)),
+                    FROM, TO, p);
+        }
+
+        Map<String, StringBuilder> actual = new LinkedHashMap<>();
+        for (CategoryPercentilesDto item : analyticsService.getPercentiles(FROM, TO, PERCENTILES).getItems()) {
+            StringBuilder line = new StringBuilder().append(item.getCount()).append('|')
+                    .append(item.getTotal().getMinorUnits());
+            item.getPercentiles().values().forEach(value -> line.append('|').append(value.getMinorUnits()));
+            actual.put(item.getCategory(), line);
+        }
+
+        assertEquals(CATEGORIES.size(), expected.size());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    void weeklyTrend_ShouldMatchSqlAfterIncrementalChanges() {
+        // Applied from the delete event, without another load
+        ExpenseBulkDeleteRequestDto delete = new ExpenseBulkDeleteRequestDto();
+        delete.setIds(ids.subList(0, 700));
+        expenseService.deleteExpenses(delete);
+
+        Map<LocalDate, String> expected = new LinkedHashMap<>();
+        jdbcTemplate.query("select dateadd('DAY', 1 - iso_day_of_week(e.date), e.date) week, count(*), "
+                        + "sum(e.amount_minor) from expenses e join categories c on c.id = e.category_id "
+                        + "where e.date between ? and ? and c.name = ? group by week order by week",
+                (rs, row) -> expected.put(rs.getObject(1, LocalDate.class), rs.getLong(2) + "|" + rs.getLong(3)),
+                FROM, TO, "TRANSPORT");
+
+        Map<LocalDate, String> actual = new LinkedHashMap<>();
+        for (WeeklySpendDto week : analyticsService.getWeeklyTrend(FROM, TO, "TRANSPORT").getItems()) {
+            if (week.getCount() > 0) {
+                actual.put(week.getWeekStart(), week.getCount() + "|" + week.getTotal().getMinorUnits());
+            }
+        }
+
+        assertEquals(25, expected.size());
+        assertEquals(expected, actual);
+        assertEquals(ids.size() - 700, analyticsService.getTopDescriptions(FROM, TO, null, "count", 100)
+                .getItems().stream().mapToLong(DescriptionSpendDto::getCount).sum());
+    }
+
+    private void create(List<ExpenseRequestDto> requests) {
+        for (ExpenseBatchItemResultDto item : expenseService.createExpenses(requests).getItems()) {
+            assertNull(item.getError());
+            ids.add(item.getId());
+        }
+        requests.clear();
+    }
+}
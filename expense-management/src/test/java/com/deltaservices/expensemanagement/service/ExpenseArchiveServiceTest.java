@@ -0,0 +1,96 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseTableVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseArchiveServiceTest {
+
+    private static final LocalDate CUTOFF = LocalDate.of(2022, 6, 15);
+    private static final Duration LEASE = Duration.ofHours(1);
+
+    @Mock
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Mock
+    private ExpenseTableVersionRepository expenseTableVersionRepository;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExpenseArchiveService expenseArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2024-06-15T10:00:00Z"), ZoneOffset.UTC);
+        expenseArchiveService = new ExpenseArchiveService(archivedExpenseRepository, expenseTableVersionRepository,
+                schedulerLockService, transactionManager, Period.ofYears(2), LEASE, clock);
+    }
+
+    @Test
+    void archive_ShouldMoveChunksUntilNoneLeftAndRaiseBoundaryWithThem() {
+        when(schedulerLockService.tryLock(ExpenseArchiveService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(archivedExpenseRepository.archiveBefore(CUTOFF, 1000)).thenReturn(1000, 250, 0);
+
+        assertEquals(1250, expenseArchiveService.archive());
+
+        InOrder inOrder = inOrder(transactionManager, archivedExpenseRepository, expenseTableVersionRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(archivedExpenseRepository).archiveBefore(CUTOFF, 1000);
+        inOrder.verify(expenseTableVersionRepository).raiseArchivedBefore(ExpenseTableVersion.ID, CUTOFF);
+        inOrder.verify(transactionManager).commit(any());
+        verify(archivedExpenseRepository, times(3)).archiveBefore(CUTOFF, 1000);
+        verify(expenseTableVersionRepository, times(2)).raiseArchivedBefore(ExpenseTableVersion.ID, CUTOFF);
+        verify(schedulerLockService).unlock(ExpenseArchiveService.LOCK_NAME);
+    }
+
+    @Test
+    void archive_WhenAnotherInstanceHoldsLease_ShouldSkip() {
+        when(schedulerLockService.tryLock(ExpenseArchiveService.LOCK_NAME, LEASE)).thenReturn(false);
+
+        assertEquals(0, expenseArchiveService.archive());
+
+        verify(archivedExpenseRepository, never()).archiveBefore(any(), anyInt());
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    @Test
+    void mayContain_WithEmptyArchive_ShouldNeverRouteToArchive() {
+        when(expenseTableVersionRepository.findArchivedBefore(ExpenseTableVersion.ID)).thenReturn(null);
+
+        assertNull(expenseArchiveService.getArchivedBefore());
+        assertFalse(expenseArchiveService.mayContain(null));
+    }
+
+    @Test
+    void mayContain_ShouldFollowTheStoredBoundary() {
+        // Raised by another instance
+        when(expenseTableVersionRepository.findArchivedBefore(ExpenseTableVersion.ID)).thenReturn(CUTOFF);
+
+        assertTrue(expenseArchiveService.mayContain(null));
+        assertTrue(expenseArchiveService.mayContain(CUTOFF.minusDays(1)));
+        assertFalse(expenseArchiveService.mayContain(CUTOFF));
+    }
+}
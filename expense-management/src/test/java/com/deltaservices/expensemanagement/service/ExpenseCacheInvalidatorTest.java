@@ -0,0 +1,113 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.config.CacheConfig;
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.event.FxRatesImportedEvent;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.model.Expense;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ExpenseCacheInvalidatorTest {
+
+    private CacheManager cacheManager;
+    private ExpenseChangeService expenseChangeService;
+    private ExpenseCacheInvalidator expenseCacheInvalidator;
+
+    private Expense expense1;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(
+                CacheConfig.EXPENSES, CacheConfig.EXPENSE_PAGES, CacheConfig.EXPENSE_SUMMARIES);
+        expenseChangeService = mock(ExpenseChangeService.class);
+        expenseCacheInvalidator = new ExpenseCacheInvalidator(cacheManager, expenseChangeService);
+
+        cacheManager.getCache(CacheConfig.EXPENSES).put(1L, "expense 1");
+        cacheManager.getCache(CacheConfig.EXPENSES).put(2L, "expense 2");
+        cacheManager.getCache(CacheConfig.EXPENSE_PAGES).put("page", "page");
+        cacheManager.getCache(CacheConfig.EXPENSE_SUMMARIES).put("summary", "summary");
+
+        expense1 = new Expense();
+        expense1.setId(1L);
+    }
+
+    @Test
+    void onExpensesCreated_ShouldClearListingsAndKeepExpenses() {
+        expenseCacheInvalidator.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense1)));
+
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSES).get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSE_PAGES).get("page"));
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSE_SUMMARIES).get("summary"));
+    }
+
+    @Test
+    void onExpensesDeleted_ShouldEvictOnlyTheDeletedExpenses() {
+        expenseCacheInvalidator.onExpensesDeleted(new ExpensesDeletedEvent(List.of(expense1)));
+
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSES).get(1L));
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSES).get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSE_PAGES).get("page"));
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSE_SUMMARIES).get("summary"));
+    }
+
+    @Test
+    void onExpenseUpdated_ShouldEvictOnlyTheUpdatedExpense() {
+        expenseCacheInvalidator.onExpenseUpdated(new ExpenseUpdatedEvent(expense1, expense1));
+
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSES).get(1L));
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSES).get(2L));
+    }
+
+    @Test
+    void pollChanges_ShouldEvictExpensesChangedOnAnyInstance() {
+        givenVersion(3);
+        expenseCacheInvalidator.pollChanges();
+
+        givenVersion(9);
+        when(expenseChangeService.getChangedIds(3)).thenReturn(new ExpenseChangeService.ChangedIds(6, Set.of(1L)));
+        when(expenseChangeService.getChangedIds(6)).thenReturn(new ExpenseChangeService.ChangedIds(9, Set.of(3L)));
+        expenseCacheInvalidator.pollChanges();
+
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSES).get(1L));
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSES).get(2L));
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSE_PAGES).get("page"));
+        verify(expenseChangeService, times(2)).getChangedIds(anyLong());
+    }
+
+    @Test
+    void pollChanges_WhenChangesWerePurged_ShouldClearExpenses() {
+        givenVersion(3);
+        expenseCacheInvalidator.pollChanges();
+
+        givenVersion(4);
+        when(expenseChangeService.getChangedIds(3)).thenThrow(new GoneException("Purged"));
+        expenseCacheInvalidator.pollChanges();
+
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSES).get(2L));
+    }
+
+    @Test
+    void onFxRatesImported_ShouldOnlyClearSummaries() {
+        expenseCacheInvalidator.onFxRatesImported(new FxRatesImportedEvent(2));
+
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSES).get(1L));
+        assertNotNull(cacheManager.getCache(CacheConfig.EXPENSE_PAGES).get("page"));
+        assertNull(cacheManager.getCache(CacheConfig.EXPENSE_SUMMARIES).get("summary"));
+    }
+
+    private void givenVersion(long version) {
+        when(expenseChangeService.getVersion()).thenReturn(new ExpenseChangeService.Version(version, Instant.EPOCH, 0));
+    }
+}
@@ -0,0 +1,246 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.exception.ServiceUnavailableException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseChangeBroadcasterTest {
+
+    @Mock
+    private ExpenseChangeService expenseChangeService;
+
+    @Mock
+    private Clock clock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TestExecutor dispatcher;
+    // Send tasks are held here instead of run, like senders that cannot keep up
+    private TestExecutor senders;
+    private List<Runnable> pendingSends;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new TestExecutor(true);
+        senders = new TestExecutor(false);
+        pendingSends = senders.held;
+        lenient().when(clock.millis()).thenReturn(1_000L);
+    }
+
+    private ExpenseChangeBroadcaster broadcaster(int bufferSize, int maxSubscribers) {
+        ExpenseChangeBroadcaster broadcaster = new ExpenseChangeBroadcaster(expenseChangeService, new ObjectMapper(),
+                meterRegistry, bufferSize, maxSubscribers, Duration.ofMinutes(30), Duration.ofSeconds(10),
+                dispatcher, senders, clock);
+        broadcaster.start();
+        return broadcaster;
+    }
+
+    @Test
+    void onExpensesCreated_WithoutSubscribers_ShouldOnlyTrackTheVersion() {
+        ExpenseChangeBroadcaster broadcaster = broadcaster(4, 10);
+        givenVersion(3);
+
+        broadcaster.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense(1L))));
+
+        verify(expenseChangeService, never()).getChanges(anyLong());
+        assertTrue(pendingSends.isEmpty());
+    }
+
+    @Test
+    void pollChanges_ShouldSendChangesSinceTheLastSentVersion() {
+        ExpenseChangeBroadcaster broadcaster = broadcaster(4, 10);
+        givenVersion(3);
+        broadcaster.pollChanges();
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+
+        // Committed on another instance
+        givenVersion(5);
+        when(expenseChangeService.getChanges(3)).thenReturn(changes(5));
+        broadcaster.pollChanges();
+        broadcaster.onExpensesDeleted(new ExpensesDeletedEvent(List.of(expense(1L))));
+
+        assertEquals(2, pendingSends.size());
+        verify(expenseChangeService, times(1)).getChanges(anyLong());
+        pendingSends.forEach(Runnable::run);
+        assertEquals(2, broadcaster.getSubscriberCount());
+        assertEquals(0, meterRegistry.get("expense.stream.resyncs").counter().count());
+    }
+
+    @Test
+    void pollChanges_WhenSubscriberFallsBehind_ShouldReplaceBufferWithResync() {
+        ExpenseChangeBroadcaster broadcaster = broadcaster(2, 10);
+        givenVersion(3);
+        broadcaster.pollChanges();
+        broadcaster.subscribe();
+
+        for (long version = 4; version <= 6; version++) {
+            givenVersion(version);
+            when(expenseChangeService.getChanges(version - 1)).thenReturn(changes(version));
+            broadcaster.pollChanges();
+        }
+
+        assertEquals(1, meterRegistry.get("expense.stream.resyncs").counter().count());
+        assertEquals(1, pendingSends.size());
+        assertEquals(1, meterRegistry.get("expense.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void pollChanges_WhenChangesAreGone_ShouldResyncEverySubscriber() {
+        ExpenseChangeBroadcaster broadcaster = broadcaster(4, 10);
+        givenVersion(3);
+        broadcaster.pollChanges();
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+
+        givenVersion(20_000);
+        when(expenseChangeService.getChanges(3)).thenThrow(new GoneException("Too many changes"));
+        broadcaster.pollChanges();
+
+        assertEquals(2, meterRegistry.get("expense.stream.resyncs").counter().count());
+        assertEquals(2, pendingSends.size());
+
+        // The next poll starts over from the current version
+        broadcaster.pollChanges();
+        verify(expenseChangeService, times(1)).getChanges(anyLong());
+    }
+
+    @Test
+    void closeStalledStreams_ShouldCloseStreamsWhoseWritesMadeNoProgress() throws InterruptedException {
+        ExpenseChangeBroadcaster broadcaster = broadcaster(4, 10);
+        givenVersion(3);
+        broadcaster.pollChanges();
+        SseEmitter first = broadcaster.subscribe();
+        SseEmitter second = broadcaster.subscribe();
+        givenVersion(4);
+        when(expenseChangeService.getChanges(3)).thenReturn(changes(4));
+        broadcaster.pollChanges();
+
+        // Writes block on the emitter's monitor like on a client that stopped reading
+        Thread writer = new Thread(pendingSends.get(0));
+        synchronized (first) {
+            synchronized (second) {
+                writer.start();
+                while (writer.getState() != Thread.State.BLOCKED) {
+                    Thread.onSpinWait();
+                }
+                when(clock.millis()).thenReturn(11_000L);
+                broadcaster.closeStalledStreams();
+                assertEquals(2, broadcaster.getSubscriberCount());
+
+                // The other stream has waited as long for a sender, which is not a stall
+                when(clock.millis()).thenReturn(11_001L);
+                broadcaster.closeStalledStreams();
+
+                assertEquals(1, broadcaster.getSubscriberCount());
+                assertTrue(((Future<?>) pendingSends.get(0)).isCancelled());
+                assertFalse(((Future<?>) pendingSends.get(1)).isCancelled());
+            }
+        }
+        writer.join();
+    }
+
+    @Test
+    void subscribe_BeyondLimitOrAfterStop_ShouldBeRejected() {
+        ExpenseChangeBroadcaster broadcaster = broadcaster(4, 1);
+        broadcaster.subscribe();
+
+        assertThrows(ServiceUnavailableException.class, broadcaster::subscribe);
+
+        broadcaster.stop();
+        assertEquals(0, broadcaster.getSubscriberCount());
+        assertThrows(ServiceUnavailableException.class, broadcaster::subscribe);
+        assertTrue(dispatcher.isShutdown());
+        assertTrue(senders.isShutdown());
+    }
+
+    private void givenVersion(long version) {
+        when(expenseChangeService.getVersion()).thenReturn(new ExpenseChangeService.Version(version, Instant.EPOCH, 0));
+    }
+
+    private ExpenseChangesDto changes(long version) {
+        ExpenseChangesDto changes = new ExpenseChangesDto();
+        changes.setVersion(version);
+        changes.setUpserted(List.of());
+        changes.setDeleted(List.of(1L));
+        return changes;
+    }
+
+    private Expense expense(Long id) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        return expense;
+    }
+
+    // Runs tasks on the calling thread, or holds them for the test to run
+    private static final class TestExecutor extends AbstractExecutorService {
+
+        private final boolean direct;
+        private final List<Runnable> held = new ArrayList<>();
+        private boolean shutdown;
+
+        TestExecutor(boolean direct) {
+            this.direct = direct;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (direct) {
+                task.run();
+            } else {
+                held.add(task);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChange;
+import com.deltaservices.expensemanagement.model.ExpenseChangeId;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ExpenseChangeRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseTableVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseChangeServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-15T10:00:00Z");
+
+    @Mock
+    private ExpenseChangeRepository expenseChangeRepository;
+
+    @Mock
+    private ExpenseTableVersionRepository expenseTableVersionRepository;
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExpenseChangeService expenseChangeService;
+    private ExpenseTableVersion counter;
+
+    @BeforeEach
+    void setUp() {
+        expenseChangeService = new ExpenseChangeService(expenseChangeRepository, expenseTableVersionRepository,
+                expenseService, transactionManager, Duration.ofDays(30), Clock.fixed(NOW, ZoneOffset.UTC));
+        counter = new ExpenseTableVersion(ExpenseTableVersion.ID, 4, NOW.minusSeconds(60), 0);
+        // Reads see the counter as committed so far
+        lenient().when(expenseTableVersionRepository.findCurrent(ExpenseTableVersion.ID)).thenAnswer(invocation ->
+                List.<Object[]>of(new Object[]{counter.getVersion(), counter.getChangedAt(), counter.getPurgedThrough()}));
+    }
+
+    @Test
+    void onExpensesCreated_OutsideTransaction_ShouldBumpVersionInItsOwnTransaction() {
+        when(expenseTableVersionRepository.findByIdForUpdate(ExpenseTableVersion.ID)).thenReturn(Optional.of(counter));
+
+        expenseChangeService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense(1L), expense(2L))));
+
+        InOrder inOrder = inOrder(transactionManager, expenseTableVersionRepository, expenseChangeRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(expenseTableVersionRepository).findByIdForUpdate(ExpenseTableVersion.ID);
+        inOrder.verify(expenseChangeRepository).insertAll(5, NOW, List.of(1L, 2L), false);
+        inOrder.verify(transactionManager).commit(any());
+        assertEquals(5, counter.getVersion());
+        assertEquals(new ExpenseChangeService.Version(5, NOW, 0), expenseChangeService.getVersion());
+    }
+
+    @Test
+    void onExpensesCreated_InTransaction_ShouldTakeOneVersionAtCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            expenseChangeService.onExpensesCreated(new ExpensesCreatedEvent(List.of(expense(1L), expense(2L))));
+            expenseChangeService.onExpensesDeleted(new ExpensesDeletedEvent(List.of(expense(2L))));
+            expenseChangeService.onExpenseUpdated(new ExpenseUpdatedEvent(expense(3L), expense(3L)));
+            verifyNoInteractions(expenseChangeRepository);
+            verify(expenseTableVersionRepository, never()).findByIdForUpdate(any());
+
+            when(expenseTableVersionRepository.findByIdForUpdate(ExpenseTableVersion.ID)).thenReturn(Optional.of(counter));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.get(0).beforeCommit(false);
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        InOrder inOrder = inOrder(expenseTableVersionRepository);
+        inOrder.verify(expenseTableVersionRepository).flush();
+        inOrder.verify(expenseTableVersionRepository).findByIdForUpdate(ExpenseTableVersion.ID);
+        verify(expenseChangeRepository).insertAll(5, NOW, List.of(1L, 3L), false);
+        verify(expenseChangeRepository).insertAll(5, NOW, List.of(2L), true);
+        assertEquals(5, counter.getVersion());
+        assertNull(TransactionSynchronizationManager.getResource(expenseChangeService));
+    }
+
+    @Test
+    void bumpVersion_InTransaction_ShouldTakeAVersionWithoutLoggingChanges() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            expenseChangeService.bumpVersion();
+
+            when(expenseTableVersionRepository.findByIdForUpdate(ExpenseTableVersion.ID)).thenReturn(Optional.of(counter));
+            TransactionSynchronizationManager.getSynchronizations().get(0).beforeCommit(false);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(5, counter.getVersion());
+        assertEquals(NOW, counter.getChangedAt());
+        verifyNoInteractions(expenseChangeRepository);
+    }
+
+    @Test
+    void getVersion_ShouldReadTheCommittedCounter() {
+        assertEquals(new ExpenseChangeService.Version(4, NOW.minusSeconds(60), 0), expenseChangeService.getVersion());
+
+        // Written by another instance
+        counter.setVersion(9);
+        assertEquals(9, expenseChangeService.getVersion().number());
+    }
+
+    @Test
+    void onExpensesDeleted_ShouldLogTombstones() {
+        when(expenseTableVersionRepository.findByIdForUpdate(ExpenseTableVersion.ID)).thenReturn(Optional.of(counter));
+
+        expenseChangeService.onExpensesDeleted(new ExpensesDeletedEvent(List.of(expense(3L))));
+
+        verify(expenseChangeRepository).insertAll(5, NOW, List.of(3L), true);
+        assertEquals(5, expenseChangeService.getVersion().number());
+    }
+
+    @Test
+    void getChanges_ShouldReportExpensesWrittenThenDeletedAsDeletedOnly() {
+        Expense kept = expense(1L);
+        ExpenseResponseDto keptResponse = new ExpenseResponseDto();
+        keptResponse.setId(1L);
+        when(expenseChangeRepository.countBetween(2, 4)).thenReturn(3L);
+        when(expenseChangeRepository.findBetween(2, 4)).thenReturn(List.of(
+                change(3, 1L, false), change(3, 2L, false), change(4, 2L, true)));
+        when(expenseService.findAllById(Set.of(1L))).thenReturn(List.of(kept));
+        when(expenseService.convertToResponseDto(kept)).thenReturn(keptResponse);
+
+        ExpenseChangesDto changes = expenseChangeService.getChanges(2);
+
+        assertEquals(4, changes.getVersion());
+        assertEquals(List.of(keptResponse), changes.getUpserted());
+        assertEquals(List.of(2L), changes.getDeleted());
+    }
+
+    @Test
+    void getChanges_AtCurrentVersion_ShouldNotQuery() {
+        ExpenseChangesDto changes = expenseChangeService.getChanges(4);
+
+        assertEquals(4, changes.getVersion());
+        assertTrue(changes.getUpserted().isEmpty());
+        assertTrue(changes.getDeleted().isEmpty());
+        verifyNoInteractions(expenseChangeRepository);
+    }
+
+    @Test
+    void getChanges_WithUnavailableVersion_ShouldThrowGone() {
+        assertThrows(BadRequestException.class, () -> expenseChangeService.getChanges(-1));
+        assertThrows(GoneException.class, () -> expenseChangeService.getChanges(5));
+
+        when(expenseChangeRepository.countBetween(0, 4)).thenReturn(ExpenseChangeService.MAX_CHANGES + 1L);
+        assertThrows(GoneException.class, () -> expenseChangeService.getChanges(0));
+        verify(expenseChangeRepository, never()).findBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    void getChangePage_BeyondPageSize_ShouldEndBeforeTheVersionItCut() {
+        List<ExpenseChange> page = new ArrayList<>();
+        for (long id = 1; id <= ExpenseChangeService.PAGE_SIZE; id++) {
+            page.add(change(id <= ExpenseChangeService.PAGE_SIZE / 2 ? 1 : 2, id, false));
+        }
+        page.add(change(3, 9_999L, true));
+        when(expenseChangeRepository.findBetween(0, 4, Limit.of(ExpenseChangeService.PAGE_SIZE + 1))).thenReturn(page);
+        when(expenseService.findAllById(anySet())).thenReturn(List.of());
+
+        ExpenseChangesDto changes = expenseChangeService.getChangePage(0);
+
+        // Version 3 may hold more changes than were read; the next page starts with it
+        assertEquals(2, changes.getVersion());
+        assertTrue(changes.getDeleted().isEmpty());
+        verify(expenseChangeRepository, never()).countBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    void getChangePage_WhenOneVersionFillsThePage_ShouldReadItWhole() {
+        List<ExpenseChange> version = new ArrayList<>();
+        for (long id = 1; id <= ExpenseChangeService.PAGE_SIZE + 1; id++) {
+            version.add(change(1, id, true));
+        }
+        when(expenseChangeRepository.findBetween(0, 4, Limit.of(ExpenseChangeService.PAGE_SIZE + 1)))
+                .thenReturn(version);
+        List<ExpenseChange> whole = new ArrayList<>(version);
+        whole.add(change(1, ExpenseChangeService.PAGE_SIZE + 2L, true));
+        when(expenseChangeRepository.findBetween(0, 1)).thenReturn(whole);
+        when(expenseService.findAllById(anySet())).thenReturn(List.of());
+
+        ExpenseChangesDto changes = expenseChangeService.getChangePage(0);
+
+        assertEquals(1, changes.getVersion());
+        assertEquals(ExpenseChangeService.PAGE_SIZE + 2, changes.getDeleted().size());
+    }
+
+    @Test
+    void getChangePage_WithPurgedVersion_ShouldThrowGone() {
+        counter.setPurgedThrough(2);
+
+        assertThrows(GoneException.class, () -> expenseChangeService.getChangePage(1));
+    }
+
+    @Test
+    void getChangedIds_ShouldReturnWrittenAndDeletedIdsWithoutLoadingThem() {
+        when(expenseChangeRepository.findBetween(0, 4, Limit.of(ExpenseChangeService.PAGE_SIZE + 1)))
+                .thenReturn(List.of(change(1, 1L, false), change(2, 2L, true), change(3, 1L, false)));
+
+        ExpenseChangeService.ChangedIds changed = expenseChangeService.getChangedIds(0);
+
+        assertEquals(4, changed.version());
+        assertEquals(Set.of(1L, 2L), changed.expenseIds());
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    void purgeChanges_ShouldRaisePurgedThroughWithTheDelete() {
+        when(expenseChangeRepository.findMaxVersionChangedBefore(NOW.minus(Duration.ofDays(30)))).thenReturn(3L);
+        when(expenseTableVersionRepository.findByIdForUpdate(ExpenseTableVersion.ID)).thenReturn(Optional.of(counter));
+        when(expenseChangeRepository.deleteThrough(3)).thenReturn(7);
+
+        assertEquals(7, expenseChangeService.purgeChanges());
+
+        assertEquals(3, counter.getPurgedThrough());
+        assertEquals(3, expenseChangeService.getVersion().purgedThrough());
+        assertThrows(GoneException.class, () -> expenseChangeService.getChanges(2));
+    }
+
+    private Expense expense(Long id) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setDescription("Expense " + id);
+        expense.setAmount(Money.parse("10.00", Money.DEFAULT_CURRENCY));
+        expense.setDate(LocalDate.of(2024, 6, 1));
+        expense.setCategory("Food");
+        return expense;
+    }
+
+    private ExpenseChange change(long version, long expenseId, boolean deleted) {
+        return new ExpenseChange(new ExpenseChangeId(version, expenseId), deleted, NOW);
+    }
+}
@@ -0,0 +1,197 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.service.ExpenseColumns.CategoryPercentiles;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.DescriptionTotal;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.Result;
+import com.deltaservices.expensemanagement.service.ExpenseColumns.WeekTotal;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseColumnsTest {
+
+    private static final int MONDAY = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+
+    @Test
+    void add_ShouldKeepIdOrderAndIgnoreKnownIds() {
+        ExpenseColumns columns = new ExpenseColumns();
+        columns.add(10, MONDAY, 100, "FOOD", "Lunch");
+        columns.add(30, MONDAY, 300, "FOOD", "Lunch");
+        columns.add(20, MONDAY, 200, "FOOD", "Dinner");
+        columns.add(20, MONDAY, 999, "FOOD", "Dinner");
+
+        assertEquals(3, columns.size());
+        columns.remove(20);
+        columns.remove(20);
+        columns.remove(40);
+
+        assertEquals(2, columns.size());
+        assertEquals(List.of(new DescriptionTotal("Lunch", 2, 400)),
+                columns.topDescriptions(MONDAY, MONDAY, ExpenseColumns.ANY_CATEGORY, 10, false).items());
+    }
+
+    @Test
+    void update_ShouldOverwriteInPlaceAndNotReviveDeletedRows() {
+        ExpenseColumns columns = new ExpenseColumns();
+        columns.add(10, MONDAY, 100, "FOOD", "Lunch");
+        columns.add(20, MONDAY, 200, "FOOD", "Dinner");
+        columns.remove(20);
+
+        columns.update(10, MONDAY + 1, 150, "TRAVEL", "Taxi");
+        columns.update(20, MONDAY, 999, "FOOD", "Dinner");
+        columns.update(30, MONDAY, 300, "FOOD", "Lunch");
+
+        assertEquals(2, columns.size());
+        assertEquals(List.of(new DescriptionTotal("Lunch", 1, 300), new DescriptionTotal("Taxi", 1, 150)),
+                columns.topDescriptions(MONDAY, MONDAY + 6, ExpenseColumns.ANY_CATEGORY, 10, false).items());
+    }
+
+    @Test
+    void remove_ShouldCompactOnceManyRowsAreDeleted() {
+        ExpenseColumns columns = new ExpenseColumns();
+        for (int id = 0; id < 4000; id++) {
+            columns.add(id, MONDAY, 1, "FOOD", "Coffee");
+        }
+        for (int id = 0; id < 3000; id++) {
+            columns.remove(id);
+        }
+        columns.add(5000, MONDAY, 1, "FOOD", "Coffee");
+        columns.remove(3999);
+
+        assertEquals(1000, columns.size());
+        assertEquals(1000, columns.topDescriptions(MONDAY, MONDAY, ExpenseColumns.ANY_CATEGORY, 1, true)
+                .items().get(0).count());
+    }
+
+    @Test
+    void remove_WhenCompacting_ShouldDropDescriptionsNoLongerUsed() {
+        ExpenseColumns columns = new ExpenseColumns();
+        for (int id = 0; id < 4000; id++) {
+            columns.add(id, MONDAY, id, id < 3000 ? "FOOD" : "TRAVEL", "Invoice " + id);
+        }
+        for (int id = 0; id < 3000; id++) {
+            columns.remove(id);
+        }
+
+        assertTrue(columns.descriptionCount() < 2000);
+        // Ids were renumbered; lookups and reports still find the kept entries
+        assertEquals(List.of(new DescriptionTotal("Invoice 3999", 1, 3999)), columns.topDescriptions(MONDAY, MONDAY,
+                columns.categoryId("TRAVEL"), 1, false).items());
+        columns.add(5000, MONDAY, 7, "FOOD", "Invoice 3999");
+        assertEquals(new DescriptionTotal("Invoice 3999", 2, 4006), columns.topDescriptions(MONDAY, MONDAY,
+                ExpenseColumns.ANY_CATEGORY, 1, false).items().get(0));
+    }
+
+    @Test
+    void topDescriptions_AcrossRanges_ShouldAddUpEachDescriptionOnce() {
+        ExpenseColumns columns = new ExpenseColumns();
+        int rows = 3 * ExpenseColumns.RANGE_SIZE;
+        for (int id = 0; id < rows; id++) {
+            columns.add(id, MONDAY, 1, "FOOD", "D" + id % 1024);
+        }
+        columns.add(rows, MONDAY, 1_000_000, "FOOD", "Top");
+
+        assertEquals(List.of(new DescriptionTotal("Top", 1, 1_000_000), new DescriptionTotal("D0", 192, 192)),
+                columns.topDescriptions(MONDAY, MONDAY, ExpenseColumns.ANY_CATEGORY, 2, false).items());
+    }
+
+    @Test
+    void topDescriptions_WithMostlyUniqueDescriptions_ShouldAddUpEachDescriptionOnce() {
+        ExpenseColumns columns = new ExpenseColumns();
+        int rows = 3 * ExpenseColumns.RANGE_SIZE;
+        for (int id = 0; id < rows; id++) {
+            columns.add(id, id % 100 == 0 ? MONDAY + 1 : MONDAY, 1, "FOOD", "D" + id % 40_000);
+        }
+
+        // Most descriptions match
+        assertEquals(List.of(new DescriptionTotal("D0", 5, 5), new DescriptionTotal("D1", 5, 5)),
+                columns.topDescriptions(MONDAY, MONDAY + 1, ExpenseColumns.ANY_CATEGORY, 2, false).items());
+        // Few descriptions match
+        assertEquals(List.of(new DescriptionTotal("D0", 5, 5), new DescriptionTotal("D100", 5, 5)),
+                columns.topDescriptions(MONDAY + 1, MONDAY + 1, ExpenseColumns.ANY_CATEGORY, 2, false).items());
+    }
+
+    @Test
+    void topDescriptions_ShouldRankByTotalOrCountAndFilter() {
+        ExpenseColumns columns = new ExpenseColumns();
+        columns.add(1, MONDAY, 5000, "TRAVEL", "Hotel");
+        columns.add(2, MONDAY, 300, "FOOD", "Coffee");
+        columns.add(3, MONDAY + 1, 300, "FOOD", "Coffee");
+        columns.add(4, MONDAY + 2, 600, "FOOD", "Bagel");
+        columns.add(5, MONDAY + 3, ExpenseColumns.UNCONVERTED, "FOOD", "Sushi");
+        columns.add(6, MONDAY + 30, 9000, "FOOD", "Bagel");
+
+        Result<List<DescriptionTotal>> byAmount =
+                columns.topDescriptions(MONDAY, MONDAY + 6, ExpenseColumns.ANY_CATEGORY, 10, false);
+        Result<List<DescriptionTotal>> byCount =
+                columns.topDescriptions(MONDAY, MONDAY + 6, columns.categoryId("FOOD"), 1, true);
+
+        assertEquals(List.of(new DescriptionTotal("Hotel", 1, 5000), new DescriptionTotal("Coffee", 2, 600),
+                new DescriptionTotal("Bagel", 1, 600)), byAmount.items());
+        assertEquals(1, byAmount.unconverted());
+        assertEquals(List.of(new DescriptionTotal("Coffee", 2, 600)), byCount.items());
+        assertTrue(columns.topDescriptions(MONDAY, MONDAY + 6, columns.categoryId("RENT"), 10, false).items().isEmpty());
+    }
+
+    @Test
+    void percentiles_ShouldMatchNearestRankOfSortedAmounts() {
+        ExpenseColumns columns = new ExpenseColumns();
+        Random random = new Random(7);
+        long[][] amounts = new long[2][];
+        amounts[0] = new long[150_001];
+        amounts[1] = new long[3];
+        for (int i = 0; i < amounts[0].length; i++) {
+            amounts[0][i] = random.nextInt(100_000);
+            columns.add(i, MONDAY + random.nextInt(7), amounts[0][i], "FOOD", "Groceries");
+        }
+        for (int i = 0; i < amounts[1].length; i++) {
+            amounts[1][i] = 1000 * (3 - i);
+            columns.add(200_000 + i, MONDAY, amounts[1][i], "RENT", "Flat");
+        }
+        List<BigDecimal> percentiles = List.of(new BigDecimal("99.9"), BigDecimal.ZERO, BigDecimal.valueOf(50),
+                BigDecimal.valueOf(100));
+
+        List<CategoryPercentiles> items = columns.percentiles(MONDAY, MONDAY + 6, percentiles).items();
+
+        assertEquals(List.of("FOOD", "RENT"), items.stream().map(CategoryPercentiles::category).toList());
+        for (int c = 0; c < 2; c++) {
+            long[] sorted = amounts[c].clone();
+            Arrays.sort(sorted);
+            assertEquals(sorted.length, items.get(c).count());
+            assertEquals(Arrays.stream(sorted).sum(), items.get(c).total());
+            long[] expected = percentiles.stream()
+                    .mapToLong(p -> sorted[ExpenseColumns.rank(p, sorted.length) - 1]).toArray();
+            assertArrayEquals(expected, items.get(c).percentiles());
+        }
+    }
+
+    @Test
+    void rank_ShouldRoundUpAndStartAtOne() {
+        assertEquals(1, ExpenseColumns.rank(BigDecimal.ZERO, 10));
+        assertEquals(5, ExpenseColumns.rank(BigDecimal.valueOf(50), 10));
+        assertEquals(6, ExpenseColumns.rank(new BigDecimal("50.01"), 10));
+        assertEquals(999, ExpenseColumns.rank(new BigDecimal("99.9"), 1000));
+        assertEquals(10, ExpenseColumns.rank(BigDecimal.valueOf(100), 10));
+    }
+
+    @Test
+    void weeklyTotals_ShouldSumWeeksAndCountEmptyOnes() {
+        ExpenseColumns columns = new ExpenseColumns();
+        columns.add(1, MONDAY, 100, "FOOD", "Lunch");
+        columns.add(2, MONDAY + 6, 200, "FOOD", "Lunch");
+        columns.add(3, MONDAY + 14, 400, "TRAVEL", "Taxi");
+        columns.add(4, MONDAY + 21, 800, "FOOD", "Lunch");
+
+        Result<List<WeekTotal>> weeks = columns.weeklyTotals(MONDAY, 3, ExpenseColumns.ANY_CATEGORY);
+
+        assertEquals(List.of(new WeekTotal(MONDAY, 2, 300), new WeekTotal(MONDAY + 7, 0, 0),
+                new WeekTotal(MONDAY + 14, 1, 400)), weeks.items());
+        assertEquals(0, columns.weeklyTotals(MONDAY, 3, columns.categoryId("FOOD")).items().get(2).count());
+    }
+}
@@ -0,0 +1,173 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.ArchivedExpense;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExportFormat;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseExportServiceTest {
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExpenseExportService expenseExportService;
+
+    private Expense expense1;
+    private Expense expense2;
+
+    @BeforeEach
+    void setUp() {
+        expenseExportService = new ExpenseExportService(expenseRepository, transactionManager, new ObjectMapper(),
+                new ExpenseMetrics(new SimpleMeterRegistry()), archivedExpenseRepository);
+
+        expense1 = new Expense();
+        expense1.setId(1L);
+        expense1.setDescription("Lunch, with \"team\"");
+        expense1.setAmount(Money.parse("100.50", Money.DEFAULT_CURRENCY));
+        expense1.setDate(LocalDate.of(2024, 1, 15));
+        expense1.setCategory("Food");
+
+        expense2 = new Expense();
+        expense2.setId(2L);
+        expense2.setDescription("Train");
+        expense2.setAmount(Money.parse("50.75", Money.DEFAULT_CURRENCY));
+        expense2.setDate(LocalDate.of(2024, 1, 16));
+        expense2.setCategory("Transport");
+    }
+
+    @Test
+    void exportExpenses_AsNdjson_ShouldWriteOneObjectPerLine() throws IOException {
+        givenHot(expense1, expense2);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long count = expenseExportService.exportExpenses(ExportFormat.NDJSON, outputStream);
+
+        assertEquals(2, count);
+        assertEquals(
+                "{\"id\":1,\"description\":\"Lunch, with \\\"team\\\"\",\"amount\":100.50,\"currency\":\"EUR\",\"date\":\"2024-01-15\",\"category\":\"Food\"}\n"
+                        + "{\"id\":2,\"description\":\"Train\",\"amount\":50.75,\"currency\":\"EUR\",\"date\":\"2024-01-16\",\"category\":\"Transport\"}\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+        // One page, and one read that finds nothing after it
+        verify(expenseRepository, times(1)).findPageAfter(Long.MIN_VALUE, Limit.of(ExpenseExportService.PAGE_SIZE));
+        verify(expenseRepository, times(1)).findPageAfter(2L, Limit.of(ExpenseExportService.PAGE_SIZE));
+    }
+
+    @Test
+    void exportExpenses_AsCsv_ShouldQuoteSpecialCharacters() throws IOException {
+        givenHot(expense1, expense2);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long count = expenseExportService.exportExpenses(ExportFormat.CSV, outputStream);
+
+        assertEquals(2, count);
+        assertEquals(
+                "id,description,amount,date,category,currency\n"
+                        + "1,\"Lunch, with \"\"team\"\"\",100.50,2024-01-15,Food,EUR\n"
+                        + "2,Train,50.75,2024-01-16,Transport,EUR\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportExpenses_WhenNoExpenses_ShouldWriteOnlyCsvHeader() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long count = expenseExportService.exportExpenses(ExportFormat.CSV, outputStream);
+
+        assertEquals(0, count);
+        assertEquals("id,description,amount,date,category,currency\n", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportExpenses_AcrossTables_ShouldWriteInIdOrderOncePerExpense() throws IOException {
+        List<Expense> hot = new ArrayList<>();
+        List<ArchivedExpense> archived = new ArrayList<>();
+        for (long id = 1; id <= ExpenseExportService.PAGE_SIZE * 2L; id++) {
+            Expense expense = expense(id);
+            if (id % 2 == 0) {
+                hot.add(expense);
+            } else {
+                archived.add(archived(expense));
+            }
+        }
+        // Archived while the export read the hot table, so both pages hold it
+        hot.add(0, expense(1L));
+        when(expenseRepository.findPageAfter(anyLong(), any(Limit.class))).thenAnswer(invocation ->
+                page(hot, invocation.getArgument(0), Expense::getId));
+        when(archivedExpenseRepository.findPageAfter(anyLong(), any(Limit.class))).thenAnswer(invocation ->
+                page(archived, invocation.getArgument(0), ArchivedExpense::getId));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long count = expenseExportService.exportExpenses(ExportFormat.CSV, outputStream);
+
+        assertEquals(ExpenseExportService.PAGE_SIZE * 2L, count);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        for (int line = 1; line < lines.length; line++) {
+            assertTrue(lines[line].startsWith(line + ","), lines[line]);
+        }
+    }
+
+    private void givenHot(Expense... expenses) {
+        when(expenseRepository.findPageAfter(anyLong(), any(Limit.class))).thenAnswer(invocation ->
+                page(List.of(expenses), invocation.getArgument(0), Expense::getId));
+    }
+
+    private static <T> List<T> page(List<T> rows, long after, Function<T, Long> id) {
+        return rows.stream()
+                .filter(row -> id.apply(row) > after)
+                .limit(ExpenseExportService.PAGE_SIZE)
+                .toList();
+    }
+
+    private Expense expense(long id) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setDescription("Expense " + id);
+        expense.setAmount(Money.parse("1.00", Money.DEFAULT_CURRENCY));
+        expense.setDate(LocalDate.of(2024, 1, 15));
+        expense.setCategory("Food");
+        return expense;
+    }
+
+    private ArchivedExpense archived(Expense expense) {
+        ArchivedExpense archived = new ArchivedExpense();
+        archived.setId(expense.getId());
+        archived.setDescription(expense.getDescription());
+        archived.setAmountMinor(expense.getAmountMinor());
+        archived.setCurrency(expense.getCurrency());
+        archived.setDate(expense.getDate());
+        archived.setCategory(expense.getCategory());
+        return archived;
+    }
+}
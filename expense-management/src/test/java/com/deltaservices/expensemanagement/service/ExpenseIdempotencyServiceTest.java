@@ -0,0 +1,231 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.config.CacheConfig;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ConflictException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.IdempotencyKey;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.IdempotencyKeyRepository;
+import com.deltaservices.expensemanagement.service.ExpenseIdempotencyService.IdempotentResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseIdempotencyServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CacheManager cacheManager;
+    private ExpenseIdempotencyService expenseIdempotencyService;
+
+    private ExpenseRequestDto request;
+    private ExpenseResponseDto created;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.IDEMPOTENCY_KEYS);
+        expenseIdempotencyService = new ExpenseIdempotencyService(expenseService, idempotencyKeyRepository,
+                transactionManager, cacheManager, Duration.ofDays(7), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        request = new ExpenseRequestDto();
+        request.setDescription("Lunch");
+        request.setAmount(Money.parse("12.50", Money.DEFAULT_CURRENCY));
+        request.setDate(LocalDate.of(2024, 4, 30));
+        request.setCategory("Food");
+
+        created = new ExpenseResponseDto();
+        created.setId(7L);
+        created.setDescription("Lunch");
+        created.setAmount(Money.parse("12.50", Money.DEFAULT_CURRENCY));
+        created.setDate(LocalDate.of(2024, 4, 30));
+        created.setCategory("Food");
+    }
+
+    @Test
+    void createExpense_WithNewKey_ShouldCreateExpenseAndRecordKey() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertFalse(result.isReplayed());
+        assertEquals(created, result.getExpense());
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        assertEquals("key-1", captor.getValue().getKey());
+        assertEquals(7L, captor.getValue().getExpenseId());
+        assertEquals(NOW, captor.getValue().getCreatedAt());
+    }
+
+    @Test
+    void createExpense_WhenRetried_ShouldReplayFromCacheWithoutCreating() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        expenseIdempotencyService.createExpense(request, "key-1");
+        when(expenseService.getExpense(7L)).thenReturn(created);
+
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertTrue(result.isReplayed());
+        assertEquals(created, result.getExpense());
+        verify(expenseService, times(1)).createExpense(any(ExpenseRequestDto.class));
+        verify(idempotencyKeyRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void createExpense_WhenRetriedAfterAnUpdate_ShouldReplayTheExpenseAsItIsNow() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        expenseIdempotencyService.createExpense(request, "key-1");
+        ExpenseResponseDto updated = new ExpenseResponseDto();
+        updated.setId(7L);
+        updated.setDescription("Team lunch");
+        when(expenseService.getExpense(7L)).thenReturn(updated);
+
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertTrue(result.isReplayed());
+        assertEquals(updated, result.getExpense());
+    }
+
+    @Test
+    void createExpense_WhenExpenseWasDeletedElsewhere_ShouldCreateItAgain() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        expenseIdempotencyService.createExpense(request, "key-1");
+        // Deleted on another instance along with its key; this instance still has the key cached
+        when(expenseService.getExpense(7L)).thenThrow(new ResourceNotFoundException("Expense", "id", 7L));
+
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertFalse(result.isReplayed());
+        verify(expenseService, times(2)).createExpense(any(ExpenseRequestDto.class));
+    }
+
+    @Test
+    void createExpense_WhenKeyStoredButNotCached_ShouldReplayStoredExpense() {
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        expenseIdempotencyService.createExpense(request, "key-1");
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        cacheManager.getCache(CacheConfig.IDEMPOTENCY_KEYS).clear();
+
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(captor.getValue()));
+        when(expenseService.getExpense(7L)).thenReturn(created);
+
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertTrue(result.isReplayed());
+        assertEquals(created, result.getExpense());
+    }
+
+    @Test
+    void createExpense_WithSameKeyAndEquivalentAmount_ShouldReplay() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        expenseIdempotencyService.createExpense(request, "key-1");
+
+        when(expenseService.getExpense(7L)).thenReturn(created);
+
+        request.setAmount(Money.parse("12.5", Money.DEFAULT_CURRENCY));
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertTrue(result.isReplayed());
+    }
+
+    @Test
+    void createExpense_WithSameKeyAndDifferentBody_ShouldThrowConflict() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        expenseIdempotencyService.createExpense(request, "key-1");
+
+        request.setAmount(Money.parse("99.00", Money.DEFAULT_CURRENCY));
+
+        assertThrows(ConflictException.class, () -> expenseIdempotencyService.createExpense(request, "key-1"));
+        verify(expenseService, times(1)).createExpense(any(ExpenseRequestDto.class));
+    }
+
+    @Test
+    void createExpense_WhenConcurrentRequestWins_ShouldReplayWinner() {
+        IdempotencyKey winner = new IdempotencyKey("key-1", 7L, null, NOW);
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(expenseService.createExpense(request)).thenReturn(created);
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).thenAnswer(invocation -> {
+            winner.setRequestHash(((IdempotencyKey) invocation.getArgument(0)).getRequestHash());
+            when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(winner));
+            throw new DataIntegrityViolationException("duplicate key");
+        });
+        when(expenseService.getExpense(7L)).thenReturn(created);
+
+        IdempotentResult result = expenseIdempotencyService.createExpense(request, "key-1");
+
+        assertTrue(result.isReplayed());
+        assertEquals(created, result.getExpense());
+    }
+
+    @Test
+    void createExpense_WithBlankKey_ShouldThrowBadRequestException() {
+        assertThrows(BadRequestException.class, () -> expenseIdempotencyService.createExpense(request, " "));
+        verifyNoInteractions(expenseService, idempotencyKeyRepository);
+    }
+
+    @Test
+    void createExpense_WithTooLongKey_ShouldThrowBadRequestException() {
+        String key = "k".repeat(256);
+
+        assertThrows(BadRequestException.class, () -> expenseIdempotencyService.createExpense(request, key));
+        verifyNoInteractions(expenseService, idempotencyKeyRepository);
+    }
+
+    @Test
+    void onExpensesDeleted_ShouldDeleteKeysOfDeletedExpenses() {
+        Expense expense = new Expense();
+        expense.setId(7L);
+
+        expenseIdempotencyService.onExpensesDeleted(new ExpensesDeletedEvent(List.of(expense)));
+
+        verify(idempotencyKeyRepository).deleteByExpenseIds(List.of(7L));
+    }
+
+    @Test
+    void purgeExpiredKeys_ShouldDeleteKeysOlderThanRetention() {
+        when(idempotencyKeyRepository.deleteCreatedBefore(NOW.minus(Duration.ofDays(7)))).thenReturn(3);
+
+        assertEquals(3, expenseIdempotencyService.purgeExpiredKeys());
+    }
+}
@@ -0,0 +1,164 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.exception.TooManyRequestsException;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseImportErrorDto;
+import com.deltaservices.expensemanagement.model.ExpenseImportStatusDto;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.ImportState;
+import com.deltaservices.expensemanagement.model.StatementFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseImportServiceTest {
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @TempDir
+    private Path directory;
+
+    private ExpenseImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        // Imports run on the calling thread
+        importService = new ExpenseImportService(expenseService, directory, Duration.ofHours(1), Runnable::run,
+                Clock.fixed(Instant.parse("2024-06-01T10:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void importFile_ShouldWriteChunksAndReportRejectedRecordsByLine() throws IOException {
+        StringBuilder csv = new StringBuilder("date,description,amount,category\n");
+        for (int i = 0; i < 1200; i++) {
+            csv.append("2024-05-01,Lunch ").append(i).append(',').append(i == 700 ? "-4.00" : "9.50").append(",FOOD\n");
+        }
+        csv.append("2024-05-02,Broken,9.50\n");
+        Files.writeString(directory.resolve("may.csv"), csv);
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(expenseService.createExpenses(anyList())).thenAnswer(invocation -> {
+            List<ExpenseRequestDto> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return result(chunk);
+        });
+
+        ExpenseImportStatusDto queued = importService.importFile("may.csv", null, null);
+        ExpenseImportStatusDto status = importService.getStatus(queued.getId());
+
+        assertEquals(ImportState.COMPLETED, status.getState());
+        assertEquals(StatementFormat.CSV, status.getFormat());
+        assertEquals(List.of(500, 500, 200), chunkSizes);
+        assertEquals(1201, status.getRecords());
+        assertEquals(1199, status.getImported());
+        assertEquals(2, status.getRejected());
+        assertEquals(List.of(
+                new ExpenseImportErrorDto(702, "Expense amount must be greater than zero"),
+                new ExpenseImportErrorDto(1202, "Expected 4 fields but found 3")), status.getErrors());
+        assertEquals(status.getTotalBytes(), status.getBytesRead());
+        assertNotNull(status.getFinishedAt());
+    }
+
+    @Test
+    void importUpload_ShouldImportOfxDebitsWithDefaultCategoryAndDeleteTemporaryFile() throws IOException {
+        String ofx = "<OFX><CURDEF>EUR<BANKTRANLIST>"
+                + "<STMTTRN><DTPOSTED>20240501<TRNAMT>-20.00<NAME>Groceries</STMTTRN>"
+                + "<STMTTRN><DTPOSTED>20240502<TRNAMT>100.00<NAME>Refund</STMTTRN>"
+                + "</BANKTRANLIST></OFX>";
+        List<ExpenseRequestDto> written = new ArrayList<>();
+        when(expenseService.createExpenses(anyList())).thenAnswer(invocation -> {
+            List<ExpenseRequestDto> chunk = invocation.getArgument(0);
+            written.addAll(chunk);
+            return result(chunk);
+        });
+
+        ExpenseImportStatusDto status = importService.getStatus(importService.importUpload(
+                new MockMultipartFile("file", "statement.OFX", "application/x-ofx", ofx.getBytes(StandardCharsets.UTF_8)),
+                null, "FOOD").getId());
+
+        assertEquals(ImportState.COMPLETED, status.getState());
+        assertEquals(StatementFormat.OFX, status.getFormat());
+        assertEquals(1, status.getImported());
+        assertEquals(1, status.getSkipped());
+        assertEquals("FOOD", written.get(0).getCategory());
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith("expense-import-")));
+        }
+    }
+
+    @Test
+    void importFile_WithUnreadableHeader_ShouldFailWithoutWriting() throws IOException {
+        Files.writeString(directory.resolve("bank.csv"), "Buchungstag;Betrag\n01.05.2024;-9,50\n");
+
+        ExpenseImportStatusDto status = importService.getStatus(importService.importFile("bank.csv", null, null).getId());
+
+        assertEquals(ImportState.FAILED, status.getState());
+        assertEquals("CSV header must name the date, description and amount columns", status.getError());
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    void importFile_ShouldOnlyReadBelowImportDirectory() throws IOException {
+        Files.writeString(directory.resolve("notes.txt"), "date,description,amount\n");
+
+        assertThrows(BadRequestException.class, () -> importService.importFile("../etc/passwd", null, null));
+        assertThrows(ResourceNotFoundException.class, () -> importService.importFile("missing.csv", null, null));
+        assertThrows(BadRequestException.class, () -> importService.importFile("notes.txt", null, null));
+        Path outside = Files.createTempFile("outside-", ".csv");
+        try {
+            Files.createSymbolicLink(directory.resolve("linked.csv"), outside);
+            assertThrows(BadRequestException.class, () -> importService.importFile("linked.csv", null, null));
+        } finally {
+            Files.delete(outside);
+        }
+        assertThrows(BadRequestException.class, () -> new ExpenseImportService(expenseService, null,
+                Duration.ofHours(1), Runnable::run, Clock.systemUTC()).importFile("may.csv", null, null));
+    }
+
+    @Test
+    void importFile_WhenQueueIsFull_ShouldRejectAndForgetImport() throws IOException {
+        Files.writeString(directory.resolve("may.csv"), "date,description,amount\n");
+        ExpenseImportService busy = new ExpenseImportService(expenseService, directory, Duration.ofHours(1),
+                runnable -> {
+                    throw new RejectedExecutionException();
+                }, Clock.systemUTC());
+
+        assertThrows(TooManyRequestsException.class, () -> busy.importFile("may.csv", "csv", null));
+    }
+
+    private static ExpenseBatchResultDto result(List<ExpenseRequestDto> chunk) {
+        List<ExpenseBatchItemResultDto> items = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            items.add(chunk.get(i).getAmount().isPositive()
+                    ? ExpenseBatchItemResultDto.created(i, (long) i)
+                    : ExpenseBatchItemResultDto.rejected(i, "Expense amount must be greater than zero"));
+        }
+        ExpenseBatchResultDto result = new ExpenseBatchResultDto();
+        result.setItems(items);
+        return result;
+    }
+}
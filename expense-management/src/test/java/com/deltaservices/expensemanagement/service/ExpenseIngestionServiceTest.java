@@ -0,0 +1,164 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.exception.TooManyRequestsException;
+import com.deltaservices.expensemanagement.model.ExpenseBatchItemResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseIngestionStatusDto;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.IngestionState;
+import com.deltaservices.expensemanagement.model.IngestionStatus;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.IngestionStatusRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseIngestionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @Mock
+    private IngestionStatusRepository ingestionStatusRepository;
+
+    private ExpenseRequestDto request;
+
+    @BeforeEach
+    void setUp() {
+        request = new ExpenseRequestDto();
+        request.setDescription("Coffee");
+        request.setAmount(Money.parse("3.20", Money.DEFAULT_CURRENCY));
+        request.setDate(LocalDate.of(2024, 5, 1));
+        request.setCategory("Food");
+    }
+
+    private ExpenseIngestionService service(String mode, int capacity) {
+        return new ExpenseIngestionService(expenseService, ingestionStatusRepository, new SimpleMeterRegistry(), mode,
+                capacity, 500, Duration.ofSeconds(10), Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void isAccepting_InSyncMode_ShouldStayFalseAfterStart() {
+        ExpenseIngestionService ingestionService = service("sync", 10);
+
+        ingestionService.start();
+
+        assertFalse(ingestionService.isAccepting());
+        assertFalse(ingestionService.isRunning());
+    }
+
+    @Test
+    void stop_ShouldDrainQueuedExpensesInOneBatch() {
+        ExpenseBatchResultDto result = new ExpenseBatchResultDto();
+        result.setItems(List.of(
+                ExpenseBatchItemResultDto.created(0, 10L),
+                ExpenseBatchItemResultDto.rejected(1, "Expense amount must be greater than zero")));
+        ExpenseIngestionService ingestionService = service("async", 10);
+        ExpenseIngestionStatusDto first = ingestionService.submit(request);
+        ExpenseIngestionStatusDto second = ingestionService.submit(request);
+        when(expenseService.createExpenses(List.of(request, request))).thenReturn(result);
+
+        assertEquals(IngestionState.QUEUED, ingestionService.getStatus(first.getTrackingId()).getState());
+        ingestionService.start();
+        assertTrue(ingestionService.isAccepting());
+        ingestionService.stop();
+
+        assertFalse(ingestionService.isAccepting());
+        verify(expenseService, times(1)).createExpenses(anyList());
+        ExpenseIngestionStatusDto created = ingestionService.getStatus(first.getTrackingId());
+        assertEquals(IngestionState.CREATED, created.getState());
+        assertEquals(10L, created.getId());
+        ExpenseIngestionStatusDto rejected = ingestionService.getStatus(second.getTrackingId());
+        assertEquals(IngestionState.REJECTED, rejected.getState());
+        assertEquals("Expense amount must be greater than zero", rejected.getError());
+
+        ArgumentCaptor<List<IngestionStatus>> stored = ArgumentCaptor.forClass(List.class);
+        verify(ingestionStatusRepository).saveAll(stored.capture());
+        assertEquals(List.of(IngestionState.CREATED, IngestionState.REJECTED),
+                stored.getValue().stream().map(IngestionStatus::getState).toList());
+        assertEquals(NOW, stored.getValue().get(0).getFinishedAt());
+    }
+
+    @Test
+    void stop_WhenBatchFails_ShouldMarkExpensesFailed() {
+        ExpenseIngestionService ingestionService = service("async", 10);
+        ExpenseIngestionStatusDto status = ingestionService.submit(request);
+        when(expenseService.createExpenses(anyList())).thenThrow(new IllegalStateException("database down"));
+
+        ingestionService.start();
+        ingestionService.stop();
+
+        assertEquals(IngestionState.FAILED, ingestionService.getStatus(status.getTrackingId()).getState());
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldThrowTooManyRequestsException() {
+        ExpenseIngestionService ingestionService = service("async", 1);
+        ingestionService.submit(request);
+
+        assertThrows(TooManyRequestsException.class, () -> ingestionService.submit(request));
+    }
+
+    @Test
+    void submit_WithInvalidRequest_ShouldNotQueue() {
+        ExpenseIngestionService ingestionService = service("async", 1);
+        doThrow(new BadRequestException("Expense date cannot be null")).when(expenseService).validateExpenseRequest(request);
+
+        assertThrows(BadRequestException.class, () -> ingestionService.submit(request));
+        reset(expenseService);
+        assertNotNull(ingestionService.submit(request));
+    }
+
+    @Test
+    void getStatus_WithUnknownTrackingId_ShouldThrowResourceNotFoundException() {
+        ExpenseIngestionService ingestionService = service("async", 1);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> ingestionService.getStatus(UUID.randomUUID()));
+    }
+
+    @Test
+    void getStatus_WrittenOnAnotherInstance_ShouldReturnStoredOutcome() {
+        ExpenseIngestionService ingestionService = service("async", 1);
+        UUID trackingId = UUID.randomUUID();
+        when(ingestionStatusRepository.findById(trackingId)).thenReturn(Optional.of(
+                new IngestionStatus(trackingId, IngestionState.CREATED, 10L, null, NOW.minusSeconds(60))));
+
+        ExpenseIngestionStatusDto status = ingestionService.getStatus(trackingId);
+
+        assertEquals(IngestionState.CREATED, status.getState());
+        assertEquals(10L, status.getId());
+    }
+
+    @Test
+    void getStatus_StoredBeyondRetention_ShouldThrowResourceNotFoundException() {
+        ExpenseIngestionService ingestionService = service("async", 1);
+        UUID trackingId = UUID.randomUUID();
+        when(ingestionStatusRepository.findById(trackingId)).thenReturn(Optional.of(
+                new IngestionStatus(trackingId, IngestionState.CREATED, 10L, null, NOW.minus(Duration.ofHours(2)))));
+
+        assertThrows(ResourceNotFoundException.class, () -> ingestionService.getStatus(trackingId));
+    }
+}
@@ -0,0 +1,101 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.service.ExpenseSearchIndex.Hit;
+import com.deltaservices.expensemanagement.service.ExpenseSearchIndex.QueryTerm;
+import com.deltaservices.expensemanagement.service.ExpenseSearchIndex.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseSearchIndexTest {
+
+    private ExpenseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ExpenseSearchIndex();
+        index.add(1L, "Lunch at Acme Diner", LocalDate.of(2024, 1, 10), "FOOD");
+        index.add(2L, "Acme invoice INV-2024-001 for office chairs and desks", LocalDate.of(2024, 2, 1), "OTHER");
+        index.add(3L, "Train ticket", LocalDate.of(2024, 3, 5), "TRANSPORTATION");
+        index.add(4L, "Acme", LocalDate.of(2024, 3, 20), "FOOD");
+    }
+
+    @Test
+    void tokenize_ShouldLowercaseAndSplitOnPunctuation() {
+        assertEquals(List.of("acme", "inv", "2024", "001", "café"), ExpenseSearchIndex.tokenize("ACME INV-2024/001, Café"));
+    }
+
+    @Test
+    void parse_ShouldMarkTrailingWildcardAsPrefixOfLastToken() {
+        assertEquals(List.of(new QueryTerm("inv", false), new QueryTerm("20", true)),
+                ExpenseSearchIndex.parse("  INV-20*  inv "));
+        assertTrue(ExpenseSearchIndex.parse("*  - ").isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankShorterDescriptionsFirst() {
+        SearchResult result = index.search("acme", null, null, null, 10);
+
+        assertEquals(3, result.total());
+        assertEquals(List.of(4L, 1L, 2L), ids(result));
+    }
+
+    @Test
+    void search_ShouldRequireEveryTerm() {
+        assertEquals(List.of(2L), ids(index.search("acme 2024", null, null, null, 10)));
+        assertEquals(0, index.search("acme train", null, null, null, 10).total());
+        assertEquals(0, index.search("unknown", null, null, null, 10).total());
+    }
+
+    @Test
+    void search_WithPrefix_ShouldMatchAllExpansions() {
+        index.add(5L, "Invoice from Acme", LocalDate.of(2024, 4, 1), "OTHER");
+
+        assertEquals(List.of(5L, 2L), ids(index.search("acme in*", null, null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("din*", null, null, null, 10)));
+    }
+
+    @Test
+    void search_ShouldApplyDateAndCategoryFilters() {
+        assertEquals(List.of(4L, 1L), ids(index.search("acme", null, null, "FOOD", 10)));
+        assertEquals(List.of(2L), ids(index.search("acme", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), null, 10)));
+    }
+
+    @Test
+    void search_ShouldReturnAtMostLimitHitsButCountAllMatches() {
+        SearchResult result = index.search("acme", null, null, null, 2);
+
+        assertEquals(3, result.total());
+        assertEquals(List.of(4L, 1L), ids(result));
+    }
+
+    @Test
+    void remove_ShouldDropDocumentAndUnusedTerms() {
+        int terms = index.termCount();
+
+        index.remove(3L);
+        index.remove(3L);
+
+        assertEquals(3, index.size());
+        assertEquals(terms - 2, index.termCount());
+        assertEquals(0, index.search("train", null, null, null, 10).total());
+    }
+
+    @Test
+    void add_ShouldIgnoreAlreadyIndexedIdsAndKeepPostingsSorted() {
+        index.add(4L, "Something else", LocalDate.of(2024, 3, 20), "FOOD");
+        index.add(0L, "Acme refund", LocalDate.of(2023, 12, 1), "OTHER");
+
+        assertEquals(5, index.size());
+        assertEquals(0, index.search("something", null, null, null, 10).total());
+        assertEquals(4, index.search("acme", null, null, null, 10).total());
+    }
+
+    private List<Long> ids(SearchResult result) {
+        return result.hits().stream().map(Hit::id).toList();
+    }
+}
@@ -0,0 +1,193 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.GoneException;
+import com.deltaservices.expensemanagement.exception.ServiceUnavailableException;
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseChangesDto;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.ExpenseSearchResultDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseSearchServiceTest {
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Mock
+    private ExpenseChangeService expenseChangeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExpenseSearchService expenseSearchService;
+    private Expense lunch;
+    private Expense invoice;
+
+    @BeforeEach
+    void setUp() {
+        ExpenseMetrics expenseMetrics = new ExpenseMetrics(new SimpleMeterRegistry());
+        ExpenseService expenseService = new ExpenseService(expenseRepository, transactionManager, null, expenseMetrics,
+                null, null, archivedExpenseRepository, expenseArchiveService);
+        expenseSearchService = new ExpenseSearchService(expenseRepository, archivedExpenseRepository, expenseService,
+                expenseChangeService, transactionManager, expenseMetrics, new SimpleMeterRegistry());
+        lenient().when(expenseChangeService.getVersion()).thenReturn(version(3));
+
+        lunch = expense(1L, "Lunch at Acme");
+        invoice = expense(2L, "Acme invoice for office chairs");
+    }
+
+    @Test
+    void search_BeforeIndexIsBuilt_ShouldThrowServiceUnavailableException() {
+        assertThrows(ServiceUnavailableException.class,
+                () -> expenseSearchService.search("acme", new ExpenseFilter(), 10));
+    }
+
+    @Test
+    void search_ShouldReturnExpensesInRankOrder() {
+        when(expenseRepository.streamSearchFields()).thenReturn(Stream.of(row(invoice), row(lunch)));
+        expenseSearchService.rebuild();
+        when(expenseRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(invoice, lunch));
+
+        ExpenseSearchResultDto result = expenseSearchService.search("acme", new ExpenseFilter(), 10);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(1L, 2L), result.getItems().stream().map(ExpenseResponseDto::getId).toList());
+    }
+
+    @Test
+    void search_ShouldSkipHitsNoLongerInDatabase() {
+        when(expenseRepository.streamSearchFields()).thenReturn(Stream.of(row(lunch), row(invoice)));
+        expenseSearchService.rebuild();
+        when(expenseRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(invoice));
+
+        ExpenseSearchResultDto result = expenseSearchService.search("acme", new ExpenseFilter(), 10);
+
+        assertEquals(List.of(2L), result.getItems().stream().map(ExpenseResponseDto::getId).toList());
+    }
+
+    @Test
+    void onExpenseEvents_ShouldKeepIndexCurrent() {
+        when(expenseRepository.streamSearchFields()).thenReturn(Stream.empty());
+        expenseSearchService.rebuild();
+        when(expenseRepository.findAllById(List.of(2L))).thenReturn(List.of(invoice));
+
+        expenseSearchService.onExpensesCreated(new ExpensesCreatedEvent(List.of(lunch, invoice)));
+        expenseSearchService.onExpensesDeleted(new ExpensesDeletedEvent(List.of(lunch)));
+        ExpenseSearchResultDto result = expenseSearchService.search("acme", new ExpenseFilter(), 10);
+
+        assertEquals(1, result.getTotal());
+        assertEquals(2L, result.getItems().get(0).getId());
+    }
+
+    @Test
+    void pollChanges_ShouldApplyChangesCommittedOnAnyInstance() {
+        when(expenseRepository.streamSearchFields()).thenReturn(Stream.<Object[]>of(row(lunch)));
+        expenseSearchService.rebuild();
+        // Written and deleted through another instance
+        when(expenseChangeService.getVersion()).thenReturn(version(5));
+        // Read in two pages
+        when(expenseChangeService.getChangePage(3)).thenReturn(changes(4, List.of(invoice), List.of()));
+        when(expenseChangeService.getChangePage(4)).thenReturn(changes(5, List.of(), List.of(1L)));
+
+        expenseSearchService.pollChanges();
+        expenseSearchService.pollChanges();
+
+        verify(expenseChangeService, times(2)).getChangePage(anyLong());
+        when(expenseRepository.findAllById(List.of(2L))).thenReturn(List.of(invoice));
+        ExpenseSearchResultDto result = expenseSearchService.search("acme", new ExpenseFilter(), 10);
+        assertEquals(1, result.getTotal());
+        assertEquals(2L, result.getItems().get(0).getId());
+    }
+
+    @Test
+    void pollChanges_WhenChangesWerePurged_ShouldRebuildFromTheTables() {
+        when(expenseRepository.streamSearchFields()).thenReturn(Stream.<Object[]>of(row(lunch)), Stream.<Object[]>of(row(invoice)));
+        expenseSearchService.rebuild();
+        when(expenseChangeService.getVersion()).thenReturn(version(20_000));
+        when(expenseChangeService.getChangePage(3)).thenThrow(new GoneException("Purged"));
+
+        expenseSearchService.pollChanges();
+
+        when(expenseRepository.findAllById(List.of(2L))).thenReturn(List.of(invoice));
+        assertEquals(1, expenseSearchService.search("acme", new ExpenseFilter(), 10).getTotal());
+        expenseSearchService.pollChanges();
+        verify(expenseChangeService, times(1)).getChangePage(anyLong());
+    }
+
+    @Test
+    void search_WithInvalidArguments_ShouldThrowBadRequestException() {
+        ExpenseFilter invalidRange = new ExpenseFilter();
+        invalidRange.setFrom(LocalDate.of(2024, 2, 1));
+        invalidRange.setTo(LocalDate.of(2024, 1, 1));
+
+        assertThrows(BadRequestException.class, () -> expenseSearchService.search(" - ", new ExpenseFilter(), 10));
+        assertThrows(BadRequestException.class, () -> expenseSearchService.search("acme", new ExpenseFilter(), 0));
+        assertThrows(BadRequestException.class,
+                () -> expenseSearchService.search("acme", new ExpenseFilter(), ExpenseSearchService.MAX_LIMIT + 1));
+        assertThrows(BadRequestException.class, () -> expenseSearchService.search("acme", invalidRange, 10));
+        verifyNoInteractions(expenseRepository);
+    }
+
+    private Object[] row(Expense expense) {
+        return new Object[]{expense.getId(), expense.getDescription(), expense.getDate(), expense.getCategory()};
+    }
+
+    private ExpenseChangeService.Version version(long number) {
+        return new ExpenseChangeService.Version(number, Instant.parse("2024-01-15T10:00:00Z"), 0);
+    }
+
+    private ExpenseChangesDto changes(long version, List<Expense> upserted, List<Long> deleted) {
+        ExpenseChangesDto changes = new ExpenseChangesDto();
+        changes.setVersion(version);
+        changes.setUpserted(upserted.stream().map(expense -> {
+            ExpenseResponseDto dto = new ExpenseResponseDto();
+            dto.setId(expense.getId());
+            dto.setDescription(expense.getDescription());
+            dto.setDate(expense.getDate());
+            dto.setCategory(expense.getCategory());
+            return dto;
+        }).toList());
+        changes.setDeleted(deleted);
+        return changes;
+    }
+
+    private Expense expense(Long id, String description) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setDescription(description);
+        expense.setAmount(Money.parse("10.00", Money.DEFAULT_CURRENCY));
+        expense.setDate(LocalDate.of(2024, 1, 15));
+        expense.setCategory("OTHER");
+        return expense;
+    }
+}
@@ -1,26 +1,53 @@
 package com.deltaservices.expensemanagement.service;
 
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.event.ExpenseUpdatedEvent;
 import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.exception.ConflictException;
+import com.deltaservices.expensemanagement.exception.PreconditionFailedException;
+import com.deltaservices.expensemanagement.exception.ResourceNotFoundException;
+import com.deltaservices.expensemanagement.metrics.ExpenseMetrics;
+import com.deltaservices.expensemanagement.model.ArchivedExpense;
 import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseBatchResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteRequestDto;
+import com.deltaservices.expensemanagement.model.ExpenseBulkDeleteResultDto;
+import com.deltaservices.expensemanagement.model.ExpenseCursor;
+import com.deltaservices.expensemanagement.model.ExpenseFilter;
+import com.deltaservices.expensemanagement.model.ExpensePageDto;
 import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
 import com.deltaservices.expensemanagement.model.ExpenseResponseDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
 import com.deltaservices.expensemanagement.repository.ExpenseRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Currency;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +56,27 @@ public class ExpenseServiceTest {
     @Mock
     private ExpenseRepository expenseRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ExpenseMetrics expenseMetrics;
+
+    @Mock
+    private CategoryRegistry categoryRegistry;
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
     @InjectMocks
     private ExpenseService expenseService;
 
@@ -41,46 +89,161 @@ public class ExpenseServiceTest {
         expense1 = new Expense();
         expense1.setId(1L);
         expense1.setDescription("Test Expense 1");
-        expense1.setAmount(new BigDecimal("100.50"));
+        expense1.setAmount(Money.parse("100.50", Money.DEFAULT_CURRENCY));
         expense1.setDate(LocalDate.now());
         expense1.setCategory("Food");
 
         expense2 = new Expense();
         expense2.setId(2L);
         expense2.setDescription("Test Expense 2");
-        expense2.setAmount(new BigDecimal("50.75"));
+        expense2.setAmount(Money.parse("50.75", Money.DEFAULT_CURRENCY));
         expense2.setDate(LocalDate.now().minusDays(1));
         expense2.setCategory("Transport");
 
         validRequestDto = new ExpenseRequestDto();
         validRequestDto.setDescription("New Expense");
-        validRequestDto.setAmount(new BigDecimal("75.25"));
+        validRequestDto.setAmount(Money.parse("75.25", Money.DEFAULT_CURRENCY));
         validRequestDto.setDate(LocalDate.now());
         validRequestDto.setCategory("Utilities");
     }
 
     @Test
-    void getAllExpenses_ShouldReturnAllExpenses() {
-        when(expenseRepository.findAll()).thenReturn(Arrays.asList(expense1, expense2));
+    void getExpense_WithExistingId_ShouldReturnExpense() {
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
 
-        List<ExpenseResponseDto> result = expenseService.getAllExpenses();
+        ExpenseResponseDto result = expenseService.getExpense(1L);
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("Test Expense 1", result.get(0).getDescription());
-        assertEquals("Test Expense 2", result.get(1).getDescription());
-        verify(expenseRepository, times(1)).findAll();
+        assertEquals(1L, result.getId());
+        assertEquals("Test Expense 1", result.getDescription());
+        verify(expenseRepository, times(1)).findById(1L);
     }
 
     @Test
-    void getAllExpenses_WhenNoExpenses_ShouldReturnEmptyList() {
-        when(expenseRepository.findAll()).thenReturn(Collections.emptyList());
+    void getExpense_WhenNotFound_ShouldThrowResourceNotFoundException() {
+        when(expenseRepository.findById(99L)).thenReturn(Optional.empty());
 
-        List<ExpenseResponseDto> result = expenseService.getAllExpenses();
+        ResourceNotFoundException exception = assertThrows(
+                ResourceNotFoundException.class,
+                () -> expenseService.getExpense(99L)
+        );
+        assertEquals("Expense not found with id : '99'", exception.getMessage());
+    }
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(expenseRepository, times(1)).findAll();
+    @Test
+    void getExpense_WhenArchived_ShouldReadFromArchive() {
+        when(expenseRepository.findById(7L)).thenReturn(Optional.empty());
+        when(expenseArchiveService.mayContain(null)).thenReturn(true);
+        when(archivedExpenseRepository.findById(7L)).thenReturn(Optional.of(archived(7L, LocalDate.of(2020, 3, 1))));
+
+        ExpenseResponseDto result = expenseService.getExpense(7L);
+
+        assertEquals(7L, result.getId());
+        assertEquals(LocalDate.of(2020, 3, 1), result.getDate());
+    }
+
+    @Test
+    void getExpenses_WhenMoreRowsThanPageSize_ShouldReturnNextCursor() {
+        when(expenseRepository.<Expense, List<Expense>>findBy(any(Specification.class), any()))
+                .thenReturn(new ArrayList<>(Arrays.asList(expense1, expense2)));
+
+        ExpensePageDto result = expenseService.getExpenses(new ExpenseFilter(), null, 1, 0);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals("Test Expense 1", result.getItems().get(0).getDescription());
+        ExpenseCursor cursor = ExpenseCursor.decode(result.getNextCursor());
+        assertEquals(expense1.getDate(), cursor.getDate());
+        assertEquals(expense1.getId(), cursor.getId());
+        verify(expenseMetrics).rowsReturned("page", 1);
+    }
+
+    @Test
+    void getExpenses_WhenLastPage_ShouldReturnNoCursor() {
+        when(expenseRepository.<Expense, List<Expense>>findBy(any(Specification.class), any()))
+                .thenReturn(Arrays.asList(expense1, expense2));
+
+        String cursor = new ExpenseCursor(LocalDate.now().plusDays(1), 10L).encode();
+        ExpensePageDto result = expenseService.getExpenses(new ExpenseFilter(), cursor, 2, 0);
+
+        assertEquals(2, result.getItems().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getExpenses_WithFullPageOfRecentRows_ShouldNotReadArchive() {
+        when(expenseRepository.<Expense, List<Expense>>findBy(any(Specification.class), any()))
+                .thenReturn(Arrays.asList(expense1, expense2));
+        when(expenseArchiveService.getArchivedBefore()).thenReturn(LocalDate.now().minusYears(2));
+
+        ExpensePageDto result = expenseService.getExpenses(new ExpenseFilter(), null, 1, 0);
+
+        assertEquals(1, result.getItems().size());
+        assertNotNull(result.getNextCursor());
+        verifyNoInteractions(archivedExpenseRepository);
+    }
+
+    @Test
+    void getExpenses_ReachingArchive_ShouldMergeArchivedRowsInPageOrder() {
+        when(expenseRepository.<Expense, List<Expense>>findBy(any(Specification.class), any()))
+                .thenReturn(List.of(expense1));
+        when(expenseArchiveService.getArchivedBefore()).thenReturn(LocalDate.now().minusYears(2));
+        when(archivedExpenseRepository.<ArchivedExpense, List<ArchivedExpense>>findBy(any(Specification.class), any()))
+                .thenReturn(List.of(archived(8L, LocalDate.of(2020, 2, 1)), archived(7L, LocalDate.of(2020, 3, 1))));
+
+        ExpensePageDto result = expenseService.getExpenses(new ExpenseFilter(), null, 2, 0);
+
+        assertEquals(List.of(1L, 7L), result.getItems().stream().map(ExpenseResponseDto::getId).toList());
+        ExpenseCursor cursor = ExpenseCursor.decode(result.getNextCursor());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void getExpenses_WithInvalidPageSize_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.getExpenses(new ExpenseFilter(), null, ExpenseService.MAX_PAGE_SIZE + 1, 0)
+        );
+        assertEquals("Page size must be between 1 and " + ExpenseService.MAX_PAGE_SIZE, exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+        verify(expenseMetrics).validationFailed("page_size");
+    }
+
+    @Test
+    void getExpenses_WithInvertedDateRange_ShouldThrowBadRequestException() {
+        ExpenseFilter filter = new ExpenseFilter();
+        filter.setFrom(LocalDate.now());
+        filter.setTo(LocalDate.now().minusDays(1));
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.getExpenses(filter, null, 10, 0)
+        );
+        assertEquals("Start date must not be after end date", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void getExpenses_WithUnsupportedCurrency_ShouldThrowBadRequestException() {
+        ExpenseFilter filter = new ExpenseFilter();
+        filter.setMinAmount(new BigDecimal("100"));
+        filter.setCurrency("JPY");
+        when(fxRateService.getCurrencies()).thenReturn(List.of(Money.DEFAULT_CURRENCY));
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.getExpenses(filter, null, 10, 0)
+        );
+        assertEquals("Currency must be one of [EUR]", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void getExpenses_WithMalformedCursor_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.getExpenses(new ExpenseFilter(), "not-a-cursor", 10, 0)
+        );
+        assertEquals("Invalid cursor", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
     }
 
     @Test
@@ -96,9 +259,38 @@ public class ExpenseServiceTest {
         assertNotNull(result);
         assertEquals(3L, result.getId());
         assertEquals("New Expense", result.getDescription());
-        assertEquals(new BigDecimal("75.25"), result.getAmount());
+        assertEquals(Money.parse("75.25", Money.DEFAULT_CURRENCY), result.getAmount());
         assertEquals("Utilities", result.getCategory());
         verify(expenseRepository, times(1)).save(any(Expense.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ExpensesCreatedEvent.class));
+        verify(categoryRegistry).resolveId(validRequestDto.getCategory());
+    }
+
+    @Test
+    void createExpense_WithCurrency_ShouldStoreAmountInThatCurrency() {
+        validRequestDto.setCurrency("usd");
+        when(fxRateService.isSupported("usd")).thenReturn(true);
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ExpenseResponseDto result = expenseService.createExpense(validRequestDto);
+
+        assertEquals("USD", result.getCurrency());
+        assertEquals(Money.parse("75.25", Currency.getInstance("USD")), result.getAmount());
+    }
+
+    @Test
+    void createExpense_WithUnsupportedCurrency_ShouldThrowBadRequestException() {
+        validRequestDto.setCurrency("CHF");
+        when(fxRateService.isSupported("CHF")).thenReturn(false);
+        when(fxRateService.getCurrencies()).thenReturn(List.of(Money.DEFAULT_CURRENCY));
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.createExpense(validRequestDto)
+        );
+        assertEquals("Expense currency must be one of [EUR]", exception.getMessage());
+        verify(expenseMetrics).validationFailed("currency_unsupported");
+        verify(expenseRepository, never()).save(any(Expense.class));
     }
 
     @Test
@@ -115,7 +307,7 @@ public class ExpenseServiceTest {
     void createExpense_WithEmptyDescription_ShouldThrowBadRequestException() {
         ExpenseRequestDto invalidRequest = new ExpenseRequestDto();
         invalidRequest.setDescription("");
-        invalidRequest.setAmount(new BigDecimal("75.25"));
+        invalidRequest.setAmount(Money.parse("75.25", Money.DEFAULT_CURRENCY));
         invalidRequest.setDate(LocalDate.now());
         invalidRequest.setCategory("Utilities");
 
@@ -140,6 +332,7 @@ public class ExpenseServiceTest {
                 () -> expenseService.createExpense(invalidRequest)
         );
         assertEquals("Expense amount cannot be null", exception.getMessage());
+        verify(expenseMetrics).validationFailed("amount_null");
         verify(expenseRepository, never()).save(any(Expense.class));
     }
 
@@ -147,7 +340,7 @@ public class ExpenseServiceTest {
     void createExpense_WithZeroAmount_ShouldThrowBadRequestException() {
         ExpenseRequestDto invalidRequest = new ExpenseRequestDto();
         invalidRequest.setDescription("Test");
-        invalidRequest.setAmount(BigDecimal.ZERO);
+        invalidRequest.setAmount(Money.ofMinor(0, Money.DEFAULT_CURRENCY));
         invalidRequest.setDate(LocalDate.now());
         invalidRequest.setCategory("Utilities");
 
@@ -163,7 +356,7 @@ public class ExpenseServiceTest {
     void createExpense_WithNullDate_ShouldThrowBadRequestException() {
         ExpenseRequestDto invalidRequest = new ExpenseRequestDto();
         invalidRequest.setDescription("Test");
-        invalidRequest.setAmount(new BigDecimal("75.25"));
+        invalidRequest.setAmount(Money.parse("75.25", Money.DEFAULT_CURRENCY));
         invalidRequest.setDate(null);
         invalidRequest.setCategory("Utilities");
 
@@ -187,15 +380,336 @@ public class ExpenseServiceTest {
         verify(expenseRepository, times(1)).save(any(Expense.class));
     }
 
+    @Test
+    void createExpenses_ShouldStoreValidItemsAndReportRejectedOnes() {
+        ExpenseRequestDto invalidRequest = new ExpenseRequestDto();
+        invalidRequest.setDescription("Test");
+        invalidRequest.setAmount(Money.ofMinor(0, Money.DEFAULT_CURRENCY));
+        invalidRequest.setDate(LocalDate.now());
+        invalidRequest.setCategory("Utilities");
+        when(expenseRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Expense> expenses = invocation.getArgument(0);
+            long id = 10L;
+            for (Expense expense : expenses) {
+                expense.setId(id++);
+            }
+            return expenses;
+        });
+
+        ExpenseBatchResultDto result = expenseService.createExpenses(
+                Arrays.asList(validRequestDto, invalidRequest, validRequestDto));
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(3, result.getItems().size());
+        assertEquals(10L, result.getItems().get(0).getId());
+        assertNull(result.getItems().get(0).getError());
+        assertEquals(1, result.getItems().get(1).getIndex());
+        assertEquals("Expense amount must be greater than zero", result.getItems().get(1).getError());
+        assertEquals(11L, result.getItems().get(2).getId());
+        verify(expenseRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void createExpenses_WithoutCategory_ShouldRejectOnlyThatItem() {
+        ExpenseRequestDto uncategorized = new ExpenseRequestDto();
+        uncategorized.setDescription("Test");
+        uncategorized.setAmount(Money.parse("10.00", Money.DEFAULT_CURRENCY));
+        uncategorized.setDate(LocalDate.now());
+        when(expenseRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Expense> expenses = invocation.getArgument(0);
+            expenses.forEach(expense -> expense.setId(10L));
+            return expenses;
+        });
+
+        ExpenseBatchResultDto result = expenseService.createExpenses(Arrays.asList(uncategorized, validRequestDto));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals("Expense category cannot be null", result.getItems().get(0).getError());
+        assertNull(result.getItems().get(1).getError());
+        verify(expenseRepository).saveAll(argThat(expenses -> ((List<?>) expenses).size() == 1));
+    }
+
+    @Test
+    void createExpenses_WithDataIntegrityViolation_ShouldRejectChunkItems() {
+        when(expenseRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("Database error"));
+
+        ExpenseBatchResultDto result = expenseService.createExpenses(Collections.singletonList(validRequestDto));
+
+        assertEquals(0, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals("Could not create expense due to data constraint violation", result.getItems().get(0).getError());
+    }
+
+    @Test
+    void createExpenses_WhenNewCategoryCannotBeCreated_ShouldRejectChunkItems() {
+        when(categoryRegistry.resolveId(validRequestDto.getCategory()))
+                .thenThrow(new BadRequestException("Unknown category 'Utilities', and no more than 1000 categories can be created"));
+
+        ExpenseBatchResultDto result = expenseService.createExpenses(Collections.singletonList(validRequestDto));
+
+        assertEquals(1, result.getRejected());
+        assertEquals("Unknown category 'Utilities', and no more than 1000 categories can be created",
+                result.getItems().get(0).getError());
+        verify(expenseRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createExpense_WithInvalidNewCategory_ShouldThrowBadRequestException() {
+        validRequestDto.setCategory("Utilities ");
+        when(categoryRegistry.findId("Utilities ")).thenReturn(null);
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.createExpense(validRequestDto)
+        );
+        assertEquals("Expense category cannot contain control characters or surrounding spaces", exception.getMessage());
+        verify(categoryRegistry, never()).resolveId(anyString());
+    }
+
+    @Test
+    void createExpenses_WithEmptyBatch_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.createExpenses(Collections.emptyList())
+        );
+        assertEquals("Expense batch cannot be empty", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+    }
+
     @Test
     void deleteExpense_WithValidId_ShouldDeleteExpense() {
         Long id = 1L;
-        when(expenseRepository.existsById(id)).thenReturn(true);
-        doNothing().when(expenseRepository).deleteById(id);
+        when(expenseRepository.findById(id)).thenReturn(Optional.of(expense1));
+        doNothing().when(expenseRepository).delete(expense1);
 
         expenseService.deleteExpense(id);
 
-        verify(expenseRepository, times(1)).existsById(id);
-        verify(expenseRepository, times(1)).deleteById(id);
+        verify(expenseRepository, times(1)).findById(id);
+        verify(expenseRepository, times(1)).delete(expense1);
+        verify(eventPublisher, times(1)).publishEvent(new ExpensesDeletedEvent(List.of(expense1)));
+    }
+
+    @Test
+    void deleteExpense_WhenNotFound_ShouldThrowResourceNotFoundException() {
+        Long id = 99L;
+        when(expenseRepository.findById(id)).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(
+                ResourceNotFoundException.class,
+                () -> expenseService.deleteExpense(id)
+        );
+        assertEquals("Expense not found with id : '99'", exception.getMessage());
+        verify(expenseRepository, never()).delete(any(Expense.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteExpenses_ByIds_ShouldDeleteInChunksAndPublishDeletedRows() {
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setIds(ids);
+        when(expenseRepository.findAllByIdForUpdate(ids.subList(0, 1000))).thenReturn(List.of(expense1, expense2));
+        when(expenseRepository.findAllByIdForUpdate(List.of(1001L))).thenReturn(Collections.emptyList());
+        when(expenseRepository.deleteAllByIds(List.of(1L, 2L))).thenReturn(2);
+
+        ExpenseBulkDeleteResultDto result = expenseService.deleteExpenses(request);
+
+        assertEquals(2, result.getDeleted());
+        verify(expenseRepository, times(1)).deleteAllByIds(anyList());
+        verify(eventPublisher, times(1)).publishEvent(new ExpensesDeletedEvent(List.of(expense1, expense2)));
+    }
+
+    @Test
+    void deleteExpenses_ByIds_ShouldDeleteArchivedExpensesNotInHotTable() {
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setIds(List.of(1L, 7L));
+        ArchivedExpense archived = archived(7L, LocalDate.of(2020, 3, 1));
+        when(expenseRepository.findAllByIdForUpdate(List.of(1L, 7L))).thenReturn(List.of(expense1));
+        when(expenseRepository.deleteAllByIds(List.of(1L))).thenReturn(1);
+        when(expenseArchiveService.mayContain(null)).thenReturn(true);
+        when(archivedExpenseRepository.findAllByIdForUpdate(List.of(7L))).thenReturn(List.of(archived));
+        when(archivedExpenseRepository.deleteAllByIds(List.of(7L))).thenReturn(1);
+
+        ExpenseBulkDeleteResultDto result = expenseService.deleteExpenses(request);
+
+        assertEquals(2, result.getDeleted());
+        verify(eventPublisher).publishEvent(new ExpensesDeletedEvent(List.of(expense1, archived.toExpense())));
+    }
+
+    @Test
+    void deleteExpenses_ByFilter_ShouldDeleteUntilNoRowsMatch() {
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setCategory("Food");
+        when(expenseRepository.<Expense, List<Expense>>findBy(any(Specification.class), any()))
+                .thenReturn(List.of(expense1))
+                .thenReturn(Collections.emptyList());
+        when(expenseRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(expense1));
+        when(expenseRepository.deleteAllByIds(List.of(1L))).thenReturn(1);
+
+        ExpenseBulkDeleteResultDto result = expenseService.deleteExpenses(request);
+
+        assertEquals(1, result.getDeleted());
+        verify(expenseRepository, times(2)).findBy(any(Specification.class), any());
+        verify(eventPublisher, times(1)).publishEvent(new ExpensesDeletedEvent(List.of(expense1)));
+    }
+
+    @Test
+    void deleteExpenses_WithoutCriteria_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.deleteExpenses(new ExpenseBulkDeleteRequestDto())
+        );
+        assertEquals("Either ids or a filter must be given", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void deleteExpenses_WithIdsAndFilter_ShouldThrowBadRequestException() {
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setIds(List.of(1L));
+        request.setFrom(LocalDate.now());
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.deleteExpenses(request)
+        );
+        assertEquals("Ids and a filter cannot be combined", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void deleteExpenses_WithInvalidId_ShouldThrowBadRequestException() {
+        ExpenseBulkDeleteRequestDto request = new ExpenseBulkDeleteRequestDto();
+        request.setIds(List.of(1L, -5L));
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseService.deleteExpenses(request)
+        );
+        assertEquals("Expense ID must be a positive number", exception.getMessage());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void updateExpense_WithMatchingVersion_ShouldWriteAndPublishBeforeAndAfter() {
+        expense1.setVersion(3);
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
+        when(expenseRepository.saveAndFlush(expense1)).thenAnswer(invocation -> {
+            expense1.setVersion(4);
+            return expense1;
+        });
+
+        ExpenseResponseDto result = expenseService.updateExpense(1L, validRequestDto, 3L);
+
+        assertEquals("New Expense", result.getDescription());
+        assertEquals(4L, result.getVersion());
+        ArgumentCaptor<ExpenseUpdatedEvent> event = ArgumentCaptor.forClass(ExpenseUpdatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("Test Expense 1", event.getValue().getBefore().getDescription());
+        assertEquals(3, event.getValue().getBefore().getVersion());
+        assertSame(expense1, event.getValue().getAfter());
+        verify(categoryRegistry).resolveId("Utilities");
+    }
+
+    @Test
+    void updateExpense_WithStaleVersion_ShouldThrowPreconditionFailedException() {
+        expense1.setVersion(5);
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
+
+        PreconditionFailedException exception = assertThrows(
+                PreconditionFailedException.class,
+                () -> expenseService.updateExpense(1L, validRequestDto, 4L)
+        );
+        assertEquals("Expense was changed since version 4, it is now at version 5", exception.getMessage());
+        verify(expenseRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateExpense_WhenChangedConcurrently_ShouldThrowConflictException() {
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
+        when(expenseRepository.saveAndFlush(expense1))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated by another transaction"));
+
+        assertThrows(ConflictException.class, () -> expenseService.updateExpense(1L, validRequestDto, null));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void patchExpense_ShouldKeepFieldsLeftOut() {
+        when(fxRateService.isSupported("EUR")).thenReturn(true);
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
+        when(expenseRepository.saveAndFlush(expense1)).thenReturn(expense1);
+        ExpenseRequestDto patch = new ExpenseRequestDto();
+        patch.setDescription("Renamed");
+
+        ExpenseResponseDto result = expenseService.patchExpense(1L, patch, null);
+
+        assertEquals("Renamed", result.getDescription());
+        assertEquals(Money.parse("100.50", Money.DEFAULT_CURRENCY), result.getAmount());
+        assertEquals("Food", result.getCategory());
+    }
+
+    @Test
+    void patchExpense_WithoutChanges_ShouldNotWrite() {
+        when(fxRateService.isSupported("EUR")).thenReturn(true);
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
+        ExpenseRequestDto patch = new ExpenseRequestDto();
+        patch.setCategory("Food");
+
+        ExpenseResponseDto result = expenseService.patchExpense(1L, patch, 0L);
+
+        assertEquals("Test Expense 1", result.getDescription());
+        verify(expenseRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void patchExpense_WithInvalidMergedExpense_ShouldThrowBadRequestException() {
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense1));
+        ExpenseRequestDto patch = new ExpenseRequestDto();
+        patch.setDescription(" ");
+
+        assertThrows(BadRequestException.class, () -> expenseService.patchExpense(1L, patch, null));
+        verify(expenseRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateExpense_WhenArchivedAndRedatedPastBoundary_ShouldRestoreToHotTable() {
+        ArchivedExpense archived = archived(7L, LocalDate.of(2020, 3, 1));
+        archived.setVersion(2);
+        Expense restored = archived.toExpense();
+        when(expenseRepository.findById(7L)).thenReturn(Optional.empty(), Optional.of(restored));
+        when(expenseArchiveService.mayContain(null)).thenReturn(true);
+        when(expenseArchiveService.mayContain(validRequestDto.getDate())).thenReturn(false);
+        when(archivedExpenseRepository.findById(7L)).thenReturn(Optional.of(archived));
+        when(archivedExpenseRepository.restore(7L, 2L)).thenReturn(true);
+        when(expenseRepository.saveAndFlush(restored)).thenReturn(restored);
+
+        ExpenseResponseDto result = expenseService.updateExpense(7L, validRequestDto, 2L);
+
+        assertEquals(validRequestDto.getDate(), result.getDate());
+        verify(archivedExpenseRepository, never()).saveAndFlush(any());
+        verify(eventPublisher).publishEvent(any(ExpenseUpdatedEvent.class));
+    }
+
+    @Test
+    void updateExpense_WhenNotFound_ShouldThrowResourceNotFoundException() {
+        when(expenseRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> expenseService.updateExpense(99L, validRequestDto, null));
+    }
+
+    private ArchivedExpense archived(Long id, LocalDate date) {
+        ArchivedExpense archived = new ArchivedExpense();
+        archived.setId(id);
+        archived.setDescription("Archived expense " + id);
+        archived.setAmountMinor(1000);
+        archived.setCurrency(Money.DEFAULT_CURRENCY);
+        archived.setDate(date);
+        archived.setCategory("Food");
+        return archived;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,307 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.event.ExpensesDeletedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseMonthSummary;
+import com.deltaservices.expensemanagement.model.ExpenseMonthSummaryId;
+import com.deltaservices.expensemanagement.model.ExpenseSummary;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryDto;
+import com.deltaservices.expensemanagement.model.ExpenseSummaryId;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.SummaryGrouping;
+import com.deltaservices.expensemanagement.repository.ArchivedExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.repository.ExpenseSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseSummaryServiceTest {
+
+    private static final Currency EUR = Money.DEFAULT_CURRENCY;
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Duration LEASE = Duration.ofHours(1);
+
+    @Mock
+    private ExpenseSummaryRepository expenseSummaryRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Mock
+    private ExpenseChangeService expenseChangeService;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExpenseSummaryService expenseSummaryService;
+
+    private Expense expense1;
+    private Expense expense2;
+    private Expense expense3;
+
+    @BeforeEach
+    void setUp() {
+        expenseSummaryService = new ExpenseSummaryService(expenseSummaryRepository, expenseRepository, fxRateService,
+                archivedExpenseRepository, expenseChangeService, schedulerLockService, transactionManager, LEASE);
+        expense1 = expense(1L, "100.50", LocalDate.of(2024, 1, 10), "Food");
+        expense2 = expense(2L, "50.75", LocalDate.of(2024, 1, 20), "Food");
+        expense3 = expense(3L, "20.00", LocalDate.of(2024, 2, 1), "Transport");
+    }
+
+    @Test
+    void onExpensesCreated_ShouldAddOneDeltaPerGroupAndDayAndPerGroupAndMonth() {
+        expenseSummaryService.onExpensesCreated(new ExpensesCreatedEvent(Arrays.asList(expense1, expense2, expense3)));
+
+        verify(expenseSummaryRepository).addToSummary("Food", LocalDate.of(2024, 1, 10), "EUR", 10050L, 1);
+        verify(expenseSummaryRepository).addToSummary("Food", LocalDate.of(2024, 1, 20), "EUR", 5075L, 1);
+        verify(expenseSummaryRepository).addToSummary("Transport", LocalDate.of(2024, 2, 1), "EUR", 2000L, 1);
+        verify(expenseSummaryRepository).addToMonthSummary("Food", LocalDate.of(2024, 1, 1), "EUR", 15125L, 2);
+        verify(expenseSummaryRepository).addToMonthSummary("Transport", LocalDate.of(2024, 2, 1), "EUR", 2000L, 1);
+        verifyNoMoreInteractions(expenseSummaryRepository);
+    }
+
+    @Test
+    void onExpensesDeleted_ShouldSubtractFromGroup() {
+        expenseSummaryService.onExpensesDeleted(new ExpensesDeletedEvent(Collections.singletonList(expense1)));
+
+        verify(expenseSummaryRepository).addToSummary("Food", LocalDate.of(2024, 1, 10), "EUR", -10050L, -1);
+        verify(expenseSummaryRepository).addToMonthSummary("Food", LocalDate.of(2024, 1, 1), "EUR", -10050L, -1);
+    }
+
+    @Test
+    void getSummary_ByCategory_ShouldMergeMonths() {
+        givenCurrencies(EUR);
+        when(expenseSummaryRepository.sumByMonth(any(LocalDate.class), any(LocalDate.class), eq("EUR"))).thenReturn(List.of(
+                new Object[]{"Food", 2024, 1, 15125L, 2L},
+                new Object[]{"Food", 2024, 2, 1000L, 1L},
+                new Object[]{"Transport", 2024, 2, 2000L, 1L}));
+
+        ExpenseSummaryDto result = expenseSummaryService.getSummary(SummaryGrouping.CATEGORY, null, null, null, 0, 0);
+
+        assertEquals("EUR", result.getCurrency());
+        assertEquals(Money.parse("181.25", Money.DEFAULT_CURRENCY), result.getTotal());
+        assertEquals(4, result.getCount());
+        assertEquals(2, result.getGroups().size());
+        assertEquals("Food", result.getGroups().get(0).getCategory());
+        assertNull(result.getGroups().get(0).getMonth());
+        assertEquals(Money.parse("161.25", Money.DEFAULT_CURRENCY), result.getGroups().get(0).getTotal());
+        assertEquals(3, result.getGroups().get(0).getCount());
+        assertEquals("Transport", result.getGroups().get(1).getCategory());
+    }
+
+    @Test
+    void getSummary_ByMonth_ShouldUseMonthRange() {
+        givenCurrencies(EUR);
+        when(expenseSummaryRepository.sumByMonth(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 31), "EUR"))
+                .thenReturn(List.of(
+                        new Object[]{"Food", 2024, 2, 1000L, 1L},
+                        new Object[]{"Transport", 2024, 2, 2000L, 1L}));
+
+        ExpenseSummaryDto result = expenseSummaryService.getSummary(
+                SummaryGrouping.MONTH, YearMonth.of(2024, 2), YearMonth.of(2024, 3), null, 0, 0);
+
+        assertEquals(1, result.getGroups().size());
+        assertEquals(YearMonth.of(2024, 2), result.getGroups().get(0).getMonth());
+        assertNull(result.getGroups().get(0).getCategory());
+        assertEquals(Money.parse("30.00", Money.DEFAULT_CURRENCY), result.getGroups().get(0).getTotal());
+    }
+
+    @Test
+    void getSummary_ShouldConvertDailyRowsOfOtherCurrencies() {
+        givenCurrencies(EUR, USD);
+        when(expenseSummaryRepository.sumByMonth(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), "EUR"))
+                .thenReturn(List.<Object[]>of(new Object[]{"Food", 2024, 1, 1000L, 1L}));
+        ExpenseSummary usd = summary("Food", LocalDate.of(2024, 1, 15), "11.00", 2);
+        usd.getId().setCurrency("USD");
+        when(expenseSummaryRepository.findByDateRange(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), List.of("USD")))
+                .thenReturn(List.of(usd));
+        when(fxRateService.convert(Money.ofMinor(1100, USD), EUR, LocalDate.of(2024, 1, 15)))
+                .thenReturn(Money.ofMinor(1000, EUR));
+
+        ExpenseSummaryDto result = expenseSummaryService.getSummary(
+                SummaryGrouping.CATEGORY, YearMonth.of(2024, 1), YearMonth.of(2024, 1), null, 0, 0);
+
+        assertEquals(Money.parse("20.00", Money.DEFAULT_CURRENCY), result.getTotal());
+        assertEquals(3, result.getCount());
+        assertEquals(1, result.getGroups().size());
+    }
+
+    @Test
+    void getCategoryTotal_ShouldPickCategoryOrReturnZero() {
+        when(fxRateService.getCurrencies()).thenReturn(List.of(EUR));
+        when(expenseSummaryRepository.sumByMonth(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), "EUR"))
+                .thenReturn(List.of(new Object[]{"Food", 2024, 1, 1000L, 1L},
+                        new Object[]{"Transport", 2024, 1, 450L, 1L}));
+
+        assertEquals(Money.parse("4.50", EUR), expenseSummaryService.getCategoryTotal("Transport", YearMonth.of(2024, 1), EUR));
+        assertEquals(Money.ofMinor(0, EUR), expenseSummaryService.getCategoryTotal("Other", YearMonth.of(2024, 1), EUR));
+    }
+
+    @Test
+    void getSummary_WithInvertedRange_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> expenseSummaryService.getSummary(SummaryGrouping.MONTH, YearMonth.of(2024, 3), YearMonth.of(2024, 2), null, 0, 0)
+        );
+        assertEquals("Start month must not be after end month", exception.getMessage());
+        verifyNoInteractions(expenseSummaryRepository);
+    }
+
+    @Test
+    void reconcile_ShouldAddTheDriftUnderLeaseAndTakeAVersion() {
+        ExpenseSummary drifted = summary("Food", LocalDate.of(2024, 1, 10), "100.50", 1);
+        ExpenseSummary stale = summary("Other", LocalDate.of(2023, 12, 1), "5.00", 1);
+        when(schedulerLockService.tryLock(ExpenseSummaryService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(expenseRepository.sumByCategoryAndDate()).thenReturn(List.of(
+                new Object[]{"Food", LocalDate.of(2024, 1, 10), EUR, 15125L, 2L},
+                new Object[]{"Transport", LocalDate.of(2024, 2, 1), EUR, 2000L, 1L}));
+        when(expenseSummaryRepository.findAll()).thenReturn(Arrays.asList(drifted, stale));
+        when(expenseSummaryRepository.findAllMonths()).thenReturn(List.of(
+                monthSummary("Food", LocalDate.of(2024, 1, 1), "100.50", 1),
+                monthSummary("Other", LocalDate.of(2023, 12, 1), "5.00", 1)));
+
+        int repaired = expenseSummaryService.reconcile();
+
+        assertEquals(6, repaired);
+        InOrder inOrder = inOrder(expenseChangeService, expenseRepository, expenseSummaryRepository);
+        inOrder.verify(expenseChangeService).lockVersion();
+        inOrder.verify(expenseRepository).sumByCategoryAndDate();
+        inOrder.verify(expenseSummaryRepository).findAll();
+        inOrder.verify(expenseSummaryRepository).addToSummary("Food", LocalDate.of(2024, 1, 10), "EUR", 5075L, 1L);
+        verify(expenseSummaryRepository).addToSummary("Other", LocalDate.of(2023, 12, 1), "EUR", -500L, -1L);
+        verify(expenseSummaryRepository).addToSummary("Transport", LocalDate.of(2024, 2, 1), "EUR", 2000L, 1L);
+        verify(expenseSummaryRepository).addToMonthSummary("Food", LocalDate.of(2024, 1, 1), "EUR", 5075L, 1L);
+        verify(expenseSummaryRepository).addToMonthSummary("Other", LocalDate.of(2023, 12, 1), "EUR", -500L, -1L);
+        verify(expenseSummaryRepository).addToMonthSummary("Transport", LocalDate.of(2024, 2, 1), "EUR", 2000L, 1L);
+        verify(expenseChangeService).bumpVersion();
+        verify(expenseSummaryRepository, never()).save(any(ExpenseSummary.class));
+        verify(schedulerLockService).unlock(ExpenseSummaryService.LOCK_NAME);
+    }
+
+    @Test
+    void reconcile_WhenConsistent_ShouldRepairNothingAndKeepTheVersion() {
+        when(schedulerLockService.tryLock(ExpenseSummaryService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(expenseRepository.sumByCategoryAndDate()).thenReturn(List.<Object[]>of(
+                new Object[]{"Food", LocalDate.of(2024, 1, 10), EUR, 15125L, 2L}));
+        when(expenseSummaryRepository.findAll()).thenReturn(List.of(
+                summary("Food", LocalDate.of(2024, 1, 10), "151.250", 2),
+                summary("Other", LocalDate.of(2023, 12, 1), "0", 0)));
+        when(expenseSummaryRepository.findAllMonths()).thenReturn(List.of(
+                monthSummary("Food", LocalDate.of(2024, 1, 1), "151.25", 2),
+                monthSummary("Other", LocalDate.of(2023, 12, 1), "0", 0)));
+
+        assertEquals(0, expenseSummaryService.reconcile());
+        verify(expenseSummaryRepository, never())
+                .addToSummary(anyString(), any(LocalDate.class), anyString(), anyLong(), anyLong());
+        verify(expenseSummaryRepository, never())
+                .addToMonthSummary(anyString(), any(LocalDate.class), anyString(), anyLong(), anyLong());
+        verify(expenseChangeService, never()).bumpVersion();
+    }
+
+    @Test
+    void reconcile_ShouldAddUpDaysSplitBetweenHotAndArchivedExpenses() {
+        when(schedulerLockService.tryLock(ExpenseSummaryService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(expenseRepository.sumByCategoryAndDate()).thenReturn(List.<Object[]>of(
+                new Object[]{"Food", LocalDate.of(2024, 1, 10), EUR, 10050L, 1L}));
+        when(archivedExpenseRepository.sumByCategoryAndDate()).thenReturn(List.<Object[]>of(
+                new Object[]{"Food", LocalDate.of(2024, 1, 10), EUR, 5075L, 1L}));
+        when(expenseSummaryRepository.findAll()).thenReturn(List.of(
+                summary("Food", LocalDate.of(2024, 1, 10), "151.25", 2)));
+        when(expenseSummaryRepository.findAllMonths()).thenReturn(List.of(
+                monthSummary("Food", LocalDate.of(2024, 1, 1), "151.25", 2)));
+
+        assertEquals(0, expenseSummaryService.reconcile());
+    }
+
+    @Test
+    void reconcile_WhenOnlyAMonthDrifted_ShouldRepairTheMonth() {
+        when(schedulerLockService.tryLock(ExpenseSummaryService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(expenseRepository.sumByCategoryAndDate()).thenReturn(List.of(
+                new Object[]{"Food", LocalDate.of(2024, 1, 10), EUR, 10050L, 1L},
+                new Object[]{"Food", LocalDate.of(2024, 1, 20), EUR, 5075L, 1L}));
+        when(expenseSummaryRepository.findAll()).thenReturn(List.of(
+                summary("Food", LocalDate.of(2024, 1, 10), "100.50", 1),
+                summary("Food", LocalDate.of(2024, 1, 20), "50.75", 1)));
+        when(expenseSummaryRepository.findAllMonths()).thenReturn(List.of(
+                monthSummary("Food", LocalDate.of(2024, 1, 1), "100.50", 1)));
+
+        assertEquals(1, expenseSummaryService.reconcile());
+        verify(expenseSummaryRepository).addToMonthSummary("Food", LocalDate.of(2024, 1, 1), "EUR", 5075L, 1L);
+        verify(expenseSummaryRepository, never())
+                .addToSummary(anyString(), any(LocalDate.class), anyString(), anyLong(), anyLong());
+        verify(expenseChangeService).bumpVersion();
+    }
+
+    @Test
+    void reconcile_WhenAnotherInstanceHoldsLease_ShouldSkip() {
+        when(schedulerLockService.tryLock(ExpenseSummaryService.LOCK_NAME, LEASE)).thenReturn(false);
+
+        assertEquals(0, expenseSummaryService.reconcile());
+
+        verifyNoInteractions(expenseRepository, expenseSummaryRepository, expenseChangeService);
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    private void givenCurrencies(Currency... currencies) {
+        when(fxRateService.resolveCurrency(null)).thenReturn(EUR);
+        when(fxRateService.getCurrencies()).thenReturn(List.of(currencies));
+    }
+
+    private Expense expense(Long id, String amount, LocalDate date, String category) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setDescription("Expense " + id);
+        expense.setAmount(Money.parse(amount, Money.DEFAULT_CURRENCY));
+        expense.setDate(date);
+        expense.setCategory(category);
+        return expense;
+    }
+
+    private ExpenseSummary summary(String category, LocalDate date, String total, long count) {
+        ExpenseSummary summary = new ExpenseSummary();
+        summary.setId(new ExpenseSummaryId(category, date, "EUR"));
+        summary.setTotalMinor(Money.parse(total, Money.DEFAULT_CURRENCY).getMinorUnits());
+        summary.setCount(count);
+        return summary;
+    }
+
+    private ExpenseMonthSummary monthSummary(String category, LocalDate monthStart, String total, long count) {
+        ExpenseMonthSummary summary = new ExpenseMonthSummary();
+        summary.setId(new ExpenseMonthSummaryId(category, monthStart, "EUR"));
+        summary.setTotalMinor(Money.parse(total, Money.DEFAULT_CURRENCY).getMinorUnits());
+        summary.setCount(count);
+        return summary;
+    }
+}
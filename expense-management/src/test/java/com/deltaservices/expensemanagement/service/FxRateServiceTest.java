@@ -0,0 +1,168 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.FxRatesImportedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.ExpenseTableVersion;
+import com.deltaservices.expensemanagement.model.FxRate;
+import com.deltaservices.expensemanagement.model.FxRateDto;
+import com.deltaservices.expensemanagement.model.FxRateId;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.repository.ExpenseTableVersionRepository;
+import com.deltaservices.expensemanagement.repository.FxRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FxRateServiceTest {
+
+    private static final Currency EUR = Money.DEFAULT_CURRENCY;
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency GBP = Currency.getInstance("GBP");
+
+    @Mock
+    private FxRateRepository fxRateRepository;
+
+    @Mock
+    private ExpenseTableVersionRepository expenseTableVersionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private FxRateService fxRateService;
+    private final AtomicLong storedGeneration = new AtomicLong(3);
+
+    @BeforeEach
+    void setUp() {
+        fxRateService = new FxRateService(fxRateRepository, expenseTableVersionRepository, transactionManager,
+                eventPublisher, List.of("EUR", "USD", "GBP"), "");
+        lenient().when(expenseTableVersionRepository.findFxGeneration(ExpenseTableVersion.ID))
+                .thenAnswer(invocation -> storedGeneration.get());
+        lenient().when(expenseTableVersionRepository.incrementFxGeneration(ExpenseTableVersion.ID))
+                .thenAnswer(invocation -> {
+                    storedGeneration.incrementAndGet();
+                    return 1;
+                });
+        when(fxRateRepository.findAll()).thenReturn(List.of(
+                rate("EUR", "USD", LocalDate.of(2024, 1, 1), "1.10"),
+                rate("EUR", "USD", LocalDate.of(2024, 1, 5), "1.20"),
+                rate("EUR", "GBP", LocalDate.of(2024, 1, 1), "0.80")));
+        fxRateService.load();
+    }
+
+    @Test
+    void convert_ShouldUseLatestRateOnOrBeforeTheDay() {
+        assertEquals(Money.ofMinor(1100, USD), fxRateService.convert(Money.ofMinor(1000, EUR), USD, LocalDate.of(2024, 1, 4)));
+        assertEquals(Money.ofMinor(1200, USD), fxRateService.convert(Money.ofMinor(1000, EUR), USD, LocalDate.of(2024, 1, 5)));
+    }
+
+    @Test
+    void convert_ShouldInvertAndCrossThroughDefaultCurrency() {
+        assertEquals(Money.ofMinor(1000, EUR), fxRateService.convert(Money.ofMinor(1200, USD), EUR, LocalDate.of(2024, 1, 6)));
+        // 12.00 USD = 10.00 EUR = 8.00 GBP
+        assertEquals(Money.ofMinor(800, GBP), fxRateService.convert(Money.ofMinor(1200, USD), GBP, LocalDate.of(2024, 1, 6)));
+    }
+
+    @Test
+    void convert_BeforeFirstRate_ShouldThrowBadRequestException() {
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> fxRateService.convert(Money.ofMinor(1000, EUR), USD, LocalDate.of(2023, 12, 31))
+        );
+        assertEquals("No EUR to USD exchange rate on or before 2023-12-31", exception.getMessage());
+    }
+
+    @Test
+    void getRate_ShouldReportDayOfPublishedRate() {
+        FxRateDto rate = fxRateService.getRate("eur", "USD", LocalDate.of(2024, 1, 7));
+
+        assertEquals(LocalDate.of(2024, 1, 5), rate.getDate());
+        assertEquals(new BigDecimal("1.20"), rate.getRate());
+    }
+
+    @Test
+    void importCsv_ShouldStoreSupportedRatesAndPublishEvent() throws IOException {
+        String csv = "date,base,quote,rate\n"
+                + "2024-02-01,EUR,USD,1.25\n"
+                + "2024-02-01,EUR,JPY,160.5\n"
+                + "\n";
+        when(fxRateRepository.findAll()).thenReturn(List.of(rate("EUR", "USD", LocalDate.of(2024, 2, 1), "1.25")));
+
+        int imported = fxRateService.importCsv(new StringReader(csv));
+
+        assertEquals(1, imported);
+        verify(fxRateRepository).upsertAll(List.of(rate("EUR", "USD", LocalDate.of(2024, 2, 1), "1.25")));
+        verify(expenseTableVersionRepository).incrementFxGeneration(ExpenseTableVersion.ID);
+        verify(eventPublisher).publishEvent(new FxRatesImportedEvent(4));
+        assertEquals(4, fxRateService.getGeneration());
+        assertEquals(Money.ofMinor(1250, USD), fxRateService.convert(Money.ofMinor(1000, EUR), USD, LocalDate.of(2024, 2, 2)));
+    }
+
+    @Test
+    void getGeneration_AfterImportOnAnotherInstance_ShouldReloadRates() {
+        assertEquals(3, fxRateService.getGeneration());
+        storedGeneration.set(5);
+        when(fxRateRepository.findAll()).thenReturn(List.of(rate("EUR", "USD", LocalDate.of(2024, 1, 1), "1.50")));
+
+        assertEquals(5, fxRateService.getGeneration());
+
+        assertEquals(Money.ofMinor(1500, USD), fxRateService.convert(Money.ofMinor(1000, EUR), USD, LocalDate.of(2024, 1, 4)));
+        verify(eventPublisher).publishEvent(new FxRatesImportedEvent(5));
+    }
+
+    @Test
+    void refresh_WithUnchangedGeneration_ShouldNotReload() {
+        fxRateService.refresh();
+
+        verify(fxRateRepository, times(1)).findAll();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void importCsv_WithInvalidLine_ShouldImportNothing() {
+        String csv = "2024-02-01,EUR,USD,1.25\n"
+                + "2024-02-02,EUR,USD,-1\n";
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> fxRateService.importCsv(new StringReader(csv))
+        );
+        assertEquals("Invalid exchange rate on line 2: rate must be positive", exception.getMessage());
+        verify(fxRateRepository, never()).upsertAll(anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void resolveCurrency_WithUnsupportedCode_ShouldThrowBadRequestException() {
+        assertEquals(EUR, fxRateService.resolveCurrency(null));
+        assertEquals(GBP, fxRateService.resolveCurrency("gbp"));
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> fxRateService.resolveCurrency("CHF")
+        );
+        assertEquals("Unsupported currency: CHF", exception.getMessage());
+    }
+
+    private FxRate rate(String base, String quote, LocalDate date, String rate) {
+        return new FxRate(new FxRateId(base, quote, date), new BigDecimal(rate));
+    }
+}
@@ -0,0 +1,169 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.event.ExpensesCreatedEvent;
+import com.deltaservices.expensemanagement.exception.BadRequestException;
+import com.deltaservices.expensemanagement.model.Expense;
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.Money;
+import com.deltaservices.expensemanagement.model.RecurringExpense;
+import com.deltaservices.expensemanagement.model.RecurringExpenseDto;
+import com.deltaservices.expensemanagement.model.RecurringExpenseRequestDto;
+import com.deltaservices.expensemanagement.repository.ExpenseRepository;
+import com.deltaservices.expensemanagement.repository.RecurringExpenseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecurringExpenseServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 4, 15);
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    @Mock
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @Mock
+    private CategoryRegistry categoryRegistry;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RecurringExpenseService recurringExpenseService;
+
+    @BeforeEach
+    void setUp() {
+        recurringExpenseService = new RecurringExpenseService(recurringExpenseRepository, expenseRepository,
+                expenseService, categoryRegistry, schedulerLockService, eventPublisher, transactionManager, LEASE,
+                Clock.fixed(Instant.parse("2024-04-15T10:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void materializeDue_ShouldCatchUpBacklogInOneRunAndAdvanceCursor() {
+        RecurringExpense rent = template("0 0 0 1 * *", LocalDate.of(2024, 1, 1), null);
+        when(schedulerLockService.tryLock(RecurringExpenseService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(recurringExpenseRepository.findDueForUpdate(TODAY, Limit.of(RecurringExpenseService.TEMPLATES_PER_TRANSACTION)))
+                .thenReturn(List.of(rent), List.of());
+        when(expenseRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(4, recurringExpenseService.materializeDue());
+
+        ArgumentCaptor<List<Expense>> saved = ArgumentCaptor.forClass(List.class);
+        verify(expenseRepository).saveAll(saved.capture());
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 4, 1)), saved.getValue().stream().map(Expense::getDate).toList());
+        assertEquals(Money.parse("950.00", Money.DEFAULT_CURRENCY), saved.getValue().get(0).getAmount());
+        assertEquals(LocalDate.of(2024, 5, 1), rent.getNextDate());
+        verify(eventPublisher).publishEvent(any(ExpensesCreatedEvent.class));
+        verify(schedulerLockService).unlock(RecurringExpenseService.LOCK_NAME);
+    }
+
+    @Test
+    void materializeDue_ShouldSplitLongBacklogAcrossTransactionsAndFinishAtEndDate() {
+        RecurringExpense daily = template("@daily", LocalDate.of(2022, 1, 1), LocalDate.of(2023, 12, 31));
+        when(schedulerLockService.tryLock(RecurringExpenseService.LOCK_NAME, LEASE)).thenReturn(true);
+        when(recurringExpenseRepository.findDueForUpdate(any(LocalDate.class), any(Limit.class)))
+                .thenAnswer(invocation -> daily.getNextDate() != null ? List.of(daily) : List.of());
+        when(expenseRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(730, recurringExpenseService.materializeDue());
+
+        verify(expenseRepository, times(2)).saveAll(anyList());
+        assertNull(daily.getNextDate());
+    }
+
+    @Test
+    void materializeDue_WhenAnotherInstanceHoldsLease_ShouldSkip() {
+        when(schedulerLockService.tryLock(RecurringExpenseService.LOCK_NAME, LEASE)).thenReturn(false);
+
+        assertEquals(0, recurringExpenseService.materializeDue());
+
+        verifyNoInteractions(recurringExpenseRepository, expenseRepository, eventPublisher);
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    @Test
+    void createRecurringExpense_ShouldStartAtFirstMatchingDateAndRejectBadSchedules() {
+        when(expenseService.convertToEntity(any(ExpenseRequestDto.class))).thenAnswer(invocation -> {
+            Expense expense = new Expense();
+            expense.setAmount(((ExpenseRequestDto) invocation.getArgument(0)).getAmount());
+            return expense;
+        });
+        when(recurringExpenseRepository.save(any(RecurringExpense.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Last day of each month
+        RecurringExpenseDto created = recurringExpenseService.createRecurringExpense(
+                request("0 0 0 L * *", LocalDate.of(2024, 2, 10), null));
+
+        assertEquals(LocalDate.of(2024, 2, 29), created.getNextDate());
+        verify(categoryRegistry).resolveId("UTILITIES");
+        assertThrows(BadRequestException.class, () -> recurringExpenseService.createRecurringExpense(
+                request("every month", LocalDate.of(2024, 2, 10), null)));
+        assertThrows(BadRequestException.class, () -> recurringExpenseService.createRecurringExpense(
+                request("0 0 0 1 * *", LocalDate.of(2024, 2, 10), LocalDate.of(2024, 2, 20))));
+    }
+
+    @Test
+    void nextDate_ShouldCountSeveralMatchesOnOneDayOnce() {
+        CronExpression hourly = CronExpression.parse("0 0 * * * *");
+
+        assertEquals(LocalDate.of(2024, 1, 2), RecurringExpenseService.nextDate(hourly, LocalDate.of(2024, 1, 1), null));
+        assertNull(RecurringExpenseService.nextDate(hourly, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1)));
+    }
+
+    private RecurringExpense template(String schedule, LocalDate nextDate, LocalDate endDate) {
+        RecurringExpense template = new RecurringExpense();
+        template.setId(1L);
+        template.setDescription("Rent");
+        template.setAmount(Money.parse("950.00", Money.DEFAULT_CURRENCY));
+        template.setCategory("OTHER");
+        template.setSchedule(schedule);
+        template.setStartDate(nextDate);
+        template.setEndDate(endDate);
+        template.setNextDate(nextDate);
+        return template;
+    }
+
+    private RecurringExpenseRequestDto request(String schedule, LocalDate startDate, LocalDate endDate) {
+        RecurringExpenseRequestDto request = new RecurringExpenseRequestDto();
+        request.setDescription("Electricity");
+        request.setAmount(Money.parse("60.00", Money.DEFAULT_CURRENCY));
+        request.setCategory("UTILITIES");
+        request.setSchedule(schedule);
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        return request;
+    }
+}
@@ -0,0 +1,70 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.SchedulerLock;
+import com.deltaservices.expensemanagement.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SchedulerLockServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-15T10:00:00Z");
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    @Mock
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SchedulerLockService schedulerLockService;
+
+    @BeforeEach
+    void setUp() {
+        schedulerLockService = new SchedulerLockService(schedulerLockRepository, transactionManager, "node-1",
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void tryLock_WhenLeaseExpiredOrOwned_ShouldTakeItWithConditionalUpdate() {
+        when(schedulerLockRepository.acquire("job", "node-1", NOW, NOW.plus(LEASE))).thenReturn(1);
+
+        assertTrue(schedulerLockService.tryLock("job", LEASE));
+
+        verify(schedulerLockRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void tryLock_WhenHeldElsewhere_ShouldFail() {
+        when(schedulerLockRepository.acquire("job", "node-1", NOW, NOW.plus(LEASE))).thenReturn(0);
+        when(schedulerLockRepository.existsById("job")).thenReturn(true);
+
+        assertFalse(schedulerLockService.tryLock("job", LEASE));
+    }
+
+    @Test
+    void tryLock_WithoutRow_ShouldCreateItUnlessAnotherInstanceWins() {
+        when(schedulerLockRepository.existsById("job")).thenReturn(false);
+
+        assertTrue(schedulerLockService.tryLock("job", LEASE));
+        verify(schedulerLockRepository).saveAndFlush(any(SchedulerLock.class));
+
+        when(schedulerLockRepository.saveAndFlush(any(SchedulerLock.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        assertFalse(schedulerLockService.tryLock("job", LEASE));
+    }
+}
@@ -0,0 +1,151 @@
+package com.deltaservices.expensemanagement.service;
+
+import com.deltaservices.expensemanagement.model.ExpenseRequestDto;
+import com.deltaservices.expensemanagement.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementReaderTest {
+
+    @Test
+    void csv_ShouldReadExportFormatWithQuotesAndReportLinesOfBadRecords() throws IOException {
+        String csv = "\uFEFFid,description,amount,date,category,currency\r\n"
+                + "1,\"Dinner, \"\"Chez Nous\"\"\",42.50,2024-03-01,FOOD,EUR\r\n"
+                + "\r\n"
+                + "2,\"Two\nlines\",10,2024-03-02,,USD\r\n"
+                + "3,Taxi,ten,2024-03-03,TRANSPORT,EUR\r\n"
+                + "4,Bus,2.80,03/04/2024,TRANSPORT,EUR\r\n"
+                + "5,Short,1.00\r\n"
+                + "6,Train,19.90,2024-03-05,TRANSPORT,EUR";
+
+        try (StatementReader reader = new CsvStatementReader(channel(csv), "OTHER")) {
+            assertTrue(reader.next());
+            ExpenseRequestDto dinner = reader.getRequest();
+            assertEquals("Dinner, \"Chez Nous\"", dinner.getDescription());
+            assertEquals(Money.parse("42.50", Money.DEFAULT_CURRENCY), dinner.getAmount());
+            assertEquals(LocalDate.of(2024, 3, 1), dinner.getDate());
+            assertEquals("FOOD", dinner.getCategory());
+            assertEquals("EUR", dinner.getCurrency());
+            assertEquals(2, reader.getLine());
+
+            assertTrue(reader.next());
+            assertEquals("Two\nlines", reader.getRequest().getDescription());
+            assertEquals("OTHER", reader.getRequest().getCategory());
+            assertEquals("USD", reader.getRequest().getCurrency());
+            assertEquals(4, reader.getLine());
+
+            assertTrue(reader.next());
+            assertNull(reader.getRequest());
+            assertEquals("Invalid amount 'ten'", reader.getError());
+            assertEquals(6, reader.getLine());
+
+            assertTrue(reader.next());
+            assertTrue(reader.getError().startsWith("Invalid date '03/04/2024'"));
+
+            assertTrue(reader.next());
+            assertEquals("Expected 6 fields but found 3", reader.getError());
+
+            assertTrue(reader.next());
+            assertEquals("Train", reader.getRequest().getDescription());
+            assertEquals(9, reader.getLine());
+            assertSame(dinner.getCurrency(), reader.getRequest().getCurrency());
+
+            assertFalse(reader.next());
+            assertEquals(csv.getBytes(StandardCharsets.UTF_8).length, reader.getBytesRead());
+        }
+    }
+
+    @Test
+    void csv_ShouldDecodeCharactersSplitAcrossBuffers() throws IOException {
+        StringBuilder csv = new StringBuilder("date,description,amount\n");
+        int records = 10_000;
+        for (int i = 0; i < records; i++) {
+            csv.append("2024-01-01,Café crème €").append(i).append(",1.00\n");
+        }
+
+        int read = 0;
+        try (StatementReader reader = new CsvStatementReader(channel(csv.toString()), "FOOD")) {
+            while (reader.next()) {
+                assertEquals("Café crème €" + read, reader.getRequest().getDescription());
+                read++;
+            }
+        }
+        assertEquals(records, read);
+    }
+
+    @Test
+    void csv_WithoutRequiredColumns_ShouldFail() {
+        StatementReader reader = new CsvStatementReader(channel("when,what,how much\n2024-01-01,x,1\n"), "OTHER");
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+    }
+
+    @Test
+    void ofx_ShouldTurnDebitsIntoExpensesAndSkipCredits() throws IOException {
+        String ofx = """
+                OFXHEADER:100
+                DATA:OFXSGML
+
+                <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS>
+                <CURDEF>USD
+                <BANKTRANLIST>
+                <STMTTRN>
+                <TRNTYPE>DEBIT
+                <DTPOSTED>20240305120000.000[-5:EST]
+                <TRNAMT>-12.34
+                <NAME>Coffee &amp; Co
+                </STMTTRN>
+                <STMTTRN>
+                <TRNTYPE>CREDIT
+                <DTPOSTED>20240306
+                <TRNAMT>2500.00
+                <NAME>Salary
+                </STMTTRN>
+                <STMTTRN>
+                <DTPOSTED>20240307
+                <TRNAMT>-oops
+                <MEMO>Broken
+                </STMTTRN>
+                <STMTTRN><DTPOSTED>20240308</DTPOSTED><TRNAMT>-5</TRNAMT><MEMO>Parking</MEMO></STMTTRN>
+                </BANKTRANLIST>
+                </STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+                """;
+
+        try (StatementReader reader = new OfxStatementReader(channel(ofx), "OTHER")) {
+            assertTrue(reader.next());
+            ExpenseRequestDto coffee = reader.getRequest();
+            assertEquals("Coffee & Co", coffee.getDescription());
+            assertEquals(Money.parse("12.34", Money.DEFAULT_CURRENCY), coffee.getAmount());
+            assertEquals(LocalDate.of(2024, 3, 5), coffee.getDate());
+            assertEquals("USD", coffee.getCurrency());
+            assertEquals("OTHER", coffee.getCategory());
+            assertEquals(7, reader.getLine());
+
+            assertTrue(reader.next());
+            assertNull(reader.getRequest());
+            assertNull(reader.getError());
+
+            assertTrue(reader.next());
+            assertEquals("Invalid TRNAMT '-oops'", reader.getError());
+            assertEquals(19, reader.getLine());
+
+            assertTrue(reader.next());
+            assertEquals("Parking", reader.getRequest().getDescription());
+            assertEquals(Money.parse("5", Money.DEFAULT_CURRENCY), reader.getRequest().getAmount());
+
+            assertFalse(reader.next());
+        }
+    }
+
+    private static ReadableByteChannel channel(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}